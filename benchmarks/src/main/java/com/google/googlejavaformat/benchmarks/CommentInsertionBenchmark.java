@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.benchmarks;
+
+import com.google.googlejavaformat.java.Formatter;
+import com.google.googlejavaformat.java.FormatterException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Formats comment-dense inputs, in which most tokens carry leading or trailing comments that {@link
+ * com.google.googlejavaformat.OpsBuilder#build} has to splice into the ops.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {
+      "--add-exports=jdk.compiler/com.sun.tools.javac.api=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.code=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.file=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.main=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.parser=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.tree=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.util=ALL-UNNAMED",
+    })
+public class CommentInsertionBenchmark {
+
+  /** The number of fields in the generated input. */
+  @Param({"100", "1000", "5000"})
+  int fields;
+
+  private final Formatter formatter = new Formatter();
+  private String source;
+
+  @Setup
+  public void setup() {
+    source = source(fields);
+  }
+
+  @Benchmark
+  public String formatSource() throws FormatterException {
+    return formatter.formatSource(source);
+  }
+
+  private static String source(int fields) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("/*\n * A license header.\n */\n\n");
+    sb.append("package p; // the package\n\n");
+    sb.append("/** A class with many comments. */\n");
+    sb.append("class Generated { // the class\n");
+    for (int i = 0; i < fields; i++) {
+      sb.append("  /** The field f").append(i).append(". */\n");
+      sb.append("  // a line comment\n");
+      sb.append("  /* a block comment */ private /* final */ int /* name: */ f").append(i);
+      sb.append(" = /* value= */ ").append(i).append(" + /* one */ 1; // trailing\n\n");
+    }
+    sb.append("} // end\n");
+    return sb.toString();
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.benchmarks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.reflect.ClassPath;
+import com.google.common.reflect.ClassPath.ResourceInfo;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** The sets of Java sources that {@link PipelineBenchmark} runs over. */
+public enum Corpus {
+
+  /**
+   * The inputs of the formatter's integration tests, which cover every kind of syntax at the sizes
+   * of typical source files. The build copies them into the benchmarks jar.
+   */
+  TESTDATA {
+    @Override
+    ImmutableList<String> load() throws IOException {
+      Map<String, String> sources = new TreeMap<>();
+      for (ResourceInfo resource : ClassPath.from(Corpus.class.getClassLoader()).getResources()) {
+        String name = resource.getResourceName();
+        if (name.startsWith(TESTDATA_PATH) && name.endsWith(".input")) {
+          sources.put(name, resource.asCharSource(UTF_8).read());
+        }
+      }
+      return ImmutableList.copyOf(sources.values());
+    }
+  },
+
+  /** Generated compilation units that are much larger than any in {@link #TESTDATA}. */
+  GENERATED {
+    @Override
+    ImmutableList<String> load() {
+      return ImmutableList.of(generate(500), generate(2000));
+    }
+  };
+
+  private static final String TESTDATA_PATH = "com/google/googlejavaformat/java/testdata/";
+
+  /** Returns the sources, in a fixed order. */
+  abstract ImmutableList<String> load() throws IOException;
+
+  /**
+   * Returns an unformatted class with {@code members} methods, which each have a Javadoc comment, a
+   * string literal longer than the column limit and a call chain, and with some unused and
+   * unsorted imports.
+   */
+  static String generate(int members) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("package com.example.generated;\n\n");
+    sb.append("import java.util.Map;\n");
+    sb.append("import java.util.List;\n");
+    sb.append("import static java.util.Objects.requireNonNull;\n");
+    sb.append("import java.util.ArrayList;\n");
+    sb.append("import java.util.concurrent.TimeUnit;\n");
+    sb.append("import java.util.Set;\n\n");
+    sb.append("/** A generated class. */\n");
+    sb.append("public class Generated {\n");
+    for (int i = 0; i < members; i++) {
+      sb.append("  /**\n");
+      sb.append("   * Returns the values for key ").append(i).append(", in the order that they");
+      sb.append(" were added, skipping\n   * any that are {@code null}.\n");
+      sb.append("   * <ul><li>one<li>two</ul>\n");
+      sb.append("   * @param values the values\n");
+      sb.append("   */\n");
+      sb.append("  public List<String> values").append(i).append("(Map<String, List<String>>");
+      sb.append(" values) {\n");
+      sb.append("    String message = \"the values for key ").append(i);
+      sb.append(" could not be found in the map of all values, which is a long message that");
+      sb.append(" does not fit on a single line of the output\";\n");
+      sb.append("    List<String> result = new ArrayList<>();\n");
+      sb.append("    requireNonNull(values.get(\"k").append(i).append("\"), message).stream()");
+      sb.append(".filter(v -> v != null).map(v -> v.trim() + \"").append(i).append("\")");
+      sb.append(".forEach(result::add);\n");
+      sb.append("    switch (result.size()) { case 0: return List.of();");
+      sb.append(" default: return result; }\n");
+      sb.append("  }\n\n");
+    }
+    sb.append("}\n");
+    return sb.toString();
+  }
+}
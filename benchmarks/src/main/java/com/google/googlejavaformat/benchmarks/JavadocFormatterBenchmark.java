@@ -0,0 +1,102 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.benchmarks;
+
+import com.google.googlejavaformat.java.javadoc.JavadocFormatter;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link JavadocFormatter} on generated comments in the style of API documentation: prose
+ * with inline tags, HTML lists and tables, code blocks, and block tags.
+ *
+ * <p>Run with {@code -prof gc} to also report the bytes allocated per comment, which {@code
+ * JavadocAllocationTest} guards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JavadocFormatterBenchmark {
+
+  /** The number of paragraphs in the generated comment. */
+  @Param({"1", "20"})
+  int paragraphs;
+
+  private String javadoc;
+
+  @Setup
+  public void setup() {
+    javadoc = javadoc(paragraphs);
+  }
+
+  @Benchmark
+  public String formatJavadoc() {
+    return JavadocFormatter.formatJavadoc(javadoc, 2);
+  }
+
+  private static String javadoc(int paragraphs) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("/**\n");
+    sb.append("   * Returns the {@code Widget} for the given {@link Key}, creating it if\n");
+    sb.append("   * needed.\n");
+    for (int i = 0; i < paragraphs; i++) {
+      sb.append("   *\n");
+      switch (i % 4) {
+        case 0 -> {
+          sb.append("   * <p>Widgets are cached by key, so repeated calls with an equal\n");
+          sb.append("   * key return the same instance. See {@linkplain #clear() clear}.\n");
+        }
+        case 1 -> {
+          sb.append("   * <ul>\n");
+          sb.append("   *   <li>{@code null} keys are rejected with an exception.\n");
+          sb.append("   *   <li>Keys must implement {@link Object#hashCode()} consistently.\n");
+          sb.append("   * </ul>\n");
+        }
+        case 2 -> {
+          sb.append("   * <pre>{@code\n");
+          sb.append("   * Widget w = widgets.get(Key.of(\"w").append(i).append("\"));\n");
+          sb.append("   * w.render();\n");
+          sb.append("   * }</pre>\n");
+        }
+        default -> {
+          sb.append("   * <table>\n");
+          sb.append("   *   <tr><th>Key</th><th>Widget</th></tr>\n");
+          sb.append("   *   <tr><td>k").append(i).append("</td><td>w").append(i);
+          sb.append("</td></tr>\n");
+          sb.append("   * </table>\n");
+        }
+      }
+    }
+    sb.append("   *\n");
+    sb.append("   * @param key the key of the widget, which must not be {@code null}\n");
+    sb.append("   * @return the widget\n");
+    sb.append("   * @throws IllegalStateException if the widget cannot be created\n");
+    sb.append("   */");
+    return sb.toString();
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.benchmarks;
+
+import com.google.googlejavaformat.java.FormatterException;
+import com.google.googlejavaformat.java.JavaInput;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures lexing a {@link JavaInput}. For small inputs the cost is dominated by setting up the
+ * javac lexer rather than by lexing itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {
+      "--add-exports=jdk.compiler/com.sun.tools.javac.api=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.code=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.file=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.main=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.parser=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.tree=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.util=ALL-UNNAMED",
+    })
+public class LexerBenchmark {
+
+  /** The number of methods in the generated input. */
+  @Param({"0", "10", "1000"})
+  int methods;
+
+  private String source;
+
+  @Setup
+  public void setup() {
+    source = source(methods);
+  }
+
+  @Benchmark
+  public JavaInput lex() throws FormatterException {
+    return new JavaInput(source);
+  }
+
+  private static String source(int methods) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("package p;\n\n");
+    sb.append("import java.util.List;\n\n");
+    sb.append("class Generated {\n");
+    for (int i = 0; i < methods; i++) {
+      sb.append("  /** Returns a value. */\n");
+      sb.append("  int m").append(i).append("(List<String> x) {\n");
+      sb.append("    // a comment\n");
+      sb.append("    return x.get(").append(i).append(").length() + \"\\u0041\".length();\n");
+      sb.append("  }\n\n");
+    }
+    sb.append("}\n");
+    return sb.toString();
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableRangeSet;
+import com.google.common.collect.Range;
+import com.google.googlejavaformat.Input;
+import com.google.googlejavaformat.java.Formatter;
+import com.google.googlejavaformat.java.FormatterException;
+import com.google.googlejavaformat.java.ImportOrderer;
+import com.google.googlejavaformat.java.JavaFormatterOptions;
+import com.google.googlejavaformat.java.JavaInput;
+import com.google.googlejavaformat.java.RemoveUnusedImports;
+import com.google.googlejavaformat.java.Replacement;
+import com.google.googlejavaformat.java.StringWrapper;
+import com.google.googlejavaformat.java.javadoc.JavadocFormatter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures each stage of formatting a file, over a {@link Corpus} of files. Each invocation
+ * processes the next file of the corpus, so the throughput is in files per millisecond and the
+ * sampled times are the latencies of individual files.
+ *
+ * <p>Run with {@code -prof gc} for the allocation rate of each stage, and with {@code -rf json -rff
+ * pipeline.json} to keep the results for comparison with later runs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {
+      "--add-exports=jdk.compiler/com.sun.tools.javac.api=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.code=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.file=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.main=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.parser=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.tree=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.util=ALL-UNNAMED",
+    })
+public class PipelineBenchmark {
+
+  @Param({"TESTDATA", "GENERATED"})
+  Corpus corpus;
+
+  private final Formatter formatter = new Formatter();
+
+  /** The sources of the corpus that every stage accepts on this JDK. */
+  private ImmutableList<String> sources;
+
+  /** The formatted sources, which {@link StringWrapper} expects. */
+  private ImmutableList<String> formatted;
+
+  /** The middle tenth of the lines of each source, as character ranges. */
+  private ImmutableList<ImmutableList<Range<Integer>>> partialRanges;
+
+  /** The Javadoc comments of each source, and the columns they start at. */
+  private ImmutableList<ImmutableList<Javadoc>> javadoc;
+
+  private int next;
+
+  private record Javadoc(String text, int column) {}
+
+  @Setup
+  public void setup() throws IOException {
+    ImmutableList.Builder<String> sources = ImmutableList.builder();
+    ImmutableList.Builder<String> formatted = ImmutableList.builder();
+    ImmutableList.Builder<ImmutableList<Range<Integer>>> partialRanges = ImmutableList.builder();
+    ImmutableList.Builder<ImmutableList<Javadoc>> javadoc = ImmutableList.builder();
+    for (String source : corpus.load()) {
+      String output;
+      try {
+        output = formatter.formatSourceAndFixImports(source);
+      } catch (FormatterException e) {
+        // Some inputs use syntax that needs a newer JDK than the one running the benchmark.
+        continue;
+      }
+      sources.add(source);
+      formatted.add(output);
+      partialRanges.add(middleTenth(source));
+      javadoc.add(javadoc(source));
+    }
+    this.sources = sources.build();
+    this.formatted = formatted.build();
+    this.partialRanges = partialRanges.build();
+    this.javadoc = javadoc.build();
+  }
+
+  /** Returns the index of the file to process next. */
+  private int next() {
+    int i = next;
+    next = (i + 1) % sources.size();
+    return i;
+  }
+
+  @Benchmark
+  public String formatSource() throws FormatterException {
+    return formatter.formatSource(sources.get(next()));
+  }
+
+  @Benchmark
+  public String formatSourcePartial() throws FormatterException {
+    int i = next();
+    return formatter.formatSource(sources.get(i), partialRanges.get(i));
+  }
+
+  @Benchmark
+  public ImmutableList<Replacement> getFormatReplacements() throws FormatterException {
+    int i = next();
+    return formatter.getFormatReplacements(sources.get(i), partialRanges.get(i));
+  }
+
+  @Benchmark
+  public String removeUnusedImports() throws FormatterException {
+    return RemoveUnusedImports.removeUnusedImports(sources.get(next()));
+  }
+
+  @Benchmark
+  public String reorderImports() throws FormatterException {
+    return ImportOrderer.reorderImports(
+        sources.get(next()), JavaFormatterOptions.defaultOptions().style());
+  }
+
+  @Benchmark
+  public String wrap() throws FormatterException {
+    return StringWrapper.wrap(formatted.get(next()), formatter);
+  }
+
+  @Benchmark
+  public void formatJavadoc(Blackhole blackhole) {
+    for (Javadoc comment : javadoc.get(next())) {
+      blackhole.consume(JavadocFormatter.formatJavadoc(comment.text(), comment.column()));
+    }
+  }
+
+  @Benchmark
+  public JavaInput lex() throws FormatterException {
+    return new JavaInput(sources.get(next()));
+  }
+
+  private static ImmutableList<Range<Integer>> middleTenth(String source) {
+    int lines = source.split("\n", -1).length;
+    int first = lines * 9 / 20;
+    ImmutableRangeSet<Integer> lineRange =
+        ImmutableRangeSet.of(Range.closedOpen(first, first + Math.max(1, lines / 10)));
+    return ImmutableList.copyOf(Formatter.lineRangesToCharRanges(source, lineRange).asRanges());
+  }
+
+  private static ImmutableList<Javadoc> javadoc(String source) {
+    List<Javadoc> javadoc = new ArrayList<>();
+    try {
+      for (Input.Token token : new JavaInput(source).getTokens()) {
+        for (Input.Tok tok : token.getToksBefore()) {
+          if (tok.isJavadocComment()) {
+            javadoc.add(new Javadoc(tok.getOriginalText(), tok.getColumn()));
+          }
+        }
+      }
+    } catch (FormatterException e) {
+      throw new AssertionError(e);
+    }
+    return ImmutableList.copyOf(javadoc);
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Range;
+import com.google.googlejavaformat.Input;
+import com.google.googlejavaformat.IntRangeSet;
+import com.google.googlejavaformat.java.FormatterException;
+import com.google.googlejavaformat.java.JavaInput;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the position lookups that {@link com.google.googlejavaformat.OpsBuilder} and partial
+ * formatting perform against a {@link JavaInput}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {
+      "--add-exports=jdk.compiler/com.sun.tools.javac.api=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.code=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.file=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.main=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.parser=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.tree=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.util=ALL-UNNAMED",
+    })
+public class PositionIndexBenchmark {
+
+  /** The number of methods in the generated input. */
+  @Param({"100", "1000", "10000"})
+  int methods;
+
+  private JavaInput input;
+
+  /** The start position of every token, in order. */
+  private int[] tokenPositions;
+
+  /** Arbitrary character positions, in random order. */
+  private int[] randomPositions;
+
+  private List<Range<Integer>> characterRanges;
+
+  @Setup
+  public void setup() throws FormatterException {
+    input = new JavaInput(source(methods));
+    List<? extends Input.Token> tokens = input.getTokens();
+    tokenPositions = new int[tokens.size()];
+    for (int i = 0; i < tokens.size(); i++) {
+      tokenPositions[i] = tokens.get(i).getTok().getPosition();
+    }
+    Random random = new Random(42);
+    int length = input.getText().length();
+    randomPositions = new int[tokens.size()];
+    for (int i = 0; i < randomPositions.length; i++) {
+      randomPositions[i] = random.nextInt(length);
+    }
+    ImmutableList.Builder<Range<Integer>> ranges = ImmutableList.builder();
+    for (int i = 0; i < 100; i++) {
+      int start = random.nextInt(length);
+      ranges.add(Range.closedOpen(start, Math.min(length, start + random.nextInt(200))));
+    }
+    characterRanges = ranges.build();
+  }
+
+  @Benchmark
+  public void positionColumn(Blackhole bh) {
+    for (int position : tokenPositions) {
+      bh.consume(input.getPositionColumn(position));
+    }
+  }
+
+  @Benchmark
+  public void positionToken(Blackhole bh) {
+    for (int position : randomPositions) {
+      bh.consume(input.getPositionToken(position));
+    }
+  }
+
+  @Benchmark
+  public IntRangeSet characterRangesToTokenRanges() throws FormatterException {
+    return input.characterRangesToTokenRanges(characterRanges);
+  }
+
+  private static String source(int methods) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("package p;\n\n");
+    sb.append("class Generated {\n");
+    for (int i = 0; i < methods; i++) {
+      sb.append("  /** Returns a value. */\n");
+      sb.append("  int m").append(i).append("(int x, String y) {\n");
+      sb.append("    // a comment\n");
+      sb.append("    return f(x, /* y= */ y.length(), ").append(i).append(") + x * 2;\n");
+      sb.append("  }\n\n");
+    }
+    sb.append("}\n");
+    return sb.toString();
+  }
+}
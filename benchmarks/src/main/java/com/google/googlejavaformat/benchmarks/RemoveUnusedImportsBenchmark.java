@@ -0,0 +1,97 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.benchmarks;
+
+import com.google.googlejavaformat.java.FormatterException;
+import com.google.googlejavaformat.java.RemoveUnusedImports;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link RemoveUnusedImports} on generated inputs whose imports are either all decided by
+ * the token-based usage index, or include one that is only used in javadoc and so needs a parse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {
+      "--add-exports=jdk.compiler/com.sun.tools.javac.api=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.code=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.file=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.main=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.parser=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.tree=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.util=ALL-UNNAMED",
+    })
+public class RemoveUnusedImportsBenchmark {
+
+  /** The number of methods in the generated input. */
+  @Param({"10", "1000"})
+  int methods;
+
+  /** Whether one of the imports is only used in javadoc. */
+  @Param({"false", "true"})
+  boolean javadocOnlyImport;
+
+  private String source;
+
+  @Setup
+  public void setup() {
+    source = source(methods, javadocOnlyImport);
+  }
+
+  @Benchmark
+  public String removeUnusedImports() throws FormatterException {
+    return RemoveUnusedImports.removeUnusedImports(source);
+  }
+
+  private static String source(int methods, boolean javadocOnlyImport) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("package p;\n\n");
+    sb.append("import java.util.ArrayList;\n");
+    sb.append("import java.util.List;\n");
+    sb.append("import java.util.Map;\n");
+    sb.append("import java.util.Set;\n");
+    sb.append("import static java.util.Objects.requireNonNull;\n\n");
+    if (javadocOnlyImport) {
+      sb.append("/** See {@link Set}. */\n");
+    }
+    sb.append("class Generated {\n");
+    for (int i = 0; i < methods; i++) {
+      sb.append("  /** Returns a list. */\n");
+      sb.append("  List<String> m").append(i).append("(String x) {\n");
+      sb.append("    List<String> result = new ArrayList<>();\n");
+      sb.append("    result.add(requireNonNull(x));\n");
+      sb.append("    return result;\n");
+      sb.append("  }\n\n");
+    }
+    sb.append("}\n");
+    return sb.toString();
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Decides whether formatting should be abandoned, for example because it has taken too long or the
+ * user has moved on. The visitor, the {@link OpsBuilder} and the layout {@link #check} it as they
+ * go, so formatting stops soon after a cancellation with a {@link FormattingError}.
+ */
+public final class Cancellation {
+
+  /** A {@code Cancellation} that never cancels formatting. */
+  public static final Cancellation NONE = new Cancellation(() -> false, "formatting was cancelled");
+
+  private final BooleanSupplier cancelled;
+  private final String message;
+
+  private Cancellation(BooleanSupplier cancelled, String message) {
+    this.cancelled = checkNotNull(cancelled);
+    this.message = message;
+  }
+
+  /**
+   * A {@code Cancellation} that cancels formatting once {@code cancelled} returns true, which it
+   * may do from any thread. For example, {@code Cancellation.of(Thread.currentThread()::
+   * isInterrupted)} stops formatting when the thread is interrupted.
+   */
+  public static Cancellation of(BooleanSupplier cancelled) {
+    return new Cancellation(cancelled, "formatting was cancelled");
+  }
+
+  /** A {@code Cancellation} that cancels formatting once {@code timeout} has passed from now. */
+  public static Cancellation timeout(Duration timeout) {
+    long deadline = System.nanoTime() + timeout.toNanos();
+    return new Cancellation(
+        () -> System.nanoTime() - deadline > 0, "formatting timed out after " + timeout);
+  }
+
+  /** Returns true if formatting should be abandoned. */
+  public boolean isCancelled() {
+    return cancelled.getAsBoolean();
+  }
+
+  /** Throws a {@link FormattingError} if formatting should be abandoned. */
+  public void check() {
+    if (isCancelled()) {
+      throw new FormattingError(FormatterDiagnostic.create(message));
+    }
+  }
+}
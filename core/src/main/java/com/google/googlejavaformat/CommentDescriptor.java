@@ -0,0 +1,165 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.googlejavaformat.Input.Tok;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * The facts about a comment {@link Tok} that don't depend on where the comment is output. The
+ * layout and the {@link CommentsHelper} consult them each time the comment is measured or
+ * rewritten, so they are computed once per comment; see {@link Tok#comment}.
+ */
+public final class CommentDescriptor {
+
+  private final int width;
+  private final String flat;
+  private final @Nullable String parameterComment;
+  private final boolean parameterNameComment;
+  private final ImmutableList<String> lines;
+
+  private CommentDescriptor(
+      int width,
+      String flat,
+      @Nullable String parameterComment,
+      boolean parameterNameComment,
+      ImmutableList<String> lines) {
+    this.width = width;
+    this.flat = flat;
+    this.parameterComment = parameterComment;
+    this.parameterNameComment = parameterNameComment;
+    this.lines = lines;
+  }
+
+  /** Analyses the comment {@code tok}. */
+  public static CommentDescriptor of(Tok tok) {
+    checkArgument(tok.isComment(), tok);
+    String text = tok.getOriginalText();
+    String parameterComment = null;
+    if (tok.isSlashStarComment()) {
+      Matcher match = CommentsHelper.PARAMETER_COMMENT.matcher(text);
+      if (match.matches()) {
+        parameterComment = String.format("/* %s= */", match.group(1));
+      }
+    }
+
+    String flat;
+    if (tok.isSlashSlashComment() && !text.startsWith("// ")) {
+      flat = "// " + text.substring("//".length());
+    } else {
+      flat = parameterComment != null ? parameterComment : text;
+    }
+
+    // Only count the first line of multi-line block comments.
+    int firstBreak = Newlines.firstBreak(text);
+    int width;
+    if (firstBreak > 0) {
+      width = firstBreak;
+    } else if (tok.isSlashSlashComment() && !text.startsWith("// ")) {
+      // Account for line comments with missing spaces, see flat.
+      width = text.length() + 1;
+    } else {
+      width = parameterComment != null ? parameterComment.length() : text.length();
+    }
+
+    ImmutableList<String> lines;
+    if (tok.isSlashSlashComment()) {
+      lines =
+          LineIndex.create(text).lines().stream()
+              .map(line -> addMissingSpace(CharMatcher.whitespace().trimFrom(line)))
+              .collect(toImmutableList());
+    } else {
+      lines = trimmedLines(text);
+    }
+
+    boolean parameterNameComment =
+        tok.isSlashStarComment() && PARAMETER_NAME_COMMENT.matcher(tok.getText()).matches();
+    return new CommentDescriptor(width, flat, parameterComment, parameterNameComment, lines);
+  }
+
+  /**
+   * The width of the comment's first line in the layout. For a line comment or parameter comment,
+   * this is the width of the {@link #flat} text.
+   */
+  public int width() {
+    return width;
+  }
+
+  /**
+   * The comment's text when it is laid out without being rewritten: line comments get a space after
+   * the {@code //}, and parameter comments are normalized to {@code /* name= *}{@code /}.
+   */
+  public String flat() {
+    return flat;
+  }
+
+  /**
+   * The normalized form of a {@code /* name= *}{@code /} parameter comment, or null if this isn't
+   * one.
+   */
+  public @Nullable String parameterComment() {
+    return parameterComment;
+  }
+
+  /**
+   * Whether the comment is of the form {@code /*name=*}{@code /}, in which case it is attached to
+   * the following token rather than the preceding one.
+   */
+  public boolean isParameterNameComment() {
+    return parameterNameComment;
+  }
+
+  /**
+   * The comment's lines, without trailing whitespace. The lines of a line comment are also
+   * stripped of leading whitespace, and have a space added after the {@code //} if it is missing.
+   */
+  public ImmutableList<String> lines() {
+    return lines;
+  }
+
+  /** Splits {@code text} into lines, without trailing whitespace. */
+  public static ImmutableList<String> trimmedLines(String text) {
+    return LineIndex.create(text).lines().stream()
+        .map(CharMatcher.whitespace()::trimTrailingFrom)
+        .collect(toImmutableList());
+  }
+
+  private static final Pattern PARAMETER_NAME_COMMENT =
+      Pattern.compile("\\/\\*[A-Za-z0-9\\s_\\-]+=\\s*\\*\\/");
+
+  // Preserve special `//noinspection` and `//$NON-NLS-x$` comments used by IDEs, which cannot
+  // contain leading spaces.
+  // Deveation: '//#comment' is preserved as well.
+  private static final Pattern LINE_COMMENT_MISSING_SPACE_PREFIX =
+      Pattern.compile("^(//+)(?!noinspection|\\$NON-NLS-\\d+\\$|#)[^\\s/]");
+
+  // Add missing leading spaces to line comments: `//foo` -> `// foo`.
+  private static String addMissingSpace(String line) {
+    Matcher matcher = LINE_COMMENT_MISSING_SPACE_PREFIX.matcher(line);
+    if (!matcher.find()) {
+      return line;
+    }
+    int length = matcher.group(1).length();
+    return Strings.repeat("/", length) + " " + line.substring(length);
+  }
+}
@@ -37,11 +37,7 @@ public interface CommentsHelper {
     if (!tok.isSlashStarComment()) {
       return Optional.empty();
     }
-    var match = PARAMETER_COMMENT.matcher(tok.getOriginalText());
-    if (!match.matches()) {
-      return Optional.empty();
-    }
-    return Optional.of(String.format("/* %s= */", match.group(1)));
+    return Optional.ofNullable(tok.comment().parameterComment());
   }
 
   Pattern PARAMETER_COMMENT =
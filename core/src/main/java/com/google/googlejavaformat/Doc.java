@@ -15,19 +15,21 @@
 package com.google.googlejavaformat;
 
 import static com.google.common.collect.Iterables.getLast;
-import static com.google.googlejavaformat.CommentsHelper.reformatParameterComment;
 import static java.lang.Math.max;
 
 import com.google.common.base.MoreObjects;
-import com.google.common.base.Supplier;
-import com.google.common.base.Suppliers;
 import com.google.common.collect.DiscreteDomain;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Range;
 import com.google.googlejavaformat.Output.BreakTag;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import org.jspecify.annotations.Nullable;
 
 /**
  * {@link com.google.googlejavaformat.java.JavaInputAstVisitor JavaInputAstVisitor} outputs a
@@ -37,6 +39,9 @@ import java.util.Optional;
  * Doc}s are {@link Token}s, representing language-level tokens; {@link Tok}s, which may also
  * represent non-token {@link Input.Tok}s, including comments and other white-space; {@link Space}s,
  * representing single spaces; and {@link Break}s, which represent optional line-breaks.
+ *
+ * <p>Generated code can nest {@link Level}s deeper than the Java stack allows recursion, so the
+ * methods that walk a whole {@code Doc} keep their own stack.
  */
 public abstract class Doc {
   /**
@@ -79,24 +84,36 @@ public abstract class Doc {
     final int indent;
     final int column;
     final boolean mustBreak;
+    final Cancellation cancellation;
 
-    State(int lastIndent, int indent, int column, boolean mustBreak) {
+    State(
+        int lastIndent, int indent, int column, boolean mustBreak, Cancellation cancellation) {
       this.lastIndent = lastIndent;
       this.indent = indent;
       this.column = column;
       this.mustBreak = mustBreak;
+      this.cancellation = cancellation;
     }
 
     public State(int indent0, int column0) {
-      this(indent0, indent0, column0, false);
+      this(indent0, column0, Cancellation.NONE);
+    }
+
+    /** Creates a starting state whose layout stops with a {@link FormattingError} if cancelled. */
+    public State(int indent0, int column0, Cancellation cancellation) {
+      this(indent0, indent0, column0, false, cancellation);
     }
 
     State withColumn(int column) {
-      return new State(lastIndent, indent, column, mustBreak);
+      return new State(lastIndent, indent, column, mustBreak, cancellation);
     }
 
     State withMustBreak(boolean mustBreak) {
-      return new State(lastIndent, indent, column, mustBreak);
+      return new State(lastIndent, indent, column, mustBreak, cancellation);
+    }
+
+    State withIndent(int indent) {
+      return new State(indent, indent, column, false, cancellation);
     }
 
     @Override
@@ -113,13 +130,14 @@ public abstract class Doc {
   private static final Range<Integer> EMPTY_RANGE = Range.closedOpen(-1, -1);
   private static final DiscreteDomain<Integer> INTEGERS = DiscreteDomain.integers();
 
-  private final Supplier<Integer> width = Suppliers.memoize(this::computeWidth);
+  // Memoized width.
+  private @Nullable Integer width;
 
   // Memoized flat; not defined (and never computed) if contains forced breaks.
-  private final Supplier<String> flat = Suppliers.memoize(this::computeFlat);
+  private @Nullable String flat;
 
   // Memoized Range.
-  private final Supplier<Range<Integer>> range = Suppliers.memoize(this::computeRange);
+  private @Nullable Range<Integer> range;
 
   /**
    * Return the width of a {@code Doc}.
@@ -127,7 +145,10 @@ public abstract class Doc {
    * @return the width
    */
   final int getWidth() {
-    return width.get();
+    if (width == null) {
+      width = computeWidth();
+    }
+    return width;
   }
 
   /**
@@ -137,7 +158,10 @@ public abstract class Doc {
    * @return the flat-string value
    */
   final String getFlat() {
-    return flat.get();
+    if (flat == null) {
+      flat = computeFlat();
+    }
+    return flat;
   }
 
   /**
@@ -146,7 +170,10 @@ public abstract class Doc {
    * @return the {@code Doc}'s {@link Range}
    */
   final Range<Integer> range() {
-    return range.get();
+    if (range == null) {
+      range = computeRange();
+    }
+    return range;
   }
 
   /**
@@ -210,13 +237,20 @@ public abstract class Doc {
       docs.add(doc);
     }
 
+    /** Returns the elements of the {@code Level}. */
+    List<Doc> getDocs() {
+      return docs;
+    }
+
     @Override
     int computeWidth() {
+      memoizeNested(doc -> doc.width != null, Doc::getWidth);
       return getWidth(docs);
     }
 
     @Override
     String computeFlat() {
+      memoizeNested(doc -> doc.flat != null, Doc::getFlat);
       StringBuilder builder = new StringBuilder();
       for (Doc doc : docs) {
         builder.append(doc.getFlat());
@@ -226,6 +260,7 @@ public abstract class Doc {
 
     @Override
     Range<Integer> computeRange() {
+      memoizeNested(doc -> doc.range != null, Doc::range);
       Range<Integer> docRange = EMPTY_RANGE;
       for (Doc doc : docs) {
         docRange = union(docRange, doc.range());
@@ -233,6 +268,32 @@ public abstract class Doc {
       return docRange;
     }
 
+    /**
+     * Memoizes a value of each of the levels nested in this one that hasn't been memoized yet,
+     * innermost first, so that computing the value of this level only reads memoized values of its
+     * elements, instead of recursing once per level of nesting.
+     *
+     * @param memoized whether the value of a {@link Doc} has been memoized
+     * @param memoize computes and memoizes the value of a {@link Doc}
+     */
+    private void memoizeNested(Predicate<Doc> memoized, Consumer<Doc> memoize) {
+      // Parents come before their children, so memoizing in reverse finds children memoized.
+      List<Level> nested = new ArrayList<>();
+      Deque<Level> stack = new ArrayDeque<>();
+      stack.push(this);
+      while (!stack.isEmpty()) {
+        for (Doc doc : stack.pop().docs) {
+          if (doc instanceof Level level && !memoized.test(level)) {
+            nested.add(level);
+            stack.push(level);
+          }
+        }
+      }
+      for (int i = nested.size() - 1; i >= 0; i--) {
+        memoize.accept(nested.get(i));
+      }
+    }
+
     // State that needs to be preserved between calculating breaks and
     // writing output.
     // TODO(cushon): represent phases as separate immutable data.
@@ -249,17 +310,104 @@ public abstract class Doc {
     /** {@link Break}s between {@link Doc}s in the current {@link Level}. */
     List<Break> breaks = new ArrayList<>();
 
+    /** A {@link Level} that is being laid out over several lines, and how far that has got. */
+    private static final class BrokenLevel {
+      final Level level;
+
+      /** The state that the level started in. */
+      final State outer;
+
+      /** The state after the last {@link Doc} laid out. */
+      State state;
+
+      /** The index of the split being laid out, and of its next {@link Doc}. */
+      int split;
+
+      int doc;
+
+      /** Whether the split fits on the rest of the line it starts on. */
+      boolean enoughRoom;
+
+      BrokenLevel(Level level, State outer, int maxWidth) {
+        this.level = level;
+        this.outer = outer;
+        this.state = outer.withIndent(outer.indent + level.plusIndent.eval());
+        splitByBreaks(level.docs, level.splits, level.breaks);
+        startSplit(0, maxWidth);
+      }
+
+      /** Lays out the {@link Break} before the split {@code split}, and starts the split. */
+      void startSplit(int split, int maxWidth) {
+        Optional<Break> optBreakDoc =
+            split == 0 ? Optional.empty() : Optional.of(level.breaks.get(split - 1));
+        int breakWidth = optBreakDoc.isPresent() ? optBreakDoc.get().getWidth() : 0;
+        int splitWidth = getWidth(level.splits.get(split));
+        boolean shouldBreak =
+            (optBreakDoc.isPresent() && optBreakDoc.get().fillMode == FillMode.UNIFIED)
+                || state.mustBreak
+                || state.column + breakWidth + splitWidth > maxWidth;
+
+        if (optBreakDoc.isPresent()) {
+          state = optBreakDoc.get().computeBreaks(state, state.lastIndent, shouldBreak);
+        }
+        enoughRoom = state.column + splitWidth <= maxWidth;
+        state = state.withMustBreak(false);
+        this.split = split;
+        this.doc = 0;
+      }
+    }
+
     @Override
     public State computeBreaks(CommentsHelper commentsHelper, int maxWidth, State state) {
+      State oneLineState = computeOneLine(maxWidth, state);
+      if (oneLineState != null) {
+        return oneLineState;
+      }
+      // The levels being broken, innermost first.
+      Deque<BrokenLevel> stack = new ArrayDeque<>();
+      stack.push(new BrokenLevel(this, state, maxWidth));
+      while (true) {
+        BrokenLevel broken = stack.peek();
+        List<Doc> split = broken.level.splits.get(broken.split);
+        if (broken.doc < split.size()) {
+          Doc doc = split.get(broken.doc++);
+          if (!(doc instanceof Level level)) {
+            broken.state = doc.computeBreaks(commentsHelper, maxWidth, broken.state);
+          } else if ((oneLineState = level.computeOneLine(maxWidth, broken.state)) != null) {
+            broken.state = oneLineState;
+          } else {
+            stack.push(new BrokenLevel(level, broken.state, maxWidth));
+          }
+          continue;
+        }
+        if (!broken.enoughRoom) {
+          broken.state = broken.state.withMustBreak(true); // Break after, too.
+        }
+        if (broken.split < broken.level.breaks.size()) {
+          broken.startSplit(broken.split + 1, maxWidth);
+          continue;
+        }
+        stack.pop();
+        State after = broken.outer.withColumn(broken.state.column);
+        if (stack.isEmpty()) {
+          return after;
+        }
+        stack.peek().state = after;
+      }
+    }
+
+    /**
+     * Lays out this level on one line if it fits, returning the state after it, or returns {@code
+     * null} if it needs to be broken.
+     */
+    private @Nullable State computeOneLine(int maxWidth, State state) {
       int thisWidth = getWidth();
       if (state.column + thisWidth <= maxWidth) {
         oneLine = true;
         return state.withColumn(state.column + thisWidth);
       }
-      State broken =
-          computeBroken(
-              commentsHelper, maxWidth, new State(state.indent + plusIndent.eval(), state.column));
-      return state.withColumn(broken.column);
+      state.cancellation.check();
+      return null;
     }
 
     private static void splitByBreaks(List<Doc> docs, List<List<Doc>> splits, List<Break> breaks) {
@@ -276,75 +424,22 @@ public abstract class Doc {
       }
     }
 
-    /** Compute breaks for a {@link Level} that spans multiple lines. */
-    private State computeBroken(CommentsHelper commentsHelper, int maxWidth, State state) {
-      splitByBreaks(docs, splits, breaks);
-
-      state =
-          computeBreakAndSplit(
-              commentsHelper, maxWidth, state, /* optBreakDoc= */ Optional.empty(), splits.get(0));
-
-      // Handle following breaks and split.
-      for (int i = 0; i < breaks.size(); i++) {
-        state =
-            computeBreakAndSplit(
-                commentsHelper, maxWidth, state, Optional.of(breaks.get(i)), splits.get(i + 1));
-      }
-      return state;
-    }
-
-    /** Lay out a Break-separated group of Docs in the current Level. */
-    private static State computeBreakAndSplit(
-        CommentsHelper commentsHelper,
-        int maxWidth,
-        State state,
-        Optional<Break> optBreakDoc,
-        List<Doc> split) {
-      int breakWidth = optBreakDoc.isPresent() ? optBreakDoc.get().getWidth() : 0;
-      int splitWidth = getWidth(split);
-      boolean shouldBreak =
-          (optBreakDoc.isPresent() && optBreakDoc.get().fillMode == FillMode.UNIFIED)
-              || state.mustBreak
-              || state.column + breakWidth + splitWidth > maxWidth;
-
-      if (optBreakDoc.isPresent()) {
-        state = optBreakDoc.get().computeBreaks(state, state.lastIndent, shouldBreak);
-      }
-      boolean enoughRoom = state.column + splitWidth <= maxWidth;
-      state = computeSplit(commentsHelper, maxWidth, split, state.withMustBreak(false));
-      if (!enoughRoom) {
-        state = state.withMustBreak(true); // Break after, too.
-      }
-      return state;
-    }
-
-    private static State computeSplit(
-        CommentsHelper commentsHelper, int maxWidth, List<Doc> docs, State state) {
-      for (Doc doc : docs) {
-        state = doc.computeBreaks(commentsHelper, maxWidth, state);
-      }
-      return state;
-    }
-
     @Override
     public void write(Output output) {
-      if (oneLine) {
-        output.append(getFlat(), range()); // This is defined because width is finite.
-      } else {
-        writeFilled(output);
-      }
-    }
-
-    private void writeFilled(Output output) {
-      // Handle first split.
-      for (Doc doc : splits.get(0)) {
-        doc.write(output);
-      }
-      // Handle following breaks and split.
-      for (int i = 0; i < breaks.size(); i++) {
-        breaks.get(i).write(output);
-        for (Doc doc : splits.get(i + 1)) {
+      // The Docs left to write, next first.
+      Deque<Doc> stack = new ArrayDeque<>();
+      stack.push(this);
+      while (!stack.isEmpty()) {
+        Doc doc = stack.pop();
+        if (!(doc instanceof Level level)) {
           doc.write(output);
+        } else if (level.oneLine) {
+          output.append(level.getFlat(), level.range()); // This is defined because width is finite.
+        } else {
+          // The splits and breaks of a broken level, in order, are its elements.
+          for (int i = level.docs.size() - 1; i >= 0; i--) {
+            stack.push(level.docs.get(i));
+          }
         }
       }
     }
@@ -719,19 +814,10 @@ public abstract class Doc {
 
     @Override
     int computeWidth() {
-      int idx = Newlines.firstBreak(tok.getOriginalText());
-      // only count the first line of multi-line block comments
       if (tok.isComment()) {
-        if (idx > 0) {
-          return idx;
-        } else if (tok.isSlashSlashComment() && !tok.getOriginalText().startsWith("// ")) {
-          // Account for line comments with missing spaces, see computeFlat.
-          return tok.length() + 1;
-        } else {
-          return reformatParameterComment(tok).map(String::length).orElse(tok.length());
-        }
+        return tok.comment().width();
       }
-      return idx != -1 ? MAX_LINE_WIDTH : tok.length();
+      return Newlines.containsBreaks(tok.getOriginalText()) ? MAX_LINE_WIDTH : tok.length();
     }
 
     @Override
@@ -739,10 +825,7 @@ public abstract class Doc {
       // TODO(cushon): commentsHelper.rewrite doesn't get called for spans that fit in a single
       // line. That's fine for multi-line comment reflowing, but problematic for adding missing
       // spaces in line comments.
-      if (tok.isSlashSlashComment() && !tok.getOriginalText().startsWith("// ")) {
-        return "// " + tok.getOriginalText().substring("//".length());
-      }
-      return reformatParameterComment(tok).orElse(tok.getOriginalText());
+      return tok.isComment() ? tok.comment().flat() : tok.getOriginalText();
     }
 
     @Override
@@ -41,6 +41,9 @@ public final class DocBuilder {
    */
   private Doc.Level appendLevel = base;
 
+  /** The number of {@link Doc}s added so far, including {@link #base}. */
+  private int docCount = 1;
+
   /** Start to build a {@code DocBuilder}. */
   public DocBuilder() {
     stack.addLast(base);
@@ -67,6 +70,7 @@ public final class DocBuilder {
   void open(Indent plusIndent) {
     Doc.Level level = Doc.Level.make(plusIndent);
     stack.addLast(level);
+    docCount++;
   }
 
   /** Close the current {@link Doc.Level}. */
@@ -82,6 +86,7 @@ public final class DocBuilder {
    */
   void add(Doc doc) {
     appendLevel.add(doc);
+    docCount++;
   }
 
   /**
@@ -92,6 +97,7 @@ public final class DocBuilder {
   void breakDoc(Doc.Break breakDoc) {
     appendLevel = stack.peekLast();
     appendLevel.add(breakDoc);
+    docCount++;
   }
 
   /**
@@ -103,6 +109,11 @@ public final class DocBuilder {
     return base;
   }
 
+  /** Returns the number of {@link Doc}s in the built {@link Doc}, including its levels. */
+  public int docCount() {
+    return docCount;
+  }
+
   @Override
   public String toString() {
     return MoreObjects.toStringHelper(this)
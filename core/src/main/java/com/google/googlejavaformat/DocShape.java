@@ -0,0 +1,109 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Counts the {@link Doc}s of a document that has been laid out, grouped by the input tok that each
+ * starts at, to show which parts of an input made it expensive to lay out.
+ */
+public final class DocShape {
+
+  /** The counts of one group of {@link Doc}s. */
+  public static final class Counts {
+    private int docs;
+    private int maxDepth;
+    private int brokenLevels;
+    private int oneLineLevels;
+
+    /** Returns the number of {@link Doc}s, including levels. */
+    public int docs() {
+      return docs;
+    }
+
+    /** Returns the deepest nesting of a level, counting the root of the document as depth 0. */
+    public int maxDepth() {
+      return maxDepth;
+    }
+
+    /**
+     * Returns the number of levels that layout visited, calling {@link Doc#computeBreaks} once for
+     * each. The levels inside a level that fits on one line aren't visited.
+     */
+    public int levelsLaidOut() {
+      return brokenLevels + oneLineLevels;
+    }
+
+    /** Returns the number of levels that were laid out over several lines. */
+    public int brokenLevels() {
+      return brokenLevels;
+    }
+
+    /** Returns the number of levels that were laid out on one line. */
+    public int oneLineLevels() {
+      return oneLineLevels;
+    }
+  }
+
+  private record Frame(Doc doc, int depth, Object key, boolean laidOut) {}
+
+  private DocShape() {}
+
+  /**
+   * Counts the {@link Doc}s of {@code doc}, which must have been laid out, grouped by the key that
+   * {@code keyOfTok} returns for the index of the first tok of each. {@link Doc}s without toks are
+   * counted with their enclosing level.
+   *
+   * @return the counts of each key, in the order the keys were first seen
+   */
+  public static <K> Map<K, Counts> count(Doc doc, IntFunction<K> keyOfTok) {
+    Map<K, Counts> counts = new LinkedHashMap<>();
+    // An explicit stack, since documents can be deeper than the Java stack allows recursion.
+    Deque<Frame> stack = new ArrayDeque<>();
+    stack.push(new Frame(doc, 0, keyOfTok.apply(0), /* laidOut= */ true));
+    while (!stack.isEmpty()) {
+      Frame frame = stack.pop();
+      @SuppressWarnings("unchecked") // Keys come from keyOfTok, or from a parent frame.
+      K key =
+          frame.doc().range().isEmpty()
+              ? (K) frame.key()
+              : keyOfTok.apply(frame.doc().range().lowerEndpoint());
+      Counts groupCounts = counts.computeIfAbsent(key, k -> new Counts());
+      groupCounts.docs++;
+      if (!(frame.doc() instanceof Doc.Level level)) {
+        continue;
+      }
+      groupCounts.maxDepth = Math.max(groupCounts.maxDepth, frame.depth());
+      boolean childrenLaidOut = false;
+      if (frame.laidOut()) {
+        if (level.oneLine) {
+          groupCounts.oneLineLevels++;
+        } else {
+          groupCounts.brokenLevels++;
+          childrenLaidOut = true;
+        }
+      }
+      for (int i = level.getDocs().size() - 1; i >= 0; i--) {
+        stack.push(new Frame(level.getDocs().get(i), frame.depth() + 1, key, childrenLaidOut));
+      }
+    }
+    return counts;
+  }
+}
@@ -16,8 +16,7 @@ package com.google.googlejavaformat;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableRangeMap;
+import org.jspecify.annotations.Nullable;
 
 /** An input to the formatter. */
 public abstract class Input extends InputOutput {
@@ -71,6 +70,15 @@ public abstract class Input extends InputOutput {
 
     /** Is the {@code Tok} a comment? */
     boolean isComment();
+
+    /**
+     * The analysis of a comment {@code Tok}. Implementations should compute it only once.
+     *
+     * @throws IllegalArgumentException if the {@code Tok} isn't a comment
+     */
+    default CommentDescriptor comment() {
+      return CommentDescriptor.of(this);
+    }
   }
 
   /** A {@code Token} is a language-level token. */
@@ -104,10 +112,17 @@ public abstract class Input extends InputOutput {
    */
   public abstract ImmutableList<? extends Token> getTokens();
 
-  /** A map from [start, end] position ranges to {@link Token}s. */
-  public abstract ImmutableRangeMap<Integer, ? extends Token> getPositionTokenMap();
+  /**
+   * Returns the {@link Token} whose [start, end] position range, including its attached {@link
+   * Tok}s, contains {@code position}, or {@code null} if there is none.
+   */
+  public abstract @Nullable Token getPositionToken(int position);
 
-  public abstract ImmutableMap<Integer, Integer> getPositionToColumnMap();
+  /**
+   * Returns the column of the {@link Tok} starting at {@code position}, or {@code -1} if no {@link
+   * Tok} starts there.
+   */
+  public abstract int getPositionColumn(int position);
 
   public abstract String getText();
 
@@ -24,13 +24,13 @@ import java.util.Map;
 
 /** This interface defines methods common to an {@link Input} or an {@link Output}. */
 public abstract class InputOutput {
-  private ImmutableList<String> lines = ImmutableList.of();
+  private List<? extends CharSequence> lines = ImmutableList.of();
 
   protected static final Range<Integer> EMPTY_RANGE = Range.closedOpen(-1, -1);
   private static final DiscreteDomain<Integer> INTEGERS = DiscreteDomain.integers();
 
   /** Set the lines. */
-  protected final void setLines(ImmutableList<String> lines) {
+  protected final void setLines(List<? extends CharSequence> lines) {
     this.lines = lines;
   }
 
@@ -50,7 +50,7 @@ public abstract class InputOutput {
    * @return the line
    */
   public final String getLine(int lineI) {
-    return lines.get(lineI);
+    return lines.get(lineI).toString();
   }
 
   /** The {@link Range}s of the tokens or comments lying on each line, in any part. */
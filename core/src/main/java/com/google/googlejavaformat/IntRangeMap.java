@@ -0,0 +1,164 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Range;
+import java.util.Arrays;
+
+/**
+ * A map from disjoint, half-open {@code int} ranges to values, kept sorted in arrays. This is a
+ * replacement for {@code TreeRangeMap<Integer, V>} for the formatter's internal replacement maps,
+ * which avoids boxing and tree nodes.
+ *
+ * <p>As with {@code TreeRangeMap.put}, putting a range overwrites the parts of any existing ranges
+ * it overlaps; the rest of those ranges keep their old values.
+ */
+public final class IntRangeMap<V> {
+
+  // The i-th entry maps the half-open range [lows[i], highs[i]) to values[i].
+  private int[] lows = new int[8];
+  private int[] highs = new int[8];
+  private Object[] values = new Object[8];
+  private int size = 0;
+
+  /** Creates an empty {@link IntRangeMap}. */
+  public static <V> IntRangeMap<V> create() {
+    return new IntRangeMap<>();
+  }
+
+  private IntRangeMap() {}
+
+  /** Maps the half-open range {@code [lo, hi)} to {@code value}. Empty ranges are ignored. */
+  public void put(int lo, int hi, V value) {
+    if (lo >= hi) {
+      return;
+    }
+    // The entries in [first, last) overlap the new range.
+    int first = Arrays.binarySearch(highs, 0, size, lo);
+    first = first >= 0 ? first + 1 : -first - 1;
+    int last = first;
+    while (last < size && lows[last] < hi) {
+      last++;
+    }
+    boolean keepLeft = first < last && lows[first] < lo;
+    boolean keepRight = first < last && highs[last - 1] > hi;
+    int leftLow = keepLeft ? lows[first] : 0;
+    Object leftValue = keepLeft ? values[first] : null;
+    int rightHigh = keepRight ? highs[last - 1] : 0;
+    Object rightValue = keepRight ? values[last - 1] : null;
+
+    int inserted = 1 + (keepLeft ? 1 : 0) + (keepRight ? 1 : 0);
+    int newSize = size - (last - first) + inserted;
+    ensureCapacity(newSize);
+    System.arraycopy(lows, last, lows, first + inserted, size - last);
+    System.arraycopy(highs, last, highs, first + inserted, size - last);
+    System.arraycopy(values, last, values, first + inserted, size - last);
+    int i = first;
+    if (keepLeft) {
+      set(i++, leftLow, lo, leftValue);
+    }
+    set(i++, lo, hi, value);
+    if (keepRight) {
+      set(i, hi, rightHigh, rightValue);
+    }
+    if (newSize < size) {
+      Arrays.fill(values, newSize, size, null);
+    }
+    size = newSize;
+  }
+
+  private void set(int i, int lo, int hi, Object value) {
+    lows[i] = lo;
+    highs[i] = hi;
+    values[i] = value;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > lows.length) {
+      int newLength = Math.max(capacity, lows.length * 2);
+      lows = Arrays.copyOf(lows, newLength);
+      highs = Arrays.copyOf(highs, newLength);
+      values = Arrays.copyOf(values, newLength);
+    }
+  }
+
+  /** Returns the number of entries. */
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Returns the inclusive lower endpoint of the {@code i}-th entry's range. */
+  public int getLowerEndpoint(int i) {
+    checkElementIndex(i, size);
+    return lows[i];
+  }
+
+  /** Returns the exclusive upper endpoint of the {@code i}-th entry's range. */
+  public int getUpperEndpoint(int i) {
+    checkElementIndex(i, size);
+    return highs[i];
+  }
+
+  /** Returns the {@code i}-th entry's value. */
+  @SuppressWarnings("unchecked") // only Vs are stored
+  public V getValue(int i) {
+    checkElementIndex(i, size);
+    return (V) values[i];
+  }
+
+  /** Returns the entries' ranges, in order, as Guava {@link Range}s. */
+  public ImmutableList<Range<Integer>> ranges() {
+    ImmutableList.Builder<Range<Integer>> result = ImmutableList.builderWithExpectedSize(size);
+    for (int i = 0; i < size; i++) {
+      result.add(Range.closedOpen(lows[i], highs[i]));
+    }
+    return result.build();
+  }
+
+  /**
+   * Returns {@code text} with the text in each entry's range replaced by its value. The ranges are
+   * replaced in descending order, so replacements that differ in length from the text they replace
+   * don't perturb the remaining ranges.
+   */
+  public static String applyReplacements(String text, IntRangeMap<String> replacements) {
+    if (replacements.isEmpty()) {
+      return text;
+    }
+    StringBuilder sb = new StringBuilder(text);
+    for (int i = replacements.size() - 1; i >= 0; i--) {
+      sb.replace(replacements.lows[i], replacements.highs[i], (String) replacements.values[i]);
+    }
+    return sb.toString();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append('[').append(lows[i]).append("..").append(highs[i]).append(")=").append(values[i]);
+    }
+    return sb.append('}').toString();
+  }
+}
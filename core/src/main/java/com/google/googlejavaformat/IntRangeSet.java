@@ -0,0 +1,153 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+import java.util.Arrays;
+
+/**
+ * A set of disjoint {@code int} ranges, kept sorted in primitive arrays. This is a replacement for
+ * {@code TreeRangeSet<Integer>} for the formatter's internal token and character ranges, which
+ * avoids boxing and tree nodes.
+ *
+ * <p>Like a {@link RangeSet}, added ranges are coalesced with the ranges they are connected to.
+ * Ranges added with {@link #add} are half-open, and are coalesced with ranges they overlap or abut.
+ * Ranges added with {@link #addClosed} are closed, and are only coalesced with ranges they overlap,
+ * so {@code [1, 2]} and {@code [3, 4]} stay separate.
+ */
+public final class IntRangeSet {
+
+  // The i-th range is the closed range [lows[i], highs[i]].
+  private int[] lows = new int[8];
+  private int[] highs = new int[8];
+  private int size = 0;
+
+  /** Creates an empty {@link IntRangeSet}. */
+  public static IntRangeSet create() {
+    return new IntRangeSet();
+  }
+
+  /**
+   * Creates an {@link IntRangeSet} containing the canonical forms of the given ranges. Ranges
+   * without an upper bound are clipped to end before {@link Integer#MAX_VALUE}.
+   */
+  public static IntRangeSet copyOf(RangeSet<Integer> rangeSet) {
+    IntRangeSet result = new IntRangeSet();
+    for (Range<Integer> range : rangeSet.asRanges()) {
+      Range<Integer> canonical = range.canonical(DiscreteDomain.integers());
+      result.add(
+          canonical.hasLowerBound() ? canonical.lowerEndpoint() : Integer.MIN_VALUE,
+          canonical.hasUpperBound() ? canonical.upperEndpoint() : Integer.MAX_VALUE);
+    }
+    return result;
+  }
+
+  private IntRangeSet() {}
+
+  /** Adds the half-open range {@code [lo, hi)}. Empty ranges are ignored. */
+  public void add(int lo, int hi) {
+    if (lo >= hi) {
+      return;
+    }
+    // Coalesce with every range [l, h] with l <= hi and h >= lo - 1, without overflowing.
+    insert(lo, hi - 1, lo == Integer.MIN_VALUE ? lo : lo - 1, hi);
+  }
+
+  /** Adds the closed range {@code [lo, hi]}. */
+  public void addClosed(int lo, int hi) {
+    if (lo > hi) {
+      throw new IllegalArgumentException(String.format("invalid range [%d, %d]", lo, hi));
+    }
+    // Coalesce with every range [l, h] with l <= hi and h >= lo.
+    insert(lo, hi, lo, hi);
+  }
+
+  private void insert(int lo, int hi, int minHigh, int maxLow) {
+    // The first range that could be connected, and one past the last.
+    int first = firstIndexWithHighAtLeast(minHigh);
+    int last = first;
+    while (last < size && lows[last] <= maxLow) {
+      last++;
+    }
+    if (first < last) {
+      lo = Math.min(lo, lows[first]);
+      hi = Math.max(hi, highs[last - 1]);
+    }
+    int newSize = size - (last - first) + 1;
+    if (newSize > lows.length) {
+      lows = Arrays.copyOf(lows, Math.max(newSize, lows.length * 2));
+      highs = Arrays.copyOf(highs, lows.length);
+    }
+    System.arraycopy(lows, last, lows, first + 1, size - last);
+    System.arraycopy(highs, last, highs, first + 1, size - last);
+    lows[first] = lo;
+    highs[first] = hi;
+    size = newSize;
+  }
+
+  /** Returns the index of the first range whose (inclusive) upper bound is {@code >= value}. */
+  private int firstIndexWithHighAtLeast(int value) {
+    int i = Arrays.binarySearch(highs, 0, size, value);
+    return i >= 0 ? i : -i - 1;
+  }
+
+  /** Returns true if {@code value} is in one of the ranges. */
+  public boolean contains(int value) {
+    return indexOf(value) >= 0;
+  }
+
+  /** Returns the index of the range containing {@code value}, or {@code -1}. */
+  public int indexOf(int value) {
+    int i = firstIndexWithHighAtLeast(value);
+    return i < size && lows[i] <= value ? i : -1;
+  }
+
+  /** Returns the number of disjoint ranges. */
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Returns the inclusive lower endpoint of the {@code i}-th range. */
+  public int getLowerEndpoint(int i) {
+    checkElementIndex(i, size);
+    return lows[i];
+  }
+
+  /** Returns the exclusive upper endpoint of the {@code i}-th range. */
+  public int getUpperEndpoint(int i) {
+    checkElementIndex(i, size);
+    return highs[i] + 1;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append('[').append(lows[i]).append("..").append(highs[i]).append(']');
+    }
+    return sb.append(']').toString();
+  }
+}
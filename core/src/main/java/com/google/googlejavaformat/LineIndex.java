@@ -0,0 +1,129 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+import java.nio.CharBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An immutable index of the line start offsets in a text, for converting between character offsets
+ * and {@code 0}-based line numbers.
+ *
+ * <p>Lines are delimited as in {@link Newlines#lineOffsetIterator}: every line break starts a new
+ * line, so a text that is empty or ends with a line break has a final empty line.
+ */
+public final class LineIndex {
+
+  private final String text;
+  private final int[] lineStarts;
+
+  private LineIndex(String text, int[] lineStarts) {
+    this.text = text;
+    this.lineStarts = lineStarts;
+  }
+
+  /** Creates a {@link LineIndex} for the given text. */
+  public static LineIndex create(String text) {
+    int[] lineStarts = new int[16];
+    int lineCount = 1; // lineStarts[0] == 0
+    int length = text.length();
+    for (int i = 0; i < length; i++) {
+      char c = text.charAt(i);
+      switch (c) {
+        case '\r':
+          if (i + 1 < length && text.charAt(i + 1) == '\n') {
+            i++;
+          }
+        // falls through
+        case '\n':
+          if (lineCount == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+          }
+          lineStarts[lineCount++] = i + 1;
+          break;
+        default:
+          break;
+      }
+    }
+    return new LineIndex(text, Arrays.copyOf(lineStarts, lineCount));
+  }
+
+  /** Returns the indexed text. */
+  public String getText() {
+    return text;
+  }
+
+  /** Returns the number of lines, including a final empty line. */
+  public int getLineCount() {
+    return lineStarts.length;
+  }
+
+  /** Returns the offset of the first character of the given line. */
+  public int getLineStart(int line) {
+    return lineStarts[line];
+  }
+
+  /** Returns the offset just past the end of the given line, including its line break. */
+  public int getLineEnd(int line) {
+    return line + 1 < lineStarts.length ? lineStarts[line + 1] : text.length();
+  }
+
+  /**
+   * Returns the {@code 0}-based line containing the given offset, or {@code -1} if the offset is
+   * negative. Offsets past the end of the text belong to the last line.
+   */
+  public int getLineNumber(int offset) {
+    int i = Arrays.binarySearch(lineStarts, offset);
+    return i >= 0 ? i : -i - 2;
+  }
+
+  /** Returns the {@code 0}-based column of the given offset within its line. */
+  public int getColumnNumber(int offset) {
+    return offset - lineStarts[getLineNumber(offset)];
+  }
+
+  /** Returns a view of the given line, including its line break, that does not copy the text. */
+  public CharSequence getLine(int line) {
+    checkElementIndex(line, lineStarts.length);
+    return CharBuffer.wrap(text, lineStarts[line], getLineEnd(line));
+  }
+
+  /**
+   * Returns views of the non-empty lines, including their line breaks. This omits the final empty
+   * line, and so matches {@link Newlines#lineIterator}.
+   */
+  public List<CharSequence> lines() {
+    return new Lines();
+  }
+
+  private final class Lines extends AbstractList<CharSequence> implements RandomAccess {
+    @Override
+    public CharSequence get(int line) {
+      checkElementIndex(line, size());
+      return getLine(line);
+    }
+
+    @Override
+    public int size() {
+      int last = lineStarts.length - 1;
+      return lineStarts[last] == text.length() ? last : lineStarts.length;
+    }
+  }
+}
@@ -20,15 +20,14 @@ import static java.lang.Math.min;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
-import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Multimap;
 import com.google.googlejavaformat.Indent.Const;
 import com.google.googlejavaformat.Input.Tok;
 import com.google.googlejavaformat.Input.Token;
 import com.google.googlejavaformat.Output.BreakTag;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -40,14 +39,14 @@ public final class OpsBuilder {
 
   /** Returns the actual size of the AST node at position, including comments. */
   public int actualSize(int position, int length) {
-    Token startToken = input.getPositionTokenMap().get(position);
+    Token startToken = input.getPositionToken(position);
     int start = startToken.getTok().getPosition();
     for (Tok tok : startToken.getToksBefore()) {
       if (tok.isComment()) {
         start = min(start, tok.getPosition());
       }
     }
-    Token endToken = input.getPositionTokenMap().get(position + length - 1);
+    Token endToken = input.getPositionToken(position + length - 1);
     int end = endToken.getTok().getPosition() + endToken.getTok().length();
     for (Tok tok : endToken.getToksAfter()) {
       if (tok.isComment()) {
@@ -59,7 +58,7 @@ public final class OpsBuilder {
 
   /** Returns the start column of the token at {@code position}, including leading comments. */
   public Integer actualStartColumn(int position) {
-    Token startToken = input.getPositionTokenMap().get(position);
+    Token startToken = input.getPositionToken(position);
     int start = startToken.getTok().getPosition();
     int line0 = input.getLineNumber(start);
     for (Tok tok : startToken.getToksBefore()) {
@@ -150,8 +149,12 @@ public final class OpsBuilder {
   private final Input input;
   private final List<Op> ops = new ArrayList<>();
   private final Output output;
+  private final Cancellation cancellation;
   private static final Indent.Const ZERO = Indent.Const.ZERO;
 
+  /** The number of ops {@link #build} rewrites between checks for cancellation. */
+  private static final int CANCELLATION_INTERVAL = 1024;
+
   private int tokenI = 0;
   private int inputPosition = Integer.MIN_VALUE;
 
@@ -185,8 +188,26 @@ public final class OpsBuilder {
    * @param output the {@link Output}, used here only to record blank-line information
    */
   public OpsBuilder(Input input, Output output) {
+    this(input, output, Cancellation.NONE);
+  }
+
+  /**
+   * An {@code OpsBuilder} that stops with a {@link FormattingError} once {@code cancellation} is
+   * cancelled.
+   *
+   * @param input the {@link Input}, used for retrieve information from the AST
+   * @param output the {@link Output}, used here only to record blank-line information
+   * @param cancellation the {@link Cancellation} checked while building
+   */
+  public OpsBuilder(Input input, Output output, Cancellation cancellation) {
     this.input = input;
     this.output = output;
+    this.cancellation = cancellation;
+  }
+
+  /** Throws a {@link FormattingError} if formatting has been cancelled. */
+  public final void checkCancelled() {
+    cancellation.check();
   }
 
   /** Get the {@code OpsBuilder}'s {@link Input}. */
@@ -490,10 +511,14 @@ public final class OpsBuilder {
    */
   public final ImmutableList<Op> build() {
     markForPartialFormat();
-    // Rewrite the ops to insert comments.
-    Multimap<Integer, Op> tokOps = ArrayListMultimap.create();
+    // Rewrite the ops to insert comments. First collect the ops to insert before each op; slot
+    // opsN holds the ops to insert after the last one.
+    Insertions tokOps = new Insertions();
     int opsN = ops.size();
     for (int i = 0; i < opsN; i++) {
+      if (i % CANCELLATION_INTERVAL == 0) {
+        checkCancelled();
+      }
       Op op = ops.get(i);
       if (op instanceof Doc.Token) {
         /*
@@ -524,18 +549,18 @@ public final class OpsBuilder {
             if (tokBefore.isNewline()) {
               newlines++;
             } else if (tokBefore.isComment()) {
-              tokOps.put(
+              tokOps.add(
                   j,
                   Doc.Break.make(
                       tokBefore.isSlashSlashComment() ? Doc.FillMode.FORCED : Doc.FillMode.UNIFIED,
                       "",
                       tokenOp.getPlusIndentCommentsBefore()));
-              tokOps.putAll(j, makeComment(tokBefore));
+              tokOps.addComment(j, tokBefore);
               space = tokBefore.isSlashStarComment();
               newlines = 0;
               lastWasComment = true;
               if (tokBefore.isJavadocComment()) {
-                tokOps.put(j, Doc.Break.makeForced());
+                tokOps.add(j, Doc.Break.makeForced());
               }
               allowBlankAfterLastComment =
                   tokBefore.isSlashSlashComment()
@@ -547,9 +572,9 @@ public final class OpsBuilder {
             output.blankLine(token.getTok().getIndex(), BlankLineWanted.YES);
           }
           if (lastWasComment && newlines > 0) {
-            tokOps.put(j, Doc.Break.makeForced());
+            tokOps.add(j, Doc.Break.makeForced());
           } else if (space) {
-            tokOps.put(j, SPACE);
+            tokOps.add(j, SPACE);
           }
           // Now we've seen the Token; output the toksAfter.
           for (Input.Tok tokAfter : token.getToksAfter()) {
@@ -559,18 +584,18 @@ public final class OpsBuilder {
                       || (tokAfter.isSlashStarComment()
                           && tokenOp.breakAndIndentTrailingComment().isPresent());
               if (breakAfter) {
-                tokOps.put(
+                tokOps.add(
                     k + 1,
                     Doc.Break.make(
                         Doc.FillMode.FORCED,
                         "",
                         tokenOp.breakAndIndentTrailingComment().orElse(Const.ZERO)));
               } else {
-                tokOps.put(k + 1, SPACE);
+                tokOps.add(k + 1, SPACE);
               }
-              tokOps.putAll(k + 1, makeComment(tokAfter));
+              tokOps.addComment(k + 1, tokAfter);
               if (breakAfter) {
-                tokOps.put(k + 1, Doc.Break.make(Doc.FillMode.FORCED, "", ZERO));
+                tokOps.add(k + 1, Doc.Break.make(Doc.FillMode.FORCED, "", ZERO));
               }
             }
           }
@@ -590,29 +615,37 @@ public final class OpsBuilder {
               lastWasComment = tokBefore.isComment();
             }
             if (lastWasComment && newlines > 0) {
-              tokOps.put(j, Doc.Break.makeForced());
+              tokOps.add(j, Doc.Break.makeForced());
             }
-            tokOps.put(j, Doc.Tok.make(tokBefore));
+            tokOps.add(j, Doc.Tok.make(tokBefore));
           }
           for (Input.Tok tokAfter : token.getToksAfter()) {
-            tokOps.put(k + 1, Doc.Tok.make(tokAfter));
+            tokOps.add(k + 1, Doc.Tok.make(tokAfter));
           }
         }
       }
     }
     /*
      * Construct new list of ops, splicing in the comments. If a comment is inserted immediately
-     * before a space, suppress the space.
+     * before a space, suppress the space. The result can only be shorter than the ops plus the
+     * insertions, so it is built directly into a builder presized for both.
      */
-    ImmutableList.Builder<Op> newOps = ImmutableList.builder();
+    int[] slotStarts = tokOps.slotStarts(opsN + 1);
+    Op[] inserted = tokOps.sortBySlot(slotStarts);
+    ImmutableList.Builder<Op> newOps =
+        ImmutableList.builderWithExpectedSize(opsN + inserted.length);
     boolean afterForcedBreak = false; // Was the last Op a forced break? If so, suppress spaces.
-    for (int i = 0; i < opsN; i++) {
-      for (Op op : tokOps.get(i)) {
+    for (int i = 0; i <= opsN; i++) {
+      for (int m = slotStarts[i]; m < slotStarts[i + 1]; m++) {
+        Op op = inserted[m];
         if (!(afterForcedBreak && op instanceof Doc.Space)) {
           newOps.add(op);
           afterForcedBreak = isForcedBreak(op);
         }
       }
+      if (i == opsN) {
+        break;
+      }
       Op op = ops.get(i);
       if (afterForcedBreak
           && (op instanceof Doc.Space
@@ -626,12 +659,6 @@ public final class OpsBuilder {
         afterForcedBreak = isForcedBreak(op);
       }
     }
-    for (Op op : tokOps.get(opsN)) {
-      if (!(afterForcedBreak && op instanceof Doc.Space)) {
-        newOps.add(op);
-        afterForcedBreak = isForcedBreak(op);
-      }
-    }
     return newOps.build();
   }
 
@@ -639,10 +666,56 @@ public final class OpsBuilder {
     return op instanceof Doc.Break && ((Doc.Break) op).isForced();
   }
 
-  private static List<Op> makeComment(Input.Tok comment) {
-    return comment.isSlashStarComment()
-        ? ImmutableList.of(Doc.Tok.make(comment))
-        : ImmutableList.of(Doc.Tok.make(comment), Doc.Break.makeForced());
+  /**
+   * The {@link Op}s to insert into the ops list, each tagged with the slot (the index of the op) it
+   * is inserted before. Ops inserted into the same slot keep the order in which they were added.
+   */
+  private static final class Insertions {
+    private int[] slots = new int[16];
+    private Op[] ops = new Op[16];
+    private int size = 0;
+
+    void add(int slot, Op op) {
+      if (size == ops.length) {
+        slots = Arrays.copyOf(slots, size * 2);
+        ops = Arrays.copyOf(ops, size * 2);
+      }
+      slots[size] = slot;
+      ops[size++] = op;
+    }
+
+    void addComment(int slot, Input.Tok comment) {
+      add(slot, Doc.Tok.make(comment));
+      if (!comment.isSlashStarComment()) {
+        add(slot, Doc.Break.makeForced());
+      }
+    }
+
+    /**
+     * Counts the insertions per slot, and returns the offsets at which each slot's insertions start
+     * in {@link #sortBySlot}'s result. The array has an extra trailing entry, so slot {@code i}'s
+     * insertions are at {@code [starts[i], starts[i + 1])}.
+     */
+    int[] slotStarts(int slotCount) {
+      int[] starts = new int[slotCount + 1];
+      for (int i = 0; i < size; i++) {
+        starts[slots[i] + 1]++;
+      }
+      for (int i = 0; i < slotCount; i++) {
+        starts[i + 1] += starts[i];
+      }
+      return starts;
+    }
+
+    /** Returns the insertions, stably sorted by slot. */
+    Op[] sortBySlot(int[] slotStarts) {
+      Op[] sorted = new Op[size];
+      int[] next = Arrays.copyOf(slotStarts, slotStarts.length - 1);
+      for (int i = 0; i < size; i++) {
+        sorted[next[slots[i]]++] = ops[i];
+      }
+      return sorted;
+    }
   }
 
   @Override
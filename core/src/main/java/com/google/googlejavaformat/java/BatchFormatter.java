@@ -0,0 +1,319 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Formats many Java compilation units in parallel, for library users that would otherwise fan out
+ * calls to {@link Formatter#formatSource(String)} themselves.
+ *
+ * <p>All the sources of a {@code BatchFormatter} share one cache of rewritten comments, so a
+ * comment that is repeated across sources, like a license header, is only formatted once. A
+ * {@code BatchFormatter} is thread-safe.
+ *
+ * <pre>{@code
+ * BatchFormatter formatter = BatchFormatter.builder().executor(executor).build();
+ * CompletableFuture<String> formatted = formatter.formatSource(source);
+ * }</pre>
+ */
+public final class BatchFormatter {
+
+  /**
+   * The result of formatting one source of {@link #formatAll}: either its formatted {@code output},
+   * or the {@code exception} that it couldn't be formatted with.
+   *
+   * @param index the position of the source in the stream of sources, starting at 0
+   * @param input the source
+   * @param output the formatted source, or {@code null} if it couldn't be formatted
+   * @param exception why the source couldn't be formatted, or {@code null} if it was
+   */
+  public record Result(
+      long index,
+      String input,
+      @Nullable String output,
+      @Nullable FormatterException exception) {}
+
+  /** A builder for {@link BatchFormatter}s. */
+  public static final class Builder {
+    private JavaFormatterOptions options = JavaFormatterOptions.defaultOptions();
+    private Executor executor = ForkJoinPool.commonPool();
+    private int maxInFlight = 2 * Runtime.getRuntime().availableProcessors();
+    private boolean fixImports = false;
+
+    private Builder() {}
+
+    /**
+     * Sets the options to format with. The default is {@link JavaFormatterOptions#defaultOptions}.
+     */
+    public Builder options(JavaFormatterOptions options) {
+      this.options = checkNotNull(options);
+      return this;
+    }
+
+    /** Sets the executor to format on. The default is the common {@link ForkJoinPool}. */
+    public Builder executor(Executor executor) {
+      this.executor = checkNotNull(executor);
+      return this;
+    }
+
+    /**
+     * Sets the most sources of a call to {@link #formatAll} that are formatted, or formatted but
+     * not yet requested by its subscriber, at a time. The default is twice the number of
+     * processors.
+     */
+    public Builder maxInFlight(int maxInFlight) {
+      checkArgument(maxInFlight > 0, "maxInFlight must be positive: %s", maxInFlight);
+      this.maxInFlight = maxInFlight;
+      return this;
+    }
+
+    /**
+     * Sets whether to also fix imports and reflow long strings, like {@link
+     * Formatter#formatSourceAndFixImports}. The default is to only format, like {@link
+     * Formatter#formatSource(String)}.
+     */
+    public Builder fixImports(boolean fixImports) {
+      this.fixImports = fixImports;
+      return this;
+    }
+
+    public BatchFormatter build() {
+      return new BatchFormatter(this);
+    }
+  }
+
+  private final Formatter formatter;
+  private final Executor executor;
+  private final int maxInFlight;
+  private final boolean fixImports;
+
+  private BatchFormatter(Builder builder) {
+    this.formatter = new Formatter(builder.options, CommentRewriteCache.create());
+    this.executor = builder.executor;
+    this.maxInFlight = builder.maxInFlight;
+    this.fixImports = builder.fixImports;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Formats {@code input} on the executor.
+   *
+   * @return the formatted source, or a future that fails with a {@link FormatterException} if the
+   *     input can't be parsed
+   */
+  public CompletableFuture<String> formatSource(String input) {
+    checkNotNull(input);
+    return CompletableFuture.supplyAsync(
+        () -> {
+          try {
+            return format(input);
+          } catch (FormatterException e) {
+            throw new CompletionException(e);
+          }
+        },
+        executor);
+  }
+
+  /**
+   * Returns a publisher of the results of formatting each of {@code sources}, in the order of the
+   * sources. Sources are taken from the stream as the subscriber requests results, and at most
+   * {@link Builder#maxInFlight} are formatted ahead of the subscriber.
+   *
+   * <p>A source that can't be parsed is published as a {@link Result} with an exception. The
+   * publisher only fails if the stream does, or if formatting fails unexpectedly. Since a stream
+   * can only be consumed once, the publisher can only be subscribed to once. If the stream is known
+   * to be empty without taking from it, like {@code Stream.of()} or the stream of an empty
+   * collection, the publisher completes without waiting for a request.
+   */
+  public Flow.Publisher<Result> formatAll(Stream<String> sources) {
+    checkNotNull(sources);
+    AtomicBoolean subscribed = new AtomicBoolean();
+    return subscriber -> {
+      checkNotNull(subscriber);
+      if (subscribed.getAndSet(true)) {
+        subscriber.onSubscribe(
+            new Flow.Subscription() {
+              @Override
+              public void request(long n) {}
+
+              @Override
+              public void cancel() {}
+            });
+        subscriber.onError(new IllegalStateException("formatAll can only be subscribed to once"));
+        return;
+      }
+      new FormatAllSubscription(sources.spliterator(), subscriber).start();
+    };
+  }
+
+  private String format(String input) throws FormatterException {
+    return fixImports ? formatter.formatSourceAndFixImports(input) : formatter.formatSource(input);
+  }
+
+  /**
+   * The subscription of {@link #formatAll}. All of its signals to the subscriber, and its use of
+   * the stream, happen in {@link #drain}, which only runs on one thread at a time.
+   */
+  private final class FormatAllSubscription implements Flow.Subscription {
+    private final Iterator<String> sources;
+    private final Flow.Subscriber<? super Result> subscriber;
+
+    /** The number of results that the subscriber has requested, but not yet received. */
+    private final AtomicLong demand = new AtomicLong();
+
+    /** The number of calls to {@link #drain} that are pending; only the first one drains. */
+    private final AtomicInteger drains = new AtomicInteger();
+
+    private volatile boolean cancelled;
+
+    /** An error to signal to the subscriber, from a request that broke the {@link Flow} rules. */
+    private volatile @Nullable Throwable error;
+
+    /** Only used by {@link #drain}: the sources being formatted, in order. */
+    private final ArrayDeque<CompletableFuture<Result>> inFlight = new ArrayDeque<>();
+
+    private long nextIndex;
+    private boolean exhausted;
+    private boolean done;
+
+    FormatAllSubscription(
+        Spliterator<String> sources, Flow.Subscriber<? super Result> subscriber) {
+      this.exhausted = sources.getExactSizeIfKnown() == 0;
+      this.sources = Spliterators.iterator(sources);
+      this.subscriber = subscriber;
+    }
+
+    void start() {
+      subscriber.onSubscribe(this);
+      drain();
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        error = new IllegalArgumentException("non-positive request: " + n);
+      } else {
+        demand.getAndAccumulate(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      drain();
+    }
+
+    private void drain() {
+      if (drains.getAndIncrement() != 0) {
+        return;
+      }
+      do {
+        if (!done) {
+          drainOnce();
+        }
+      } while (drains.decrementAndGet() != 0);
+    }
+
+    private void drainOnce() {
+      while (true) {
+        if (cancelled || error != null) {
+          stop(error);
+          return;
+        }
+        CompletableFuture<Result> next = inFlight.peek();
+        if (next != null && next.isDone() && demand.get() > 0) {
+          inFlight.poll();
+          Result result;
+          try {
+            result = next.join();
+          } catch (CompletionException e) {
+            stop(e.getCause());
+            return;
+          }
+          demand.decrementAndGet();
+          subscriber.onNext(result);
+          continue;
+        }
+        // Format ahead of the subscriber, as far as it has requested and maxInFlight allows.
+        if (!exhausted && inFlight.size() < maxInFlight && inFlight.size() < demand.get()) {
+          try {
+            if (sources.hasNext()) {
+              inFlight.add(submit(nextIndex++, checkNotNull(sources.next(), "null source")));
+              continue;
+            }
+          } catch (RuntimeException e) {
+            stop(e);
+            return;
+          }
+          exhausted = true;
+        }
+        if (exhausted && inFlight.isEmpty()) {
+          done = true;
+          subscriber.onComplete();
+        }
+        return;
+      }
+    }
+
+    private CompletableFuture<Result> submit(long index, String input) {
+      CompletableFuture<Result> result =
+          CompletableFuture.supplyAsync(
+              () -> {
+                try {
+                  return new Result(index, input, format(input), /* exception= */ null);
+                } catch (FormatterException e) {
+                  return new Result(index, input, /* output= */ null, e);
+                }
+              },
+              executor);
+      result.whenComplete((r, t) -> drain());
+      return result;
+    }
+
+    /**
+     * Cancels the sources in flight, and signals {@code t} to the subscriber, unless it is null
+     * because the subscriber cancelled.
+     */
+    private void stop(@Nullable Throwable t) {
+      done = true;
+      inFlight.forEach(f -> f.cancel(false));
+      inFlight.clear();
+      if (t != null) {
+        subscriber.onError(t);
+      }
+    }
+  }
+}
@@ -18,6 +18,7 @@ import com.google.auto.value.AutoBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableRangeSet;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.time.Duration;
 import java.util.Optional;
 
 /**
@@ -39,6 +40,13 @@ import java.util.Optional;
  *     normally.
  * @param setExitIfChanged Return exit code 1 if there are any formatting changes.
  * @param assumeFilename Return the name to use for diagnostics when formatting standard input.
+ * @param timeoutPerFile How long to spend formatting each file before giving up on it.
+ * @param stats Report the cost of each phase of formatting, and the slowest files.
+ * @param statsFile Write the report of {@code stats} as JSON to this file, instead of stderr.
+ * @param profileFile Format only this file, and report the cost of formatting each of its
+ *     declarations.
+ * @param profileHtml Report {@code profileFile} as HTML instead of JSON.
+ * @param lsp Run a Language Server Protocol server for formatting over stdin and stdout.
  */
 record CommandLineOptions(
     ImmutableList<String> files,
@@ -57,7 +65,13 @@ record CommandLineOptions(
     boolean setExitIfChanged,
     Optional<String> assumeFilename,
     boolean reflowLongStrings,
-    boolean formatJavadoc) {
+    boolean formatJavadoc,
+    Optional<Duration> timeoutPerFile,
+    boolean stats,
+    Optional<String> statsFile,
+    Optional<String> profileFile,
+    boolean profileHtml,
+    boolean lsp) {
 
   /** Returns true if partial formatting was selected. */
   boolean isSelection() {
@@ -77,7 +91,10 @@ record CommandLineOptions(
         .fixImportsOnly(false)
         .dryRun(false)
         .setExitIfChanged(false)
-        .inPlace(false);
+        .inPlace(false)
+        .stats(false)
+        .profileHtml(false)
+        .lsp(false);
   }
 
   @AutoBuilder
@@ -129,6 +146,18 @@ record CommandLineOptions(
 
     Builder formatJavadoc(boolean formatJavadoc);
 
+    Builder timeoutPerFile(Duration timeoutPerFile);
+
+    Builder stats(boolean stats);
+
+    Builder statsFile(String statsFile);
+
+    Builder profileFile(String profileFile);
+
+    Builder profileHtml(boolean profileHtml);
+
+    Builder lsp(boolean lsp);
+
     CommandLineOptions build();
   }
 }
@@ -27,6 +27,7 @@ import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -130,6 +131,24 @@ final class CommandLineOptionsParser {
         case "--assume-filename":
           optionsBuilder.assumeFilename(getValue(flag, it, value));
           break;
+        case "--timeout-per-file":
+          optionsBuilder.timeoutPerFile(parseTimeout(it, flag, value));
+          break;
+        case "--stats":
+          optionsBuilder.stats(true);
+          break;
+        case "--stats-file":
+          optionsBuilder.stats(true).statsFile(getValue(flag, it, value));
+          break;
+        case "--profile-file":
+          optionsBuilder.profileFile(getValue(flag, it, value));
+          break;
+        case "--profile-html":
+          optionsBuilder.profileHtml(true);
+          break;
+        case "--lsp":
+          optionsBuilder.lsp(true);
+          break;
         default:
           throw new IllegalArgumentException("unexpected flag: " + flag);
       }
@@ -147,6 +166,15 @@ final class CommandLineOptionsParser {
     }
   }
 
+  private static Duration parseTimeout(Iterator<String> it, String flag, String value) {
+    int seconds = parseInteger(it, flag, value);
+    if (seconds <= 0) {
+      throw new IllegalArgumentException(
+          String.format("%s must be a positive number of seconds: %s", flag, seconds));
+    }
+    return Duration.ofSeconds(seconds);
+  }
+
   private static String getValue(String flag, Iterator<String> it, String value) {
     if (value != null) {
       return value;
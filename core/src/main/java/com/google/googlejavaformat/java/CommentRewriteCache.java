@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static com.google.common.base.Throwables.throwIfUnchecked;
+
+import com.google.common.cache.AbstractCache.SimpleStatsCounter;
+import com.google.common.cache.AbstractCache.StatsCounter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * A bounded, thread-safe memo of rewritten block comments, including Javadoc.
+ *
+ * <p>Rewriting a comment depends only on its text, the column it is output at, the line separator,
+ * and whether Javadoc is formatted, so one cache can be shared by all of the {@link Formatter}s of
+ * a run. This pays off for the comments that are repeated verbatim across a code base (license
+ * headers, boilerplate Javadoc), and for comments whose enclosing statement is laid out more than
+ * once.
+ */
+final class CommentRewriteCache {
+
+  /** The default bound on the number of characters of comments held by a cache. */
+  static final long DEFAULT_MAXIMUM_CHARS = 4 << 20;
+
+  private record Key(String text, int column, String lineSeparator, boolean formatJavadoc) {}
+
+  private final Cache<Key, String> cache;
+
+  /** The lookups through this instance, which may share {@link #cache} with others. */
+  private final StatsCounter stats = new SimpleStatsCounter();
+
+  private CommentRewriteCache(Cache<Key, String> cache) {
+    this.cache = cache;
+  }
+
+  static CommentRewriteCache create() {
+    return create(DEFAULT_MAXIMUM_CHARS);
+  }
+
+  /** Creates a cache that holds up to about {@code maximumChars} characters of comments. */
+  static CommentRewriteCache create(long maximumChars) {
+    return new CommentRewriteCache(
+        CacheBuilder.newBuilder()
+            .maximumWeight(maximumChars)
+            .<Key, String>weigher((key, value) -> key.text().length() + value.length())
+            .build());
+  }
+
+  /**
+   * Returns a cache that shares the comments of this one, but counts its own hits and misses, for
+   * reporting the stats of one run that may overlap with others.
+   */
+  CommentRewriteCache withOwnStats() {
+    return new CommentRewriteCache(cache);
+  }
+
+  /**
+   * Returns the rewritten form of the comment {@code text}, computing it with {@code rewrite} if it
+   * isn't cached. A caller that asks for a comment that another caller is computing waits for it,
+   * and counts a hit, rather than computing it again.
+   */
+  String rewrite(
+      String text,
+      int column,
+      String lineSeparator,
+      boolean formatJavadoc,
+      Supplier<String> rewrite) {
+    Key key = new Key(text, column, lineSeparator, formatJavadoc);
+    boolean[] computed = {false};
+    String result;
+    try {
+      result =
+          cache.get(
+              key,
+              () -> {
+                computed[0] = true;
+                return rewrite.get();
+              });
+    } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+      throwIfUnchecked(e.getCause());
+      throw new AssertionError(e.getCause()); // rewrite doesn't throw checked exceptions
+    }
+    if (computed[0]) {
+      stats.recordMisses(1);
+    } else {
+      stats.recordHits(1);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the hit and miss counts of the lookups through this instance; see {@link
+   * CacheStats#hitRate}.
+   */
+  CacheStats stats() {
+    return stats.snapshot();
+  }
+}
@@ -18,6 +18,8 @@ import com.google.auto.value.AutoValue;
 import com.google.common.collect.Range;
 import com.google.common.collect.RangeSet;
 import com.google.common.collect.TreeRangeSet;
+import com.google.googlejavaformat.Cancellation;
+import com.google.googlejavaformat.FormattingError;
 import java.nio.file.Path;
 import java.util.concurrent.Callable;
 import org.jspecify.annotations.Nullable;
@@ -42,12 +44,16 @@ class FormatFileCallable implements Callable<FormatFileCallable.Result> {
 
     abstract @Nullable FormatterException exception();
 
+    /** The cost of each phase of formatting, if {@link CommandLineOptions#stats} was requested. */
+    abstract FormatStats stats();
+
     static Result create(
         @Nullable Path path,
         String input,
         @Nullable String output,
-        @Nullable FormatterException exception) {
-      return new AutoValue_FormatFileCallable_Result(path, input, output, exception);
+        @Nullable FormatterException exception,
+        FormatStats stats) {
+      return new AutoValue_FormatFileCallable_Result(path, input, output, exception, stats);
     }
   }
 
@@ -55,40 +61,92 @@ class FormatFileCallable implements Callable<FormatFileCallable.Result> {
   private final String input;
   private final CommandLineOptions parameters;
   private final JavaFormatterOptions options;
+  private final @Nullable CommentRewriteCache commentCache;
+  private final FormatStats stats;
 
   public FormatFileCallable(
-      CommandLineOptions parameters, Path path, String input, JavaFormatterOptions options) {
+      CommandLineOptions parameters,
+      Path path,
+      String input,
+      JavaFormatterOptions options,
+      @Nullable CommentRewriteCache commentCache) {
     this.path = path;
     this.input = input;
     this.parameters = parameters;
     this.options = options;
+    this.commentCache = commentCache;
+    this.stats = parameters.stats() ? FormatStats.create() : FormatStats.NONE;
   }
 
   @Override
   public Result call() {
+    FormatFileEvent event = new FormatFileEvent();
+    event.begin();
+    // The deadline starts when the file does, not when it was queued.
+    Cancellation cancellation =
+        parameters.timeoutPerFile().isPresent()
+            ? Cancellation.timeout(parameters.timeoutPerFile().get())
+            : Cancellation.NONE;
+    Result result = format(cancellation);
+    event.end();
+    if (event.shouldCommit()) {
+      event.path = path != null ? path.toString() : null;
+      event.size = input.length();
+      if (result.exception() != null) {
+        event.outcome =
+            cancellation.isCancelled() ? FormatPhaseEvent.CANCELLED : FormatPhaseEvent.ERROR;
+      } else {
+        event.outcome = result.changed() ? FormatFileEvent.CHANGED : FormatFileEvent.UNCHANGED;
+      }
+      event.commit();
+    }
+    return result;
+  }
+
+  private Result format(Cancellation cancellation) {
     try {
       if (parameters.fixImportsOnly()) {
-        return Result.create(path, input, fixImports(input), /* exception= */ null);
+        return Result.create(
+            path, input, fixImports(input, cancellation), /* exception= */ null, stats);
       }
 
-      Formatter formatter = new Formatter(options);
-      String formatted = formatter.formatSource(input, characterRanges(input).asRanges());
-      formatted = fixImports(formatted);
+      Formatter formatter = new Formatter(options, commentCache);
+      String formatted =
+          formatter.formatSource(input, characterRanges(input).asRanges(), cancellation, stats);
+      formatted = fixImports(formatted, cancellation);
       if (parameters.reflowLongStrings()) {
-        formatted = StringWrapper.wrap(Formatter.MAX_LINE_LENGTH, formatted, formatter);
+        cancellation.check();
+        // The formatting that StringWrapper does is part of reflowing, not a phase of its own.
+        stats.start();
+        formatted =
+            StringWrapper.wrap(Formatter.MAX_LINE_LENGTH, formatted, formatter, cancellation);
+        stats.lap(FormatStats.Phase.REFLOW_STRINGS);
       }
-      return Result.create(path, input, formatted, /* exception= */ null);
+      return Result.create(path, input, formatted, /* exception= */ null, stats);
     } catch (FormatterException e) {
-      return Result.create(path, input, /* output= */ null, e);
+      return Result.create(path, input, /* output= */ null, e, stats);
+    } catch (FormattingError e) {
+      return Result.create(
+          path, input, /* output= */ null, new FormatterException(e.diagnostics()), stats);
     }
   }
 
-  private String fixImports(String input) throws FormatterException {
+  /**
+   * Removes unused imports and sorts them, as requested. {@code cancellation} is checked before
+   * each pass, which can't be interrupted once it has started.
+   */
+  private String fixImports(String input, Cancellation cancellation) throws FormatterException {
     if (parameters.removeUnusedImports()) {
+      cancellation.check();
+      stats.start();
       input = RemoveUnusedImports.removeUnusedImports(input);
+      stats.lap(FormatStats.Phase.REMOVE_UNUSED_IMPORTS);
     }
     if (parameters.sortImports()) {
+      cancellation.check();
+      stats.start();
       input = ImportOrderer.reorderImports(input, options.style());
+      stats.lap(FormatStats.Phase.REORDER_IMPORTS);
     }
     return input;
   }
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JDK Flight Recorder event for formatting a file, which spans the {@link FormatPhaseEvent}s of
+ * its phases.
+ */
+@Name("com.google.googlejavaformat.FormatFile")
+@Label("Format File")
+@Category("google-java-format")
+@Description("Formatting a Java source file")
+@StackTrace(false)
+final class FormatFileEvent extends Event {
+
+  static final String UNCHANGED = "unchanged";
+  static final String CHANGED = "changed";
+
+  @Label("Path")
+  String path;
+
+  @Label("Size")
+  @Description("The length of the file, in chars")
+  int size;
+
+  @Label("Outcome")
+  @Description("unchanged, changed, error or cancelled")
+  String outcome;
+}
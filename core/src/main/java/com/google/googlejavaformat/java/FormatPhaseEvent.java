@@ -0,0 +1,121 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JDK Flight Recorder event for one phase of formatting: one of the {@link FormatStats.Phase}s,
+ * or {@link #JAVADOC}. Unless a recording enables them, {@link #begin} returns a shared event
+ * that is never committed, so that formatting doesn't allocate an event for each phase.
+ */
+@Name("com.google.googlejavaformat.FormatPhase")
+@Label("Format Phase")
+@Category("google-java-format")
+@Description("A phase of formatting a Java source")
+@StackTrace(false)
+final class FormatPhaseEvent extends Event {
+
+  /**
+   * The phase of formatting a Javadoc comment, which happens during {@code layout}, or ahead of it
+   * on other threads.
+   */
+  static final String JAVADOC = "javadoc";
+
+  static final String OK = "ok";
+  static final String ERROR = "error";
+  static final String CANCELLED = "cancelled";
+
+  /** A phase, which may throw a {@link FormatterException}. */
+  interface Body<T> {
+    T run() throws FormatterException;
+  }
+
+  /**
+   * The event of every phase that begins while the event is disabled. It is shared by any number of
+   * concurrent phases, so its fields are never written; see {@link #isShared}.
+   */
+  private static final FormatPhaseEvent DISABLED = new FormatPhaseEvent();
+
+  @Label("Phase")
+  String phase;
+
+  @Label("Size")
+  @Description("The length of the input, in chars")
+  int size;
+
+  @Label("Tokens")
+  @Description("The number of tokens in the input, if the phase lexed it")
+  int tokens;
+
+  @Label("Doc Nodes")
+  @Description("The number of nodes in the Doc, if the phase built it")
+  int docNodes;
+
+  @Label("Outcome")
+  @Description("ok, error or cancelled")
+  String outcome;
+
+  /** Returns an event for {@code phase} of an input of {@code size} chars, which begins now. */
+  static FormatPhaseEvent begin(String phase, int size) {
+    if (!DISABLED.isEnabled()) {
+      return DISABLED;
+    }
+    FormatPhaseEvent event = new FormatPhaseEvent();
+    event.phase = phase;
+    event.size = size;
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Returns whether this is the shared event of phases that began while the event was disabled,
+   * whose fields must not be written.
+   */
+  boolean isShared() {
+    return this == DISABLED;
+  }
+
+  /** Ends the event and commits it, if it is enabled and took long enough to record. */
+  void end(String outcome) {
+    if (isShared()) {
+      // A recording may have started since the phase began, but the event has no valid fields.
+      return;
+    }
+    end();
+    if (shouldCommit()) {
+      this.outcome = outcome;
+      commit();
+    }
+  }
+
+  /** Runs {@code body} as {@code phase} of an input of {@code size} chars. */
+  static <T> T record(String phase, int size, Body<T> body) throws FormatterException {
+    FormatPhaseEvent event = begin(phase, size);
+    String outcome = ERROR;
+    try {
+      T result = body.run();
+      outcome = OK;
+      return result;
+    } finally {
+      event.end(outcome);
+    }
+  }
+}
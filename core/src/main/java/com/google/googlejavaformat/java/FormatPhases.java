@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import com.google.googlejavaformat.java.FormatStats.Phase;
+
+/**
+ * Measures the phases of one call to {@link Formatter}, adding their costs to a {@link
+ * FormatStats} and recording a {@link FormatPhaseEvent} for each. Like {@link FormatStats}, a
+ * phase runs from the end of the previous one to the call to {@link #lap} that names it.
+ */
+final class FormatPhases {
+
+  private final FormatStats stats;
+  private final int size;
+
+  /** The event of the running phase. */
+  private FormatPhaseEvent event;
+
+  /** The running phase, assuming that the phases run in order. */
+  private int running;
+
+  private FormatPhases(FormatStats stats, int size) {
+    this.stats = stats;
+    this.size = size;
+    this.event = FormatPhaseEvent.begin(/* phase= */ null, size);
+  }
+
+  /** Starts measuring the first phase of formatting an input of {@code size} chars. */
+  static FormatPhases start(FormatStats stats, int size) {
+    stats.start();
+    return new FormatPhases(stats, size);
+  }
+
+  /** Records the number of tokens that the running phase lexed. */
+  void tokens(int tokens) {
+    if (!event.isShared()) {
+      event.tokens = tokens;
+    }
+  }
+
+  /** Records the number of {@code Doc} nodes that the running phase built. */
+  void docNodes(int docNodes) {
+    if (!event.isShared()) {
+      event.docNodes = docNodes;
+    }
+  }
+
+  /** Ends {@code phase}, and starts measuring the next one. */
+  void lap(Phase phase) {
+    stats.lap(phase);
+    if (!event.isShared()) {
+      event.phase = phase.displayName();
+      event.end(FormatPhaseEvent.OK);
+    }
+    running = phase.ordinal() + 1;
+    event = FormatPhaseEvent.begin(/* phase= */ null, size);
+  }
+
+  /** Ends the running phase, which failed with {@code outcome}. */
+  void fail(String outcome) {
+    if (!event.isShared()) {
+      event.phase = Phase.values()[Math.min(running, Phase.values().length - 1)].displayName();
+      event.end(outcome);
+    }
+  }
+}
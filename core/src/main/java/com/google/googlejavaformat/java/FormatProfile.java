@@ -0,0 +1,419 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static com.google.googlejavaformat.java.FormatStatsReport.appendPhases;
+import static com.google.googlejavaformat.java.Json.appendString;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeMap;
+import com.google.common.collect.TreeRangeMap;
+import com.google.common.escape.Escaper;
+import com.google.common.html.HtmlEscapers;
+import com.google.googlejavaformat.Cancellation;
+import com.google.googlejavaformat.CommentsHelper;
+import com.google.googlejavaformat.Doc;
+import com.google.googlejavaformat.DocShape;
+import com.google.googlejavaformat.FormattingError;
+import com.google.googlejavaformat.Input;
+import com.google.googlejavaformat.LineIndex;
+import com.google.googlejavaformat.Newlines;
+import com.google.googlejavaformat.java.FormatStats.Phase;
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The cost of formatting each declaration of a file: the size and depth of its part of the {@link
+ * Doc}, how many of its levels were laid out, and the time spent rewriting its comments, to find
+ * the declarations that make a file slow to format.
+ *
+ * <p>Comments are rewritten without a {@link CommentRewriteCache}, and Javadoc isn't formatted
+ * ahead of layout, so that their time is spent, and measured, in the declaration they belong to.
+ */
+final class FormatProfile {
+
+  /** The name of the part of the file outside of any declaration: its package and imports. */
+  static final String COMPILATION_UNIT = "<compilation unit>";
+
+  /** The cost of formatting one declaration, not including the declarations nested in it. */
+  static final class Declaration {
+    private final String name;
+    private final int startLine;
+    private final int endLine;
+    private DocShape.Counts counts = new DocShape.Counts();
+    private int comments;
+    private long commentNanos;
+    private long javadocNanos;
+
+    private Declaration(String name, int startLine, int endLine) {
+      this.name = name;
+      this.startLine = startLine;
+      this.endLine = endLine;
+    }
+
+    /** Returns the qualified name of the declaration, like {@code Outer.Inner.method}. */
+    String name() {
+      return name;
+    }
+
+    /**
+     * Returns the 1-based line the declaration starts on, including its modifiers and the comments
+     * before it.
+     */
+    int startLine() {
+      return startLine;
+    }
+
+    /** Returns the 1-based line the declaration ends on. */
+    int endLine() {
+      return endLine;
+    }
+
+    /** Returns the counts of the {@link Doc}s that start in the declaration. */
+    DocShape.Counts counts() {
+      return counts;
+    }
+
+    /** Returns the number of times a comment of the declaration was rewritten. */
+    int comments() {
+      return comments;
+    }
+
+    /** Returns the time spent rewriting the comments of the declaration, including Javadoc. */
+    long commentNanos() {
+      return commentNanos;
+    }
+
+    /** Returns the part of {@link #commentNanos} that was spent formatting Javadoc. */
+    long javadocNanos() {
+      return javadocNanos;
+    }
+  }
+
+  /** Times the comments that {@code delegate} rewrites, adding the time to their declarations. */
+  private static final class TimingCommentsHelper implements CommentsHelper {
+    private final CommentsHelper delegate;
+    private final FormatProfile profile;
+    private final boolean formatJavadoc;
+
+    TimingCommentsHelper(CommentsHelper delegate, FormatProfile profile, boolean formatJavadoc) {
+      this.delegate = delegate;
+      this.profile = profile;
+      this.formatJavadoc = formatJavadoc;
+    }
+
+    @Override
+    public String rewrite(Input.Tok tok, int maxWidth, int column0) {
+      if (!tok.isComment()) {
+        return delegate.rewrite(tok, maxWidth, column0);
+      }
+      long start = System.nanoTime();
+      String rewritten = delegate.rewrite(tok, maxWidth, column0);
+      long nanos = System.nanoTime() - start;
+      Declaration declaration = profile.declarationOfTok(tok.getIndex());
+      declaration.comments++;
+      declaration.commentNanos += nanos;
+      if (formatJavadoc && tok.isJavadocComment()) {
+        declaration.javadocNanos += nanos;
+      }
+      return rewritten;
+    }
+  }
+
+  private final JavaInput javaInput;
+  private final Declaration compilationUnit;
+  private final List<Declaration> declarations = new ArrayList<>();
+
+  /** The innermost declaration at each position of the input. */
+  private final RangeMap<Integer, Declaration> declarationAt = TreeRangeMap.create();
+
+  private final FormatStats stats;
+
+  private FormatProfile(JavaInput javaInput, FormatStats stats) {
+    this.javaInput = javaInput;
+    this.stats = stats;
+    this.compilationUnit =
+        new Declaration(
+            COMPILATION_UNIT,
+            /* startLine= */ 1,
+            javaInput.getLineNumber(Math.max(0, javaInput.getText().length() - 1)));
+    declarations.add(compilationUnit);
+  }
+
+  /**
+   * Formats {@code input} with {@code options}, and returns the cost of each of its declarations.
+   *
+   * @throws FormatterException if the input cannot be parsed
+   */
+  static FormatProfile profile(String input, JavaFormatterOptions options)
+      throws FormatterException {
+    FormatStats stats = FormatStats.create();
+    FormatPhases phases = FormatPhases.start(stats, input.length());
+    JavaInput javaInput = new JavaInput(input);
+    if (options.reorderModifiers()) {
+      javaInput =
+          ModifierOrderer.reorderModifiers(
+              javaInput, ImmutableList.of(Range.closedOpen(0, input.length())));
+    }
+    FormatProfile profile = new FormatProfile(javaInput, stats);
+    phases.tokens(javaInput.getTokens().size());
+    phases.lap(Phase.LEX);
+    JCCompilationUnit unit = Formatter.parse(javaInput);
+    phases.lap(Phase.PARSE);
+    for (Tree type : unit.getTypeDecls()) {
+      profile.addDeclarations(unit, /* outer= */ "", type);
+    }
+
+    String lineSeparator = Newlines.guessLineSeparator(input);
+    CommentsHelper commentsHelper =
+        new TimingCommentsHelper(
+            new JavaCommentsHelper(lineSeparator, options), profile, options.formatJavadoc());
+    JavaOutput javaOutput = new JavaOutput(lineSeparator, javaInput, commentsHelper);
+    Doc doc;
+    try {
+      doc = Formatter.format(javaInput, unit, javaOutput, options, Cancellation.NONE, phases);
+    } catch (FormattingError e) {
+      throw new FormatterException(e.diagnostics());
+    }
+    for (Map.Entry<Declaration, DocShape.Counts> entry :
+        DocShape.count(doc, profile::declarationOfTok).entrySet()) {
+      entry.getKey().counts = entry.getValue();
+    }
+    return profile;
+  }
+
+  /**
+   * Adds {@code tree} and the declarations nested in it, if it is a declaration. The bodies of
+   * methods and initializers aren't searched, so local and anonymous classes are part of the
+   * declaration that they are in.
+   */
+  private void addDeclarations(JCCompilationUnit unit, String outer, Tree tree) {
+    String name;
+    if (tree instanceof ClassTree classTree) {
+      name = classTree.getSimpleName().toString();
+    } else if (tree instanceof MethodTree method) {
+      name = method.getName().toString();
+    } else if (tree instanceof VariableTree variable) {
+      name = variable.getName().toString();
+    } else if (tree instanceof BlockTree block) {
+      name = block.isStatic() ? "<clinit>" : "<instance initializer>";
+    } else {
+      return;
+    }
+    name = outer.isEmpty() ? name : outer + "." + name;
+    int start = Trees.getStartPosition(tree);
+    int end = ((JCTree) tree).getEndPosition(unit.endPositions);
+    if (start < 0 || end <= start) {
+      return;
+    }
+    Declaration declaration =
+        new Declaration(
+            name,
+            javaInput.getLineNumber(startIncludingComments(start)),
+            javaInput.getLineNumber(end - 1));
+    declarations.add(declaration);
+    // Nested declarations are added after the declaration they are in, so they replace it.
+    declarationAt.put(Range.closedOpen(start, end), declaration);
+    if (tree instanceof ClassTree classTree) {
+      for (Tree member : classTree.getMembers()) {
+        addDeclarations(unit, name, member);
+      }
+    }
+  }
+
+  /**
+   * Returns the position of the first comment before the token at {@code start}, which is part of
+   * the same declaration, or {@code start} if there is none.
+   */
+  private int startIncludingComments(int start) {
+    Input.Token token = javaInput.getPositionToken(start);
+    if (token != null) {
+      for (Input.Tok tok : token.getToksBefore()) {
+        if (tok.isComment()) {
+          return tok.getPosition();
+        }
+      }
+    }
+    return start;
+  }
+
+  /**
+   * Returns the declaration of the tok with index {@code k}. Comments belong to the declaration of
+   * the token that they are attached to.
+   */
+  private Declaration declarationOfTok(int k) {
+    if (k < 0 || k > javaInput.getkN()) {
+      return compilationUnit;
+    }
+    Input.Token token = javaInput.getToken(k);
+    if (token == null) {
+      return compilationUnit;
+    }
+    Declaration declaration = declarationAt.get(token.getTok().getPosition());
+    return declaration != null ? declaration : compilationUnit;
+  }
+
+  /** Returns the declarations of the file, in the order they start in, after its header. */
+  ImmutableList<Declaration> declarations() {
+    return ImmutableList.copyOf(declarations);
+  }
+
+  /** Returns the cost of each phase of formatting the whole file. */
+  FormatStats stats() {
+    return stats;
+  }
+
+  /** Returns the profile as a JSON object, with the declarations in the order they start in. */
+  String toJson() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\n  \"phases\": ");
+    appendPhases(sb, stats, "  ");
+    sb.append(",\n  \"declarations\": [");
+    String separator = "\n";
+    for (Declaration declaration : declarations) {
+      DocShape.Counts counts = declaration.counts();
+      sb.append(separator).append("    {\"name\": ");
+      appendString(sb, declaration.name());
+      sb.append(", \"startLine\": ").append(declaration.startLine());
+      sb.append(", \"endLine\": ").append(declaration.endLine());
+      sb.append(", \"docNodes\": ").append(counts.docs());
+      sb.append(", \"maxLevelDepth\": ").append(counts.maxDepth());
+      sb.append(", \"computeBreaks\": ").append(counts.levelsLaidOut());
+      sb.append(", \"brokenLevels\": ").append(counts.brokenLevels());
+      sb.append(", \"oneLineLevels\": ").append(counts.oneLineLevels());
+      sb.append(", \"comments\": ").append(declaration.comments());
+      sb.append(", \"commentNanos\": ").append(declaration.commentNanos());
+      sb.append(", \"javadocNanos\": ").append(declaration.javadocNanos()).append('}');
+      separator = ",\n";
+    }
+    sb.append("\n  ]\n}\n");
+    return sb.toString();
+  }
+
+  /**
+   * Returns the profile as an HTML page: a table of the declarations, and the source with each line
+   * shaded by how many {@link Doc}s its declaration has, so that the hot spots stand out.
+   */
+  String toHtml(String path) {
+    Escaper escaper = HtmlEscapers.htmlEscaper();
+    int maxDocs = 1;
+    for (Declaration declaration : declarations) {
+      maxDocs = Math.max(maxDocs, declaration.counts().docs());
+    }
+    StringBuilder sb = new StringBuilder();
+    sb.append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n<title>");
+    sb.append(escaper.escape(path)).append("</title>\n<style>\n");
+    sb.append("body { font-family: sans-serif; }\n");
+    sb.append("table { border-collapse: collapse; }\n");
+    sb.append("td, th { padding: 2px 8px; text-align: right; }\n");
+    sb.append("td:first-child, th:first-child { text-align: left; }\n");
+    sb.append("pre { line-height: 1.3; }\n");
+    sb.append("</style>\n</head>\n<body>\n<h1>").append(escaper.escape(path)).append("</h1>\n");
+
+    sb.append("<table>\n<tr><th>phase</th><th>wall ms</th><th>cpu ms</th><th>alloc MB</th></tr>\n");
+    for (Phase phase : Phase.values()) {
+      if (stats.wallNanos(phase) == 0) {
+        continue;
+      }
+      sb.append(
+          String.format(
+              Locale.ROOT,
+              "<tr><td>%s</td><td>%.1f</td><td>%.1f</td><td>%.1f</td></tr>%n",
+              phase.displayName(),
+              stats.wallNanos(phase) / 1e6,
+              stats.cpuNanos(phase) / 1e6,
+              stats.allocatedBytes(phase) / (double) (1 << 20)));
+    }
+    sb.append("</table>\n");
+
+    sb.append("<h2>Declarations</h2>\n<table>\n<tr><th>declaration</th><th>lines</th>");
+    sb.append("<th>doc nodes</th><th>max depth</th><th>computeBreaks</th><th>broken</th>");
+    sb.append("<th>one line</th><th>comments</th><th>comment ms</th><th>javadoc ms</th></tr>\n");
+    for (Declaration declaration : declarations) {
+      DocShape.Counts counts = declaration.counts();
+      sb.append(
+          String.format(
+              Locale.ROOT,
+              "<tr style=\"background: %s\"><td><a href=\"#L%d\">%s</a></td><td>%d-%d</td>"
+                  + "<td>%d</td><td>%d</td><td>%d</td><td>%d</td><td>%d</td><td>%d</td>"
+                  + "<td>%.2f</td><td>%.2f</td></tr>%n",
+              heat(counts.docs(), maxDocs),
+              declaration.startLine(),
+              escaper.escape(declaration.name()),
+              declaration.startLine(),
+              declaration.endLine(),
+              counts.docs(),
+              counts.maxDepth(),
+              counts.levelsLaidOut(),
+              counts.brokenLevels(),
+              counts.oneLineLevels(),
+              declaration.comments(),
+              declaration.commentNanos() / 1e6,
+              declaration.javadocNanos() / 1e6));
+    }
+    sb.append("</table>\n");
+
+    sb.append("<h2>Source</h2>\n<pre>");
+    String text = javaInput.getText();
+    // Split the lines as the declarations' line numbers do, at any line break.
+    List<CharSequence> lines = LineIndex.create(text).lines();
+    int lineStart = 0;
+    for (int line = 1; line <= lines.size(); line++) {
+      CharSequence lineText = lines.get(line - 1);
+      Declaration declaration = declarationAt.get(lineStart + indentation(text, lineStart));
+      if (declaration == null) {
+        declaration = compilationUnit;
+      }
+      sb.append(
+          String.format(
+              Locale.ROOT,
+              "<span id=\"L%d\" style=\"background: %s\" title=\"%s\">%5d  ",
+              line,
+              heat(declaration.counts().docs(), maxDocs),
+              escaper.escape(declaration.name()),
+              line));
+      sb.append(escaper.escape(lineText.toString().stripTrailing()));
+      sb.append("</span>\n");
+      lineStart += lineText.length();
+    }
+    sb.append("</pre>\n</body>\n</html>\n");
+    return sb.toString();
+  }
+
+  /** Returns the number of spaces and tabs at {@code lineStart} in {@code text}. */
+  private static int indentation(String text, int lineStart) {
+    int i = lineStart;
+    while (i < text.length() && (text.charAt(i) == ' ' || text.charAt(i) == '\t')) {
+      i++;
+    }
+    return i - lineStart;
+  }
+
+  /** Returns a background colour from white to red, for {@code value} out of {@code max}. */
+  private static String heat(int value, int max) {
+    int lightness = 100 - 40 * value / max;
+    return String.format(Locale.ROOT, "hsl(0, 100%%, %d%%)", lightness);
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The state that a long-lived caller of the formatter keeps across runs of {@link Main}: the
+ * threads that format files, and the {@link CommentRewriteCache}. Runs may overlap, and share both.
+ * The sessions of {@link GoogleJavaFormatTool} and {@link GoogleJavaFormatToolProvider} only adapt
+ * their streams to it.
+ *
+ * <p>javac isn't shared, since each parse needs a fresh compiler context.
+ */
+final class FormatSession implements AutoCloseable {
+
+  private final ExecutorService executor =
+      Executors.newFixedThreadPool(
+          Main.MAX_THREADS,
+          new ThreadFactoryBuilder()
+              .setNameFormat("google-java-format-%d")
+              // Don't keep the JVM alive for a session that wasn't closed.
+              .setDaemon(true)
+              .build());
+
+  private final CommentRewriteCache commentCache = CommentRewriteCache.create();
+
+  /** Guards {@link #running} and {@link #closed}, and is notified when the last run finishes. */
+  private final Object lock = new Object();
+
+  private int running;
+
+  private boolean closed;
+
+  /**
+   * Runs the formatter with the command-line arguments {@code args}, like {@link Main#main}. If the
+   * run fails unexpectedly, or the session is closed, reports the error to {@code err} and returns
+   * a non-zero exit code.
+   */
+  int run(InputStream in, PrintWriter out, PrintWriter err, String... args) {
+    try {
+      synchronized (lock) {
+        checkState(!closed, "the google-java-format session is closed");
+        running++;
+      }
+      try {
+        return Main.main(new Main(out, err, in, executor, commentCache), out, err, args);
+      } finally {
+        synchronized (lock) {
+          if (--running == 0) {
+            lock.notifyAll();
+          }
+        }
+      }
+    } catch (RuntimeException e) {
+      err.print(e.getMessage());
+      err.flush();
+      return 1; // pass non-zero value back indicating an error has happened
+    }
+  }
+
+  /**
+   * Waits for the runs in progress to finish, then stops the threads of the session. Later runs
+   * fail.
+   */
+  @Override
+  public void close() {
+    boolean interrupted = false;
+    synchronized (lock) {
+      closed = true;
+      while (running > 0) {
+        try {
+          lock.wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    }
+    // The runs waited for the files they submitted, so the threads are idle.
+    executor.shutdown();
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
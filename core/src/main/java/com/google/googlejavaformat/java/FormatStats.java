@@ -0,0 +1,185 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * The wall time, CPU time and allocated bytes of each {@link Phase} of formatting, measured on the
+ * thread that does the formatting.
+ *
+ * <p>A phase is measured from the last call to {@link #start} or {@link #lap} to the call to {@link
+ * #lap} that names it, so that straight-line code can be measured with one call between each pair
+ * of phases. An instance is used by one thread at a time.
+ */
+final class FormatStats {
+
+  /** The phases of formatting a file, in the order they run. */
+  enum Phase {
+    /** Tokenizing the input, in {@link JavaInput}. */
+    LEX("lex"),
+    /** Parsing the input with javac. */
+    PARSE("parse"),
+    /** Visiting the AST to emit ops, in {@link JavaInputAstVisitor}. */
+    VISIT("visit"),
+    /** Building the ops and the {@code Doc}, in {@code OpsBuilder.build}. */
+    OPS("ops"),
+    /** Choosing line breaks, in {@code Doc.computeBreaks}. */
+    LAYOUT("layout"),
+    /** Writing the {@code Doc} to the {@link JavaOutput}. */
+    WRITE("write"),
+    /** Computing the replacements for the requested ranges. */
+    REPLACEMENTS("replacements"),
+    REMOVE_UNUSED_IMPORTS("remove-unused-imports"),
+    REORDER_IMPORTS("reorder-imports"),
+    REFLOW_STRINGS("reflow-strings");
+
+    private final String displayName;
+
+    Phase(String displayName) {
+      this.displayName = displayName;
+    }
+
+    String displayName() {
+      return displayName;
+    }
+  }
+
+  /** Measures nothing, at no cost. */
+  static final FormatStats NONE = new FormatStats(/* enabled= */ false);
+
+  /**
+   * What this JVM can measure. It is only initialized when enabled stats first measure something:
+   * enabling allocation measurement affects the whole JVM, so callers that don't ask for stats
+   * shouldn't trigger it.
+   */
+  private static final class Measurement {
+    static final boolean CPU_TIME_SUPPORTED =
+        ManagementFactory.getThreadMXBean().isCurrentThreadCpuTimeSupported();
+
+    /** Measures allocation, if this JVM can. */
+    static final @Nullable ThreadMXBean ALLOCATION = allocation();
+  }
+
+  private final boolean enabled;
+  private final long[] wallNanos = new long[Phase.values().length];
+  private final long[] cpuNanos = new long[Phase.values().length];
+  private final long[] allocatedBytes = new long[Phase.values().length];
+
+  private long startWallNanos;
+  private long startCpuNanos;
+  private long startAllocatedBytes;
+
+  private FormatStats(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /** Returns new, empty stats. */
+  static FormatStats create() {
+    return new FormatStats(/* enabled= */ true);
+  }
+
+  /** Starts measuring the next phase. */
+  void start() {
+    if (!enabled) {
+      return;
+    }
+    startWallNanos = System.nanoTime();
+    startCpuNanos = cpuNanos();
+    startAllocatedBytes = allocatedBytes();
+  }
+
+  /** Adds the cost since the last {@link #start} or {@link #lap} to {@code phase}. */
+  void lap(Phase phase) {
+    if (!enabled) {
+      return;
+    }
+    long wall = System.nanoTime();
+    long cpu = cpuNanos();
+    long bytes = allocatedBytes();
+    wallNanos[phase.ordinal()] += wall - startWallNanos;
+    cpuNanos[phase.ordinal()] += cpu - startCpuNanos;
+    allocatedBytes[phase.ordinal()] += bytes - startAllocatedBytes;
+    startWallNanos = wall;
+    startCpuNanos = cpu;
+    startAllocatedBytes = bytes;
+  }
+
+  /** Adds the costs of {@code other} to these stats, to aggregate the stats of several files. */
+  void add(FormatStats other) {
+    for (int i = 0; i < wallNanos.length; i++) {
+      wallNanos[i] += other.wallNanos[i];
+      cpuNanos[i] += other.cpuNanos[i];
+      allocatedBytes[i] += other.allocatedBytes[i];
+    }
+  }
+
+  long wallNanos(Phase phase) {
+    return wallNanos[phase.ordinal()];
+  }
+
+  long cpuNanos(Phase phase) {
+    return cpuNanos[phase.ordinal()];
+  }
+
+  /** Returns the bytes allocated in {@code phase}, or 0 if the JVM can't measure allocation. */
+  long allocatedBytes(Phase phase) {
+    return allocatedBytes[phase.ordinal()];
+  }
+
+  /** Returns the wall time of all the phases. */
+  long totalWallNanos() {
+    return sum(wallNanos);
+  }
+
+  long totalCpuNanos() {
+    return sum(cpuNanos);
+  }
+
+  long totalAllocatedBytes() {
+    return sum(allocatedBytes);
+  }
+
+  private static long sum(long[] values) {
+    long sum = 0;
+    for (long value : values) {
+      sum += value;
+    }
+    return sum;
+  }
+
+  private static long cpuNanos() {
+    // Returns -1 if CPU time measurement is disabled, and then every phase takes 0 CPU time.
+    return Measurement.CPU_TIME_SUPPORTED
+        ? ManagementFactory.getThreadMXBean().getCurrentThreadCpuTime()
+        : 0;
+  }
+
+  private static long allocatedBytes() {
+    ThreadMXBean allocation = Measurement.ALLOCATION;
+    return allocation != null ? allocation.getCurrentThreadAllocatedBytes() : 0;
+  }
+
+  private static @Nullable ThreadMXBean allocation() {
+    if (ManagementFactory.getThreadMXBean() instanceof ThreadMXBean allocation
+        && allocation.isThreadAllocatedMemorySupported()) {
+      allocation.setThreadAllocatedMemoryEnabled(true);
+      return allocation;
+    }
+    return null;
+  }
+}
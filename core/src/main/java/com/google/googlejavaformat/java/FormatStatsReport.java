@@ -0,0 +1,149 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static com.google.googlejavaformat.java.Json.appendString;
+import static java.util.Comparator.comparingLong;
+
+import com.google.common.cache.CacheStats;
+import com.google.googlejavaformat.java.FormatStats.Phase;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The {@link FormatStats} of every file of a run of the formatter, reported as a table for people
+ * or as JSON for tools.
+ *
+ * <p>Times are the sums over all the files, so with several threads they add up to more than the
+ * elapsed time of the run.
+ */
+final class FormatStatsReport {
+
+  /** The number of the slowest files to print. */
+  static final int SLOWEST_FILES = 10;
+
+  private record FileStats(String path, int length, FormatStats stats) {}
+
+  private final List<FileStats> files = new ArrayList<>();
+  private final FormatStats total = FormatStats.create();
+  private final CacheStats commentCache;
+
+  /**
+   * Creates an empty report.
+   *
+   * @param commentCache the stats of the {@link CommentRewriteCache} shared by the files
+   */
+  FormatStatsReport(CacheStats commentCache) {
+    this.commentCache = commentCache;
+  }
+
+  /** Adds the stats of formatting the file at {@code path}, which is {@code length} chars long. */
+  void add(String path, int length, FormatStats stats) {
+    files.add(new FileStats(path, length, stats));
+    total.add(stats);
+  }
+
+  /** Prints a table of the cost of each phase, followed by the slowest files. */
+  void print(PrintWriter out) {
+    out.printf(Locale.ROOT, "Files formatted: %d%n", files.size());
+    out.printf(Locale.ROOT, "%-24s %12s %12s %12s%n", "phase", "wall ms", "cpu ms", "alloc MB");
+    for (Phase phase : Phase.values()) {
+      printRow(
+          out,
+          phase.displayName(),
+          total.wallNanos(phase),
+          total.cpuNanos(phase),
+          total.allocatedBytes(phase));
+    }
+    printRow(out, "total", total);
+
+    out.printf(Locale.ROOT, "%nSlowest files:%n");
+    out.printf(Locale.ROOT, "%-24s %12s %12s %12s%n", "file", "wall ms", "cpu ms", "alloc MB");
+    for (FileStats file : slowestFirst().subList(0, Math.min(SLOWEST_FILES, files.size()))) {
+      printRow(out, file.path(), file.stats());
+    }
+
+    if (commentCache.requestCount() > 0) {
+      out.printf(
+          Locale.ROOT,
+          "%nComment cache: %d of %d lookups hit (%.0f%%)%n",
+          commentCache.hitCount(),
+          commentCache.requestCount(),
+          commentCache.hitRate() * 100);
+    }
+  }
+
+  private static void printRow(PrintWriter out, String name, FormatStats stats) {
+    printRow(
+        out, name, stats.totalWallNanos(), stats.totalCpuNanos(), stats.totalAllocatedBytes());
+  }
+
+  private static void printRow(
+      PrintWriter out, String name, long wallNanos, long cpuNanos, long allocatedBytes) {
+    out.printf(
+        Locale.ROOT,
+        "%-24s %12.1f %12.1f %12.1f%n",
+        name,
+        wallNanos / 1e6,
+        cpuNanos / 1e6,
+        allocatedBytes / (double) (1 << 20));
+  }
+
+  /** Returns the report as a JSON object, with all the files from slowest to fastest. */
+  String toJson() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\n  \"phases\": ");
+    appendPhases(sb, total, "  ");
+    sb.append(",\n  \"files\": [");
+    String separator = "\n";
+    for (FileStats file : slowestFirst()) {
+      sb.append(separator).append("    {\"path\": ");
+      appendString(sb, file.path());
+      sb.append(", \"length\": ").append(file.length());
+      sb.append(", \"wallNanos\": ").append(file.stats().totalWallNanos());
+      sb.append(", \"cpuNanos\": ").append(file.stats().totalCpuNanos());
+      sb.append(", \"allocatedBytes\": ").append(file.stats().totalAllocatedBytes());
+      sb.append(", \"phases\": ");
+      appendPhases(sb, file.stats(), "    ");
+      sb.append('}');
+      separator = ",\n";
+    }
+    sb.append("\n  ],\n  \"commentCache\": {\"hits\": ").append(commentCache.hitCount());
+    sb.append(", \"misses\": ").append(commentCache.missCount()).append("}\n}\n");
+    return sb.toString();
+  }
+
+  static void appendPhases(StringBuilder sb, FormatStats stats, String indent) {
+    sb.append('{');
+    String separator = "\n";
+    for (Phase phase : Phase.values()) {
+      sb.append(separator).append(indent).append("  ");
+      appendString(sb, phase.displayName());
+      sb.append(": {\"wallNanos\": ").append(stats.wallNanos(phase));
+      sb.append(", \"cpuNanos\": ").append(stats.cpuNanos(phase));
+      sb.append(", \"allocatedBytes\": ").append(stats.allocatedBytes(phase)).append('}');
+      separator = ",\n";
+    }
+    sb.append('\n').append(indent).append('}');
+  }
+
+  private List<FileStats> slowestFirst() {
+    List<FileStats> sorted = new ArrayList<>(files);
+    sorted.sort(comparingLong((FileStats file) -> file.stats().totalWallNanos()).reversed());
+    return sorted;
+  }
+}
@@ -18,9 +18,7 @@ import java.io.IOError;
 import java.io.IOException;
 import java.net.URI;
 import static java.nio.charset.StandardCharsets.UTF_8;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 
 import javax.tools.Diagnostic;
 import javax.tools.DiagnosticCollector;
@@ -31,16 +29,18 @@ import javax.tools.StandardLocation;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Iterators;
 import com.google.common.collect.Range;
 import com.google.common.collect.RangeSet;
 import com.google.common.collect.TreeRangeSet;
 import com.google.common.io.CharSink;
 import com.google.common.io.CharSource;
 import com.google.errorprone.annotations.Immutable;
+import com.google.googlejavaformat.Cancellation;
 import com.google.googlejavaformat.Doc;
 import com.google.googlejavaformat.DocBuilder;
 import com.google.googlejavaformat.FormattingError;
+import com.google.googlejavaformat.IntRangeSet;
+import com.google.googlejavaformat.LineIndex;
 import com.google.googlejavaformat.Newlines;
 import com.google.googlejavaformat.Op;
 import com.google.googlejavaformat.OpsBuilder;
@@ -51,6 +51,7 @@ import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
 import com.sun.tools.javac.util.Context;
 import com.sun.tools.javac.util.Log;
 import com.sun.tools.javac.util.Options;
+import org.jspecify.annotations.Nullable;
 
 /**
  * This is google-java-format, a new Java formatter that follows the Google Java Style Guide quite
@@ -94,13 +95,26 @@ public final class Formatter {
 
   private final JavaFormatterOptions options;
 
+  // Only memoizes comment rewriting, which doesn't depend on the state of the cache.
+  @SuppressWarnings("Immutable")
+  private final @Nullable CommentRewriteCache commentCache;
+
   /** A new Formatter instance with default options. */
   public Formatter() {
     this(JavaFormatterOptions.defaultOptions());
   }
 
   public Formatter(JavaFormatterOptions options) {
+    this(options, /* commentCache= */ null);
+  }
+
+  /**
+   * A new Formatter instance that looks up rewritten comments in {@code commentCache}, which may be
+   * shared with other formatters.
+   */
+  Formatter(JavaFormatterOptions options, @Nullable CommentRewriteCache commentCache) {
     this.options = options;
+    this.commentCache = commentCache;
   }
 
   /**
@@ -110,9 +124,27 @@ public final class Formatter {
    * @param javaInput the input, a Java compilation unit
    * @param javaOutput the {@link JavaOutput}
    * @param options the {@link JavaFormatterOptions}
+   * @param cancellation the {@link Cancellation} checked while formatting
+   * @param phases the {@link FormatPhases} to report the end of each phase to
    */
-  static void format(final JavaInput javaInput, JavaOutput javaOutput, JavaFormatterOptions options)
+  static void format(
+      final JavaInput javaInput,
+      JavaOutput javaOutput,
+      JavaFormatterOptions options,
+      Cancellation cancellation,
+      FormatPhases phases)
       throws FormatterException {
+    JCCompilationUnit unit = parse(javaInput);
+    phases.lap(FormatStats.Phase.PARSE);
+    format(javaInput, unit, javaOutput, options, cancellation, phases);
+  }
+
+  /**
+   * Parses {@code javaInput} with javac.
+   *
+   * @throws FormatterException if the input has syntax errors
+   */
+  static JCCompilationUnit parse(final JavaInput javaInput) throws FormatterException {
     Context context = new Context();
     DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
     context.put(DiagnosticListener.class, diagnostics);
@@ -144,13 +176,26 @@ public final class Formatter {
     unit = parser.parseCompilationUnit();
     unit.sourcefile = source;
 
-    javaInput.setCompilationUnit(unit);
     Iterable<Diagnostic<? extends JavaFileObject>> errorDiagnostics =
         Iterables.filter(diagnostics.getDiagnostics(), Formatter::errorDiagnostic);
     if (!Iterables.isEmpty(errorDiagnostics)) {
       throw FormatterException.fromJavacDiagnostics(errorDiagnostics);
     }
-    OpsBuilder builder = new OpsBuilder(javaInput, javaOutput);
+    return unit;
+  }
+
+  /**
+   * Formats the parsed {@code unit} of {@code javaInput} into {@code javaOutput}, and returns the
+   * {@link Doc} that it was laid out as.
+   */
+  static Doc format(
+      JavaInput javaInput,
+      JCCompilationUnit unit,
+      JavaOutput javaOutput,
+      JavaFormatterOptions options,
+      Cancellation cancellation,
+      FormatPhases phases) {
+    OpsBuilder builder = new OpsBuilder(javaInput, javaOutput, cancellation);
     // Output the compilation unit.
     JavaInputAstVisitor visitor;
     if (Runtime.version().feature() >= 21) {
@@ -163,10 +208,18 @@ public final class Formatter {
     visitor.scan(unit, null);
     builder.sync(javaInput.getText().length());
     builder.drain();
-    Doc doc = new DocBuilder().withOps(builder.build()).build();
-    doc.computeBreaks(javaOutput.getCommentsHelper(), MAX_LINE_LENGTH, new Doc.State(+0, 0));
+    phases.lap(FormatStats.Phase.VISIT);
+    DocBuilder docBuilder = new DocBuilder().withOps(builder.build());
+    Doc doc = docBuilder.build();
+    phases.docNodes(docBuilder.docCount());
+    phases.lap(FormatStats.Phase.OPS);
+    doc.computeBreaks(
+        javaOutput.getCommentsHelper(), MAX_LINE_LENGTH, new Doc.State(+0, 0, cancellation));
+    phases.lap(FormatStats.Phase.LAYOUT);
     doc.write(javaOutput);
     javaOutput.flush();
+    phases.lap(FormatStats.Phase.WRITE);
+    return doc;
   }
 
   private static JavaInputAstVisitor createVisitor(
@@ -221,6 +274,22 @@ public final class Formatter {
     return formatSource(input, ImmutableList.of(Range.closedOpen(0, input.length())));
   }
 
+  /**
+   * Formats an input string (a Java compilation unit) like {@link #formatSource(String)}, but
+   * abandons formatting once {@code cancellation} is cancelled. Cancellation is checked while the
+   * input is visited, while its ops are built and while it is laid out, but not while javac parses
+   * it.
+   *
+   * @throws FormatterException if the input string cannot be parsed, or formatting was cancelled
+   */
+  public String formatSource(String input, Cancellation cancellation) throws FormatterException {
+    return formatSource(
+        input,
+        ImmutableList.of(Range.closedOpen(0, input.length())),
+        cancellation,
+        FormatStats.NONE);
+  }
+
   /**
    * Formats an input string (a Java compilation unit) and fixes imports.
    *
@@ -252,7 +321,22 @@ public final class Formatter {
    */
   public String formatSource(String input, Collection<Range<Integer>> characterRanges)
       throws FormatterException {
-    return JavaOutput.applyReplacements(input, getFormatReplacements(input, characterRanges));
+    return formatSource(input, characterRanges, Cancellation.NONE, FormatStats.NONE);
+  }
+
+  /**
+   * Formats the {@code characterRanges} of {@code input}, abandoning formatting once {@code
+   * cancellation} is cancelled, and adds the cost of each phase to {@code stats}, which belongs to
+   * this call.
+   */
+  String formatSource(
+      String input,
+      Collection<Range<Integer>> characterRanges,
+      Cancellation cancellation,
+      FormatStats stats)
+      throws FormatterException {
+    return JavaOutput.applyReplacements(
+        input, getFormatReplacements(input, characterRanges, cancellation, stats));
   }
 
   /**
@@ -265,6 +349,31 @@ public final class Formatter {
    */
   public ImmutableList<Replacement> getFormatReplacements(
       String input, Collection<Range<Integer>> characterRanges) throws FormatterException {
+    return getFormatReplacements(input, characterRanges, Cancellation.NONE, FormatStats.NONE);
+  }
+
+  private ImmutableList<Replacement> getFormatReplacements(
+      String input,
+      Collection<Range<Integer>> characterRanges,
+      Cancellation cancellation,
+      FormatStats stats)
+      throws FormatterException {
+    FormatPhases phases = FormatPhases.start(stats, input.length());
+    try {
+      return getFormatReplacements(input, characterRanges, cancellation, phases);
+    } catch (FormatterException | RuntimeException e) {
+      phases.fail(
+          cancellation.isCancelled() ? FormatPhaseEvent.CANCELLED : FormatPhaseEvent.ERROR);
+      throw e;
+    }
+  }
+
+  private ImmutableList<Replacement> getFormatReplacements(
+      String input,
+      Collection<Range<Integer>> characterRanges,
+      Cancellation cancellation,
+      FormatPhases phases)
+      throws FormatterException {
     JavaInput javaInput = new JavaInput(input);
 
     // TODO(cushon): this is only safe because the modifier ordering doesn't affect whitespace,
@@ -275,15 +384,26 @@ public final class Formatter {
     }
 
     String lineSeparator = Newlines.guessLineSeparator(input);
-    JavaOutput javaOutput =
-        new JavaOutput(lineSeparator, javaInput, new JavaCommentsHelper(lineSeparator, options));
-    try {
-      format(javaInput, javaOutput, options);
+    JavaCommentsHelper commentsHelper =
+        new JavaCommentsHelper(lineSeparator, options, commentCache);
+    JavaOutput javaOutput = new JavaOutput(lineSeparator, javaInput, commentsHelper);
+    phases.tokens(javaInput.getTokens().size());
+    phases.lap(FormatStats.Phase.LEX);
+    try (JavadocPrefetch prefetch =
+        commentCache != null && options.formatJavadoc()
+            // The prefetch counts its lookups apart, so that only the layout's count in the stats.
+            ? JavadocPrefetch.start(
+                javaInput,
+                new JavaCommentsHelper(lineSeparator, options, commentCache.withOwnStats()))
+            : null) {
+      format(javaInput, javaOutput, options, cancellation, phases);
     } catch (FormattingError e) {
       throw new FormatterException(e.diagnostics());
     }
-    RangeSet<Integer> tokenRangeSet = javaInput.characterRangesToTokenRanges(characterRanges);
-    return javaOutput.getFormatReplacements(tokenRangeSet);
+    IntRangeSet tokenRangeSet = javaInput.characterRangesToTokenRanges(characterRanges);
+    ImmutableList<Replacement> replacements = javaOutput.getFormatReplacements(tokenRangeSet);
+    phases.lap(FormatStats.Phase.REPLACEMENTS);
+    return replacements;
   }
 
   /**
@@ -291,17 +411,18 @@ public final class Formatter {
    */
   public static RangeSet<Integer> lineRangesToCharRanges(
       String input, RangeSet<Integer> lineRanges) {
-    List<Integer> lines = new ArrayList<>();
-    Iterators.addAll(lines, Newlines.lineOffsetIterator(input));
-    lines.add(input.length() + 1);
+    LineIndex lines = LineIndex.create(input);
 
     final RangeSet<Integer> characterRanges = TreeRangeSet.create();
     for (Range<Integer> lineRange :
-        lineRanges.subRangeSet(Range.closedOpen(0, lines.size() - 1)).asRanges()) {
-      int lineStart = lines.get(lineRange.lowerEndpoint());
+        lineRanges.subRangeSet(Range.closedOpen(0, lines.getLineCount())).asRanges()) {
+      int lineStart = lines.getLineStart(lineRange.lowerEndpoint());
       // Exclude the trailing newline. This isn't strictly necessary, but handling blank lines
       // as empty ranges is convenient.
-      int lineEnd = lines.get(lineRange.upperEndpoint()) - 1;
+      int lineEnd =
+          lineRange.upperEndpoint() < lines.getLineCount()
+              ? lines.getLineStart(lineRange.upperEndpoint()) - 1
+              : input.length();
       Range<Integer> range = Range.closedOpen(lineStart, lineEnd);
       characterRanges.add(range);
     }
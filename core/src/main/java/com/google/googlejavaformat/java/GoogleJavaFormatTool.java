@@ -15,11 +15,14 @@
 package com.google.googlejavaformat.java;
 
 import static com.google.common.collect.Sets.toImmutableEnumSet;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.auto.service.AutoService;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintStream;
+import java.io.PrintWriter;
 import java.util.Arrays;
 import java.util.Set;
 import javax.lang.model.SourceVersion;
@@ -28,6 +31,52 @@ import javax.tools.Tool;
 /** Provide a way to be invoked without necessarily starting a new VM. */
 @AutoService(Tool.class)
 public class GoogleJavaFormatTool implements Tool {
+
+  /**
+   * A {@link Tool} that keeps its threads and caches across calls to {@link #run}, for callers like
+   * build tools that format many sets of files in the same VM. Calls to {@link #run} may overlap.
+   * The session must be closed once it's no longer needed.
+   */
+  public static final class Session implements Tool, AutoCloseable {
+    private final GoogleJavaFormatTool tool = new GoogleJavaFormatTool();
+    private final FormatSession session = new FormatSession();
+
+    private Session() {}
+
+    @Override
+    public String name() {
+      return tool.name();
+    }
+
+    @Override
+    public Set<SourceVersion> getSourceVersions() {
+      return tool.getSourceVersions();
+    }
+
+    @Override
+    public int run(InputStream in, OutputStream out, OutputStream err, String... args) {
+      return session.run(
+          in,
+          new PrintWriter(new OutputStreamWriter(out, UTF_8)),
+          new PrintWriter(new OutputStreamWriter(err, UTF_8)),
+          args);
+    }
+
+    /**
+     * Waits for the calls to {@link #run} in progress to finish, then stops the threads of the
+     * session. Later calls to {@link #run} fail.
+     */
+    @Override
+    public void close() {
+      session.close();
+    }
+  }
+
+  /** Returns a new {@link Session}, which must be closed once it's no longer needed. */
+  public static Session newSession() {
+    return new Session();
+  }
+
   @Override
   public String name() {
     return "google-java-format";
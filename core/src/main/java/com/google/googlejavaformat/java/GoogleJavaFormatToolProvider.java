@@ -21,6 +21,43 @@ import java.util.spi.ToolProvider;
 /** Provide a way to be invoked without necessarily starting a new VM. */
 @AutoService(ToolProvider.class)
 public class GoogleJavaFormatToolProvider implements ToolProvider {
+
+  /**
+   * A {@link ToolProvider} that keeps its threads and caches across calls to {@link #run}, for
+   * callers like build tools that format many sets of files in the same VM. Calls to {@link #run}
+   * may overlap. The session must be closed once it's no longer needed.
+   */
+  public static final class Session implements ToolProvider, AutoCloseable {
+    private final GoogleJavaFormatToolProvider provider = new GoogleJavaFormatToolProvider();
+    private final FormatSession session = new FormatSession();
+
+    private Session() {}
+
+    @Override
+    public String name() {
+      return provider.name();
+    }
+
+    @Override
+    public int run(PrintWriter out, PrintWriter err, String... args) {
+      return session.run(System.in, out, err, args);
+    }
+
+    /**
+     * Waits for the calls to {@link #run} in progress to finish, then stops the threads of the
+     * session. Later calls to {@link #run} fail.
+     */
+    @Override
+    public void close() {
+      session.close();
+    }
+  }
+
+  /** Returns a new {@link Session}, which must be closed once it's no longer needed. */
+  public static Session newSession() {
+    return new Session();
+  }
+
   @Override
   public String name() {
     return "google-java-format";
@@ -0,0 +1,482 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.googlejavaformat.java.JavacTokens.RawTok;
+import com.sun.tools.javac.parser.Tokens.TokenKind;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * An index of the simple names a compilation unit uses, built from its tokens instead of a javac
+ * parse, for {@link RemoveUnusedImports}.
+ *
+ * <p>The parse-based scanner in {@link RemoveUnusedImports} counts a name as used if it appears in
+ * an identifier tree, or in a javadoc reference. Without a syntax tree, an identifier token is
+ * only known to be an identifier tree if its neighbouring tokens rule out the other possibilities:
+ * a member select ({@code a.Name}), a declaration ({@code Type Name}, {@code class Name}) or a
+ * label. The index conservatively reports {@link Usage#UNKNOWN} for names that it can neither
+ * prove used nor prove unused, and callers should fall back to parsing.
+ */
+final class IdentifierUsageIndex {
+
+  /** Whether a simple name is used. */
+  enum Usage {
+    USED,
+    UNUSED,
+    UNKNOWN,
+  }
+
+  /**
+   * An import declaration.
+   *
+   * @param start the position of the {@code import} keyword
+   * @param end the position just past the terminating semicolon
+   * @param qualifier the imported name, excluding its last component
+   * @param simpleName the last component of the imported name, which may be {@code *}
+   */
+  record Import(int start, int end, String qualifier, String simpleName) {}
+
+  /** Contextual keywords, which the lexer does not distinguish from identifiers. */
+  private static final ImmutableSet<String> CONTEXTUAL_KEYWORDS =
+      ImmutableSet.of(
+          "exports", "module", "non", "open", "opens", "permits", "provides", "record", "requires",
+          "sealed", "to", "transitive", "uses", "var", "when", "with", "yield");
+
+  /** Tokens after which an identifier must begin an expression. */
+  private static final ImmutableSet<TokenKind> EXPRESSION_PREFIXES =
+      Sets.immutableEnumSet(
+          TokenKind.EQ,
+          TokenKind.PLUSEQ,
+          TokenKind.SUBEQ,
+          TokenKind.STAREQ,
+          TokenKind.SLASHEQ,
+          TokenKind.PERCENTEQ,
+          TokenKind.AMPEQ,
+          TokenKind.BAREQ,
+          TokenKind.CARETEQ,
+          TokenKind.LTLTEQ,
+          TokenKind.GTGTEQ,
+          TokenKind.GTGTGTEQ,
+          TokenKind.RETURN,
+          TokenKind.THROW,
+          TokenKind.ASSERT,
+          TokenKind.QUES,
+          TokenKind.BANG,
+          TokenKind.TILDE,
+          TokenKind.PLUS,
+          TokenKind.SUB,
+          TokenKind.STAR,
+          TokenKind.SLASH,
+          TokenKind.PERCENT,
+          TokenKind.AMPAMP,
+          TokenKind.BARBAR,
+          TokenKind.EQEQ,
+          TokenKind.BANGEQ,
+          TokenKind.LTEQ,
+          TokenKind.GTEQ,
+          TokenKind.CARET,
+          TokenKind.BAR,
+          TokenKind.AMP,
+          TokenKind.LTLT,
+          TokenKind.ARROW,
+          TokenKind.LBRACKET);
+
+  /** Tokens after which an identifier must be a type or an expression. */
+  private static final ImmutableSet<TokenKind> TYPE_PREFIXES =
+      Sets.immutableEnumSet(
+          TokenKind.MONKEYS_AT,
+          TokenKind.NEW,
+          TokenKind.EXTENDS,
+          TokenKind.IMPLEMENTS,
+          TokenKind.THROWS,
+          TokenKind.INSTANCEOF,
+          TokenKind.CASE);
+
+  /** Tokens after which an identifier followed by {@code (} is a method call or a declaration. */
+  private static final ImmutableSet<TokenKind> STATEMENT_PREFIXES =
+      Sets.immutableEnumSet(
+          TokenKind.SEMI,
+          TokenKind.LBRACE,
+          TokenKind.RBRACE,
+          TokenKind.COMMA,
+          TokenKind.RPAREN,
+          TokenKind.COLON);
+
+  /** The javadoc tags whose arguments may be references. */
+  private static final ImmutableSet<String> REFERENCE_TAGS =
+      ImmutableSet.of(
+          "exception", "link", "linkplain", "provides", "see", "serialField", "throws", "uses",
+          "value");
+
+  private final @Nullable String packageName;
+  private final ImmutableList<Import> imports;
+  private final Set<String> used = new HashSet<>();
+  private final Set<String> mentioned = new HashSet<>();
+
+  private IdentifierUsageIndex(@Nullable String packageName, ImmutableList<Import> imports) {
+    this.packageName = packageName;
+    this.imports = imports;
+  }
+
+  /** The package name, or {@code null} if the compilation unit has no package declaration. */
+  @Nullable String packageName() {
+    return packageName;
+  }
+
+  /** The import declarations. */
+  ImmutableList<Import> imports() {
+    return imports;
+  }
+
+  /** Returns whether {@code simpleName} is used outside the import declarations. */
+  Usage usage(String simpleName) {
+    if (CONTEXTUAL_KEYWORDS.contains(simpleName)) {
+      return Usage.UNKNOWN;
+    }
+    if (used.contains(simpleName)) {
+      return Usage.USED;
+    }
+    return mentioned.contains(simpleName) ? Usage.UNKNOWN : Usage.UNUSED;
+  }
+
+  /**
+   * Indexes {@code source}, or returns {@code null} if it cannot be indexed without parsing: it has
+   * lexical errors, unicode escapes, or import declarations that don't immediately follow the
+   * package declaration.
+   */
+  static @Nullable IdentifierUsageIndex create(String source) {
+    if (source.contains("\\u")) {
+      // Unicode escapes may spell identifiers, and javac translates them in comments too.
+      return null;
+    }
+    ImmutableList<RawTok> rawToks = JavacLexer.lex(source, ImmutableSet.of(TokenKind.EOF));
+    if (rawToks == null) {
+      return null;
+    }
+    List<RawTok> tokens = new ArrayList<>();
+    List<RawTok> docComments = new ArrayList<>();
+    for (RawTok tok : rawToks) {
+      if (tok.kind() != null) {
+        tokens.add(tok);
+      } else if (source.startsWith("/**", tok.pos())) {
+        docComments.add(tok);
+      }
+    }
+    Header header = new Header(source, tokens);
+    if (!header.parse()) {
+      return null;
+    }
+    IdentifierUsageIndex index =
+        new IdentifierUsageIndex(header.packageName, header.imports.build());
+    if (header.packageName != null) {
+      // The first component of the package name is an identifier tree.
+      index.used.add(header.packageName.split("\\.", 2)[0]);
+    }
+    if (!index.indexTokens(source, tokens, header.end)) {
+      return null;
+    }
+    for (RawTok comment : docComments) {
+      index.indexJavadoc(source, comment.pos(), comment.endPos());
+    }
+    return index;
+  }
+
+  /** Parses the package and import declarations at the start of the compilation unit. */
+  private static final class Header {
+    private final String source;
+    private final List<RawTok> tokens;
+    private final ImmutableList.Builder<Import> imports = ImmutableList.builder();
+    private @Nullable String packageName;
+    private boolean hasImports = false;
+    private int end = 0;
+
+    Header(String source, List<RawTok> tokens) {
+      this.source = source;
+      this.tokens = tokens;
+    }
+
+    /** Returns false if the declarations are malformed. */
+    boolean parse() {
+      while (end < tokens.size()) {
+        RawTok tok = tokens.get(end);
+        if (tok.kind() == TokenKind.SEMI) {
+          end++;
+        } else if (tok.kind() == TokenKind.PACKAGE && packageName == null && !hasImports) {
+          end++;
+          StringBuilder name = new StringBuilder();
+          if (!parseName(name) || kind(end) != TokenKind.SEMI) {
+            return false;
+          }
+          end++;
+          packageName = name.toString();
+        } else if (tok.kind() == TokenKind.IMPORT) {
+          end++;
+          if (kind(end) == TokenKind.STATIC) {
+            end++;
+          }
+          StringBuilder name = new StringBuilder();
+          if (!parseName(name)) {
+            return false;
+          }
+          String simpleName;
+          if (kind(end) == TokenKind.DOT && kind(end + 1) == TokenKind.STAR) {
+            simpleName = "*";
+            end += 2;
+          } else {
+            int lastDot = name.lastIndexOf(".");
+            if (lastDot == -1) {
+              return false;
+            }
+            simpleName = name.substring(lastDot + 1);
+            name.setLength(lastDot);
+          }
+          if (kind(end) != TokenKind.SEMI) {
+            return false;
+          }
+          imports.add(new Import(tok.pos(), tokens.get(end).endPos(), name.toString(), simpleName));
+          hasImports = true;
+          end++;
+        } else {
+          break;
+        }
+      }
+      return true;
+    }
+
+    /** Parses a dotted name, stopping before any {@code .*}. */
+    private boolean parseName(StringBuilder name) {
+      if (kind(end) != TokenKind.IDENTIFIER) {
+        return false;
+      }
+      name.append(text(end++));
+      while (kind(end) == TokenKind.DOT && kind(end + 1) == TokenKind.IDENTIFIER) {
+        name.append('.').append(text(end + 1));
+        end += 2;
+      }
+      return true;
+    }
+
+    private @Nullable TokenKind kind(int i) {
+      return i < tokens.size() ? tokens.get(i).kind() : null;
+    }
+
+    private String text(int i) {
+      RawTok tok = tokens.get(i);
+      return source.substring(tok.pos(), tok.endPos());
+    }
+  }
+
+  /**
+   * Records the identifiers in {@code tokens} after the header. Returns false if there are import
+   * declarations outside the header.
+   */
+  private boolean indexTokens(String source, List<RawTok> tokens, int start) {
+    // The kinds of the tokens after the header, offset by one so that the first and last tokens
+    // have neighbours.
+    TokenKind[] kinds = new TokenKind[tokens.size() + 2];
+    kinds[start] = TokenKind.SEMI;
+    kinds[kinds.length - 1] = TokenKind.EOF;
+    // The index of the matching ')' for each '(', or of the last token if it's unbalanced.
+    int[] closingParens = new int[tokens.size()];
+    ArrayDeque<Integer> openParens = new ArrayDeque<>();
+    boolean hasEnums = false;
+    for (int i = start; i < tokens.size(); i++) {
+      TokenKind kind = tokens.get(i).kind();
+      kinds[i + 1] = kind;
+      switch (kind) {
+        case IMPORT:
+          return false;
+        case ENUM:
+          hasEnums = true;
+          break;
+        case LPAREN:
+          closingParens[i] = tokens.size() - 1;
+          openParens.push(i);
+          break;
+        case RPAREN:
+          if (!openParens.isEmpty()) {
+            closingParens[openParens.pop()] = i;
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    for (int i = start; i < tokens.size(); i++) {
+      if (kinds[i + 1] != TokenKind.IDENTIFIER) {
+        continue;
+      }
+      TokenKind prev = kinds[i];
+      if (prev == TokenKind.DOT
+          || prev == TokenKind.COLCOL
+          || prev == TokenKind.BREAK
+          || prev == TokenKind.CONTINUE) {
+        // A member select, method reference or label, never an identifier tree.
+        continue;
+      }
+      String name = text(source, tokens.get(i));
+      mentioned.add(name);
+      if (isUse(source, tokens, kinds, closingParens, i, hasEnums)) {
+        used.add(name);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns true if the identifier {@code tokens[i]}, which isn't a member select or a label, must
+   * be an identifier tree.
+   */
+  private static boolean isUse(
+      String source,
+      List<RawTok> tokens,
+      TokenKind[] kinds,
+      int[] closingParens,
+      int i,
+      boolean hasEnums) {
+    TokenKind prev = kinds[i];
+    TokenKind next = kinds[i + 2];
+    if (next == TokenKind.ARROW || isTypeDeclarationPrefix(source, tokens, kinds, i)) {
+      // A lambda parameter or a type declaration.
+      return false;
+    }
+    if (TYPE_PREFIXES.contains(prev)) {
+      return true;
+    }
+    switch (next) {
+      case DOT:
+      case COLCOL:
+      case LT:
+      case ELLIPSIS:
+        // The start of a qualified name, a method reference, a parameterized type or a varargs
+        // parameter type. Type declarations are the only other declarations followed by type
+        // parameters, and were ruled out above.
+        return true;
+      case IDENTIFIER:
+        // The type of a declaration.
+        return !CONTEXTUAL_KEYWORDS.contains(text(source, tokens.get(i + 1)));
+      case COLON:
+        if (prev != TokenKind.QUES) {
+          // A label, or a conditional expression that isn't recognized here.
+          return false;
+        }
+        break;
+      case LPAREN:
+        if (prev == TokenKind.LPAREN) {
+          return true;
+        }
+        if (STATEMENT_PREFIXES.contains(prev) && !hasEnums) {
+          // A method call, unless it's a constructor (or other method without a return type), or
+          // an enum constant.
+          TokenKind afterArguments = kinds[closingParens[i + 1] + 2];
+          return afterArguments != TokenKind.LBRACE && afterArguments != TokenKind.THROWS;
+        }
+        break;
+      default:
+        break;
+    }
+    return EXPRESSION_PREFIXES.contains(prev);
+  }
+
+  /** Returns true if the token before {@code tokens[i]} introduces a type declaration. */
+  private static boolean isTypeDeclarationPrefix(
+      String source, List<RawTok> tokens, TokenKind[] kinds, int i) {
+    switch (kinds[i]) {
+      case CLASS:
+      case INTERFACE:
+      case ENUM:
+        return true;
+      case IDENTIFIER:
+        return text(source, tokens.get(i - 1)).equals("record");
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Records the words in the references of the javadoc comment at {@code [start, end)} as
+   * mentioned. This is a superset of the names javac finds in the references: it doesn't check
+   * whether the comment is attached to a declaration, or which parts of a reference are types.
+   */
+  private void indexJavadoc(String source, int start, int end) {
+    int i = start;
+    while ((i = source.indexOf('@', i) + 1) > 0 && i < end) {
+      int tagEnd = i;
+      while (tagEnd < end && Character.isJavaIdentifierPart(source.charAt(tagEnd))) {
+        tagEnd++;
+      }
+      if (!REFERENCE_TAGS.contains(source.substring(i, tagEnd))) {
+        continue;
+      }
+      // The first argument is a reference, except for @serialField, whose second argument is.
+      int arguments = source.startsWith("serialField", i) ? 2 : 1;
+      i = tagEnd;
+      for (int argument = 0; argument < arguments; argument++) {
+        i = indexReference(source, i, end);
+      }
+    }
+  }
+
+  /**
+   * Records the words in the javadoc reference at or after {@code start} as mentioned, and returns
+   * the position after it.
+   */
+  private int indexReference(String source, int start, int end) {
+    int i = start;
+    while (i < end && (Character.isWhitespace(source.charAt(i)) || source.charAt(i) == '*')) {
+      i++;
+    }
+    // The reference ends at whitespace or the end of an inline tag, outside of any parameter
+    // list or type arguments.
+    int depth = 0;
+    int wordStart = -1;
+    for (; i < end; i++) {
+      char c = source.charAt(i);
+      if (Character.isJavaIdentifierPart(c)) {
+        if (wordStart == -1) {
+          wordStart = i;
+        }
+        continue;
+      }
+      if (wordStart != -1) {
+        mentioned.add(source.substring(wordStart, i));
+        wordStart = -1;
+      }
+      if (c == '(' || c == '<') {
+        depth++;
+      } else if (c == ')' || c == '>') {
+        depth--;
+      } else if (depth <= 0 && (c == '}' || Character.isWhitespace(c))) {
+        break;
+      }
+    }
+    if (wordStart != -1) {
+      mentioned.add(source.substring(wordStart, i));
+    }
+    return i;
+  }
+
+  private static String text(String source, RawTok tok) {
+    return source.substring(tok.pos(), tok.endPos());
+  }
+}
@@ -13,20 +13,15 @@
  */
 package com.google.googlejavaformat.java;
 
-import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.List;
 import java.util.Optional;
 import java.util.function.BiFunction;
-import java.util.stream.Stream;
 
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Preconditions;
-import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
-import static com.google.common.collect.Iterables.getLast;
 import static com.google.common.primitives.Booleans.trueFirst;
 import com.google.googlejavaformat.Newlines;
 import com.google.googlejavaformat.java.JavaFormatterOptions.Style;
@@ -36,7 +31,10 @@ import com.sun.tools.javac.parser.Tokens.TokenKind;
 /** Orders imports in Java source code. */
 public class ImportOrderer {
 
-  private static final Splitter DOT_SPLITTER = Splitter.on('.');
+  private static final CharMatcher NON_WHITESPACE = CharMatcher.whitespace().negate();
+
+  private static final ImmutableList<String> ANDROID_PREFIXES =
+      ImmutableList.of("android.", "androidx.", "dalvik.", "libcore.", "com.android.");
 
   /**
    * Reorder the inputs in {@code text}, a complete Java program. On success, another complete Java
@@ -45,8 +43,11 @@ public class ImportOrderer {
    * @throws FormatterException if the input could not be parsed.
    */
   public static String reorderImports(String text, Style style) throws FormatterException {
-    ImmutableList<Tok> toks = JavaInput.buildToks(text, CLASS_START);
-    return new ImportOrderer(text, toks, style).reorderImports();
+    return FormatPhaseEvent.record(
+        FormatStats.Phase.REORDER_IMPORTS.displayName(),
+        text.length(),
+        () -> new ImportOrderer(text, JavaInput.buildToks(text, CLASS_START), style)
+            .reorderImports());
   }
 
   /**
@@ -81,24 +82,19 @@ public class ImportOrderer {
       throw new FormatterException("Imports not contiguous (perhaps a comment separates them?)");
     }
 
-    StringBuilder result = new StringBuilder();
-    String prefix = tokString(0, unindentedFirstImportStart);
-    result.append(prefix);
-    if (!prefix.isEmpty() && Newlines.getLineEnding(prefix) == null) {
+    // The prefix and tail are spliced in from the original text rather than from the toks, which
+    // stop at the first type declaration.
+    int prefixEnd = toks.get(unindentedFirstImportStart).getPosition();
+    int tailStart = NON_WHITESPACE.indexIn(text, toks.get(afterLastImport).getPosition());
+    StringBuilder result = new StringBuilder(text.length() + 2 * lineSeparator.length());
+    result.append(text, 0, prefixEnd);
+    if (prefixEnd > 0 && !isLineBreak(text.charAt(prefixEnd - 1))) {
       result.append(lineSeparator).append(lineSeparator);
     }
-    result.append(reorderedImportsString(imports.imports));
-
-    List<String> tail = new ArrayList<>();
-    tail.add(CharMatcher.whitespace().trimLeadingFrom(tokString(afterLastImport, toks.size())));
-    if (!toks.isEmpty()) {
-      Tok lastTok = getLast(toks);
-      int tailStart = lastTok.getPosition() + lastTok.length();
-      tail.add(text.substring(tailStart));
-    }
-    if (tail.stream().anyMatch(s -> !s.isEmpty())) {
-      result.append(lineSeparator);
-      tail.forEach(result::append);
+    appendReorderedImports(result, imports.imports);
+
+    if (tailStart >= 0) {
+      result.append(lineSeparator).append(text, tailStart, text.length());
     }
 
     return result.toString();
@@ -188,11 +184,19 @@ public class ImportOrderer {
     private final String imported;
     private final boolean isStatic;
     private final String trailing;
+    // Sort and grouping keys, computed once rather than on every comparison.
+    private final String topLevel;
+    private final boolean isAndroid;
+    private final boolean isJava;
 
     Import(String imported, String trailing, boolean isStatic) {
       this.imported = imported;
       this.trailing = trailing;
       this.isStatic = isStatic;
+      int dot = imported.indexOf('.');
+      this.topLevel = dot < 0 ? imported : imported.substring(0, dot);
+      this.isAndroid = ANDROID_PREFIXES.stream().anyMatch(imported::startsWith);
+      this.isJava = topLevel.equals("java") || topLevel.equals("javax");
     }
 
     /** The name being imported, for example {@code java.util.List}. */
@@ -207,24 +211,17 @@ public class ImportOrderer {
 
     /** The top-level package of the import. */
     String topLevel() {
-      return DOT_SPLITTER.split(imported()).iterator().next();
+      return topLevel;
     }
 
     /** True if this is an Android import per AOSP style. */
     boolean isAndroid() {
-      return Stream.of("android.", "androidx.", "dalvik.", "libcore.", "com.android.")
-          .anyMatch(imported::startsWith);
+      return isAndroid;
     }
 
     /** True if this is a Java import per AOSP style. */
     boolean isJava() {
-      switch (topLevel()) {
-        case "java":
-        case "javax":
-          return true;
-        default:
-          return false;
-      }
+      return isJava;
     }
 
     /**
@@ -244,9 +241,7 @@ public class ImportOrderer {
 
     // One or multiple lines, the import itself and following comments, including the line
     // terminator.
-    @Override
-    public String toString() {
-      StringBuilder sb = new StringBuilder();
+    void appendTo(StringBuilder sb) {
       sb.append("import ");
       if (isStatic()) {
         sb.append("static ");
@@ -257,16 +252,14 @@ public class ImportOrderer {
       } else {
         sb.append(trailing());
       }
-      return sb.toString();
     }
-  }
 
-  private String tokString(int start, int end) {
-    StringBuilder sb = new StringBuilder();
-    for (int i = start; i < end; i++) {
-      sb.append(toks.get(i).getOriginalText());
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder();
+      appendTo(sb);
+      return sb.toString();
     }
-    return sb.toString();
   }
 
   private static class ImportsAndIndex {
@@ -362,24 +355,22 @@ public class ImportOrderer {
     return new ImportsAndIndex(imports.build(), afterLastImport);
   }
 
-  // Produces the sorted output based on the imports we have scanned.
-  private String reorderedImportsString(ImmutableSortedSet<Import> imports) {
+  // Appends the sorted output based on the imports we have scanned.
+  private void appendReorderedImports(StringBuilder sb, ImmutableSortedSet<Import> imports) {
     Preconditions.checkArgument(!imports.isEmpty(), "imports");
 
     // Pretend that the first import was preceded by another import of the same kind, so we don't
     // insert a newline there.
     Import prevImport = imports.iterator().next();
 
-    StringBuilder sb = new StringBuilder();
     for (Import currImport : imports) {
       if (shouldInsertBlankLineFn.apply(prevImport, currImport)) {
         // Blank line between static and non-static imports.
         sb.append(lineSeparator);
       }
-      sb.append(currImport);
+      currImport.appendTo(sb);
       prevImport = currImport;
     }
-    return sb.toString();
   }
 
   private static class StringAndIndex {
@@ -477,6 +468,10 @@ public class ImportOrderer {
     return toks.get(i).isSlashSlashComment();
   }
 
+  private static boolean isLineBreak(char c) {
+    return c == '\n' || c == '\r';
+  }
+
   private boolean isNewlineToken(int i) {
     return toks.get(i).isNewline();
   }
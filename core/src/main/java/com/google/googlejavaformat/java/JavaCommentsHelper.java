@@ -17,25 +17,31 @@ package com.google.googlejavaformat.java;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Strings;
+import com.google.googlejavaformat.CommentDescriptor;
 import com.google.googlejavaformat.CommentsHelper;
 import com.google.googlejavaformat.Input.Tok;
-import com.google.googlejavaformat.Newlines;
 import com.google.googlejavaformat.java.javadoc.JavadocFormatter;
+import org.jspecify.annotations.Nullable;
 
 /** {@code JavaCommentsHelper} extends {@link CommentsHelper} to rewrite Java comments. */
 public final class JavaCommentsHelper implements CommentsHelper {
 
   private final String lineSeparator;
   private final JavaFormatterOptions options;
+  private final @Nullable CommentRewriteCache cache;
 
   public JavaCommentsHelper(String lineSeparator, JavaFormatterOptions options) {
+    this(lineSeparator, options, /* cache= */ null);
+  }
+
+  JavaCommentsHelper(
+      String lineSeparator, JavaFormatterOptions options, @Nullable CommentRewriteCache cache) {
     this.lineSeparator = lineSeparator;
     this.options = options;
+    this.cache = cache;
   }
 
   @Override
@@ -43,28 +49,40 @@ public final class JavaCommentsHelper implements CommentsHelper {
     if (!tok.isComment()) {
       return tok.getOriginalText();
     }
-    String text = tok.getOriginalText();
-    if (tok.isJavadocComment() && options.formatJavadoc()) {
-      text = JavadocFormatter.formatJavadoc(text, column0);
-    }
-    List<String> lines = new ArrayList<>();
-    Iterator<String> it = Newlines.lineIterator(text);
-    while (it.hasNext()) {
-      if (tok.isSlashSlashComment()) {
-        lines.add(CharMatcher.whitespace().trimFrom(it.next()));
-      } else {
-        lines.add(CharMatcher.whitespace().trimTrailingFrom(it.next()));
-      }
+    // Line comments are cheap to rewrite, so only block comments are cached.
+    if (cache != null && tok.isSlashStarComment()) {
+      return cache.rewrite(
+          tok.getOriginalText(),
+          column0,
+          lineSeparator,
+          options.formatJavadoc(),
+          () -> rewriteComment(tok, column0));
     }
+    return rewriteComment(tok, column0);
+  }
+
+  private String rewriteComment(Tok tok, int column0) {
+    CommentDescriptor comment = tok.comment();
     if (tok.isSlashSlashComment()) {
-      return indentLineComments(lines, column0);
+      return indentLineComments(comment.lines(), column0);
+    }
+    if (comment.parameterComment() != null) {
+      return comment.parameterComment();
     }
-    return CommentsHelper.reformatParameterComment(tok)
-        .orElseGet(
-            () ->
-                javadocShaped(lines)
-                    ? indentJavadoc(lines, column0)
-                    : preserveIndentation(lines, column0));
+    List<String> lines =
+        tok.isJavadocComment() && options.formatJavadoc()
+            ? CommentDescriptor.trimmedLines(formatJavadoc(tok.getOriginalText(), column0))
+            : comment.lines();
+    return javadocShaped(lines)
+        ? indentJavadoc(lines, column0)
+        : preserveIndentation(lines, column0);
+  }
+
+  private static String formatJavadoc(String text, int column0) {
+    FormatPhaseEvent event = FormatPhaseEvent.begin(FormatPhaseEvent.JAVADOC, text.length());
+    String formatted = JavadocFormatter.formatJavadoc(text, column0);
+    event.end(FormatPhaseEvent.OK);
+    return formatted;
   }
 
   // For non-javadoc-shaped block comments, shift the entire block to the correct
@@ -109,21 +127,10 @@ public final class JavaCommentsHelper implements CommentsHelper {
     return builder.toString();
   }
 
-  // Preserve special `//noinspection` and `//$NON-NLS-x$` comments used by IDEs, which cannot
-  // contain leading spaces.
-  // Deveation: '//#comment' is preserved as well.
-  private static final Pattern LINE_COMMENT_MISSING_SPACE_PREFIX =
-      Pattern.compile("^(//+)(?!noinspection|\\$NON-NLS-\\d+\\$|#)[^\\s/]");
-
+  // The lines already have missing leading spaces added, see CommentDescriptor.lines.
   private List<String> wrapLineComments(List<String> lines, int column0) {
     List<String> result = new ArrayList<>();
     for (String line : lines) {
-      // Add missing leading spaces to line comments: `//foo` -> `// foo`.
-      Matcher matcher = LINE_COMMENT_MISSING_SPACE_PREFIX.matcher(line);
-      if (matcher.find()) {
-        int length = matcher.group(1).length();
-        line = Strings.repeat("/", length) + " " + line.substring(length);
-      }
       if (line.startsWith("// MOE:")) {
         // don't wrap comments for https://github.com/google/MOE
         result.add(line);
@@ -16,46 +16,27 @@ package com.google.googlejavaformat.java;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Iterables.getLast;
-import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.lang.Math.min;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Verify;
 import com.google.common.collect.DiscreteDomain;
-import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableRangeMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Range;
-import com.google.common.collect.RangeSet;
-import com.google.common.collect.TreeRangeSet;
+import com.google.googlejavaformat.CommentDescriptor;
 import com.google.googlejavaformat.Input;
+import com.google.googlejavaformat.IntRangeSet;
+import com.google.googlejavaformat.LineIndex;
 import com.google.googlejavaformat.Newlines;
 import com.google.googlejavaformat.java.JavacTokens.RawTok;
-import com.sun.tools.javac.file.JavacFileManager;
 import com.sun.tools.javac.parser.Tokens.TokenKind;
-import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
-import com.sun.tools.javac.util.Context;
-import com.sun.tools.javac.util.JCDiagnostic;
-import com.sun.tools.javac.util.Log;
-import com.sun.tools.javac.util.Log.DeferredDiagnosticHandler;
-import com.sun.tools.javac.util.Options;
-import java.io.IOException;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Method;
-import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
-import javax.tools.Diagnostic;
-import javax.tools.DiagnosticCollector;
-import javax.tools.DiagnosticListener;
-import javax.tools.JavaFileManager;
-import javax.tools.JavaFileObject;
-import javax.tools.JavaFileObject.Kind;
-import javax.tools.SimpleJavaFileObject;
 import org.jspecify.annotations.Nullable;
 
 /** {@code JavaInput} extends {@link Input} to represent a Java input document. */
@@ -80,6 +61,7 @@ public final class JavaInput extends Input {
     private final int columnI;
     private final boolean isToken;
     private final TokenKind kind;
+    private @Nullable CommentDescriptor comment;
 
     /**
      * The {@code Tok} constructor.
@@ -170,6 +152,16 @@ public final class JavaInput extends Input {
       return isSlashSlashComment() || isSlashStarComment();
     }
 
+    @Override
+    public CommentDescriptor comment() {
+      // Racing threads compute equal descriptors, so there's no need to synchronize.
+      CommentDescriptor result = comment;
+      if (result == null) {
+        comment = result = CommentDescriptor.of(this);
+      }
+      return result;
+    }
+
     @Override
     public String toString() {
       return MoreObjects.toStringHelper(this)
@@ -262,9 +254,23 @@ public final class JavaInput extends Input {
    * output.
    */
 
-  private final ImmutableMap<Integer, Integer> positionToColumnMap; // Map Tok position to column.
+  private final LineIndex lineIndex;
+  private final ImmutableList<Tok> toks; // The Toks for this input.
   private final ImmutableList<Token> tokens; // The Tokens for this input.
-  private final ImmutableRangeMap<Integer, Token> positionTokenMap; // Map position to Token.
+
+  /** The sorted positions of all {@link Tok}s, and the column of the {@link Tok} at each one. */
+  private final int[] tokPositions;
+
+  private final int[] tokColumns;
+
+  /**
+   * The sorted, disjoint [start, end] position ranges covered by each {@link Token}, including its
+   * before and after {@link Tok}s, and the {@link Token} for each range.
+   */
+  private final int[] tokenStarts;
+
+  private final int[] tokenEnds;
+  private final Token[] positionTokens;
 
   /** Map from Tok index to the associated Token. */
   private final Token[] kToToken;
@@ -276,21 +282,41 @@ public final class JavaInput extends Input {
    * @throws FormatterException if the input cannot be parsed
    */
   public JavaInput(String text) throws FormatterException {
-    this.text = checkNotNull(text);
-    setLines(ImmutableList.copyOf(Newlines.lineIterator(text)));
-    ImmutableList<Tok> toks = buildToks(text);
-    positionToColumnMap = makePositionToColumnMap(toks);
+    this(checkNotNull(text), LineIndex.create(text), buildToks(text, ImmutableSet.of()));
+  }
+
+  private JavaInput(String text, LineIndex lineIndex, ImmutableList<Tok> toks) {
+    this.text = text;
+    this.lineIndex = lineIndex;
+    setLines(lineIndex.lines());
+    this.toks = toks;
+    kN = getLast(toks).getIndex();
+    computeRanges(toks);
+    tokPositions = new int[toks.size()];
+    tokColumns = new int[toks.size()];
+    for (int i = 0; i < toks.size(); i++) {
+      Tok tok = toks.get(i);
+      tokPositions[i] = tok.getPosition();
+      tokColumns[i] = tok.getColumn();
+    }
     tokens = buildTokens(toks);
-    ImmutableRangeMap.Builder<Integer, Token> tokenLocations = ImmutableRangeMap.builder();
-    for (Token token : tokens) {
+    tokenStarts = new int[tokens.size()];
+    tokenEnds = new int[tokens.size()];
+    positionTokens = tokens.toArray(new Token[0]);
+    for (int i = 0; i < positionTokens.length; i++) {
+      Token token = positionTokens[i];
       Input.Tok end = JavaOutput.endTok(token);
       int upper = end.getPosition();
       if (!end.getText().isEmpty()) {
         upper += end.length() - 1;
       }
-      tokenLocations.put(Range.closed(JavaOutput.startTok(token).getPosition(), upper), token);
+      tokenStarts[i] = JavaOutput.startTok(token).getPosition();
+      tokenEnds[i] = upper;
+      Verify.verify(
+          tokenStarts[i] <= upper && (i == 0 || tokenEnds[i - 1] < tokenStarts[i]),
+          "overlapping token ranges at %s",
+          tokenStarts[i]);
     }
-    positionTokenMap = tokenLocations.build();
 
     // adjust kN for EOF
     kToToken = new Token[kN + 1];
@@ -311,14 +337,6 @@ public final class JavaInput extends Input {
     }
   }
 
-  private static ImmutableMap<Integer, Integer> makePositionToColumnMap(List<Tok> toks) {
-    ImmutableMap.Builder<Integer, Integer> builder = ImmutableMap.builder();
-    for (Tok tok : toks) {
-      builder.put(tok.getPosition(), tok.getColumn());
-    }
-    return builder.buildOrThrow();
-  }
-
   /**
    * Get the input text.
    *
@@ -329,17 +347,85 @@ public final class JavaInput extends Input {
     return text;
   }
 
-  @Override
-  public ImmutableMap<Integer, Integer> getPositionToColumnMap() {
-    return positionToColumnMap;
+  /** Returns the {@link Tok}s of this input, ending with the EOF {@link Tok}. */
+  ImmutableList<Tok> getToks() {
+    return toks;
   }
 
-  /** Lex the input and build the list of toks. */
-  private ImmutableList<Tok> buildToks(String text) throws FormatterException {
-    ImmutableList<Tok> toks = buildToks(text, ImmutableSet.of());
-    kN = getLast(toks).getIndex();
-    computeRanges(toks);
-    return toks;
+  /** Returns the index in {@link #getToks} of the {@link Tok} at the given position. */
+  int getTokIndex(int position) {
+    return Arrays.binarySearch(tokPositions, position);
+  }
+
+  /**
+   * Returns the input for {@code text}, whose {@link Tok}s are this input's {@link Tok}s in a
+   * different order. This avoids lexing {@code text} again: the {@link Tok}s are only renumbered
+   * and moved to their new positions and columns.
+   *
+   * @param text the new input text, which must be the concatenation of the texts of {@code toks}
+   * @param toks a rearrangement of this input's {@link Tok}s
+   */
+  JavaInput rearrange(String text, List<Tok> toks) {
+    LineIndex newLineIndex = LineIndex.create(text);
+    ImmutableList.Builder<Tok> result = ImmutableList.builderWithExpectedSize(toks.size());
+    int k = 0;
+    int position = 0;
+    // The lines of the current tok in the old and new text. Toks mostly keep their order, so these
+    // are found by stepping from the previous tok's lines.
+    int oldLine = 0;
+    int newLine = 0;
+    @Nullable Tok previous = null;
+    for (Tok tok : toks) {
+      int index = tok.getIndex() >= 0 ? k++ : -1;
+      int column = tok.getColumn();
+      oldLine = stepToLine(lineIndex, oldLine, tok.getPosition());
+      newLine = stepToLine(newLineIndex, newLine, position);
+      // The lexer gives whitespace that follows other whitespace the column at the end of the
+      // whole run, which doesn't depend on the preceding text. Other toks move with their line.
+      if (previous == null || !isWhitespace(previous) || !isWhitespace(tok)) {
+        column +=
+            (position - newLineIndex.getLineStart(newLine))
+                - (tok.getPosition() - lineIndex.getLineStart(oldLine));
+      }
+      if (index == tok.getIndex() && position == tok.getPosition() && column == tok.getColumn()) {
+        result.add(tok);
+      } else {
+        result.add(
+            new Tok(
+                index,
+                tok.getOriginalText(),
+                tok.getText(),
+                position,
+                column,
+                tok.isToken(),
+                tok.kind()));
+      }
+      position += tok.length();
+      previous = tok;
+    }
+    Verify.verify(position == text.length(), "toks do not cover the text");
+    return new JavaInput(text, newLineIndex, result.build());
+  }
+
+  /** Returns the line containing {@code position}, starting the search from {@code line}. */
+  private static int stepToLine(LineIndex lineIndex, int line, int position) {
+    while (line + 1 < lineIndex.getLineCount() && lineIndex.getLineStart(line + 1) <= position) {
+      line++;
+    }
+    while (lineIndex.getLineStart(line) > position) {
+      line--;
+    }
+    return line;
+  }
+
+  private static boolean isWhitespace(Tok tok) {
+    return !tok.isToken() && !tok.isComment();
+  }
+
+  @Override
+  public int getPositionColumn(int position) {
+    int i = Arrays.binarySearch(tokPositions, position);
+    return i >= 0 ? tokColumns[i] : -1;
   }
 
   /**
@@ -352,31 +438,8 @@ public final class JavaInput extends Input {
   static ImmutableList<Tok> buildToks(String text, ImmutableSet<TokenKind> stopTokens)
       throws FormatterException {
     stopTokens = ImmutableSet.<TokenKind>builder().addAll(stopTokens).add(TokenKind.EOF).build();
-    Context context = new Context();
-    Options.instance(context).put("--enable-preview", "true");
-    JavaFileManager fileManager = new JavacFileManager(context, false, UTF_8);
-    context.put(JavaFileManager.class, fileManager);
-    DiagnosticCollector<JavaFileObject> diagnosticCollector = new DiagnosticCollector<>();
-    context.put(DiagnosticListener.class, diagnosticCollector);
-    Log log = Log.instance(context);
-    log.useSource(
-        new SimpleJavaFileObject(URI.create("Source.java"), Kind.SOURCE) {
-          @Override
-          public CharSequence getCharContent(boolean ignoreEncodingErrors) throws IOException {
-            return text;
-          }
-        });
-    DeferredDiagnosticHandler diagnostics = deferredDiagnosticHandler(log);
-    ImmutableList<RawTok> rawToks = JavacTokens.getTokens(text, context, stopTokens);
-    Collection<JCDiagnostic> ds;
-    try {
-      @SuppressWarnings("unchecked")
-      var extraLocalForSuppression = (Collection<JCDiagnostic>) GET_DIAGNOSTICS.invoke(diagnostics);
-      ds = extraLocalForSuppression;
-    } catch (ReflectiveOperationException e) {
-      throw new LinkageError(e.getMessage(), e);
-    }
-    if (ds.stream().anyMatch(d -> d.getKind() == Diagnostic.Kind.ERROR)) {
+    ImmutableList<RawTok> rawToks = JavacLexer.lex(text, stopTokens);
+    if (rawToks == null) {
       return ImmutableList.of(new Tok(0, "", "", 0, 0, true, null)); // EOF
     }
     int kN = 0;
@@ -483,39 +546,6 @@ public final class JavaInput extends Input {
     return ImmutableList.copyOf(toks);
   }
 
-  private static final Constructor<DeferredDiagnosticHandler>
-      DEFERRED_DIAGNOSTIC_HANDLER_CONSTRUCTOR = getDeferredDiagnosticHandlerConstructor();
-
-  // Depending on the JDK version, we might have a static class whose constructor has an explicit
-  // Log parameter, or an inner class whose constructor has an *implicit* Log parameter. They are
-  // different at the source level, but look the same to reflection.
-
-  private static Constructor<DeferredDiagnosticHandler> getDeferredDiagnosticHandlerConstructor() {
-    try {
-      return DeferredDiagnosticHandler.class.getConstructor(Log.class);
-    } catch (NoSuchMethodException e) {
-      throw new LinkageError(e.getMessage(), e);
-    }
-  }
-
-  private static DeferredDiagnosticHandler deferredDiagnosticHandler(Log log) {
-    try {
-      return DEFERRED_DIAGNOSTIC_HANDLER_CONSTRUCTOR.newInstance(log);
-    } catch (ReflectiveOperationException e) {
-      throw new LinkageError(e.getMessage(), e);
-    }
-  }
-
-  private static final Method GET_DIAGNOSTICS = getGetDiagnostics();
-
-  private static @Nullable Method getGetDiagnostics() {
-    try {
-      return DeferredDiagnosticHandler.class.getMethod("getDiagnostics");
-    } catch (NoSuchMethodException e) {
-      throw new LinkageError(e.getMessage(), e);
-    }
-  }
-
   private static int updateColumn(int columnI, String originalTokText) {
     Integer last = Iterators.getLast(Newlines.lineOffsetIterator(originalTokText));
     if (last > 0) {
@@ -599,8 +629,7 @@ public final class JavaInput extends Input {
   }
 
   private static boolean isParamComment(Tok tok) {
-    return tok.isSlashStarComment()
-        && tok.getText().matches("\\/\\*[A-Za-z0-9\\s_\\-]+=\\s*\\*\\/");
+    return tok.isSlashStarComment() && tok.comment().isParameterNameComment();
   }
 
   /**
@@ -626,13 +655,21 @@ public final class JavaInput extends Input {
         characterRange.isEmpty()
             ? Range.closedOpen(characterRange.lowerEndpoint(), characterRange.lowerEndpoint() + 1)
             : characterRange;
-    ImmutableCollection<Token> enclosed =
-        getPositionTokenMap().subRangeMap(nonEmptyRange).asMapOfRanges().values();
-    if (enclosed.isEmpty()) {
+    // The token ranges are disjoint and sorted, so the tokens intersecting [lower, upper) are the
+    // ones from the first that ends at or after lower, up to the last that starts before upper.
+    int first = ceilingIndex(tokenEnds, nonEmptyRange.lowerEndpoint());
+    int last = ceilingIndex(tokenStarts, nonEmptyRange.upperEndpoint()) - 1;
+    if (first > last) {
       return EMPTY_RANGE;
     }
     return Range.closedOpen(
-        enclosed.iterator().next().getTok().getIndex(), getLast(enclosed).getTok().getIndex() + 1);
+        positionTokens[first].getTok().getIndex(), positionTokens[last].getTok().getIndex() + 1);
+  }
+
+  /** Returns the index of the first element of sorted {@code array} that is {@code >= value}. */
+  private static int ceilingIndex(int[] array, int value) {
+    int i = Arrays.binarySearch(array, value);
+    return i >= 0 ? i : -i - 1;
   }
 
   /**
@@ -666,15 +703,15 @@ public final class JavaInput extends Input {
   }
 
   /**
-   * Get the navigable map from position to {@link Token}. Used to look for tokens following a given
-   * one, and to implement the --offset and --length flags to reformat a character range in the
-   * input file.
+   * Get the {@link Token} whose position range contains {@code position}. Used to look for tokens
+   * following a given one, and to find the extent of AST nodes including their comments.
    *
-   * @return the navigable map from position to {@link Token}
+   * @return the {@link Token}, or {@code null} if no token covers {@code position}
    */
   @Override
-  public ImmutableRangeMap<Integer, Token> getPositionTokenMap() {
-    return positionTokenMap;
+  public @Nullable Token getPositionToken(int position) {
+    int i = ceilingIndex(tokenStarts, position + 1) - 1;
+    return i >= 0 && position <= tokenEnds[i] ? positionTokens[i] : null;
   }
 
   @Override
@@ -685,32 +722,29 @@ public final class JavaInput extends Input {
         .toString();
   }
 
-  private JCCompilationUnit unit;
-
+  /**
+   * Returns the {@code 1}-based line number of the given offset. As in javac's {@code LineMap}, a
+   * final empty line is not counted, so offsets at the end of the input belong to the last
+   * non-empty line.
+   */
   @Override
   public int getLineNumber(int inputPosition) {
-    Verify.verifyNotNull(unit, "Expected compilation unit to be set.");
-    return unit.getLineMap().getLineNumber(inputPosition);
+    return lineIndex.getLineNumber(min(inputPosition, text.length() - 1)) + 1;
   }
 
+  /** Returns the {@code 1}-based column number of the given offset, as javac's {@code LineMap}. */
   @Override
   public int getColumnNumber(int inputPosition) {
-    Verify.verifyNotNull(unit, "Expected compilation unit to be set.");
-    return unit.getLineMap().getColumnNumber(inputPosition);
-  }
-
-  // TODO(cushon): refactor JavaInput so the CompilationUnit can be passed into
-  // the constructor.
-  public void setCompilationUnit(JCCompilationUnit unit) {
-    this.unit = unit;
+    return inputPosition - lineIndex.getLineStart(getLineNumber(inputPosition) - 1) + 1;
   }
 
-  public RangeSet<Integer> characterRangesToTokenRanges(Collection<Range<Integer>> characterRanges)
+  public IntRangeSet characterRangesToTokenRanges(Collection<Range<Integer>> characterRanges)
       throws FormatterException {
-    RangeSet<Integer> tokenRangeSet = TreeRangeSet.create();
+    IntRangeSet tokenRangeSet = IntRangeSet.create();
     for (Range<Integer> characterRange : characterRanges) {
-      tokenRangeSet.add(
-          characterRangeToTokenRange(characterRange.canonical(DiscreteDomain.integers())));
+      Range<Integer> tokenRange =
+          characterRangeToTokenRange(characterRange.canonical(DiscreteDomain.integers()));
+      tokenRangeSet.add(tokenRange.lowerEndpoint(), tokenRange.upperEndpoint());
     }
     return tokenRangeSet;
   }
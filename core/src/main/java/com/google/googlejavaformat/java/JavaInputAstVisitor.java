@@ -22,7 +22,6 @@ import java.util.Deque;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -361,6 +360,7 @@ public class JavaInputAstVisitor extends TreePathScanner<Void, Void> {
 
   @Override
   public Void scan(Tree tree, Void unused) {
+    builder.checkCancelled();
     inExpression.addLast(tree instanceof ExpressionTree || inExpression.peekLast());
     int previous = builder.depth();
     try {
@@ -2779,23 +2779,31 @@ public class JavaInputAstVisitor extends TreePathScanner<Void, Void> {
     builder.close();
   }
 
-  /** Accumulate the operands and operators. */
+  /**
+   * Accumulate the operands and operators. Generated code can chain thousands of operators, so
+   * this walks the tree with an explicit stack rather than recursing into each operand.
+   */
   private static void walkInfix(
       int precedence,
       ExpressionTree expression,
       List<ExpressionTree> operands,
       List<String> operators) {
-    if (expression instanceof BinaryTree) {
-      BinaryTree binaryTree = (BinaryTree) expression;
-      if (precedence(binaryTree) == precedence) {
-        walkInfix(precedence, binaryTree.getLeftOperand(), operands, operators);
-        operators.add(operatorName(expression));
-        walkInfix(precedence, binaryTree.getRightOperand(), operands, operators);
-      } else {
-        operands.add(expression);
+    // Binary trees whose left operand has been walked, and whose operator and right operand are
+    // still to be output.
+    Deque<BinaryTree> pending = new ArrayDeque<>();
+    ExpressionTree next = expression;
+    while (true) {
+      while (next instanceof BinaryTree && precedence((BinaryTree) next) == precedence) {
+        pending.push((BinaryTree) next);
+        next = ((BinaryTree) next).getLeftOperand();
       }
-    } else {
-      operands.add(expression);
+      operands.add(next);
+      if (pending.isEmpty()) {
+        return;
+      }
+      BinaryTree binaryTree = pending.pop();
+      operators.add(operatorName(binaryTree));
+      next = binaryTree.getRightOperand();
     }
   }
 
@@ -3647,9 +3655,9 @@ public class JavaInputAstVisitor extends TreePathScanner<Void, Void> {
     return size;
   }
 
-  private Integer actualColumn(ExpressionTree expression) {
-    Map<Integer, Integer> positionToColumnMap = builder.getInput().getPositionToColumnMap();
-    return positionToColumnMap.get(builder.actualStartColumn(getStartPosition(expression)));
+  private int actualColumn(ExpressionTree expression) {
+    int position = builder.actualStartColumn(getStartPosition(expression));
+    return builder.getInput().getPositionColumn(position);
   }
 
   /** Returns true if {@code atLeastM} of the expressions in the given column are the same kind. */
@@ -4036,8 +4044,8 @@ public class JavaInputAstVisitor extends TreePathScanner<Void, Void> {
 
   /** Does this declaration have javadoc preceding it? */
   private boolean hasJavaDoc(Tree bodyDeclaration) {
-    int position = ((JCTree) bodyDeclaration).getStartPosition();
-    Input.Token token = builder.getInput().getPositionTokenMap().get(position);
+    int position = getStartPosition(bodyDeclaration);
+    Input.Token token = builder.getInput().getPositionToken(position);
     if (token != null) {
       for (Input.Tok tok : token.getToksBefore()) {
         if (tok.getText().startsWith("/**")) {
@@ -4049,7 +4057,7 @@ public class JavaInputAstVisitor extends TreePathScanner<Void, Void> {
   }
 
   private static Optional<? extends Input.Token> getNextToken(Input input, int position) {
-    return Optional.ofNullable(input.getPositionTokenMap().get(position));
+    return Optional.ofNullable(input.getPositionToken(position));
   }
 
   /** Does this list of trees end with the specified token? */
@@ -4140,7 +4148,7 @@ public class JavaInputAstVisitor extends TreePathScanner<Void, Void> {
    * @param node the ASTNode holding the input position
    */
   protected final void sync(Tree node) {
-    builder.sync(((JCTree) node).getStartPosition());
+    builder.sync(getStartPosition(node));
   }
 
   final BreakTag genSym() {
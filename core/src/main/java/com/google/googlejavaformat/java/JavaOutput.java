@@ -14,6 +14,7 @@
 
 package com.google.googlejavaformat.java;
 
+import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.util.Comparator.comparing;
 
@@ -24,10 +25,10 @@ import com.google.common.collect.DiscreteDomain;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Range;
 import com.google.common.collect.RangeSet;
-import com.google.common.collect.TreeRangeSet;
 import com.google.googlejavaformat.CommentsHelper;
 import com.google.googlejavaformat.Input;
 import com.google.googlejavaformat.Input.Token;
+import com.google.googlejavaformat.IntRangeSet;
 import com.google.googlejavaformat.Newlines;
 import com.google.googlejavaformat.OpsBuilder.BlankLineWanted;
 import com.google.googlejavaformat.Output;
@@ -51,7 +52,7 @@ public final class JavaOutput extends Output {
   private final Input javaInput; // Used to follow along while emitting the output.
   private final CommentsHelper commentsHelper; // Used to re-flow comments.
   private final Map<Integer, BlankLineWanted> blankLines = new HashMap<>(); // Info on blank lines.
-  private final RangeSet<Integer> partialFormatRanges = TreeRangeSet.create();
+  private final IntRangeSet partialFormatRanges = IntRangeSet.create();
 
   private final List<String> mutableLines = new ArrayList<>();
   private final int kN; // The number of tokens or comments in the input, excluding the EOF.
@@ -87,7 +88,7 @@ public final class JavaOutput extends Output {
   public void markForPartialFormat(Token start, Token end) {
     int lo = JavaOutput.startTok(start).getIndex();
     int hi = JavaOutput.endTok(end).getIndex();
-    partialFormatRanges.add(Range.closed(lo, hi));
+    partialFormatRanges.addClosed(lo, hi);
   }
 
   // TODO(user): Add invariant.
@@ -210,26 +211,46 @@ public final class JavaOutput extends Output {
    * @return a list of {@link Replacement}s, sorted by start index, without overlaps
    */
   public ImmutableList<Replacement> getFormatReplacements(RangeSet<Integer> iRangeSet0) {
+    return getFormatReplacements(
+        IntRangeSet.copyOf(iRangeSet0.subRangeSet(Range.closed(0, javaInput.getkN()))));
+  }
+
+  /**
+   * Emit a list of {@link Replacement}s to convert from input to output.
+   *
+   * @param iRangeSet0 the token ranges to format
+   * @return a list of {@link Replacement}s, sorted by start index, without overlaps
+   */
+  public ImmutableList<Replacement> getFormatReplacements(IntRangeSet iRangeSet0) {
     ImmutableList.Builder<Replacement> result = ImmutableList.builder();
     Map<Integer, Range<Integer>> kToJ = JavaOutput.makeKToIJ(this);
 
     // Expand the token ranges to align with re-formattable boundaries.
-    RangeSet<Integer> breakableRanges = TreeRangeSet.create();
-    RangeSet<Integer> iRangeSet = iRangeSet0.subRangeSet(Range.closed(0, javaInput.getkN()));
-    for (Range<Integer> iRange : iRangeSet.asRanges()) {
-      Range<Integer> range = expandToBreakableRegions(iRange.canonical(DiscreteDomain.integers()));
-      if (range.equals(EMPTY_RANGE)) {
+    IntRangeSet breakableRanges = IntRangeSet.create();
+    for (int r = 0; r < iRangeSet0.size(); r++) {
+      // Clip the token range to [0, kN].
+      int lo = max(iRangeSet0.getLowerEndpoint(r), 0);
+      int hi = min(iRangeSet0.getUpperEndpoint(r), javaInput.getkN() + 1);
+      if (lo >= hi) {
+        continue;
+      }
+      // Expand the token indices to formattable boundaries (e.g. edges of statements).
+      int loRange = partialFormatRanges.indexOf(lo);
+      int hiRange = partialFormatRanges.indexOf(hi - 1);
+      if (loRange == -1 || hiRange == -1) {
         // the range contains only whitespace
         continue;
       }
-      breakableRanges.add(range);
+      breakableRanges.add(
+          partialFormatRanges.getLowerEndpoint(loRange),
+          partialFormatRanges.getUpperEndpoint(hiRange));
     }
 
     // Construct replacements for each reformatted region.
-    for (Range<Integer> range : breakableRanges.asRanges()) {
+    for (int r = 0; r < breakableRanges.size(); r++) {
 
-      Input.Tok startTok = startTok(javaInput.getToken(range.lowerEndpoint()));
-      Input.Tok endTok = endTok(javaInput.getToken(range.upperEndpoint() - 1));
+      Input.Tok startTok = startTok(javaInput.getToken(breakableRanges.getLowerEndpoint(r)));
+      Input.Tok endTok = endTok(javaInput.getToken(breakableRanges.getUpperEndpoint(r) - 1));
 
       // Add all output lines in the given token range to the replacement.
       StringBuilder replacement = new StringBuilder();
@@ -315,26 +336,6 @@ public final class JavaOutput extends Output {
     return result.build();
   }
 
-  /**
-   * Expand a token range to start and end on acceptable boundaries for re-formatting.
-   *
-   * @param iRange the {@link Range} of tokens
-   * @return the expanded token range
-   */
-  private Range<Integer> expandToBreakableRegions(Range<Integer> iRange) {
-    // The original line range.
-    int loTok = iRange.lowerEndpoint();
-    int hiTok = iRange.upperEndpoint() - 1;
-
-    // Expand the token indices to formattable boundaries (e.g. edges of statements).
-    if (!partialFormatRanges.contains(loTok) || !partialFormatRanges.contains(hiTok)) {
-      return EMPTY_RANGE;
-    }
-    loTok = partialFormatRanges.rangeContaining(loTok).lowerEndpoint();
-    hiTok = partialFormatRanges.rangeContaining(hiTok).upperEndpoint();
-    return Range.closedOpen(loTok, hiTok + 1);
-  }
-
   public static String applyReplacements(String input, List<Replacement> replacements) {
     replacements = new ArrayList<>(replacements);
     replacements.sort(comparing((Replacement r) -> r.getReplaceRange().lowerEndpoint()).reversed());
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.googlejavaformat.java.JavacTokens.RawTok;
+import com.sun.tools.javac.file.JavacFileManager;
+import com.sun.tools.javac.parser.Tokens.TokenKind;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.JCDiagnostic;
+import com.sun.tools.javac.util.Log;
+import com.sun.tools.javac.util.Log.DeferredDiagnosticHandler;
+import com.sun.tools.javac.util.Options;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Set;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A reusable javac lexer.
+ *
+ * <p>Setting up the javac {@link Context}, file manager and {@link Log} that {@link JavacTokens}
+ * needs costs more than lexing a small file, so each thread keeps a lexer and reuses its context.
+ * Only a diagnostic handler is installed per call, to collect that call's lexical errors.
+ */
+final class JavacLexer {
+
+  private static final ThreadLocal<JavacLexer> LEXER = ThreadLocal.withInitial(JavacLexer::new);
+
+  /**
+   * Lexes {@code text} with the current thread's lexer.
+   *
+   * @param text the text to be lexed
+   * @param stopTokens a set of tokens which should cause lexing to stop
+   * @return the {@link RawTok}s, or {@code null} if the text has lexical errors
+   */
+  static @Nullable ImmutableList<RawTok> lex(String text, Set<TokenKind> stopTokens) {
+    return LEXER.get().lexText(text, stopTokens);
+  }
+
+  private final Context context;
+  private final Log log;
+  private final Source source;
+
+  private JavacLexer() {
+    context = new Context();
+    Options options = Options.instance(context);
+    options.put("--enable-preview", "true");
+    // The name table outlives the files lexed with it, so don't let it retain their identifiers.
+    options.put("useUnsharedTable", "true");
+    JavaFileManager fileManager = new JavacFileManager(context, false, UTF_8);
+    context.put(JavaFileManager.class, fileManager);
+    DiagnosticCollector<JavaFileObject> diagnosticCollector = new DiagnosticCollector<>();
+    context.put(DiagnosticListener.class, diagnosticCollector);
+    log = Log.instance(context);
+    // Log caches a diagnostic source per file object, so use a single one for every call.
+    source = new Source();
+    log.useSource(source);
+  }
+
+  /**
+   * The length of the first prefix lexed when lexing can stop before the end, which usually reaches
+   * the first type declaration. Longer prefixes are tried until a stop token is found, so that the
+   * rest of a large file isn't even copied into the lexer's buffer.
+   */
+  private static final int FIRST_PREFIX_LENGTH = 8192;
+
+  private @Nullable ImmutableList<RawTok> lexText(String text, Set<TokenKind> stopTokens) {
+    boolean stopsEarly = stopTokens.stream().anyMatch(kind -> kind != TokenKind.EOF);
+    int length = stopsEarly ? Math.min(FIRST_PREFIX_LENGTH, text.length()) : text.length();
+    while (true) {
+      DeferredDiagnosticHandler diagnostics = deferredDiagnosticHandler(log);
+      source.text = text;
+      try {
+        ImmutableList<RawTok> rawToks = JavacTokens.getTokens(text, length, context, stopTokens);
+        if (rawToks != null) {
+          return hasErrors(diagnostics) ? null : rawToks;
+        }
+      } finally {
+        source.text = "";
+        log.popDiagnosticHandler(diagnostics);
+      }
+      length = (int) Math.min(2L * length, text.length());
+    }
+  }
+
+  private static boolean hasErrors(DeferredDiagnosticHandler diagnostics) {
+    Collection<JCDiagnostic> ds;
+    try {
+      @SuppressWarnings("unchecked")
+      var extraLocalForSuppression = (Collection<JCDiagnostic>) GET_DIAGNOSTICS.invoke(diagnostics);
+      ds = extraLocalForSuppression;
+    } catch (ReflectiveOperationException e) {
+      throw new LinkageError(e.getMessage(), e);
+    }
+    return ds.stream().anyMatch(d -> d.getKind() == Diagnostic.Kind.ERROR);
+  }
+
+  /** The file being lexed, as seen by javac's diagnostics. */
+  private static final class Source extends SimpleJavaFileObject {
+    String text = "";
+
+    Source() {
+      super(URI.create("Source.java"), Kind.SOURCE);
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+      return text;
+    }
+  }
+
+  private static final Constructor<DeferredDiagnosticHandler>
+      DEFERRED_DIAGNOSTIC_HANDLER_CONSTRUCTOR = getDeferredDiagnosticHandlerConstructor();
+
+  // Depending on the JDK version, we might have a static class whose constructor has an explicit
+  // Log parameter, or an inner class whose constructor has an *implicit* Log parameter. They are
+  // different at the source level, but look the same to reflection.
+
+  private static Constructor<DeferredDiagnosticHandler> getDeferredDiagnosticHandlerConstructor() {
+    try {
+      return DeferredDiagnosticHandler.class.getConstructor(Log.class);
+    } catch (NoSuchMethodException e) {
+      throw new LinkageError(e.getMessage(), e);
+    }
+  }
+
+  private static DeferredDiagnosticHandler deferredDiagnosticHandler(Log log) {
+    try {
+      return DEFERRED_DIAGNOSTIC_HANDLER_CONSTRUCTOR.newInstance(log);
+    } catch (ReflectiveOperationException e) {
+      throw new LinkageError(e.getMessage(), e);
+    }
+  }
+
+  private static final Method GET_DIAGNOSTICS = getGetDiagnostics();
+
+  private static @Nullable Method getGetDiagnostics() {
+    try {
+      return DeferredDiagnosticHandler.class.getMethod("getDiagnostics");
+    } catch (NoSuchMethodException e) {
+      throw new LinkageError(e.getMessage(), e);
+    }
+  }
+}
@@ -26,16 +26,19 @@ import com.sun.tools.javac.parser.Tokens.Comment.CommentStyle;
 import com.sun.tools.javac.parser.Tokens.Token;
 import com.sun.tools.javac.parser.Tokens.TokenKind;
 import com.sun.tools.javac.util.Context;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import org.jspecify.annotations.Nullable;
 
 /** A wrapper around javac's lexer. */
 final class JavacTokens {
 
   /** The lexer eats terminal comments, so feed it one we don't care about. */
   // TODO(b/33103797): fix javac and remove the work-around
-  private static final CharSequence EOF_COMMENT = "\n//EOF";
+  private static final String EOF_COMMENT = "\n//EOF";
 
   /** An unprocessed input token, including whitespace and comments. */
   static class RawTok {
@@ -78,12 +81,26 @@ final class JavacTokens {
     if (source == null) {
       return ImmutableList.of();
     }
+    return getTokens(source, source.length(), context, stopTokens);
+  }
+
+  /**
+   * Lex the first {@code length} characters of the input and return a list of {@link RawTok}s, or
+   * {@code null} if the prefix ended before one of the {@code stopTokens} was found. The tokens
+   * before a stop token that is followed by more of the prefix are the same as if the whole input
+   * had been lexed.
+   */
+  static @Nullable ImmutableList<RawTok> getTokens(
+      String source, int length, Context context, Set<TokenKind> stopTokens) {
     ScannerFactory fac = ScannerFactory.instance(context);
-    char[] buffer = (source + EOF_COMMENT).toCharArray();
+    char[] buffer = new char[length + EOF_COMMENT.length()];
+    source.getChars(0, length, buffer, 0);
+    EOF_COMMENT.getChars(0, EOF_COMMENT.length(), buffer, length);
     CommentSavingTokenizer tokenizer = new CommentSavingTokenizer(fac, buffer, buffer.length);
     Scanner scanner = new AccessibleScanner(fac, tokenizer);
     ImmutableList.Builder<RawTok> tokens = ImmutableList.builder();
-    int end = source.length();
+    boolean truncated = length < source.length();
+    int end = length;
     int last = 0;
     do {
       scanner.nextToken();
@@ -115,6 +132,11 @@ final class JavacTokens {
               t.endPos));
       last = t.endPos;
     } while (scanner.token().kind != TokenKind.EOF);
+    if (truncated
+        && (scanner.token().kind == TokenKind.EOF || scanner.token().endPos >= length)) {
+      // The stop token is still to come, or may be the start of a longer token.
+      return null;
+    }
     if (last < end) {
       tokens.add(new RawTok(null, null, last, end));
     }
@@ -154,19 +176,41 @@ final class JavacTokens {
     }
 
     private char[] getRawCharactersReflectively(int beginIndex, int endIndex) {
-      Object instance;
+      Object instance = this;
+      if (READER != null) {
+        try {
+          instance = READER.get(this);
+        } catch (ReflectiveOperationException e) {
+          instance = this;
+        }
+      }
       try {
-        instance = JavaTokenizer.class.getDeclaredField("reader").get(this);
+        return (char[]) GET_RAW_CHARACTERS.invoke(instance, beginIndex, endIndex);
       } catch (ReflectiveOperationException e) {
-        instance = this;
+        throw new LinkageError(e.getMessage(), e);
+      }
+    }
+
+    // Older JDKs delegate to a separate reader, newer ones have the tokenizer extend it. Look the
+    // accessors up once, since comments are lexed much more often than tokenizers are created.
+
+    private static final @Nullable Field READER = getReader();
+
+    private static @Nullable Field getReader() {
+      try {
+        return JavaTokenizer.class.getDeclaredField("reader");
+      } catch (NoSuchFieldException e) {
+        return null;
       }
+    }
+
+    private static final Method GET_RAW_CHARACTERS = getGetRawCharacters();
+
+    private static Method getGetRawCharacters() {
+      Class<?> readerClass = READER != null ? READER.getType() : JavaTokenizer.class;
       try {
-        return (char[])
-            instance
-                .getClass()
-                .getMethod("getRawCharacters", int.class, int.class)
-                .invoke(instance, beginIndex, endIndex);
-      } catch (ReflectiveOperationException e) {
+        return readerClass.getMethod("getRawCharacters", int.class, int.class);
+      } catch (NoSuchMethodException e) {
         throw new LinkageError(e.getMessage(), e);
       }
     }
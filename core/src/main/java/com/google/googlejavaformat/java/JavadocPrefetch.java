@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.googlejavaformat.CommentsHelper;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Formats the Javadoc comments of an input on a few background threads while the input is parsed
+ * and visited. Only formatters with a {@link CommentRewriteCache} prefetch, since the results are
+ * handed to the layout through the cache.
+ *
+ * <p>The threads are shared by all formatters, and are separate from the common fork-join pool, so
+ * that prefetching doesn't compete with the formatting that it is ahead of, like a {@link
+ * BatchFormatter} on the common pool, or with the rest of the application.
+ *
+ * <p>The column a comment is output at isn't known until the code before it has been laid out, so
+ * each comment is formatted at the column it starts at in the input. That is where it ends up if
+ * the input is already formatted, in which case the layout finds the result in the {@link
+ * CommentRewriteCache}, waiting for it if it is still being formatted. A comment that moves to
+ * another column is formatted again by the layout. Prefetching isn't counted in the stats of the
+ * cache, so that each comment counts once, as the layout looks it up.
+ */
+final class JavadocPrefetch implements AutoCloseable {
+
+  /**
+   * The number of Javadoc comments below which formatting them in parallel isn't worth handing them
+   * to other threads.
+   */
+  static final int MIN_JAVADOC_COMMENTS = 8;
+
+  /** The threads that Javadoc is prefetched on, created when they are first needed. */
+  private static final class Threads {
+    static final ExecutorService EXECUTOR =
+        Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+            new ThreadFactoryBuilder()
+                .setNameFormat("google-java-format-javadoc-%d")
+                // Prefetching never needs to finish, so it doesn't keep the JVM alive.
+                .setDaemon(true)
+                .build());
+  }
+
+  private final ImmutableList<Future<?>> tasks;
+
+  private JavadocPrefetch(ImmutableList<Future<?>> tasks) {
+    this.tasks = tasks;
+  }
+
+  /**
+   * Starts formatting the Javadoc comments of {@code input} with {@code commentsHelper}, or returns
+   * {@code null} if there are too few of them, or processors, to be worth it.
+   */
+  static @Nullable JavadocPrefetch start(JavaInput input, CommentsHelper commentsHelper) {
+    if (Runtime.getRuntime().availableProcessors() < 2) {
+      return null;
+    }
+    ImmutableList<JavaInput.Tok> javadoc =
+        input.getToks().stream()
+            .filter(JavaInput.Tok::isJavadocComment)
+            .collect(toImmutableList());
+    if (javadoc.size() < MIN_JAVADOC_COMMENTS) {
+      return null;
+    }
+    ImmutableList.Builder<Future<?>> tasks = ImmutableList.builder();
+    for (JavaInput.Tok tok : javadoc) {
+      tasks.add(
+          Threads.EXECUTOR.submit(
+              () -> commentsHelper.rewrite(tok, Formatter.MAX_LINE_LENGTH, tok.getColumn())));
+    }
+    return new JavadocPrefetch(tasks.build());
+  }
+
+  /** Cancels the comments that haven't been started, once the layout no longer needs them. */
+  @Override
+  public void close() {
+    for (Future<?> task : tasks) {
+      task.cancel(false);
+    }
+  }
+}
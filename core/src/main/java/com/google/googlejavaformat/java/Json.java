@@ -0,0 +1,272 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Just enough JSON for the formatter's reports and its language server, without a dependency.
+ *
+ * <p>Values are represented as {@link Map}s, {@link List}s, {@link String}s, {@link Long}s or
+ * {@link Double}s, {@link Boolean}s and {@code null}.
+ */
+final class Json {
+
+  private final String text;
+  private int pos;
+
+  private Json(String text) {
+    this.text = text;
+  }
+
+  /**
+   * Parses the JSON value {@code text}.
+   *
+   * @throws IllegalArgumentException if {@code text} isn't valid JSON
+   */
+  static @Nullable Object parse(String text) {
+    Json json = new Json(text);
+    Object value = json.value();
+    json.skipWhitespace();
+    if (json.pos != text.length()) {
+      throw json.error("trailing characters");
+    }
+    return value;
+  }
+
+  /** Returns {@code value} as JSON. */
+  static String write(@Nullable Object value) {
+    StringBuilder sb = new StringBuilder();
+    write(sb, value);
+    return sb.toString();
+  }
+
+  private static void write(StringBuilder sb, @Nullable Object value) {
+    if (value == null) {
+      sb.append("null");
+    } else if (value instanceof String s) {
+      appendString(sb, s);
+    } else if (value instanceof Number || value instanceof Boolean) {
+      sb.append(value);
+    } else if (value instanceof Map<?, ?> map) {
+      sb.append('{');
+      String separator = "";
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        sb.append(separator);
+        appendString(sb, (String) entry.getKey());
+        sb.append(':');
+        write(sb, entry.getValue());
+        separator = ",";
+      }
+      sb.append('}');
+    } else if (value instanceof List<?> list) {
+      sb.append('[');
+      String separator = "";
+      for (Object element : list) {
+        sb.append(separator);
+        write(sb, element);
+        separator = ",";
+      }
+      sb.append(']');
+    } else {
+      throw new IllegalArgumentException("not a JSON value: " + value.getClass());
+    }
+  }
+
+  /** Appends {@code s} to {@code sb} as a JSON string. */
+  static void appendString(StringBuilder sb, String s) {
+    sb.append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      switch (c) {
+        case '"', '\\' -> sb.append('\\').append(c);
+        case '\n' -> sb.append("\\n");
+        case '\r' -> sb.append("\\r");
+        case '\t' -> sb.append("\\t");
+        default -> {
+          if (c < 0x20) {
+            sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+          } else {
+            sb.append(c);
+          }
+        }
+      }
+    }
+    sb.append('"');
+  }
+
+  private @Nullable Object value() {
+    skipWhitespace();
+    if (pos == text.length()) {
+      throw error("unexpected end of input");
+    }
+    char c = text.charAt(pos);
+    switch (c) {
+      case '{':
+        return object();
+      case '[':
+        return array();
+      case '"':
+        return string();
+      case 't':
+        return literal("true", Boolean.TRUE);
+      case 'f':
+        return literal("false", Boolean.FALSE);
+      case 'n':
+        return literal("null", null);
+      default:
+        if (c == '-' || (c >= '0' && c <= '9')) {
+          return number();
+        }
+        throw error("unexpected character");
+    }
+  }
+
+  private Map<String, @Nullable Object> object() {
+    Map<String, @Nullable Object> map = new LinkedHashMap<>();
+    pos++; // {
+    skipWhitespace();
+    if (consume('}')) {
+      return map;
+    }
+    do {
+      skipWhitespace();
+      if (pos == text.length() || text.charAt(pos) != '"') {
+        throw error("expected a string");
+      }
+      String key = string();
+      skipWhitespace();
+      if (!consume(':')) {
+        throw error("expected ':'");
+      }
+      map.put(key, value());
+      skipWhitespace();
+    } while (consume(','));
+    if (!consume('}')) {
+      throw error("expected ',' or '}'");
+    }
+    return map;
+  }
+
+  private List<@Nullable Object> array() {
+    List<@Nullable Object> list = new ArrayList<>();
+    pos++; // [
+    skipWhitespace();
+    if (consume(']')) {
+      return list;
+    }
+    do {
+      list.add(value());
+      skipWhitespace();
+    } while (consume(','));
+    if (!consume(']')) {
+      throw error("expected ',' or ']'");
+    }
+    return list;
+  }
+
+  private String string() {
+    pos++; // "
+    StringBuilder sb = new StringBuilder();
+    while (true) {
+      if (pos == text.length()) {
+        throw error("unterminated string");
+      }
+      char c = text.charAt(pos++);
+      if (c == '"') {
+        return sb.toString();
+      }
+      if (c != '\\') {
+        sb.append(c);
+        continue;
+      }
+      if (pos == text.length()) {
+        throw error("unterminated string");
+      }
+      char escaped = text.charAt(pos++);
+      switch (escaped) {
+        case '"', '\\', '/' -> sb.append(escaped);
+        case 'b' -> sb.append('\b');
+        case 'f' -> sb.append('\f');
+        case 'n' -> sb.append('\n');
+        case 'r' -> sb.append('\r');
+        case 't' -> sb.append('\t');
+        case 'u' -> {
+          if (pos + 4 > text.length()) {
+            throw error("bad unicode escape");
+          }
+          try {
+            sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+          } catch (NumberFormatException e) {
+            throw error("bad unicode escape");
+          }
+          pos += 4;
+        }
+        default -> throw error("bad escape");
+      }
+    }
+  }
+
+  private Object number() {
+    int start = pos;
+    boolean integral = true;
+    while (pos < text.length()) {
+      char c = text.charAt(pos);
+      if (c == '.' || c == 'e' || c == 'E') {
+        integral = false;
+      } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+        break;
+      }
+      pos++;
+    }
+    String number = text.substring(start, pos);
+    try {
+      return integral ? (Object) Long.parseLong(number) : (Object) Double.parseDouble(number);
+    } catch (NumberFormatException e) {
+      throw error("bad number");
+    }
+  }
+
+  private @Nullable Object literal(String literal, @Nullable Object value) {
+    if (!text.startsWith(literal, pos)) {
+      throw error("unexpected character");
+    }
+    pos += literal.length();
+    return value;
+  }
+
+  private boolean consume(char c) {
+    if (pos < text.length() && text.charAt(pos) == c) {
+      pos++;
+      return true;
+    }
+    return false;
+  }
+
+  private void skipWhitespace() {
+    while (pos < text.length() && " \t\r\n".indexOf(text.charAt(pos)) >= 0) {
+      pos++;
+    }
+  }
+
+  private IllegalArgumentException error(String message) {
+    return new IllegalArgumentException(message + " at offset " + pos + " of JSON");
+  }
+}
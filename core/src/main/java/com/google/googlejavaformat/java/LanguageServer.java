@@ -0,0 +1,462 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Range;
+import com.google.googlejavaformat.LineIndex;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A <a href="https://microsoft.github.io/language-server-protocol/">Language Server Protocol</a>
+ * server that formats documents for an editor, over standard input and output. It implements
+ * {@code textDocument/formatting}, {@code textDocument/rangeFormatting} and {@code
+ * textDocument/onTypeFormatting}, and keeps the documents that the editor has open in sync.
+ *
+ * <p>A running server keeps its JIT-compiled code and its {@link CommentRewriteCache} warm across
+ * requests, and remembers what it last returned for each document, so formatting a document again
+ * without changing it costs nothing.
+ */
+final class LanguageServer {
+
+  // JSON-RPC and Language Server Protocol error codes.
+  static final int PARSE_ERROR = -32700;
+  static final int INVALID_REQUEST = -32600;
+  static final int METHOD_NOT_FOUND = -32601;
+  static final int INVALID_PARAMS = -32602;
+  static final int INTERNAL_ERROR = -32603;
+  static final int SERVER_NOT_INITIALIZED = -32002;
+  static final int REQUEST_FAILED = -32803;
+
+  /** The {@code TextDocumentSyncKind} of changes sent as edits to ranges of a document. */
+  private static final int INCREMENTAL_SYNC = 2;
+
+  /** Formats ranges of a document, like {@link Formatter#getFormatReplacements}. */
+  interface RangeFormatter {
+    ImmutableList<Replacement> getFormatReplacements(
+        String input, Collection<Range<Integer>> characterRanges) throws FormatterException;
+  }
+
+  /** An error to respond to a request with. */
+  private static final class ResponseError extends Exception {
+    private final int code;
+
+    ResponseError(int code, String message) {
+      super(message);
+      this.code = code;
+    }
+  }
+
+  /** A document that the editor has open, and what the server last returned for it. */
+  private static final class Document {
+    private String text;
+    private @Nullable LineIndex lines;
+
+    /** The text and ranges of the last formatting request, and the replacements returned. */
+    private @Nullable String lastText;
+
+    private ImmutableList<Range<Integer>> lastRanges = ImmutableList.of();
+    private ImmutableList<Replacement> lastReplacements = ImmutableList.of();
+
+    /** The result of the last formatting of the whole document, which needs no more formatting. */
+    private @Nullable String formatted;
+
+    Document(String text) {
+      this.text = text;
+    }
+
+    LineIndex lines() {
+      if (lines == null) {
+        lines = LineIndex.create(text);
+      }
+      return lines;
+    }
+
+    void setText(String text) {
+      this.text = text;
+      this.lines = null;
+    }
+
+    /** Returns the character offset of the LSP {@code Position} {@code position}. */
+    int offset(Map<String, @Nullable Object> position) throws ResponseError {
+      int line = integer(position, "line");
+      int character = integer(position, "character");
+      LineIndex lines = lines();
+      if (line >= lines.getLineCount()) {
+        return text.length();
+      }
+      int start = lines.getLineStart(line);
+      int end = lines.getLineEnd(line);
+      while (end > start && (text.charAt(end - 1) == '\n' || text.charAt(end - 1) == '\r')) {
+        end--;
+      }
+      return start + Math.min(character, end - start);
+    }
+
+    /** Returns the LSP {@code Position} of the character offset {@code offset}. */
+    ImmutableMap<String, Object> position(int offset) {
+      int line = lines().getLineNumber(offset);
+      return ImmutableMap.of("line", line, "character", offset - lines().getLineStart(line));
+    }
+  }
+
+  private final RangeFormatter formatter;
+  private final Map<String, Document> documents = new HashMap<>();
+
+  private boolean initialized;
+  private boolean shutdown;
+  private boolean exited;
+
+  LanguageServer(JavaFormatterOptions options, CommentRewriteCache commentCache) {
+    this(new Formatter(options, commentCache)::getFormatReplacements);
+  }
+
+  LanguageServer(RangeFormatter formatter) {
+    this.formatter = formatter;
+  }
+
+  /**
+   * Serves the requests read from {@code in}, writing responses to {@code out}, until the client
+   * sends {@code exit} or closes {@code in}. Since the protocol counts the length of messages in
+   * bytes, {@code out} must encode UTF-8.
+   *
+   * @return the exit code: 0 if the client shut the server down before exiting, otherwise 1
+   */
+  int run(InputStream in, Writer out) throws IOException {
+    in = new BufferedInputStream(in);
+    while (!exited) {
+      String message = readMessage(in);
+      if (message == null) {
+        break;
+      }
+      Map<String, @Nullable Object> response = handle(message);
+      if (response != null) {
+        String body = Json.write(response);
+        out.write("Content-Length: " + body.getBytes(UTF_8).length + "\r\n\r\n");
+        out.write(body);
+        out.flush();
+      }
+    }
+    return shutdown ? 0 : 1;
+  }
+
+  /** Reads the next message, or returns {@code null} at the end of the input. */
+  private static @Nullable String readMessage(InputStream in) throws IOException {
+    int contentLength = -1;
+    while (true) {
+      String header = readHeader(in);
+      if (header == null) {
+        return null;
+      }
+      if (header.isEmpty()) {
+        break;
+      }
+      int colon = header.indexOf(':');
+      if (colon > 0 && header.substring(0, colon).trim().equalsIgnoreCase("Content-Length")) {
+        try {
+          contentLength = Integer.parseInt(header.substring(colon + 1).trim());
+        } catch (NumberFormatException e) {
+          throw new IOException("bad header: " + header, e);
+        }
+      }
+    }
+    if (contentLength < 0) {
+      throw new IOException("message without a Content-Length header");
+    }
+    byte[] body = in.readNBytes(contentLength);
+    return body.length == contentLength ? new String(body, UTF_8) : null;
+  }
+
+  /** Reads a header line, without its line break, or returns {@code null} at the end of input. */
+  private static @Nullable String readHeader(InputStream in) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    for (int c = in.read(); c != -1; c = in.read()) {
+      if (c == '\n') {
+        int length = sb.length();
+        return sb.substring(0, length > 0 && sb.charAt(length - 1) == '\r' ? length - 1 : length);
+      }
+      sb.append((char) c);
+    }
+    return null;
+  }
+
+  /** Handles a message, returning the response to send, if it is a request. */
+  private @Nullable Map<String, @Nullable Object> handle(String message) {
+    Object id = null;
+    try {
+      Object parsed;
+      try {
+        parsed = Json.parse(message);
+      } catch (IllegalArgumentException e) {
+        throw new ResponseError(PARSE_ERROR, e.getMessage());
+      }
+      if (!(parsed instanceof Map<?, ?>)) {
+        throw new ResponseError(INVALID_REQUEST, "not a JSON-RPC message");
+      }
+      @SuppressWarnings("unchecked") // JSON objects are parsed as maps with string keys
+      Map<String, @Nullable Object> request = (Map<String, @Nullable Object>) parsed;
+      id = request.get("id");
+      if (!(request.get("method") instanceof String method)) {
+        // A response to a request from the server, which never sends any.
+        return null;
+      }
+      Object result = dispatch(method, request.get("params"), /* isRequest= */ id != null);
+      if (id == null) {
+        return null;
+      }
+      Map<String, @Nullable Object> response = new LinkedHashMap<>();
+      response.put("jsonrpc", "2.0");
+      response.put("id", id);
+      response.put("result", result);
+      return response;
+    } catch (ResponseError e) {
+      return errorResponse(id, e.code, String.valueOf(e.getMessage()));
+    } catch (RuntimeException e) {
+      // A bug in handling one message shouldn't end the session, so report it and go on.
+      return errorResponse(id, INTERNAL_ERROR, e.toString());
+    }
+  }
+
+  /** Returns the error response to the message {@code id}, or null if it is a notification. */
+  private static @Nullable Map<String, @Nullable Object> errorResponse(
+      @Nullable Object id, int code, String message) {
+    if (id == null && code != PARSE_ERROR && code != INVALID_REQUEST) {
+      // Notifications don't have responses, even if they fail.
+      return null;
+    }
+    Map<String, @Nullable Object> response = new LinkedHashMap<>();
+    response.put("jsonrpc", "2.0");
+    response.put("id", id);
+    response.put("error", ImmutableMap.of("code", code, "message", message));
+    return response;
+  }
+
+  private @Nullable Object dispatch(String method, @Nullable Object params, boolean isRequest)
+      throws ResponseError {
+    if (method.equals("exit")) {
+      exited = true;
+      return null;
+    }
+    if (!initialized && !method.equals("initialize")) {
+      throw new ResponseError(SERVER_NOT_INITIALIZED, "the server hasn't been initialized");
+    }
+    switch (method) {
+      case "initialize":
+        initialized = true;
+        return ImmutableMap.of(
+            "capabilities",
+            ImmutableMap.of(
+                "textDocumentSync",
+                ImmutableMap.of("openClose", true, "change", INCREMENTAL_SYNC),
+                "documentFormattingProvider",
+                true,
+                "documentRangeFormattingProvider",
+                true,
+                "documentOnTypeFormattingProvider",
+                ImmutableMap.of(
+                    "firstTriggerCharacter", "}", "moreTriggerCharacter", ImmutableList.of(";"))),
+            "serverInfo",
+            ImmutableMap.of(
+                "name", "google-java-format", "version", GoogleJavaFormatVersion.version()));
+      case "initialized":
+        return null;
+      case "shutdown":
+        shutdown = true;
+        return null;
+      case "textDocument/didOpen":
+        {
+          Map<String, @Nullable Object> document = object(object(params), "textDocument");
+          documents.put(string(document, "uri"), new Document(string(document, "text")));
+          return null;
+        }
+      case "textDocument/didChange":
+        didChange(object(params));
+        return null;
+      case "textDocument/didClose":
+        documents.remove(uri(object(params)));
+        return null;
+      case "textDocument/formatting":
+        {
+          Document document = document(object(params));
+          return format(document, Range.closedOpen(0, document.text.length()));
+        }
+      case "textDocument/rangeFormatting":
+        {
+          Document document = document(object(params));
+          Map<String, @Nullable Object> range = object(object(params), "range");
+          int start = document.offset(object(range, "start"));
+          int end = document.offset(object(range, "end"));
+          if (end < start) {
+            throw new ResponseError(INVALID_PARAMS, "the range ends before it starts");
+          }
+          return format(document, Range.closedOpen(start, end));
+        }
+      case "textDocument/onTypeFormatting":
+        return onTypeFormatting(object(params));
+      default:
+        if (isRequest) {
+          throw new ResponseError(METHOD_NOT_FOUND, "unsupported method: " + method);
+        }
+        // Notifications that the server doesn't need, like $/cancelRequest.
+        return null;
+    }
+  }
+
+  private void didChange(Map<String, @Nullable Object> params) throws ResponseError {
+    Document document = document(params);
+    if (!(params.get("contentChanges") instanceof List<?> changes)) {
+      throw new ResponseError(INVALID_PARAMS, "missing contentChanges");
+    }
+    for (Object change : changes) {
+      Map<String, @Nullable Object> edit = object(change);
+      String text = string(edit, "text");
+      if (edit.get("range") == null) {
+        document.setText(text);
+        continue;
+      }
+      Map<String, @Nullable Object> range = object(edit, "range");
+      int start = document.offset(object(range, "start"));
+      int end = Math.max(start, document.offset(object(range, "end")));
+      document.setText(document.text.substring(0, start) + text + document.text.substring(end));
+    }
+  }
+
+  /**
+   * Formats the line that a character was typed on. An incomplete document is common while typing,
+   * so it isn't an error.
+   */
+  private List<Object> onTypeFormatting(Map<String, @Nullable Object> params)
+      throws ResponseError {
+    Document document = document(params);
+    int line = integer(object(params, "position"), "line");
+    LineIndex lines = document.lines();
+    if (line >= lines.getLineCount()) {
+      return ImmutableList.of();
+    }
+    try {
+      return format(
+          document, Range.closedOpen(lines.getLineStart(line), lines.getLineEnd(line)));
+    } catch (ResponseError e) {
+      return ImmutableList.of();
+    }
+  }
+
+  /** Returns the {@code TextEdit}s that format {@code range} of {@code document}. */
+  private List<Object> format(Document document, Range<Integer> range) throws ResponseError {
+    String text = document.text;
+    boolean whole = range.encloses(Range.closedOpen(0, text.length()));
+    ImmutableList<Range<Integer>> ranges = ImmutableList.of(range);
+    ImmutableList<Replacement> replacements;
+    if (text.equals(document.formatted)) {
+      replacements = ImmutableList.of();
+    } else if (text.equals(document.lastText) && ranges.equals(document.lastRanges)) {
+      replacements = document.lastReplacements;
+    } else {
+      try {
+        replacements = formatter.getFormatReplacements(text, ranges);
+      } catch (FormatterException e) {
+        throw new ResponseError(REQUEST_FAILED, e.getMessage());
+      }
+      document.lastText = text;
+      document.lastRanges = ranges;
+      document.lastReplacements = replacements;
+      if (whole) {
+        document.formatted = JavaOutput.applyReplacements(text, replacements);
+      }
+    }
+    List<Object> edits = new ArrayList<>();
+    for (Replacement replacement : replacements) {
+      Range<Integer> replaced = replacement.getReplaceRange();
+      String newText = replacement.getReplacementString();
+      int length = replaced.upperEndpoint() - replaced.lowerEndpoint();
+      if (newText.length() == length
+          && text.regionMatches(replaced.lowerEndpoint(), newText, 0, length)) {
+        // The formatter replaces whole ranges of tokens, even if they're already formatted.
+        continue;
+      }
+      edits.add(
+          ImmutableMap.of(
+              "range",
+              ImmutableMap.of(
+                  "start",
+                  document.position(replaced.lowerEndpoint()),
+                  "end",
+                  document.position(replaced.upperEndpoint())),
+              "newText",
+              newText));
+    }
+    return edits;
+  }
+
+  private Document document(Map<String, @Nullable Object> params) throws ResponseError {
+    String uri = uri(params);
+    Document document = documents.get(uri);
+    if (document == null) {
+      throw new ResponseError(INVALID_PARAMS, "document isn't open: " + uri);
+    }
+    return document;
+  }
+
+  private static String uri(Map<String, @Nullable Object> params) throws ResponseError {
+    return string(object(params, "textDocument"), "uri");
+  }
+
+  private static Map<String, @Nullable Object> object(
+      Map<String, @Nullable Object> object, String key) throws ResponseError {
+    Object value = object.get(key);
+    if (value == null) {
+      throw new ResponseError(INVALID_PARAMS, "missing " + key);
+    }
+    return object(value);
+  }
+
+  @SuppressWarnings("unchecked") // JSON objects are parsed as maps with string keys
+  private static Map<String, @Nullable Object> object(@Nullable Object value)
+      throws ResponseError {
+    if (!(value instanceof Map<?, ?>)) {
+      throw new ResponseError(INVALID_PARAMS, "expected an object: " + value);
+    }
+    return (Map<String, @Nullable Object>) value;
+  }
+
+  private static String string(Map<String, @Nullable Object> object, String key)
+      throws ResponseError {
+    if (!(object.get(key) instanceof String value)) {
+      throw new ResponseError(INVALID_PARAMS, "expected a string: " + key);
+    }
+    return value;
+  }
+
+  private static int integer(Map<String, @Nullable Object> object, String key)
+      throws ResponseError {
+    if (!(object.get(key) instanceof Long value) || value < 0 || value > Integer.MAX_VALUE) {
+      throw new ResponseError(INVALID_PARAMS, "expected a non-negative integer: " + key);
+    }
+    return value.intValue();
+  }
+}
@@ -39,10 +39,11 @@ import java.util.concurrent.Executors;
 import com.google.common.io.ByteStreams;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.googlejavaformat.java.JavaFormatterOptions.Style;
+import org.jspecify.annotations.Nullable;
 
 /** The main class for the Java formatter CLI. */
 public final class Main {
-  private static final int MAX_THREADS = 20;
+  static final int MAX_THREADS = 20;
   private static final String STDIN_FILENAME = "<stdin>";
 
   static String versionString() {
@@ -53,10 +54,31 @@ public final class Main {
   private final PrintWriter errWriter;
   private final InputStream inStream;
 
+  /** The threads of a {@link FormatSession}, or null to start threads for each run. */
+  private final @Nullable ExecutorService sessionExecutor;
+
+  /**
+   * Shared by all the files formatted by this instance, and by others in the same session. Its
+   * stats count only the lookups of this instance.
+   */
+  private final CommentRewriteCache commentCache;
+
   public Main(PrintWriter outWriter, PrintWriter errWriter, InputStream inStream) {
+    this(outWriter, errWriter, inStream, null, CommentRewriteCache.create());
+  }
+
+  /** Creates a formatter CLI that runs in a {@link FormatSession}. */
+  Main(
+      PrintWriter outWriter,
+      PrintWriter errWriter,
+      InputStream inStream,
+      @Nullable ExecutorService sessionExecutor,
+      CommentRewriteCache commentCache) {
     this.outWriter = outWriter;
     this.errWriter = errWriter;
     this.inStream = inStream;
+    this.sessionExecutor = sessionExecutor;
+    this.commentCache = commentCache.withOwnStats();
   }
 
   /**
@@ -86,8 +108,12 @@ public final class Main {
    * implementation in the same package as this Main class.
    */
   static int main(InputStream in, PrintWriter out, PrintWriter err, String... args) {
+    return main(new Main(out, err, in), out, err, args);
+  }
+
+  /** Runs {@code formatter}, which prints to {@code out} and {@code err}, with {@code args}. */
+  static int main(Main formatter, PrintWriter out, PrintWriter err, String... args) {
     try {
-      Main formatter = new Main(out, err, in);
       return formatter.format(args);
     } catch (UsageException e) {
       err.print(e.getMessage());
@@ -122,7 +148,11 @@ public final class Main {
             .formatJavadoc(parameters.formatJavadoc())
             .build();
 
-    if (parameters.stdin()) {
+    if (parameters.lsp()) {
+      return serveLanguageServer(options);
+    } else if (parameters.profileFile().isPresent()) {
+      return profileFile(parameters.profileFile().get(), parameters, options);
+    } else if (parameters.stdin()) {
       return formatStdin(parameters, options);
     } else {
       return formatFiles(parameters, options);
@@ -130,8 +160,10 @@ public final class Main {
   }
 
   private int formatFiles(CommandLineOptions parameters, JavaFormatterOptions options) {
-    int numThreads = min(MAX_THREADS, parameters.files().size());
-    ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+    ExecutorService executorService =
+        sessionExecutor != null
+            ? sessionExecutor
+            : Executors.newFixedThreadPool(min(MAX_THREADS, parameters.files().size()));
 
     ExecutorCompletionService<FormatFileCallable.Result> cs =
         new ExecutorCompletionService<>(executorService);
@@ -146,7 +178,7 @@ public final class Main {
       Path path = Paths.get(fileName);
       try {
         String input = new String(Files.readAllBytes(path), UTF_8);
-        cs.submit(new FormatFileCallable(parameters, path, input, options));
+        cs.submit(new FormatFileCallable(parameters, path, input, options, commentCache));
         files++;
       } catch (IOException e) {
         errWriter.println(fileName + ": could not read file: " + e.getMessage());
@@ -171,8 +203,10 @@ public final class Main {
       }
     }
     Collections.sort(results, comparing(FormatFileCallable.Result::path));
+    FormatStatsReport stats = new FormatStatsReport(commentCache.stats());
     for (FormatFileCallable.Result result : results) {
       Path path = result.path();
+      stats.add(path.toString(), result.input().length(), result.stats());
       if (result.exception() != null) {
         errWriter.print(result.exception().formatDiagnostics(path.toString(), result.input()));
         allOk = false;
@@ -202,10 +236,14 @@ public final class Main {
         outWriter.write(formatted);
       }
     }
-    if (!MoreExecutors.shutdownAndAwaitTermination(executorService, Duration.ofSeconds(5))) {
+    if (sessionExecutor == null
+        && !MoreExecutors.shutdownAndAwaitTermination(executorService, Duration.ofSeconds(5))) {
       errWriter.println("Failed to shut down ExecutorService");
       allOk = false;
     }
+    if (parameters.stats() && !reportStats(parameters, stats)) {
+      allOk = false;
+    }
     return allOk ? 0 : 1;
   }
 
@@ -219,7 +257,9 @@ public final class Main {
     String stdinFilename = parameters.assumeFilename().orElse(STDIN_FILENAME);
     boolean ok = true;
     FormatFileCallable.Result result =
-        new FormatFileCallable(parameters, null, input, options).call();
+        new FormatFileCallable(parameters, null, input, options, commentCache).call();
+    FormatStatsReport stats = new FormatStatsReport(commentCache.stats());
+    stats.add(stdinFilename, input.length(), result.stats());
     if (result.exception() != null) {
       errWriter.print(result.exception().formatDiagnostics(stdinFilename, input));
       ok = false;
@@ -237,9 +277,65 @@ public final class Main {
         outWriter.write(output);
       }
     }
+    if (parameters.stats() && !reportStats(parameters, stats)) {
+      ok = false;
+    }
     return ok ? 0 : 1;
   }
 
+  /**
+   * Prints {@code stats} to stderr, or writes them to the file given by {@code --stats-file}.
+   * Returns false if the file couldn't be written.
+   */
+  private boolean reportStats(CommandLineOptions parameters, FormatStatsReport stats) {
+    if (parameters.statsFile().isEmpty()) {
+      stats.print(errWriter);
+      return true;
+    }
+    String statsFile = parameters.statsFile().get();
+    try {
+      Files.writeString(Paths.get(statsFile), stats.toJson());
+      return true;
+    } catch (IOException e) {
+      errWriter.println(statsFile + ": could not write stats: " + e.getMessage());
+      return false;
+    }
+  }
+
+  /** Serves formatting requests from an editor over stdin and stdout, until it exits. */
+  private int serveLanguageServer(JavaFormatterOptions options) {
+    try {
+      return new LanguageServer(options, commentCache).run(inStream, outWriter);
+    } catch (IOException e) {
+      errWriter.println("language server: " + e.getMessage());
+      return 1;
+    }
+  }
+
+  /**
+   * Formats the file at {@code fileName}, and prints the cost of formatting each of its
+   * declarations.
+   */
+  private int profileFile(
+      String fileName, CommandLineOptions parameters, JavaFormatterOptions options) {
+    String input;
+    try {
+      input = new String(Files.readAllBytes(Paths.get(fileName)), UTF_8);
+    } catch (IOException e) {
+      errWriter.println(fileName + ": could not read file: " + e.getMessage());
+      return 1;
+    }
+    FormatProfile profile;
+    try {
+      profile = FormatProfile.profile(input, options);
+    } catch (FormatterException e) {
+      errWriter.print(e.formatDiagnostics(fileName, input));
+      return 1;
+    }
+    outWriter.write(parameters.profileHtml() ? profile.toHtml(fileName) : profile.toJson());
+    return 0;
+  }
+
   /** Parses and validates command-line flags. */
   public static CommandLineOptions processArgs(String... args) throws UsageException {
     CommandLineOptions parameters;
@@ -255,6 +351,12 @@ public final class Main {
     if (parameters.stdin()) {
       filesToFormat++;
     }
+    if (parameters.profileFile().isPresent()) {
+      filesToFormat++;
+    }
+    if (parameters.lsp()) {
+      filesToFormat++;
+    }
 
     if (parameters.inPlace() && parameters.files().isEmpty()) {
       throw new UsageException("in-place formatting was requested but no files were provided");
@@ -278,6 +380,15 @@ public final class Main {
     if (parameters.dryRun() && parameters.inPlace()) {
       throw new UsageException("cannot use --dry-run and --in-place at the same time");
     }
+    if (parameters.profileFile().isPresent() && filesToFormat != 1) {
+      throw new UsageException("--profile-file cannot be used with other files or standard input");
+    }
+    if (parameters.lsp() && filesToFormat != 1) {
+      throw new UsageException("--lsp cannot be used with files or standard input");
+    }
+    if (parameters.profileHtml() && parameters.profileFile().isEmpty()) {
+      throw new UsageException("--profile-html is only supported with --profile-file");
+    }
     return parameters;
   }
 }
@@ -22,17 +22,15 @@ import static com.google.common.collect.Iterables.getLast;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.Range;
-import com.google.common.collect.RangeSet;
-import com.google.common.collect.TreeRangeMap;
 import com.google.googlejavaformat.Input.Tok;
 import com.google.googlejavaformat.Input.Token;
+import com.google.googlejavaformat.IntRangeMap;
+import com.google.googlejavaformat.IntRangeSet;
 import com.sun.tools.javac.parser.Tokens.TokenKind;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 import javax.lang.model.element.Modifier;
 import org.jspecify.annotations.Nullable;
 
@@ -121,9 +119,12 @@ final class ModifierOrderer {
       // Errors about invalid input will be reported later after parsing.
       return javaInput;
     }
-    RangeSet<Integer> tokenRanges = javaInput.characterRangesToTokenRanges(characterRanges);
+    IntRangeSet tokenRanges = javaInput.characterRangesToTokenRanges(characterRanges);
     Iterator<? extends Token> it = javaInput.getTokens().iterator();
-    TreeRangeMap<Integer, String> replacements = TreeRangeMap.create();
+    IntRangeMap<String> replacements = IntRangeMap.create();
+    // The toks of the input with the modifiers reordered, or null if the new text must be lexed.
+    @Nullable List<JavaInput.Tok> reordered = new ArrayList<>();
+    int copied = 0;
     while (it.hasNext()) {
       ModifierTokens tokens = getModifierTokens(it);
       if (tokens.isEmpty()
@@ -159,10 +160,81 @@ final class ModifierOrderer {
             addTrivia(replacement, modifierTokens.get(i).getToksAfter());
           }
         }
-        replacements.put(Range.closedOpen(begin, end), replacement.toString());
+        replacements.put(begin, end, replacement.toString());
+        if (reordered != null) {
+          copied = reorderToks(javaInput, modifierTokens, sorted, reordered, copied);
+          if (copied < 0) {
+            reordered = null;
+          }
+        }
+      }
+    }
+    if (replacements.isEmpty()) {
+      return javaInput;
+    }
+    String text = IntRangeMap.applyReplacements(javaInput.getText(), replacements);
+    if (reordered == null) {
+      return new JavaInput(text);
+    }
+    reordered.addAll(javaInput.getToks().subList(copied, javaInput.getToks().size()));
+    return javaInput.rearrange(text, reordered);
+  }
+
+  /**
+   * Appends the toks of the input up to the given modifiers, followed by the modifiers' toks in
+   * sorted order, to {@code reordered}. The toks between the modifiers stay in place, as they do in
+   * the textual replacement.
+   *
+   * @param copied the number of toks of the input already appended to {@code reordered}
+   * @return the number of toks of the input that have now been appended, or {@code -1} if the
+   *     textual replacement isn't a reordering of the toks
+   */
+  private static int reorderToks(
+      JavaInput javaInput,
+      List<ModifierTokens> modifierTokens,
+      List<ModifierTokens> sorted,
+      List<JavaInput.Tok> reordered,
+      int copied) {
+    ImmutableList<JavaInput.Tok> toks = javaInput.getToks();
+    int n = modifierTokens.size();
+    // The [start, end) ranges of the toks of each modifier.
+    int[] starts = new int[n];
+    int[] ends = new int[n];
+    for (int i = 0; i < n; i++) {
+      ModifierTokens tokens = modifierTokens.get(i);
+      starts[i] = javaInput.getTokIndex(tokens.startPosition());
+      ends[i] = javaInput.getTokIndex(tokens.last().getTok().getPosition()) + 1;
+      // The replacement spells modifiers canonically, and drops newlines after parameter comments.
+      if (!hasText(toks, starts[i], ends[i], tokens.modifier().toString())
+          || (i > 0
+              && starts[i] - ends[i - 1]
+                  != modifierTokens.get(i - 1).getToksAfter().size()
+                      + tokens.getToksBefore().size())) {
+        return -1;
       }
     }
-    return applyReplacements(javaInput, replacements);
+    reordered.addAll(toks.subList(copied, starts[0]));
+    for (int i = 0; i < n; i++) {
+      int j = modifierTokens.indexOf(sorted.get(i));
+      reordered.addAll(toks.subList(starts[j], ends[j]));
+      if (i < n - 1) {
+        reordered.addAll(toks.subList(ends[i], starts[i + 1]));
+      }
+    }
+    return ends[n - 1];
+  }
+
+  /** Returns true if the given range of toks has exactly the given text. */
+  private static boolean hasText(List<JavaInput.Tok> toks, int start, int end, String text) {
+    int offset = 0;
+    for (int i = start; i < end; i++) {
+      String tokText = toks.get(i).getOriginalText();
+      if (!text.startsWith(tokText, offset)) {
+        return false;
+      }
+      offset += tokText.length();
+    }
+    return offset == text.length();
   }
 
   private static void addTrivia(StringBuilder replacement, ImmutableList<? extends Tok> toks) {
@@ -243,21 +315,4 @@ final class ModifierOrderer {
         return null;
     }
   }
-
-  /** Applies replacements to the given string. */
-  private static JavaInput applyReplacements(
-      JavaInput javaInput, TreeRangeMap<Integer, String> replacementMap) throws FormatterException {
-    // process in descending order so the replacement ranges aren't perturbed if any replacements
-    // differ in size from the input
-    Map<Range<Integer>, String> ranges = replacementMap.asDescendingMapOfRanges();
-    if (ranges.isEmpty()) {
-      return javaInput;
-    }
-    StringBuilder sb = new StringBuilder(javaInput.getText());
-    for (Entry<Range<Integer>, String> entry : ranges.entrySet()) {
-      Range<Integer> range = entry.getKey();
-      sb.replace(range.lowerEndpoint(), range.upperEndpoint(), entry.getValue());
-    }
-    return new JavaInput(sb.toString());
-  }
 }
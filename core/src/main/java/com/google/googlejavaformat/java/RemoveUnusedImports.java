@@ -67,6 +67,7 @@ import javax.tools.DiagnosticListener;
 import javax.tools.JavaFileObject;
 import javax.tools.SimpleJavaFileObject;
 import javax.tools.StandardLocation;
+import org.jspecify.annotations.Nullable;
 
 /**
  * Removes unused imports from a source file. Imports that are only used in javadoc are also
@@ -214,20 +215,63 @@ public class RemoveUnusedImports {
   }
 
   public static String removeUnusedImports(final String contents) throws FormatterException {
+    return FormatPhaseEvent.record(
+        FormatStats.Phase.REMOVE_UNUSED_IMPORTS.displayName(),
+        contents.length(),
+        () -> removeFrom(contents));
+  }
+
+  private static String removeFrom(String contents) throws FormatterException {
+    RangeMap<Integer, String> replacements = buildReplacementsFromTokens(contents);
+    // The tokens can only tell which imports are used, so the input is parsed either way to report
+    // its syntax errors. Doc comments are only needed to find the imports they use.
     Context context = new Context();
-    JCCompilationUnit unit = parse(context, contents);
+    JCCompilationUnit unit =
+        parse(context, contents, /* keepDocComments= */ replacements == null);
     if (unit == null) {
       // error handling is done during formatting
       return contents;
     }
-    UnusedImportScanner scanner = new UnusedImportScanner(JavacTrees.instance(context));
-    scanner.scan(unit, null);
-    return applyReplacements(
-        contents, buildReplacements(contents, unit, scanner.usedNames, scanner.usedInJavadoc));
+    if (replacements == null) {
+      UnusedImportScanner scanner = new UnusedImportScanner(JavacTrees.instance(context));
+      scanner.scan(unit, null);
+      replacements = buildReplacements(contents, unit, scanner.usedNames, scanner.usedInJavadoc);
+    }
+    return applyReplacements(contents, replacements);
   }
 
-  private static JCCompilationUnit parse(Context context, String javaInput)
-      throws FormatterException {
+  /**
+   * Construct replacements to fix unused imports using an {@link IdentifierUsageIndex}, or returns
+   * {@code null} if the index can't tell whether some import is used. The index doesn't check the
+   * syntax of the input.
+   */
+  private static @Nullable RangeMap<Integer, String> buildReplacementsFromTokens(String contents) {
+    IdentifierUsageIndex index = IdentifierUsageIndex.create(contents);
+    if (index == null) {
+      return null;
+    }
+    RangeMap<Integer, String> replacements = TreeRangeMap.create();
+    for (IdentifierUsageIndex.Import importDecl : index.imports()) {
+      if (!isRedundant(index.packageName(), importDecl.qualifier())) {
+        if (importDecl.simpleName().equals("*")) {
+          continue;
+        }
+        switch (index.usage(importDecl.simpleName())) {
+          case USED:
+            continue;
+          case UNUSED:
+            break;
+          case UNKNOWN:
+            return null;
+        }
+      }
+      removeImport(contents, replacements, importDecl.start(), importDecl.end());
+    }
+    return replacements;
+  }
+
+  private static JCCompilationUnit parse(
+      Context context, String javaInput, boolean keepDocComments) throws FormatterException {
     DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
     context.put(DiagnosticListener.class, diagnostics);
     Options.instance(context).put("--enable-preview", "true");
@@ -252,7 +296,7 @@ public class RemoveUnusedImports {
     JavacParser parser =
         parserFactory.newParser(
             javaInput,
-            /* keepDocComments= */ true,
+            keepDocComments,
             /* keepEndPos= */ true,
             /* keepLineMap= */ true);
     unit = parser.parseCompilationUnit();
@@ -278,19 +322,27 @@ public class RemoveUnusedImports {
       if (!isUnused(unit, usedNames, usedInJavadoc, importTree, simpleName)) {
         continue;
       }
-      // delete the import
-      int endPosition = importTree.getEndPosition(unit.endPositions);
-      endPosition = max(CharMatcher.isNot(' ').indexIn(contents, endPosition), endPosition);
-      String sep = Newlines.guessLineSeparator(contents);
-      if (endPosition + sep.length() < contents.length()
-          && contents.subSequence(endPosition, endPosition + sep.length()).toString().equals(sep)) {
-        endPosition += sep.length();
-      }
-      replacements.put(Range.closedOpen(importTree.getStartPosition(), endPosition), "");
+      removeImport(
+          contents,
+          replacements,
+          importTree.getStartPosition(),
+          importTree.getEndPosition(unit.endPositions));
     }
     return replacements;
   }
 
+  /** Deletes the import at {@code [start, end)}, and the spaces and line break that follow it. */
+  private static void removeImport(
+      String contents, RangeMap<Integer, String> replacements, int start, int end) {
+    int endPosition = max(CharMatcher.isNot(' ').indexIn(contents, end), end);
+    String sep = Newlines.guessLineSeparator(contents);
+    if (endPosition + sep.length() < contents.length()
+        && contents.subSequence(endPosition, endPosition + sep.length()).toString().equals(sep)) {
+      endPosition += sep.length();
+    }
+    replacements.put(Range.closedOpen(start, endPosition), "");
+  }
+
   private static String getSimpleName(JCTree importTree) {
     return getQualifiedIdentifier(importTree).getIdentifier().toString();
   }
@@ -303,10 +355,8 @@ public class RemoveUnusedImports {
       String simpleName) {
     JCFieldAccess qualifiedIdentifier = getQualifiedIdentifier(importTree);
     String qualifier = qualifiedIdentifier.getExpression().toString();
-    if (qualifier.equals("java.lang")) {
-      return true;
-    }
-    if (unit.getPackageName() != null && unit.getPackageName().toString().equals(qualifier)) {
+    String packageName = unit.getPackageName() != null ? unit.getPackageName().toString() : null;
+    if (isRedundant(packageName, qualifier)) {
       return true;
     }
     if (qualifiedIdentifier.getIdentifier().contentEquals("*")) {
@@ -322,6 +372,11 @@ public class RemoveUnusedImports {
     return true;
   }
 
+  /** Returns true for imports from {@code java.lang} or the current package. */
+  private static boolean isRedundant(@Nullable String packageName, String qualifier) {
+    return qualifier.equals("java.lang") || qualifier.equals(packageName);
+  }
+
   private static JCFieldAccess getQualifiedIdentifier(JCTree importTree) {
     // Use reflection because the return type is JCTree in some versions and JCFieldAccess in others
     try {
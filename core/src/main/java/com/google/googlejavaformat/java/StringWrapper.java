@@ -25,8 +25,10 @@ import com.google.common.base.Strings;
 import com.google.common.base.Verify;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Range;
-import com.google.common.collect.TreeRangeMap;
+import com.google.googlejavaformat.Cancellation;
+import com.google.googlejavaformat.FormattingError;
+import com.google.googlejavaformat.IntRangeMap;
+import com.google.googlejavaformat.LineIndex;
 import com.google.googlejavaformat.Newlines;
 import com.sun.source.tree.BinaryTree;
 import com.sun.source.tree.LiteralTree;
@@ -42,16 +44,13 @@ import com.sun.tools.javac.tree.JCTree;
 import com.sun.tools.javac.util.Context;
 import com.sun.tools.javac.util.Log;
 import com.sun.tools.javac.util.Options;
-import com.sun.tools.javac.util.Position;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.tools.Diagnostic;
 import javax.tools.DiagnosticCollector;
@@ -75,22 +74,54 @@ public final class StringWrapper {
    */
   static String wrap(final int columnLimit, String input, Formatter formatter)
       throws FormatterException {
-    if (!needWrapping(columnLimit, input)) {
+    return wrap(columnLimit, input, formatter, Cancellation.NONE);
+  }
+
+  /**
+   * Reflows string literals like {@link #wrap(int, String, Formatter)}, abandoning reflowing once
+   * {@code cancellation} is cancelled. Cancellation is checked while the reflowed ranges are
+   * formatted, and before the result is checked, but not while javac parses.
+   */
+  static String wrap(
+      final int columnLimit, String input, Formatter formatter, Cancellation cancellation)
+      throws FormatterException {
+    try {
+      return FormatPhaseEvent.record(
+          FormatStats.Phase.REFLOW_STRINGS.displayName(),
+          input.length(),
+          () -> wrapLongStrings(columnLimit, input, formatter, cancellation));
+    } catch (FormattingError e) {
+      throw new FormatterException(e.diagnostics());
+    }
+  }
+
+  private static String wrapLongStrings(
+      final int columnLimit, String input, Formatter formatter, Cancellation cancellation)
+      throws FormatterException {
+    LineIndex lineIndex = LineIndex.create(input);
+    if (!needWrapping(columnLimit, lineIndex)) {
       // fast path
       return input;
     }
 
-    TreeRangeMap<Integer, String> replacements = getReflowReplacements(columnLimit, input);
-    String firstPass = formatter.formatSource(input, replacements.asMapOfRanges().keySet());
+    IntRangeMap<String> replacements = getReflowReplacements(columnLimit, lineIndex);
+    if (replacements.isEmpty()) {
+      // Nothing to reflow, e.g. the long lines were not string literals. Skipping the AST check
+      // below also keeps javac's recursive pretty-printer away from deep generated expressions.
+      return input;
+    }
+    String firstPass =
+        formatter.formatSource(input, replacements.ranges(), cancellation, FormatStats.NONE);
 
     if (!firstPass.equals(input)) {
       // If formatting the replacement ranges resulted in a change, recalculate the replacements on
       // the updated input.
       input = firstPass;
-      replacements = getReflowReplacements(columnLimit, input);
+      replacements = getReflowReplacements(columnLimit, LineIndex.create(input));
     }
 
-    String result = applyReplacements(input, replacements);
+    String result = IntRangeMap.applyReplacements(input, replacements);
+    cancellation.check();
 
     {
       // We really don't want bugs in this pass to change the behaviour of programs we're
@@ -112,9 +143,9 @@ public final class StringWrapper {
     return result;
   }
 
-  private static TreeRangeMap<Integer, String> getReflowReplacements(
-      int columnLimit, final String input) throws FormatterException {
-    return new Reflower(columnLimit, input).getReflowReplacements();
+  private static IntRangeMap<String> getReflowReplacements(
+      int columnLimit, LineIndex lineIndex) throws FormatterException {
+    return new Reflower(columnLimit, lineIndex).getReflowReplacements();
   }
 
   private static class Reflower {
@@ -123,24 +154,24 @@ public final class StringWrapper {
     private final int columnLimit;
     private final String separator;
     private final JCTree.JCCompilationUnit unit;
-    private final Position.LineMap lineMap;
+    private final LineIndex lineIndex;
 
-    Reflower(int columnLimit, String input) throws FormatterException {
+    Reflower(int columnLimit, LineIndex lineIndex) throws FormatterException {
       this.columnLimit = columnLimit;
-      this.input = input;
+      this.input = lineIndex.getText();
       this.separator = Newlines.guessLineSeparator(input);
       this.unit = parse(input, /* allowStringFolding= */ false);
-      this.lineMap = unit.getLineMap();
+      this.lineIndex = lineIndex;
     }
 
-    TreeRangeMap<Integer, String> getReflowReplacements() {
+    IntRangeMap<String> getReflowReplacements() {
       // Paths to string literals that extend past the column limit.
       List<TreePath> longStringLiterals = new ArrayList<>();
       // Paths to text blocks to be re-indented.
       List<Tree> textBlocks = new ArrayList<>();
       new LongStringsAndTextBlockScanner(longStringLiterals, textBlocks)
           .scan(new TreePath(unit), null);
-      TreeRangeMap<Integer, String> replacements = TreeRangeMap.create();
+      IntRangeMap<String> replacements = IntRangeMap.create();
       indentTextBlocks(replacements, textBlocks);
       wrapLongStrings(replacements, longStringLiterals);
       return replacements;
@@ -176,18 +207,39 @@ public final class StringWrapper {
         while (Newlines.hasNewlineAt(input, lineEnd) == -1) {
           lineEnd++;
         }
-        if (lineMap.getColumnNumber(lineEnd) - 1 <= columnLimit) {
+        if (lineIndex.getColumnNumber(lineEnd) <= columnLimit) {
           return null;
         }
         longStringLiterals.add(getCurrentPath());
         return null;
       }
+
+      /**
+       * Scans the operands of a chain of binary operators in order, without recursing into the
+       * left-deep trees that long generated concatenations parse to.
+       */
+      @Override
+      public Void visitBinary(BinaryTree tree, Void unused) {
+        Deque<TreePath> pending = new ArrayDeque<>();
+        TreePath path = getCurrentPath();
+        while (path.getLeaf() instanceof BinaryTree) {
+          pending.push(path);
+          path = new TreePath(path, ((BinaryTree) path.getLeaf()).getLeftOperand());
+        }
+        scan(path, null);
+        while (!pending.isEmpty()) {
+          TreePath binary = pending.pop();
+          scan(new TreePath(binary, ((BinaryTree) binary.getLeaf()).getRightOperand()), null);
+        }
+        return null;
+      }
     }
 
     private void indentTextBlocks(
-        TreeRangeMap<Integer, String> replacements, List<Tree> textBlocks) {
+        IntRangeMap<String> replacements, List<Tree> textBlocks) {
       for (Tree tree : textBlocks) {
-        int startPosition = lineMap.getStartPosition(lineMap.getLineNumber(getStartPosition(tree)));
+        int startPosition =
+            lineIndex.getLineStart(lineIndex.getLineNumber(getStartPosition(tree)));
         int endPosition = getEndPosition(unit, tree);
         String text = input.substring(startPosition, endPosition);
         int leadingWhitespace = CharMatcher.whitespace().negate().indexIn(text);
@@ -229,12 +281,12 @@ public final class StringWrapper {
             output.append(line);
           }
         }
-        replacements.put(Range.closedOpen(startPosition, endPosition), output.toString());
+        replacements.put(startPosition, endPosition, output.toString());
       }
     }
 
     private void wrapLongStrings(
-        TreeRangeMap<Integer, String> replacements, List<TreePath> longStringLiterals) {
+        IntRangeMap<String> replacements, List<TreePath> longStringLiterals) {
       for (TreePath path : longStringLiterals) {
         // Find the outermost contiguous enclosing concatenation expression
         TreePath enclosing = path;
@@ -250,7 +302,7 @@ public final class StringWrapper {
         // to be wrapped.
         List<Tree> flat = flatten(input, unit, path, enclosing, first);
         // Zero-indexed start column
-        int startColumn = lineMap.getColumnNumber(getStartPosition(flat.get(0))) - 1;
+        int startColumn = lineIndex.getColumnNumber(getStartPosition(flat.get(0)));
 
         // Handling leaving trailing non-string tokens at the end of the literal,
         // e.g. the trailing `);` in `foo("...");`.
@@ -264,7 +316,8 @@ public final class StringWrapper {
         // Get the original source text of the string literals, excluding `"` and `+`.
         ImmutableList<String> components = stringComponents(input, unit, flat);
         replacements.put(
-            Range.closedOpen(getStartPosition(flat.get(0)), getEndPosition(unit, getLast(flat))),
+            getStartPosition(flat.get(0)),
+            getEndPosition(unit, getLast(flat)),
             reflow(separator, columnLimit, startColumn, trailing, components, first.get()));
       }
     }
@@ -464,19 +517,20 @@ public final class StringWrapper {
   }
 
   private static int getStartPosition(Tree tree) {
-    return ((JCTree) tree).getStartPosition();
+    return Trees.getStartPosition(tree);
   }
 
   /**
    * Returns true if any lines in the given Java source exceed the column limit, or contain a {@code
    * """} that could indicate a text block.
    */
-  private static boolean needWrapping(int columnLimit, String input) {
-    // TODO(cushon): consider adding Newlines.lineIterable?
-    Iterator<String> it = Newlines.lineIterator(input);
-    while (it.hasNext()) {
-      String line = it.next();
-      if (line.length() > columnLimit || line.contains(TEXT_BLOCK_DELIMITER)) {
+  private static boolean needWrapping(int columnLimit, LineIndex lineIndex) {
+    if (lineIndex.getText().contains(TEXT_BLOCK_DELIMITER)) {
+      return true;
+    }
+    for (int i = 0; i < lineIndex.getLineCount(); i++) {
+      // The line length includes the line break, as Newlines.lineIterator's lines do.
+      if (lineIndex.getLineEnd(i) - lineIndex.getLineStart(i) > columnLimit) {
         return true;
       }
     }
@@ -520,22 +574,5 @@ public final class StringWrapper {
     return unit;
   }
 
-  /** Applies replacements to the given string. */
-  private static String applyReplacements(
-      String javaInput, TreeRangeMap<Integer, String> replacementMap) throws FormatterException {
-    // process in descending order so the replacement ranges aren't perturbed if any replacements
-    // differ in size from the input
-    Map<Range<Integer>, String> ranges = replacementMap.asDescendingMapOfRanges();
-    if (ranges.isEmpty()) {
-      return javaInput;
-    }
-    StringBuilder sb = new StringBuilder(javaInput);
-    for (Map.Entry<Range<Integer>, String> entry : ranges.entrySet()) {
-      Range<Integer> range = entry.getKey();
-      sb.replace(range.lowerEndpoint(), range.upperEndpoint(), entry.getValue());
-    }
-    return sb.toString();
-  }
-
   private StringWrapper() {}
 }
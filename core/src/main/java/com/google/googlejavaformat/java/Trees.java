@@ -14,14 +14,23 @@
 
 package com.google.googlejavaformat.java;
 
+import com.sun.source.tree.ArrayAccessTree;
+import com.sun.source.tree.ArrayTypeTree;
+import com.sun.source.tree.AssignmentTree;
+import com.sun.source.tree.BinaryTree;
 import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.CompoundAssignmentTree;
+import com.sun.source.tree.ConditionalExpressionTree;
+import com.sun.source.tree.ExpressionStatementTree;
 import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.InstanceOfTree;
 import com.sun.source.tree.MemberSelectTree;
 import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.ParameterizedTypeTree;
 import com.sun.source.tree.ParenthesizedTree;
 import com.sun.source.tree.Tree;
+import com.sun.source.tree.UnaryTree;
 import com.sun.source.util.TreePath;
 import com.sun.tools.javac.tree.JCTree;
 import com.sun.tools.javac.tree.Pretty;
@@ -29,6 +38,7 @@ import com.sun.tools.javac.tree.TreeInfo;
 import java.io.IOError;
 import java.io.IOException;
 import javax.lang.model.element.Name;
+import org.jspecify.annotations.Nullable;
 
 /** Utilities for working with {@link Tree}s. */
 class Trees {
@@ -37,9 +47,60 @@ class Trees {
     return getEndPosition(tree, path) - getStartPosition(tree);
   }
 
-  /** Returns the source start position of the node. */
+  /**
+   * Returns the source start position of the node.
+   *
+   * <p>javac finds the start of an expression like {@code a + b} or {@code a.b()} by recursing into
+   * its leftmost operand, which overflows the stack on long generated concatenations and call
+   * chains. This follows those operands in a loop instead.
+   */
   static int getStartPosition(Tree expression) {
-    return ((JCTree) expression).getStartPosition();
+    Tree tree = expression;
+    while (true) {
+      Tree leftmost = leftmostOperand(tree);
+      if (leftmost == null) {
+        return ((JCTree) tree).getStartPosition();
+      }
+      tree = leftmost;
+    }
+  }
+
+  /**
+   * Returns the subtree that javac takes the start position of {@code tree} from, if it is one
+   * that javac recurses into, or {@code null}.
+   */
+  private static @Nullable Tree leftmostOperand(Tree tree) {
+    switch (tree.getKind()) {
+      case METHOD_INVOCATION:
+        return ((MethodInvocationTree) tree).getMethodSelect();
+      case MEMBER_SELECT:
+        return ((MemberSelectTree) tree).getExpression();
+      case ARRAY_ACCESS:
+        return ((ArrayAccessTree) tree).getExpression();
+      case ASSIGNMENT:
+        return ((AssignmentTree) tree).getVariable();
+      case CONDITIONAL_EXPRESSION:
+        return ((ConditionalExpressionTree) tree).getCondition();
+      case INSTANCE_OF:
+        return ((InstanceOfTree) tree).getExpression();
+      case POSTFIX_INCREMENT:
+      case POSTFIX_DECREMENT:
+        return ((UnaryTree) tree).getExpression();
+      case PARAMETERIZED_TYPE:
+        return ((ParameterizedTypeTree) tree).getType();
+      case ARRAY_TYPE:
+        return ((ArrayTypeTree) tree).getType();
+      case EXPRESSION_STATEMENT:
+        return ((ExpressionStatementTree) tree).getExpression();
+      default:
+        if (tree instanceof BinaryTree) {
+          return ((BinaryTree) tree).getLeftOperand();
+        }
+        if (tree instanceof CompoundAssignmentTree) {
+          return ((CompoundAssignmentTree) tree).getVariable();
+        }
+        return null;
+    }
   }
 
   /** Returns the source end position of the node. */
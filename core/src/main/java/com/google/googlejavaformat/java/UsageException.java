@@ -55,6 +55,20 @@ final class UsageException extends Exception {
         + " normally.",
     "  --set-exit-if-changed",
     "    Return exit code 1 if there are any formatting changes.",
+    "  --timeout-per-file",
+    "    Give up formatting a file after this many seconds, reporting it as an error. The"
+        + " deadline is checked between phases and while the file is laid out, so a file that"
+        + " stalls javac's parser or the import fixes still runs until that phase ends.",
+    "  --stats",
+    "    Print the time and memory spent in each phase of formatting, and the slowest files.",
+    "  --stats-file",
+    "    Write the report of --stats to this file as JSON, instead of printing it.",
+    "  --profile-file",
+    "    Format only this file, and print the cost of each of its declarations as JSON.",
+    "  --profile-html",
+    "    Print the report of --profile-file as HTML instead of JSON.",
+    "  --lsp",
+    "    Run a Language Server Protocol server for formatting over stdin and stdout.",
     "  --lines, -lines, --line, -line",
     "    Line range(s) to format, e.g. the first 5 lines are 1:5 (1-based; default is all).",
     "  --offset, -offset",
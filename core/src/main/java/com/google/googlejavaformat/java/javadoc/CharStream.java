@@ -17,52 +17,63 @@ package com.google.googlejavaformat.java.javadoc;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * String reader designed for use from the lexer. Callers invoke the {@link #tryConsume tryConsume*}
  * methods to specify what characters they expect and then {@link #readAndResetRecorded} to retrieve
  * and consume the matched characters. This is a slightly odd API -- why not just return the matched
  * characters from tryConsume? -- but it is convenient for the lexer.
+ *
+ * <p>The stream reads its input in place: callers match against {@link #input} starting at {@link
+ * #position}, and only the characters of each token are copied.
  */
 final class CharStream {
-  String remaining;
-  int toConsume;
+  private final String input;
+  private int position;
+  private int toConsume;
 
   CharStream(String input) {
-    this.remaining = checkNotNull(input);
+    this.input = checkNotNull(input);
+  }
+
+  /** The whole input, including the characters that have already been read. */
+  String input() {
+    return input;
+  }
+
+  /** The offset in {@link #input} of the next character to be read. */
+  int position() {
+    return position;
   }
 
   boolean tryConsume(String expected) {
-    if (!remaining.startsWith(expected)) {
+    if (!input.startsWith(expected, position)) {
       return false;
     }
     toConsume = expected.length();
     return true;
   }
 
-  /*
-   * @param pattern the pattern to search for, which must be anchored to match only at position 0
+  /**
+   * @param end the offset in {@link #input} just past the matched characters, or {@code -1} if the
+   *     caller's match failed
    */
-  boolean tryConsumeRegex(Pattern pattern) {
-    Matcher matcher = pattern.matcher(remaining);
-    if (!matcher.find()) {
+  boolean tryConsumeTo(int end) {
+    if (end < 0) {
       return false;
     }
-    checkArgument(matcher.start() == 0);
-    toConsume = matcher.end();
+    checkArgument(end > position);
+    toConsume = end - position;
     return true;
   }
 
   String readAndResetRecorded() {
-    String result = remaining.substring(0, toConsume);
-    remaining = remaining.substring(toConsume);
+    String result = input.substring(position, position + toConsume);
+    position += toConsume;
     toConsume = 0; // TODO(cpovirk): Set this to a bogus value here and in the constructor.
     return result;
   }
 
   boolean isExhausted() {
-    return remaining.isEmpty();
+    return position == input.length();
   }
 }
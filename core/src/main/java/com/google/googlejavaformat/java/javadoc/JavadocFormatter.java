@@ -23,7 +23,6 @@ import static java.util.regex.Pattern.compile;
 import com.google.common.collect.ImmutableList;
 import com.google.googlejavaformat.java.javadoc.JavadocLexer.LexException;
 import java.util.List;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -49,11 +48,11 @@ public final class JavadocFormatter {
     } catch (LexException e) {
       return input;
     }
-    String result = render(tokens, blockIndent);
-    return makeSingleLineIfPossible(blockIndent, result);
+    JavadocWriter output = render(tokens, blockIndent);
+    return makeSingleLineIfPossible(blockIndent, output);
   }
 
-  private static String render(List<Token> input, int blockIndent) {
+  private static JavadocWriter render(List<Token> input, int blockIndent) {
     JavadocWriter output = new JavadocWriter(blockIndent);
     for (Token token : input) {
       switch (token.getType()) {
@@ -62,7 +61,7 @@ public final class JavadocFormatter {
           break;
         case END_JAVADOC:
           output.writeEndJavadoc();
-          return output.toString();
+          return output;
         case FOOTER_JAVADOC_TAG_START:
           output.writeFooterJavadocTagStart(token);
           break;
@@ -165,23 +164,20 @@ public final class JavadocFormatter {
   private static final Token STANDARD_P_TOKEN = new Token(PARAGRAPH_OPEN_TAG, "<p>");
   private static final Pattern SIMPLE_TAG_PATTERN = compile("^<\\w+\\s*/?\\s*>", CASE_INSENSITIVE);
 
-  private static final Pattern ONE_CONTENT_LINE_PATTERN = compile(" */[*][*]\n *[*] (.*)\n *[*]/");
-
   /**
-   * Returns the given string or a one-line version of it (e.g., "∕✱✱ Tests for foos. ✱∕") if it
+   * Returns the written Javadoc or a one-line version of it (e.g., "∕✱✱ Tests for foos. ✱∕") if it
    * fits on one line.
    */
-  private static String makeSingleLineIfPossible(int blockIndent, String input) {
-    Matcher matcher = ONE_CONTENT_LINE_PATTERN.matcher(input);
-    if (matcher.matches()) {
-      String line = matcher.group(1);
+  private static String makeSingleLineIfPossible(int blockIndent, JavadocWriter output) {
+    String line = output.singleLine();
+    if (line != null) {
       if (line.isEmpty()) {
         return "/** */";
       } else if (oneLineJavadoc(line, blockIndent)) {
         return "/** " + line + " */";
       }
     }
-    return input;
+    return output.toString();
   }
 
   private static boolean oneLineJavadoc(String line, int blockIndent) {
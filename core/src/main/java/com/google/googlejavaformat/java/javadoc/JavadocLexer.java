@@ -47,11 +47,8 @@ import static com.google.googlejavaformat.java.javadoc.Token.Type.SNIPPET_END;
 import static com.google.googlejavaformat.java.javadoc.Token.Type.TABLE_CLOSE_TAG;
 import static com.google.googlejavaformat.java.javadoc.Token.Type.TABLE_OPEN_TAG;
 import static com.google.googlejavaformat.java.javadoc.Token.Type.WHITESPACE;
-import static java.lang.String.format;
-import static java.util.regex.Pattern.CASE_INSENSITIVE;
-import static java.util.regex.Pattern.DOTALL;
-import static java.util.regex.Pattern.compile;
 
+import com.google.common.base.Ascii;
 import com.google.common.base.CharMatcher;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.PeekingIterator;
@@ -139,7 +136,7 @@ final class JavadocLexer {
   private Type consumeToken() throws LexException {
     boolean preserveExistingFormatting = preserveExistingFormatting();
 
-    if (input.tryConsumeRegex(NEWLINE_PATTERN)) {
+    if (input.tryConsumeTo(matchNewline())) {
       somethingSinceNewline = false;
       return preserveExistingFormatting ? FORCED_NEWLINE : WHITESPACE;
     } else if (input.tryConsume(" ") || input.tryConsume("\t")) {
@@ -154,14 +151,14 @@ final class JavadocLexer {
      * great options for fixing it.
      * https://github.com/google/google-java-format/issues/7#issuecomment-197383926
      */
-    if (!somethingSinceNewline && input.tryConsumeRegex(FOOTER_TAG_PATTERN)) {
+    if (!somethingSinceNewline && input.tryConsumeTo(matchFooterTag())) {
       checkMatchingTags();
       somethingSinceNewline = true;
       return FOOTER_JAVADOC_TAG_START;
     }
     somethingSinceNewline = true;
 
-    if (input.tryConsumeRegex(SNIPPET_TAG_OPEN_PATTERN)) {
+    if (input.tryConsumeTo(matchSnippetTagOpen())) {
       if (braceDepth.value() == 0) {
         braceDepth.increment();
         outerInlineTagIsSnippet = true;
@@ -169,7 +166,7 @@ final class JavadocLexer {
       }
       braceDepth.increment();
       return LITERAL;
-    } else if (input.tryConsumeRegex(INLINE_TAG_OPEN_PATTERN)) {
+    } else if (input.tryConsumeTo(matchInlineTagOpen())) {
       braceDepth.increment();
       return LITERAL;
     } else if (input.tryConsume("{")) {
@@ -187,68 +184,68 @@ final class JavadocLexer {
 
     // Inside an inline tag, don't do any HTML interpretation.
     if (braceDepth.isPositive()) {
-      verify(input.tryConsumeRegex(LITERAL_PATTERN));
+      verify(input.tryConsumeTo(matchLiteral()));
       return LITERAL;
     }
 
-    if (input.tryConsumeRegex(PRE_OPEN_PATTERN)) {
+    if (input.tryConsumeTo(matchOpenTag(PRE))) {
       preDepth.increment();
       return preserveExistingFormatting ? LITERAL : PRE_OPEN_TAG;
-    } else if (input.tryConsumeRegex(PRE_CLOSE_PATTERN)) {
+    } else if (input.tryConsumeTo(matchCloseTag(PRE))) {
       preDepth.decrementIfPositive();
       return preserveExistingFormatting() ? LITERAL : PRE_CLOSE_TAG;
     }
 
-    if (input.tryConsumeRegex(CODE_OPEN_PATTERN)) {
+    if (input.tryConsumeTo(matchOpenTag(CODE))) {
       codeDepth.increment();
       return preserveExistingFormatting ? LITERAL : CODE_OPEN_TAG;
-    } else if (input.tryConsumeRegex(CODE_CLOSE_PATTERN)) {
+    } else if (input.tryConsumeTo(matchCloseTag(CODE))) {
       codeDepth.decrementIfPositive();
       return preserveExistingFormatting() ? LITERAL : CODE_CLOSE_TAG;
     }
 
-    if (input.tryConsumeRegex(TABLE_OPEN_PATTERN)) {
+    if (input.tryConsumeTo(matchOpenTag(TABLE))) {
       tableDepth.increment();
       return preserveExistingFormatting ? LITERAL : TABLE_OPEN_TAG;
-    } else if (input.tryConsumeRegex(TABLE_CLOSE_PATTERN)) {
+    } else if (input.tryConsumeTo(matchCloseTag(TABLE))) {
       tableDepth.decrementIfPositive();
       return preserveExistingFormatting() ? LITERAL : TABLE_CLOSE_TAG;
     }
 
     if (preserveExistingFormatting) {
-      verify(input.tryConsumeRegex(LITERAL_PATTERN));
+      verify(input.tryConsumeTo(matchLiteral()));
       return LITERAL;
     }
 
-    if (input.tryConsumeRegex(PARAGRAPH_OPEN_PATTERN)) {
+    if (input.tryConsumeTo(matchOpenTag(PARAGRAPH))) {
       return PARAGRAPH_OPEN_TAG;
-    } else if (input.tryConsumeRegex(PARAGRAPH_CLOSE_PATTERN)) {
+    } else if (input.tryConsumeTo(matchCloseTag(PARAGRAPH))) {
       return PARAGRAPH_CLOSE_TAG;
-    } else if (input.tryConsumeRegex(LIST_OPEN_PATTERN)) {
+    } else if (input.tryConsumeTo(matchOpenTag(LIST))) {
       return LIST_OPEN_TAG;
-    } else if (input.tryConsumeRegex(LIST_CLOSE_PATTERN)) {
+    } else if (input.tryConsumeTo(matchCloseTag(LIST))) {
       return LIST_CLOSE_TAG;
-    } else if (input.tryConsumeRegex(LIST_ITEM_OPEN_PATTERN)) {
+    } else if (input.tryConsumeTo(matchOpenTag(LIST_ITEM))) {
       return LIST_ITEM_OPEN_TAG;
-    } else if (input.tryConsumeRegex(LIST_ITEM_CLOSE_PATTERN)) {
+    } else if (input.tryConsumeTo(matchCloseTag(LIST_ITEM))) {
       return LIST_ITEM_CLOSE_TAG;
-    } else if (input.tryConsumeRegex(BLOCKQUOTE_OPEN_PATTERN)) {
+    } else if (input.tryConsumeTo(matchOpenTag(BLOCKQUOTE))) {
       return BLOCKQUOTE_OPEN_TAG;
-    } else if (input.tryConsumeRegex(BLOCKQUOTE_CLOSE_PATTERN)) {
+    } else if (input.tryConsumeTo(matchCloseTag(BLOCKQUOTE))) {
       return BLOCKQUOTE_CLOSE_TAG;
-    } else if (input.tryConsumeRegex(HEADER_OPEN_PATTERN)) {
+    } else if (input.tryConsumeTo(matchOpenTag(HEADER))) {
       return HEADER_OPEN_TAG;
-    } else if (input.tryConsumeRegex(HEADER_CLOSE_PATTERN)) {
+    } else if (input.tryConsumeTo(matchCloseTag(HEADER))) {
       return HEADER_CLOSE_TAG;
-    } else if (input.tryConsumeRegex(BR_PATTERN)) {
+    } else if (input.tryConsumeTo(matchOpenTag(BR))) {
       return BR_TAG;
-    } else if (input.tryConsumeRegex(MOE_BEGIN_STRIP_COMMENT_PATTERN)) {
+    } else if (input.tryConsumeTo(matchMoeComment(MOE_BEGIN_STRIP))) {
       return MOE_BEGIN_STRIP_COMMENT;
-    } else if (input.tryConsumeRegex(MOE_END_STRIP_COMMENT_PATTERN)) {
+    } else if (input.tryConsumeTo(matchMoeComment(MOE_END_STRIP))) {
       return MOE_END_STRIP_COMMENT;
-    } else if (input.tryConsumeRegex(HTML_COMMENT_PATTERN)) {
+    } else if (input.tryConsumeTo(matchHtmlComment())) {
       return HTML_COMMENT;
-    } else if (input.tryConsumeRegex(LITERAL_PATTERN)) {
+    } else if (input.tryConsumeTo(matchLiteral())) {
       return LITERAL;
     }
     throw new AssertionError();
@@ -393,7 +390,7 @@ final class JavadocLexer {
     ImmutableList.Builder<Token> output = ImmutableList.builder();
 
     for (PeekingIterator<Token> tokens = peekingIterator(input.iterator()); tokens.hasNext(); ) {
-      if (tokens.peek().getType() == LITERAL && tokens.peek().getValue().matches("^href=[^>]*>")) {
+      if (tokens.peek().getType() == LITERAL && isHrefAttribute(tokens.peek().getValue())) {
         output.add(tokens.next());
 
         if (tokens.peek().getType() == WHITESPACE) {
@@ -413,6 +410,11 @@ final class JavadocLexer {
      */
   }
 
+  /** Returns true if {@code value} matches {@code href=[^>]*>}. */
+  private static boolean isHrefAttribute(String value) {
+    return value.startsWith("href=") && value.indexOf('>') == value.length() - 1;
+  }
+
   /**
    * Adjust indentation inside `<pre>{@code` blocks.
    *
@@ -432,8 +434,7 @@ final class JavadocLexer {
       while (tokens.hasNext() && tokens.peek().getType() == FORCED_NEWLINE) {
         initialNewlines.add(tokens.next());
       }
-      if (tokens.peek().getType() != LITERAL
-          || !tokens.peek().getValue().matches("[ \t]*[{]@code")) {
+      if (tokens.peek().getType() != LITERAL || !isCodeTagOpen(tokens.peek().getValue())) {
         output.addAll(initialNewlines);
         output.add(tokens.next());
         continue;
@@ -444,6 +445,12 @@ final class JavadocLexer {
     return output.build();
   }
 
+  /** Returns true if {@code value} matches <code>[ \t]*[{]@code</code>. */
+  private static boolean isCodeTagOpen(String value) {
+    int start = value.length() - "{@code".length();
+    return value.endsWith("{@code") && skip(SPACE_OR_TAB, value, 0) == start;
+  }
+
   private static void deindentPreCodeBlock(
       ImmutableList.Builder<Token> output, PeekingIterator<Token> tokens) {
     Deque<Token> saved = new ArrayDeque<>();
@@ -513,66 +520,224 @@ final class JavadocLexer {
   }
 
   /*
-   * This also eats any trailing whitespace. We would be smart enough to ignore that, anyway --
+   * The matchers below each match one kind of token at the current position of the input, as an
+   * anchored regular expression would. Each returns the offset just past the match, or -1. They
+   * look at the first character before anything else, so the lexer decides each token in a single
+   * pass over its characters instead of trying a series of patterns that may each scan the rest of
+   * the input.
+   */
+
+  /**
+   * Matches {@code [ \t]*\n[ \t]*[*]?[ \t]?}.
+   *
+   * <p>This also eats any trailing whitespace. We would be smart enough to ignore that, anyway --
    * except in the case of <pre>/<table>, inside which we otherwise leave whitespace intact.
    *
-   * We'd remove the trailing whitespace later on (in JavaCommentsHelper.rewrite), but I feel safer
-   * stripping it now: It otherwise might confuse our line-length count, which we use for wrapping.
+   * <p>We'd remove the trailing whitespace later on (in JavaCommentsHelper.rewrite), but I feel
+   * safer stripping it now: It otherwise might confuse our line-length count, which we use for
+   * wrapping.
    */
-  private static final Pattern NEWLINE_PATTERN = compile("^[ \t]*\n[ \t]*[*]?[ \t]?");
-
-  // We ensure elsewhere that we match this only at the beginning of a line.
-  // Only match tags that start with a lowercase letter, to avoid false matches on unescaped
-  // annotations inside code blocks.
-  // Match "@param <T>" specially in case the <T> is a <P> or other HTML tag we treat specially.
-  private static final Pattern FOOTER_TAG_PATTERN = compile("^@(param\\s+<\\w+>|[a-z]\\w*)");
-  private static final Pattern MOE_BEGIN_STRIP_COMMENT_PATTERN =
-      compile("^<!--\\s*M" + "OE:begin_intracomment_strip\\s*-->");
-  private static final Pattern MOE_END_STRIP_COMMENT_PATTERN =
-      compile("^<!--\\s*M" + "OE:end_intracomment_strip\\s*-->");
-  private static final Pattern HTML_COMMENT_PATTERN = fullCommentPattern();
-  private static final Pattern PRE_OPEN_PATTERN = openTagPattern("pre");
-  private static final Pattern PRE_CLOSE_PATTERN = closeTagPattern("pre");
-  private static final Pattern CODE_OPEN_PATTERN = openTagPattern("code");
-  private static final Pattern CODE_CLOSE_PATTERN = closeTagPattern("code");
-  private static final Pattern TABLE_OPEN_PATTERN = openTagPattern("table");
-  private static final Pattern TABLE_CLOSE_PATTERN = closeTagPattern("table");
-  private static final Pattern LIST_OPEN_PATTERN = openTagPattern("ul|ol|dl");
-  private static final Pattern LIST_CLOSE_PATTERN = closeTagPattern("ul|ol|dl");
-  private static final Pattern LIST_ITEM_OPEN_PATTERN = openTagPattern("li|dt|dd");
-  private static final Pattern LIST_ITEM_CLOSE_PATTERN = closeTagPattern("li|dt|dd");
-  private static final Pattern HEADER_OPEN_PATTERN = openTagPattern("h[1-6]");
-  private static final Pattern HEADER_CLOSE_PATTERN = closeTagPattern("h[1-6]");
-  private static final Pattern PARAGRAPH_OPEN_PATTERN = openTagPattern("p");
-  private static final Pattern PARAGRAPH_CLOSE_PATTERN = closeTagPattern("p");
-  private static final Pattern BLOCKQUOTE_OPEN_PATTERN = openTagPattern("blockquote");
-  private static final Pattern BLOCKQUOTE_CLOSE_PATTERN = closeTagPattern("blockquote");
-  private static final Pattern BR_PATTERN = openTagPattern("br");
-  private static final Pattern SNIPPET_TAG_OPEN_PATTERN = compile("^[{]@snippet\\b");
-  private static final Pattern INLINE_TAG_OPEN_PATTERN = compile("^[{]@\\w*");
-  /*
-   * We exclude < so that we don't swallow following HTML tags. This lets us fix up "foo<p>" (~400
-   * hits in Google-internal code). We will join unnecessarily split "words" (like "foo<b>bar</b>")
-   * in a later step. There's a similar story for braces. I'm not sure I actually need to exclude @
-   * or *. TODO(cpovirk): Try removing them.
+  private int matchNewline() {
+    String text = input.input();
+    int i = skip(SPACE_OR_TAB, text, input.position());
+    if (i == text.length() || text.charAt(i) != '\n') {
+      return -1;
+    }
+    i = skip(SPACE_OR_TAB, text, i + 1);
+    if (i < text.length() && text.charAt(i) == '*') {
+      i++;
+    }
+    if (i < text.length() && SPACE_OR_TAB.matches(text.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Matches {@code @(param\s+<\w+>|[a-z]\w*)}.
    *
-   * Thanks to the "rejoin" step in joinAdjacentLiteralsAndAdjacentWhitespace(), we could get away
-   * with matching only one character here. That would eliminate the need for the regex entirely.
-   * That might be faster or slower than what we do now.
+   * <p>We ensure elsewhere that we match this only at the beginning of a line. Only match tags that
+   * start with a lowercase letter, to avoid false matches on unescaped annotations inside code
+   * blocks. Match "@param <T>" specially in case the <T> is a <P> or other HTML tag we treat
+   * specially.
    */
-  private static final Pattern LITERAL_PATTERN = compile("^.[^ \t\n@<{}*]*", DOTALL);
+  private int matchFooterTag() {
+    String text = input.input();
+    int start = input.position() + 1;
+    if (!text.startsWith("@", input.position()) || start == text.length()) {
+      return -1;
+    }
+    if (text.startsWith("param", start)) {
+      int open = skip(REGEX_WHITESPACE, text, start + "param".length());
+      if (open > start + "param".length() && text.startsWith("<", open)) {
+        int close = skip(REGEX_WORD, text, open + 1);
+        if (close > open + 1 && text.startsWith(">", close)) {
+          return close + 1;
+        }
+      }
+    }
+    char c = text.charAt(start);
+    return 'a' <= c && c <= 'z' ? skip(REGEX_WORD, text, start + 1) : -1;
+  }
+
+  /** Matches <code>[{]@snippet\b</code>. */
+  private int matchSnippetTagOpen() {
+    String text = input.input();
+    int end = input.position() + "{@snippet".length();
+    return text.startsWith("{@snippet", input.position()) && isWordEnd(text, end) ? end : -1;
+  }
 
-  private static Pattern fullCommentPattern() {
-    return compile("^<!--.*?-->", DOTALL);
+  /** Matches <code>[{]@\w*</code>. */
+  private int matchInlineTagOpen() {
+    String text = input.input();
+    return text.startsWith("{@", input.position())
+        ? skip(REGEX_WORD, text, input.position() + "{@".length())
+        : -1;
   }
 
-  private static Pattern openTagPattern(String namePattern) {
-    return compile(format("^<(?:%s)\\b[^>]*>", namePattern), CASE_INSENSITIVE);
+  /** Matches {@code <(?:name)\b[^>]*>}, ignoring case, for any of the given names. */
+  private int matchOpenTag(ImmutableList<String> names) {
+    return matchTag("<", names);
   }
 
-  private static Pattern closeTagPattern(String namePattern) {
-    return compile(format("^</(?:%s)\\b[^>]*>", namePattern), CASE_INSENSITIVE);
+  /** Matches {@code </(?:name)\b[^>]*>}, ignoring case, for any of the given names. */
+  private int matchCloseTag(ImmutableList<String> names) {
+    return matchTag("</", names);
   }
 
+  private int matchTag(String prefix, ImmutableList<String> names) {
+    String text = input.input();
+    if (!text.startsWith(prefix, input.position())) {
+      return -1;
+    }
+    int start = input.position() + prefix.length();
+    for (String name : names) {
+      int end = start + name.length();
+      if (regionMatchesIgnoringAsciiCase(text, start, name) && isWordEnd(text, end)) {
+        int close = text.indexOf('>', end);
+        return close < 0 ? -1 : close + 1;
+      }
+    }
+    return -1;
+  }
+
+  /** Matches {@code <!--\s*directive\s*-->}. */
+  private int matchMoeComment(String directive) {
+    String text = input.input();
+    if (!text.startsWith("<!--", input.position())) {
+      return -1;
+    }
+    int i = skip(REGEX_WHITESPACE, text, input.position() + "<!--".length());
+    if (!text.startsWith(directive, i)) {
+      return -1;
+    }
+    i = skip(REGEX_WHITESPACE, text, i + directive.length());
+    return text.startsWith("-->", i) ? i + "-->".length() : -1;
+  }
+
+  /** Matches {@code <!--.*?-->}. */
+  private int matchHtmlComment() {
+    String text = input.input();
+    if (!text.startsWith("<!--", input.position())) {
+      return -1;
+    }
+    int close = text.indexOf("-->", input.position() + "<!--".length());
+    return close < 0 ? -1 : close + "-->".length();
+  }
+
+  /**
+   * Matches any character followed by characters other than {@code [ \t\n@<{}*]}.
+   *
+   * <p>We exclude < so that we don't swallow following HTML tags. This lets us fix up "foo<p>"
+   * (~400 hits in Google-internal code). We will join unnecessarily split "words" (like
+   * "foo<b>bar</b>") in a later step. There's a similar story for braces. I'm not sure I actually
+   * need to exclude @ or *. TODO(cpovirk): Try removing them.
+   *
+   * <p>Thanks to the "rejoin" step in joinAdjacentLiteralsAndAdjacentWhitespace(), we could get
+   * away with matching only one character here.
+   */
+  private int matchLiteral() {
+    String text = input.input();
+    int start = input.position();
+    // Like the regex ".", this takes a whole surrogate pair as one character, though that makes no
+    // difference since neither half is a terminator.
+    if (start == text.length()) {
+      return -1;
+    }
+    int end = LITERAL_TERMINATOR.indexIn(text, start + 1);
+    return end < 0 ? text.length() : end;
+  }
+
+  /** Returns the offset of the first character at or after {@code start} not in {@code matcher}. */
+  private static int skip(CharMatcher matcher, String text, int start) {
+    int end = start;
+    while (end < text.length() && matcher.matches(text.charAt(end))) {
+      end++;
+    }
+    return end;
+  }
+
+  /**
+   * Returns true if there is a regex word boundary ({@code \b}) at {@code end}, which follows a
+   * word character. As in {@link java.util.regex.Pattern}, that's the case unless the next code
+   * point is a letter, digit, underscore, or a non-spacing mark (which continues the word).
+   */
+  private static boolean isWordEnd(String text, int end) {
+    if (end == text.length()) {
+      return true;
+    }
+    int c = text.codePointAt(end);
+    return !(c == '_'
+        || Character.isLetterOrDigit(c)
+        || Character.getType(c) == Character.NON_SPACING_MARK);
+  }
+
+  /**
+   * Returns true if {@code text} contains {@code name} at {@code start}, ignoring the case of ASCII
+   * letters only, as {@link java.util.regex.Pattern#CASE_INSENSITIVE} does.
+   */
+  private static boolean regionMatchesIgnoringAsciiCase(String text, int start, String name) {
+    if (start + name.length() > text.length()) {
+      return false;
+    }
+    for (int i = 0; i < name.length(); i++) {
+      if (Ascii.toLowerCase(text.charAt(start + i)) != name.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** {@code [ \t]} */
+  private static final CharMatcher SPACE_OR_TAB = CharMatcher.anyOf(" \t");
+
+  /** {@code \s}, which unlike {@link CharMatcher#whitespace} only matches ASCII whitespace. */
+  private static final CharMatcher REGEX_WHITESPACE = CharMatcher.anyOf(" \t\n\u000B\f\r");
+
+  /** {@code \w} */
+  private static final CharMatcher REGEX_WORD =
+      CharMatcher.inRange('a', 'z')
+          .or(CharMatcher.inRange('A', 'Z'))
+          .or(CharMatcher.inRange('0', '9'))
+          .or(CharMatcher.is('_'))
+          .precomputed();
+
+  private static final CharMatcher LITERAL_TERMINATOR = CharMatcher.anyOf(" \t\n@<{}*");
+
+  // Tag names, in lower case.
+  private static final ImmutableList<String> PRE = ImmutableList.of("pre");
+  private static final ImmutableList<String> CODE = ImmutableList.of("code");
+  private static final ImmutableList<String> TABLE = ImmutableList.of("table");
+  private static final ImmutableList<String> LIST = ImmutableList.of("ul", "ol", "dl");
+  private static final ImmutableList<String> LIST_ITEM = ImmutableList.of("li", "dt", "dd");
+  private static final ImmutableList<String> HEADER =
+      ImmutableList.of("h1", "h2", "h3", "h4", "h5", "h6");
+  private static final ImmutableList<String> PARAGRAPH = ImmutableList.of("p");
+  private static final ImmutableList<String> BLOCKQUOTE = ImmutableList.of("blockquote");
+  private static final ImmutableList<String> BR = ImmutableList.of("br");
+
+  private static final String MOE_BEGIN_STRIP = "M" + "OE:begin_intracomment_strip";
+  private static final String MOE_END_STRIP = "M" + "OE:end_intracomment_strip";
+
   static class LexException extends Exception {}
 }
@@ -27,8 +27,10 @@ import static com.google.googlejavaformat.java.javadoc.Token.Type.HEADER_OPEN_TA
 import static com.google.googlejavaformat.java.javadoc.Token.Type.LIST_ITEM_OPEN_TAG;
 import static com.google.googlejavaformat.java.javadoc.Token.Type.PARAGRAPH_OPEN_TAG;
 
+import com.google.common.base.CharMatcher;
 import com.google.common.collect.ImmutableSet;
 import com.google.googlejavaformat.java.javadoc.Token.Type;
+import org.jspecify.annotations.Nullable;
 
 /**
  * Stateful object that accepts "requests" and "writes," producing formatted Javadoc.
@@ -39,7 +41,7 @@ import com.google.googlejavaformat.java.javadoc.Token.Type;
  */
 final class JavadocWriter {
   private final int blockIndent;
-  private final StringBuilder output = new StringBuilder();
+  private final StringBuilder output;
 
   /**
    * Whether we are inside an {@code <li>} element, excluding the case in which the {@code <li>}
@@ -58,9 +60,33 @@ final class JavadocWriter {
   private Token requestedMoeBeginStripComment;
   private int indentForMoeEndStripComment;
   private boolean wroteAnythingSignificant;
+  private int lineBreaks;
+  private int firstLineStart;
+  private int lastLineStart;
 
   JavadocWriter(int blockIndent) {
     this.blockIndent = blockIndent;
+    this.output = pooledBuffer();
+  }
+
+  /**
+   * The buffer that each thread reuses for its writers' output, so that formatting a comment
+   * doesn't allocate and grow a new one. Only one writer per thread may be in use at a time, and
+   * buffers that grew for an unusually long comment aren't kept.
+   */
+  private static final ThreadLocal<StringBuilder> BUFFER =
+      ThreadLocal.withInitial(StringBuilder::new);
+
+  private static final int MAX_POOLED_CAPACITY = 1 << 16;
+
+  private static StringBuilder pooledBuffer() {
+    StringBuilder buffer = BUFFER.get();
+    if (buffer.capacity() > MAX_POOLED_CAPACITY) {
+      buffer = new StringBuilder();
+      BUFFER.set(buffer);
+    }
+    buffer.setLength(0);
+    return buffer;
   }
 
   /**
@@ -84,10 +110,12 @@ final class JavadocWriter {
      */
     output.append("/**");
     writeNewline();
+    firstLineStart = output.length();
   }
 
   void writeEndJavadoc() {
-    output.append("\n");
+    lastLineStart = output.length();
+    appendLineBreak();
     appendSpaces(blockIndent + 1);
     output.append("*/");
   }
@@ -288,6 +316,23 @@ final class JavadocWriter {
     writeToken(token);
   }
 
+  /**
+   * Returns the text of the only line between ∕✱✱ and ✱∕, or null if there are several. This must
+   * be called after {@link #writeEndJavadoc}.
+   */
+  @Nullable String singleLine() {
+    // One line break after ∕✱✱, and one before ✱∕.
+    if (lineBreaks != 2) {
+      return null;
+    }
+    // Tokens may contain line breaks of their own, such as an HTML comment that spans lines.
+    String line = output.substring(firstLineStart, lastLineStart);
+    return LINE_TERMINATOR.matchesNoneOf(line) ? line : null;
+  }
+
+  /** The characters that end a line, as far as {@code .} in a regular expression is concerned. */
+  private static final CharMatcher LINE_TERMINATOR = CharMatcher.anyOf("\n\r\u0085\u2028\u2029");
+
   @Override
   public String toString() {
     return output.toString();
@@ -389,7 +434,7 @@ final class JavadocWriter {
   }
 
   private void writeBlankLine() {
-    output.append("\n");
+    appendLineBreak();
     appendSpaces(blockIndent + 1);
     output.append("*");
     writeNewline();
@@ -400,7 +445,7 @@ final class JavadocWriter {
   }
 
   private void writeNewline(AutoIndent autoIndent) {
-    output.append("\n");
+    appendLineBreak();
     appendSpaces(blockIndent + 1);
     output.append("*");
     appendSpaces(1);
@@ -425,11 +470,20 @@ final class JavadocWriter {
     return innerIndent;
   }
 
-  // If this is a hotspot, keep a String of many spaces around, and call append(string, start, end).
+  private void appendLineBreak() {
+    output.append('\n');
+    lineBreaks++;
+  }
+
   private void appendSpaces(int count) {
-    output.append(" ".repeat(count));
+    for (; count > SPACES.length(); count -= SPACES.length()) {
+      output.append(SPACES);
+    }
+    output.append(SPACES, 0, count);
   }
 
+  private static final String SPACES = " ".repeat(JavadocFormatter.MAX_LINE_LENGTH);
+
   /**
    * Tokens that are always pinned to the following token. For example, {@code <p>} in {@code <p>Foo
    * bar} (never {@code <p> Foo bar} or {@code <p>\nFoo bar}).
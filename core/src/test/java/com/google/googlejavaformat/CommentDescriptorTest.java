@@ -0,0 +1,121 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link CommentDescriptor}Test */
+@RunWith(JUnit4.class)
+public class CommentDescriptorTest {
+
+  @Test
+  public void lineComment() {
+    CommentDescriptor comment = CommentDescriptor.of(new FakeTok("//foo"));
+    assertThat(comment.flat()).isEqualTo("// foo");
+    assertThat(comment.width()).isEqualTo("// foo".length());
+    assertThat(comment.lines()).containsExactly("// foo");
+    assertThat(comment.parameterComment()).isNull();
+
+    // IDE directives keep their missing space in the rewritten lines.
+    assertThat(CommentDescriptor.of(new FakeTok("//noinspection Foo  ")).lines())
+        .containsExactly("//noinspection Foo");
+    assertThat(CommentDescriptor.of(new FakeTok("//#region")).lines()).containsExactly("//#region");
+  }
+
+  @Test
+  public void blockComment() {
+    CommentDescriptor comment = CommentDescriptor.of(new FakeTok("/* a  \n   * b */"));
+    assertThat(comment.flat()).isEqualTo("/* a  \n   * b */");
+    assertThat(comment.width()).isEqualTo("/* a  \n".length());
+    assertThat(comment.lines()).containsExactly("/* a", "   * b */").inOrder();
+    assertThat(comment.isParameterNameComment()).isFalse();
+  }
+
+  @Test
+  public void parameterComment() {
+    CommentDescriptor comment = CommentDescriptor.of(new FakeTok("/*flag=*/"));
+    assertThat(comment.parameterComment()).isEqualTo("/* flag= */");
+    assertThat(comment.flat()).isEqualTo("/* flag= */");
+    assertThat(comment.width()).isEqualTo("/* flag= */".length());
+    assertThat(comment.isParameterNameComment()).isTrue();
+
+    assertThat(CommentDescriptor.of(new FakeTok("/* xs...= */")).parameterComment())
+        .isEqualTo("/* xs...= */");
+    assertThat(CommentDescriptor.of(new FakeTok("/* xs...= */")).isParameterNameComment())
+        .isFalse();
+  }
+
+  @Test
+  public void notAComment() {
+    assertThrows(IllegalArgumentException.class, () -> CommentDescriptor.of(new FakeTok("x")));
+  }
+
+  private record FakeTok(String getOriginalText) implements Input.Tok {
+    @Override
+    public int getIndex() {
+      return 0;
+    }
+
+    @Override
+    public int getPosition() {
+      return 0;
+    }
+
+    @Override
+    public int getColumn() {
+      return 0;
+    }
+
+    @Override
+    public String getText() {
+      return getOriginalText;
+    }
+
+    @Override
+    public int length() {
+      return getOriginalText.length();
+    }
+
+    @Override
+    public boolean isNewline() {
+      return Newlines.isNewline(getOriginalText);
+    }
+
+    @Override
+    public boolean isSlashSlashComment() {
+      return getOriginalText.startsWith("//");
+    }
+
+    @Override
+    public boolean isSlashStarComment() {
+      return getOriginalText.startsWith("/*");
+    }
+
+    @Override
+    public boolean isJavadocComment() {
+      return getOriginalText.startsWith("/**");
+    }
+
+    @Override
+    public boolean isComment() {
+      return isSlashSlashComment() || isSlashStarComment();
+    }
+  }
+}
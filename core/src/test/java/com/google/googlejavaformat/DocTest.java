@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.Range;
+import com.google.googlejavaformat.Doc.FillMode;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link Doc}Test */
+@RunWith(JUnit4.class)
+public class DocTest {
+
+  /** Far deeper than a small stack allows recursion, once or more per level. */
+  private static final int DEPTH = 100_000;
+
+  private static final int MAX_WIDTH = 10;
+
+  private static final long SMALL_STACK = 256 * 1024;
+
+  /** An {@link Output} that only records the text written to it. */
+  private static final class StringOutput extends Output {
+    final StringBuilder text = new StringBuilder();
+
+    @Override
+    public void indent(int indent) {
+      text.append(" ".repeat(indent));
+    }
+
+    @Override
+    public void append(String text, Range<Integer> range) {
+      this.text.append(text);
+    }
+
+    @Override
+    public void blankLine(int k, OpsBuilder.BlankLineWanted wanted) {}
+
+    @Override
+    public void markForPartialFormat(Input.Token start, Input.Token end) {}
+
+    @Override
+    public CommentsHelper getCommentsHelper() {
+      return (tok, maxWidth, column0) -> tok.getOriginalText();
+    }
+  }
+
+  @Test
+  public void deeplyNestedLevels() throws Exception {
+    // Each level holds a space and a break before the next level, so all but the innermost levels
+    // are broken.
+    Doc.Level root = Doc.Level.make(Indent.Const.ZERO);
+    Doc.Level level = root;
+    for (int i = 0; i < DEPTH; i++) {
+      Doc.Level nested = Doc.Level.make(Indent.Const.ZERO);
+      level.add(Doc.Space.make());
+      level.add(Doc.Break.make(FillMode.INDEPENDENT, "", Indent.Const.ZERO));
+      level.add(nested);
+      level = nested;
+    }
+    level.add(Doc.Space.make());
+
+    StringOutput output = new StringOutput();
+    onSmallStack(
+        () -> {
+          root.computeBreaks(
+              output.getCommentsHelper(), MAX_WIDTH, new Doc.State(/* indent0= */ 0, 0));
+          root.write(output);
+        });
+
+    String text = output.text.toString();
+    assertThat(text.replace("\n", "")).isEqualTo(" ".repeat(DEPTH + 1));
+    for (String line : Splitter.on('\n').split(text)) {
+      assertThat(line.length()).isAtMost(MAX_WIDTH);
+    }
+    assertThat(Splitter.on('\n').splitToList(text).size()).isGreaterThan(DEPTH - MAX_WIDTH);
+  }
+
+  /** Runs {@code body} on a new thread with a small stack, rethrowing what it throws. */
+  private static void onSmallStack(Runnable body) throws Exception {
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    Thread thread =
+        new Thread(
+            null,
+            () -> {
+              try {
+                body.run();
+              } catch (Throwable t) {
+                failure.set(t);
+              }
+            },
+            "layout",
+            SMALL_STACK);
+    thread.start();
+    thread.join();
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+  }
+}
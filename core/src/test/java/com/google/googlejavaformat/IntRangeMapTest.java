@@ -0,0 +1,81 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Range;
+import com.google.common.collect.TreeRangeMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link IntRangeMap}Test */
+@RunWith(JUnit4.class)
+public class IntRangeMapTest {
+
+  @Test
+  public void putOverwritesOverlappedParts() {
+    IntRangeMap<String> map = IntRangeMap.create();
+    map.put(0, 10, "a");
+    map.put(3, 5, "b");
+    assertThat(map.toString()).isEqualTo("{[0..3)=a, [3..5)=b, [5..10)=a}");
+    map.put(4, 20, "c");
+    assertThat(map.toString()).isEqualTo("{[0..3)=a, [3..4)=b, [4..20)=c}");
+    map.put(7, 7, "d");
+    assertThat(map.ranges())
+        .containsExactly(Range.closedOpen(0, 3), Range.closedOpen(3, 4), Range.closedOpen(4, 20))
+        .inOrder();
+  }
+
+  @Test
+  public void applyReplacements() {
+    IntRangeMap<String> map = IntRangeMap.create();
+    map.put(6, 11, "there, world");
+    map.put(0, 5, "Hi");
+    assertThat(IntRangeMap.applyReplacements("hello world!", map)).isEqualTo("Hi there, world!");
+    assertThat(IntRangeMap.applyReplacements("unchanged", IntRangeMap.create()))
+        .isEqualTo("unchanged");
+  }
+
+  @Test
+  public void matchesTreeRangeMap() {
+    Random random = new Random(0);
+    for (int trial = 0; trial < 100; trial++) {
+      IntRangeMap<Integer> map = IntRangeMap.create();
+      TreeRangeMap<Integer, Integer> expected = TreeRangeMap.create();
+      for (int i = 0; i < 20; i++) {
+        int lo = random.nextInt(100);
+        int hi = lo + random.nextInt(20);
+        map.put(lo, hi, i);
+        expected.put(Range.closedOpen(lo, hi), i);
+      }
+      ImmutableList.Builder<String> entries = ImmutableList.builder();
+      for (Map.Entry<Range<Integer>, Integer> entry : expected.asMapOfRanges().entrySet()) {
+        Range<Integer> range = entry.getKey();
+        entries.add(range.lowerEndpoint() + ".." + range.upperEndpoint() + "=" + entry.getValue());
+      }
+      ImmutableList.Builder<String> actual = ImmutableList.builder();
+      for (int i = 0; i < map.size(); i++) {
+        actual.add(
+            map.getLowerEndpoint(i) + ".." + map.getUpperEndpoint(i) + "=" + map.getValue(i));
+      }
+      assertThat(actual.build()).containsExactlyElementsIn(entries.build()).inOrder();
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+import com.google.common.collect.TreeRangeSet;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link IntRangeSet}Test */
+@RunWith(JUnit4.class)
+public class IntRangeSetTest {
+
+  @Test
+  public void halfOpenRangesCoalesceWhenAbutting() {
+    IntRangeSet set = IntRangeSet.create();
+    set.add(5, 7);
+    set.add(1, 3);
+    set.add(3, 4);
+    set.add(10, 10);
+    assertThat(set.toString()).isEqualTo("[[1..3], [5..6]]");
+    set.add(2, 6);
+    assertThat(set.toString()).isEqualTo("[[1..6]]");
+  }
+
+  @Test
+  public void closedRangesCoalesceWhenOverlapping() {
+    IntRangeSet set = IntRangeSet.create();
+    set.addClosed(1, 2);
+    set.addClosed(3, 4);
+    set.addClosed(4, 6);
+    assertThat(set.toString()).isEqualTo("[[1..2], [3..6]]");
+    assertThat(set.indexOf(2)).isEqualTo(0);
+    assertThat(set.indexOf(3)).isEqualTo(1);
+    assertThat(set.indexOf(7)).isEqualTo(-1);
+    assertThat(set.getLowerEndpoint(1)).isEqualTo(3);
+    assertThat(set.getUpperEndpoint(1)).isEqualTo(7);
+  }
+
+  @Test
+  public void copyOfUnboundedRanges() {
+    RangeSet<Integer> ranges = TreeRangeSet.create();
+    ranges.add(Range.lessThan(-5));
+    ranges.add(Range.atLeast(10));
+    IntRangeSet set = IntRangeSet.copyOf(ranges);
+    assertThat(set.size()).isEqualTo(2);
+    assertThat(set.getLowerEndpoint(0)).isEqualTo(Integer.MIN_VALUE);
+    assertThat(set.getUpperEndpoint(0)).isEqualTo(-5);
+    assertThat(set.getLowerEndpoint(1)).isEqualTo(10);
+    assertThat(set.getUpperEndpoint(1)).isEqualTo(Integer.MAX_VALUE);
+  }
+
+  @Test
+  public void addAtMinValue() {
+    IntRangeSet set = IntRangeSet.create();
+    set.add(0, 5);
+    set.add(Integer.MIN_VALUE, -10);
+    assertThat(set.toString()).isEqualTo("[[" + Integer.MIN_VALUE + "..-11], [0..4]]");
+  }
+
+  @Test
+  public void matchesTreeRangeSet() {
+    Random random = new Random(0);
+    for (int trial = 0; trial < 100; trial++) {
+      IntRangeSet set = IntRangeSet.create();
+      RangeSet<Integer> expected = TreeRangeSet.create();
+      for (int i = 0; i < 20; i++) {
+        int lo = random.nextInt(100);
+        int hi = lo + random.nextInt(10);
+        set.add(lo, hi);
+        expected.add(Range.closedOpen(lo, hi));
+      }
+      assertThat(set.size()).isEqualTo(expected.asRanges().size());
+      int i = 0;
+      for (Range<Integer> range : expected.asRanges()) {
+        range = range.canonical(DiscreteDomain.integers());
+        assertThat(set.getLowerEndpoint(i)).isEqualTo(range.lowerEndpoint());
+        assertThat(set.getUpperEndpoint(i)).isEqualTo(range.upperEndpoint());
+        i++;
+      }
+      for (int k = -1; k < 115; k++) {
+        assertThat(set.contains(k)).isEqualTo(expected.contains(k));
+      }
+    }
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link LineIndex}Test */
+@RunWith(JUnit4.class)
+public class LineIndexTest {
+
+  private static final ImmutableList<String> INPUTS =
+      ImmutableList.of(
+          "",
+          "foo",
+          "foo\n",
+          "foo\nbar",
+          "foo\rbar\r",
+          "foo\r\nbar\r\n",
+          "\n\n",
+          "\r\n\r",
+          "a\r\r\nb");
+
+  @Test
+  public void matchesNewlines() {
+    for (String input : INPUTS) {
+      LineIndex lineIndex = LineIndex.create(input);
+      ImmutableList<Integer> starts = ImmutableList.copyOf(Newlines.lineOffsetIterator(input));
+      assertThat(lineIndex.getLineCount()).isEqualTo(starts.size());
+      for (int i = 0; i < starts.size(); i++) {
+        assertThat(lineIndex.getLineStart(i)).isEqualTo(starts.get(i));
+      }
+      assertThat(lineIndex.lines().stream().map(CharSequence::toString).collect(toImmutableList()))
+          .containsExactlyElementsIn(ImmutableList.copyOf(Newlines.lineIterator(input)))
+          .inOrder();
+    }
+  }
+
+  @Test
+  public void lineNumbers() {
+    LineIndex lineIndex = LineIndex.create("foo\r\nbar\n");
+    assertThat(lineIndex.getLineNumber(-1)).isEqualTo(-1);
+    assertThat(lineIndex.getLineNumber(0)).isEqualTo(0);
+    assertThat(lineIndex.getLineNumber(4)).isEqualTo(0);
+    assertThat(lineIndex.getLineNumber(5)).isEqualTo(1);
+    assertThat(lineIndex.getLineNumber(9)).isEqualTo(2);
+    assertThat(lineIndex.getLineNumber(100)).isEqualTo(2);
+    assertThat(lineIndex.getColumnNumber(7)).isEqualTo(2);
+    assertThat(lineIndex.getLineEnd(0)).isEqualTo(5);
+    assertThat(lineIndex.getLineEnd(2)).isEqualTo(9);
+  }
+
+  @Test
+  public void lineViews() {
+    LineIndex lineIndex = LineIndex.create("foo\nbar");
+    assertThat(lineIndex.getLine(0).toString()).isEqualTo("foo\n");
+    assertThat(lineIndex.getLine(1).toString()).isEqualTo("bar");
+    assertThat(lineIndex.getLine(1).charAt(2)).isEqualTo('r');
+    assertThat(LineIndex.create("foo\n").getLine(1).length()).isEqualTo(0);
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.jspecify.annotations.Nullable;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link BatchFormatter}. */
+@RunWith(JUnit4.class)
+public final class BatchFormatterTest {
+
+  /** Records what a {@link Flow.Publisher} signals, and requests results one at a time. */
+  private static final class Recorder implements Flow.Subscriber<BatchFormatter.Result> {
+    final List<BatchFormatter.Result> results = new ArrayList<>();
+    final CompletableFuture<@Nullable Void> completion = new CompletableFuture<>();
+    Flow.@Nullable Subscription subscription;
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(BatchFormatter.Result result) {
+      results.add(result);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      completion.completeExceptionally(t);
+    }
+
+    @Override
+    public void onComplete() {
+      completion.complete(null);
+    }
+  }
+
+  @Test
+  public void formatSource() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      BatchFormatter formatter = BatchFormatter.builder().executor(executor).build();
+
+      assertThat(formatter.formatSource("class A {\n}\n").get(10, SECONDS))
+          .isEqualTo("class A {}\n");
+      ExecutionException e =
+          assertThrows(
+              ExecutionException.class, () -> formatter.formatSource("class T {").get(10, SECONDS));
+      assertThat(e).hasCauseThat().isInstanceOf(FormatterException.class);
+    } finally {
+      MoreExecutors.shutdownAndAwaitTermination(executor, 10, SECONDS);
+    }
+  }
+
+  @Test
+  public void fixImports() throws Exception {
+    BatchFormatter formatter =
+        BatchFormatter.builder().executor(Runnable::run).fixImports(true).build();
+
+    assertThat(formatter.formatSource("import java.util.List;\nclass A {\n}\n").get())
+        .isEqualTo("class A {}\n");
+  }
+
+  @Test
+  public void formatAll() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      BatchFormatter formatter =
+          BatchFormatter.builder().executor(executor).maxInFlight(3).build();
+      Recorder recorder = new Recorder();
+      formatter
+          .formatAll(
+              IntStream.range(0, 20)
+                  .mapToObj(i -> i == 7 ? "class T {" : "class T" + i + " {\n}\n"))
+          .subscribe(recorder);
+      recorder.subscription.request(Long.MAX_VALUE);
+      recorder.completion.get(30, SECONDS);
+
+      assertThat(recorder.results).hasSize(20);
+      for (int i = 0; i < 20; i++) {
+        BatchFormatter.Result result = recorder.results.get(i);
+        assertThat(result.index()).isEqualTo(i);
+        if (i == 7) {
+          assertThat(result.output()).isNull();
+          assertThat(result.exception()).isNotNull();
+        } else {
+          assertThat(result.output()).isEqualTo("class T" + i + " {}\n");
+          assertThat(result.exception()).isNull();
+        }
+      }
+    } finally {
+      MoreExecutors.shutdownAndAwaitTermination(executor, 10, SECONDS);
+    }
+  }
+
+  @Test
+  public void backpressure() {
+    BatchFormatter formatter =
+        BatchFormatter.builder().executor(Runnable::run).maxInFlight(2).build();
+    AtomicInteger taken = new AtomicInteger();
+    Recorder recorder = new Recorder();
+    formatter
+        .formatAll(
+            IntStream.range(0, 10)
+                .mapToObj(i -> "class T" + i + " {}\n")
+                .peek(unused -> taken.incrementAndGet()))
+        .subscribe(recorder);
+
+    assertThat(taken.get()).isEqualTo(0);
+    recorder.subscription.request(1);
+    assertThat(recorder.results).hasSize(1);
+    assertThat(taken.get()).isEqualTo(1);
+    recorder.subscription.request(3);
+    assertThat(recorder.results).hasSize(4);
+    assertThat(taken.get()).isEqualTo(4);
+
+    recorder.subscription.cancel();
+    recorder.subscription.request(1);
+    assertThat(recorder.results).hasSize(4);
+    assertThat(recorder.completion.isDone()).isFalse();
+  }
+
+  @Test
+  public void complete() throws Exception {
+    BatchFormatter formatter = BatchFormatter.builder().executor(Runnable::run).build();
+    Recorder recorder = new Recorder();
+    formatter.formatAll(Stream.of("class A {}\n", "class B {}\n")).subscribe(recorder);
+    recorder.subscription.request(5);
+
+    assertThat(recorder.results).hasSize(2);
+    assertThat(recorder.completion.isDone()).isTrue();
+    recorder.completion.get();
+  }
+
+  @Test
+  public void completeEmptyWithoutRequest() throws Exception {
+    BatchFormatter formatter = BatchFormatter.builder().executor(Runnable::run).build();
+    Recorder recorder = new Recorder();
+    formatter.formatAll(Stream.of()).subscribe(recorder);
+
+    assertThat(recorder.completion.isDone()).isTrue();
+    recorder.completion.get();
+    assertThat(recorder.results).isEmpty();
+  }
+
+  @Test
+  public void nonPositiveRequest() {
+    BatchFormatter formatter = BatchFormatter.builder().executor(Runnable::run).build();
+    Recorder recorder = new Recorder();
+    formatter.formatAll(Stream.of("class A {}\n")).subscribe(recorder);
+    recorder.subscription.request(0);
+
+    ExecutionException e = assertThrows(ExecutionException.class, recorder.completion::get);
+    assertThat(e).hasCauseThat().isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void subscribeTwice() {
+    BatchFormatter formatter = BatchFormatter.builder().executor(Runnable::run).build();
+    Flow.Publisher<BatchFormatter.Result> publisher =
+        formatter.formatAll(Stream.of("class A {}\n"));
+    publisher.subscribe(new Recorder());
+    Recorder second = new Recorder();
+    publisher.subscribe(second);
+
+    ExecutionException e = assertThrows(ExecutionException.class, second.completion::get);
+    assertThat(e).hasCauseThat().isInstanceOf(IllegalStateException.class);
+  }
+}
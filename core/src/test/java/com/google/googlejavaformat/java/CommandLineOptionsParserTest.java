@@ -16,12 +16,14 @@ package com.google.googlejavaformat.java;
 
 import static com.google.common.truth.Truth.assertThat;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertThrows;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Range;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Arrays;
 import org.junit.Rule;
 import org.junit.Test;
@@ -53,6 +55,12 @@ public class CommandLineOptionsParserTest {
     assertThat(options.setExitIfChanged()).isFalse();
     assertThat(options.reflowLongStrings()).isTrue();
     assertThat(options.formatJavadoc()).isTrue();
+    assertThat(options.timeoutPerFile()).isEmpty();
+    assertThat(options.stats()).isFalse();
+    assertThat(options.statsFile()).isEmpty();
+    assertThat(options.profileFile()).isEmpty();
+    assertThat(options.profileHtml()).isFalse();
+    assertThat(options.lsp()).isFalse();
   }
 
   @Test
@@ -200,4 +208,50 @@ public class CommandLineOptionsParserTest {
                 .formatJavadoc())
         .isFalse();
   }
+
+  @Test
+  public void timeoutPerFile() {
+    assertThat(
+            CommandLineOptionsParser.parse(Arrays.asList("--timeout-per-file", "5", "Foo.java"))
+                .timeoutPerFile())
+        .hasValue(Duration.ofSeconds(5));
+    assertThat(CommandLineOptionsParser.parse(Arrays.asList("Foo.java")).timeoutPerFile())
+        .isEmpty();
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> CommandLineOptionsParser.parse(Arrays.asList("--timeout-per-file=0")));
+    assertThat(e).hasMessageThat().contains("positive");
+  }
+
+  @Test
+  public void stats() {
+    CommandLineOptions options =
+        CommandLineOptionsParser.parse(Arrays.asList("--stats", "Foo.java"));
+    assertThat(options.stats()).isTrue();
+    assertThat(options.statsFile()).isEmpty();
+
+    options = CommandLineOptionsParser.parse(Arrays.asList("--stats-file=stats.json", "Foo.java"));
+    assertThat(options.stats()).isTrue();
+    assertThat(options.statsFile()).hasValue("stats.json");
+  }
+
+  @Test
+  public void profile() {
+    CommandLineOptions options =
+        CommandLineOptionsParser.parse(Arrays.asList("--profile-file", "Foo.java"));
+    assertThat(options.profileFile()).hasValue("Foo.java");
+    assertThat(options.profileHtml()).isFalse();
+    assertThat(options.files()).isEmpty();
+
+    options =
+        CommandLineOptionsParser.parse(Arrays.asList("--profile-file=Foo.java", "--profile-html"));
+    assertThat(options.profileFile()).hasValue("Foo.java");
+    assertThat(options.profileHtml()).isTrue();
+  }
+
+  @Test
+  public void lsp() {
+    assertThat(CommandLineOptionsParser.parse(Arrays.asList("--lsp")).lsp()).isTrue();
+  }
 }
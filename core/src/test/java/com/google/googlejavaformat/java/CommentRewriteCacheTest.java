@@ -0,0 +1,151 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.google.common.base.Joiner;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link CommentRewriteCache}Test */
+@RunWith(JUnit4.class)
+public class CommentRewriteCacheTest {
+
+  private static final String SOURCE =
+      Joiner.on('\n')
+          .join(
+              "class T {",
+              "  /**   Returns   one. */",
+              "  int one() {",
+              "    return 1;",
+              "  }",
+              "",
+              "  /**   Returns   one. */",
+              "  int two() {",
+              "    /* a",
+              "        b */",
+              "    return 2; // line",
+              "  }",
+              "}",
+              "");
+
+  @Test
+  public void sharedBetweenFormatters() throws FormatterException {
+    String expected = new Formatter().formatSource(SOURCE);
+    CommentRewriteCache cache = CommentRewriteCache.create();
+    JavaFormatterOptions options = JavaFormatterOptions.defaultOptions();
+
+    assertThat(new Formatter(options, cache).formatSource(SOURCE)).isEqualTo(expected);
+    // The repeated Javadoc is rewritten once; the line comment isn't cached.
+    assertThat(cache.stats().missCount()).isEqualTo(2);
+    assertThat(cache.stats().hitCount()).isEqualTo(1);
+
+    assertThat(new Formatter(options, cache).formatSource(SOURCE)).isEqualTo(expected);
+    assertThat(cache.stats().missCount()).isEqualTo(2);
+    assertThat(cache.stats().hitCount()).isEqualTo(4);
+  }
+
+  @Test
+  public void ownStats() throws FormatterException {
+    CommentRewriteCache cache = CommentRewriteCache.create();
+    CommentRewriteCache first = cache.withOwnStats();
+    CommentRewriteCache second = cache.withOwnStats();
+    JavaFormatterOptions options = JavaFormatterOptions.defaultOptions();
+
+    new Formatter(options, first).formatSource(SOURCE);
+    new Formatter(options, second).formatSource(SOURCE);
+    // The second run finds all of the comments that the first one rewrote.
+    assertThat(first.stats().missCount()).isEqualTo(2);
+    assertThat(first.stats().hitCount()).isEqualTo(1);
+    assertThat(second.stats().missCount()).isEqualTo(0);
+    assertThat(second.stats().hitCount()).isEqualTo(3);
+    assertThat(cache.stats().requestCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void keyedOnOptions() throws FormatterException {
+    CommentRewriteCache cache = CommentRewriteCache.create();
+    JavaFormatterOptions noJavadoc = JavaFormatterOptions.builder().formatJavadoc(false).build();
+    String expected = new Formatter(noJavadoc).formatSource(SOURCE);
+
+    new Formatter(JavaFormatterOptions.defaultOptions(), cache).formatSource(SOURCE);
+    assertThat(new Formatter(noJavadoc, cache).formatSource(SOURCE)).isEqualTo(expected);
+    String crlf = SOURCE.replace("\n", "\r\n");
+    assertThat(new Formatter(noJavadoc, cache).formatSource(crlf))
+        .isEqualTo(expected.replace("\n", "\r\n"));
+    assertThat(cache.stats().missCount()).isEqualTo(6);
+  }
+
+  @Test
+  public void waitsForInFlight() throws Exception {
+    CommentRewriteCache cache = CommentRewriteCache.create();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch finish = new CountDownLatch(1);
+    AtomicInteger computed = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    Future<String> first =
+        executor.submit(
+            () ->
+                cache.rewrite(
+                    "/** x */",
+                    0,
+                    "\n",
+                    true,
+                    () -> {
+                      computed.incrementAndGet();
+                      started.countDown();
+                      Uninterruptibles.awaitUninterruptibly(finish);
+                      return "/** X */";
+                    }));
+    started.await();
+    Future<String> second =
+        executor.submit(
+            () ->
+                cache.rewrite(
+                    "/** x */",
+                    0,
+                    "\n",
+                    true,
+                    () -> {
+                      computed.incrementAndGet();
+                      return "/** Y */";
+                    }));
+    finish.countDown();
+    assertThat(first.get(10, SECONDS)).isEqualTo("/** X */");
+    assertThat(second.get(10, SECONDS)).isEqualTo("/** X */");
+    executor.shutdown();
+    assertThat(computed.get()).isEqualTo(1);
+    assertThat(cache.stats().missCount()).isEqualTo(1);
+    assertThat(cache.stats().hitCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void bounded() throws FormatterException {
+    CommentRewriteCache cache = CommentRewriteCache.create(/* maximumChars= */ 0);
+    JavaFormatterOptions options = JavaFormatterOptions.defaultOptions();
+    new Formatter(options, cache).formatSource(SOURCE);
+    new Formatter(options, cache).formatSource(SOURCE);
+    assertThat(cache.stats().hitCount()).isEqualTo(0);
+  }
+}
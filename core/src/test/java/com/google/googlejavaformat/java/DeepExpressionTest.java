@@ -0,0 +1,172 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static org.junit.Assume.assumeTrue;
+
+import com.google.googlejavaformat.Cancellation;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests that the long left-deep expressions of generated code, which javac parses to trees
+ * thousands of levels deep, are formatted on a thread with the default stack size.
+ *
+ * <p>That formatting takes linear work is checked by default, by counting how often formatting
+ * checks for cancellation, which it does as it visits the input, builds the ops and lays out each
+ * broken level. Wall-clock timing is too noisy on shared machines to run by default, so the check
+ * that formatting takes linear time only runs with {@code -Dtimingtests=true}.
+ */
+@RunWith(JUnit4.class)
+public final class DeepExpressionTest {
+
+  private static final boolean TIMING_TESTS = Boolean.getBoolean("timingtests");
+
+  private static final int CONCATENATION_TERMS = 10_000;
+
+  private static final int CHAINED_CALLS = 5_000;
+
+  @Test
+  public void concatenation() throws Exception {
+    checkFormats(concatenation(CONCATENATION_TERMS));
+  }
+
+  @Test
+  public void methodChain() throws Exception {
+    checkFormats(methodChain(CHAINED_CALLS));
+  }
+
+  @Test
+  public void concatenationWork() throws Exception {
+    checkLinearWork(DeepExpressionTest::concatenation, CONCATENATION_TERMS);
+  }
+
+  @Test
+  public void methodChainWork() throws Exception {
+    checkLinearWork(DeepExpressionTest::methodChain, CHAINED_CALLS);
+  }
+
+  @Test
+  public void concatenationTime() throws Exception {
+    assumeTrue(TIMING_TESTS);
+    checkLinearTime(DeepExpressionTest::concatenation, 5 * CONCATENATION_TERMS);
+  }
+
+  @Test
+  public void methodChainTime() throws Exception {
+    assumeTrue(TIMING_TESTS);
+    checkLinearTime(DeepExpressionTest::methodChain, CHAINED_CALLS);
+  }
+
+  /** Checks that {@code input} is formatted without overflowing the stack, idempotently. */
+  private static void checkFormats(String input) throws Exception {
+    Formatter formatter = new Formatter();
+    String formatted = onDefaultStack(() -> formatter.formatSourceAndFixImports(input));
+    assertThat(onDefaultStack(() -> formatter.formatSourceAndFixImports(formatted)))
+        .isEqualTo(formatted);
+  }
+
+  /**
+   * Checks that formatting four times the input checks for cancellation about four times as often,
+   * and not the sixteen times as often that a quadratic pass would.
+   */
+  private static void checkLinearWork(IntFunction<String> source, int size) throws Exception {
+    long quarter = checks(source.apply(size / 4));
+    long full = checks(source.apply(size));
+    assertWithMessage("cancellation checks for %s and %s terms", size / 4, size)
+        .that((double) full / quarter)
+        .isLessThan(4.5);
+  }
+
+  /** Returns the number of times that formatting {@code input} checks for cancellation. */
+  private static long checks(String input) throws Exception {
+    long[] checks = {0};
+    Cancellation counting = Cancellation.of(() -> checks[0]++ < 0);
+    onDefaultStack(() -> new Formatter().formatSource(input, counting));
+    return checks[0];
+  }
+
+  /**
+   * Checks that formatting four times the input takes about four times as long. This allows for
+   * noise, but not for the sixteen times as long that a quadratic pass would take.
+   */
+  private static void checkLinearTime(IntFunction<String> source, int size) throws Exception {
+    Formatter formatter = new Formatter();
+    long quarter = bestTime(formatter, source.apply(size / 4));
+    long full = bestTime(formatter, source.apply(size));
+    assertWithMessage("nanos for %s and %s terms", size / 4, size)
+        .that((double) full / quarter)
+        .isLessThan(9.0);
+  }
+
+  private static long bestTime(Formatter formatter, String input) throws Exception {
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < 3; i++) {
+      long start = System.nanoTime();
+      onDefaultStack(() -> formatter.formatSourceAndFixImports(input));
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    return best;
+  }
+
+  private static String concatenation(int terms) {
+    StringBuilder sb = new StringBuilder("class T {\n  Object f() {\n    return x0");
+    for (int i = 1; i < terms; i++) {
+      sb.append(" + x").append(i);
+    }
+    return sb.append(";\n  }\n}\n").toString();
+  }
+
+  private static String methodChain(int calls) {
+    StringBuilder sb = new StringBuilder("class T {\n  Object f() {\n    return builder");
+    for (int i = 0; i < calls; i++) {
+      sb.append(".m").append(i).append('(').append(i).append(')');
+    }
+    return sb.append(";\n  }\n}\n").toString();
+  }
+
+  private interface FormatterCall {
+    String call() throws FormatterException;
+  }
+
+  /** Runs {@code call} on a new thread, which gets the JVM's default stack size. */
+  private static String onDefaultStack(FormatterCall call) throws Exception {
+    AtomicReference<String> result = new AtomicReference<>();
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    Thread thread =
+        new Thread(
+            () -> {
+              try {
+                result.set(call.call());
+              } catch (Throwable t) {
+                failure.set(t);
+              }
+            });
+    thread.start();
+    thread.join();
+    if (failure.get() instanceof Exception) {
+      throw (Exception) failure.get();
+    }
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+    return result.get();
+  }
+}
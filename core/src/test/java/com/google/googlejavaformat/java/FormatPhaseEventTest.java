@@ -0,0 +1,154 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import java.nio.file.Path;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link FormatPhaseEvent} and {@link FormatFileEvent}. */
+@RunWith(JUnit4.class)
+public final class FormatPhaseEventTest {
+
+  @Rule public TemporaryFolder testFolder = new TemporaryFolder();
+
+  private interface Action {
+    void run() throws Exception;
+  }
+
+  @Test
+  public void phases() throws Exception {
+    String input =
+        String.join(
+            "\n",
+            "import java.util.Map;",
+            "import java.util.List;",
+            "/** Javadoc. */",
+            "class T {",
+            "  List<String> xs;",
+            "}",
+            "");
+    ImmutableList<RecordedEvent> events =
+        record(() -> new Formatter().formatSourceAndFixImports(input));
+
+    ImmutableList<String> phases =
+        events.stream()
+            .filter(e -> e.getEventType().getName().endsWith("FormatPhase"))
+            .map(e -> e.getString("phase"))
+            .collect(toImmutableList());
+    assertThat(phases)
+        .containsAtLeast(
+            "reorder-imports",
+            "remove-unused-imports",
+            "lex",
+            "parse",
+            "visit",
+            "ops",
+            "layout",
+            "write",
+            "replacements",
+            "reflow-strings")
+        .inOrder();
+    assertThat(phases).contains("javadoc");
+
+    for (RecordedEvent event : events) {
+      assertThat(event.getString("outcome")).isEqualTo("ok");
+      switch (event.getString("phase")) {
+        case "lex" -> assertThat(event.getInt("tokens")).isGreaterThan(10);
+        case "ops" -> assertThat(event.getInt("docNodes")).isGreaterThan(10);
+        default -> {}
+      }
+    }
+  }
+
+  @Test
+  public void error() throws Exception {
+    ImmutableList<RecordedEvent> events =
+        record(
+            () ->
+                assertThrows(
+                    FormatterException.class, () -> new Formatter().formatSource("class T {")));
+
+    RecordedEvent last = events.get(events.size() - 1);
+    assertThat(last.getString("phase")).isEqualTo("parse");
+    assertThat(last.getString("outcome")).isEqualTo("error");
+    assertThat(last.getInt("size")).isEqualTo(9);
+  }
+
+  @Test
+  public void file() throws Exception {
+    Path path = testFolder.getRoot().toPath().resolve("T.java");
+    CommandLineOptions parameters = CommandLineOptionsParser.parse(ImmutableList.of("T.java"));
+    ImmutableList<RecordedEvent> events =
+        record(
+            () ->
+                new FormatFileCallable(
+                        parameters,
+                        path,
+                        "class T {\n}\n",
+                        JavaFormatterOptions.defaultOptions(),
+                        /* commentCache= */ null)
+                    .call());
+
+    RecordedEvent file = events.get(events.size() - 1);
+    assertThat(file.getEventType().getName()).isEqualTo("com.google.googlejavaformat.FormatFile");
+    assertThat(file.getString("path")).isEqualTo(path.toString());
+    assertThat(file.getInt("size")).isEqualTo(12);
+    assertThat(file.getString("outcome")).isEqualTo("changed");
+  }
+
+  @Test
+  public void disabled() throws FormatterException {
+    // No recording enables the event, so phases share one that is never committed.
+    FormatPhaseEvent event = FormatPhaseEvent.begin("lex", 1);
+    assertThat(FormatPhaseEvent.begin("parse", 2)).isSameInstanceAs(event);
+    assertThat(event.isShared()).isTrue();
+    event.end(FormatPhaseEvent.OK);
+
+    // Concurrent phases share it, so formatting leaves its fields alone.
+    new Formatter().formatSource("class T {\n  int x;\n}\n");
+    assertThat(event.phase).isNull();
+    assertThat(event.tokens).isEqualTo(0);
+    assertThat(event.docNodes).isEqualTo(0);
+  }
+
+  /** Returns the formatter's events while running {@code action}, in the order they ended. */
+  private ImmutableList<RecordedEvent> record(Action action) throws Exception {
+    Path dump = testFolder.newFile("recording.jfr").toPath();
+    try (Recording recording = new Recording()) {
+      recording.enable(FormatPhaseEvent.class);
+      recording.enable(FormatFileEvent.class);
+      recording.start();
+      action.run();
+      recording.stop();
+      recording.dump(dump);
+    }
+    return RecordingFile.readAllEvents(dump).stream()
+        .filter(e -> e.getEventType().getName().startsWith("com.google.googlejavaformat."))
+        .sorted((a, b) -> a.getEndTime().compareTo(b.getEndTime()))
+        .collect(toImmutableList());
+  }
+}
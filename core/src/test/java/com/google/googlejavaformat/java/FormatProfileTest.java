@@ -0,0 +1,170 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.googlejavaformat.java.FormatProfile.Declaration;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link FormatProfile}. */
+@RunWith(JUnit4.class)
+public final class FormatProfileTest {
+
+  private static final String INPUT =
+      String.join(
+          "\n",
+          "package p;",
+          "",
+          "import java.util.List;",
+          "",
+          "class Outer {",
+          "  static int x = 1;",
+          "",
+          "  static {",
+          "    x = 2;",
+          "  }",
+          "",
+          "  /** Javadoc. */",
+          "  int shallow() {",
+          "    return x;",
+          "  }",
+          "",
+          "  int deep(int x) {",
+          "    // A comment.",
+          "    return " + "deep(".repeat(20) + "x" + ")".repeat(20) + ";",
+          "  }",
+          "",
+          "  class Inner {",
+          "    void f() {",
+          "      new Object() {",
+          "        void g() {}",
+          "      };",
+          "    }",
+          "  }",
+          "}",
+          "");
+
+  @Test
+  public void declarations() throws Exception {
+    FormatProfile profile = FormatProfile.profile(INPUT, JavaFormatterOptions.defaultOptions());
+
+    assertThat(profile.declarations().stream().map(Declaration::name))
+        .containsExactly(
+            FormatProfile.COMPILATION_UNIT,
+            "Outer",
+            "Outer.x",
+            "Outer.<clinit>",
+            "Outer.shallow",
+            "Outer.deep",
+            "Outer.Inner",
+            "Outer.Inner.f")
+        .inOrder();
+    ImmutableMap<String, Declaration> declarations = byName(profile);
+    assertThat(declarations.get(FormatProfile.COMPILATION_UNIT).startLine()).isEqualTo(1);
+    assertThat(declarations.get(FormatProfile.COMPILATION_UNIT).endLine()).isEqualTo(29);
+    assertThat(declarations.get("Outer.<clinit>").startLine()).isEqualTo(8);
+    assertThat(declarations.get("Outer.<clinit>").endLine()).isEqualTo(10);
+    // Lines start at the comments before the declaration.
+    assertThat(declarations.get("Outer.shallow").startLine()).isEqualTo(12);
+    assertThat(declarations.get("Outer.Inner.f").startLine()).isEqualTo(23);
+    assertThat(declarations.get("Outer.Inner.f").endLine()).isEqualTo(27);
+  }
+
+  @Test
+  public void counts() throws Exception {
+    ImmutableMap<String, Declaration> declarations =
+        byName(FormatProfile.profile(INPUT, JavaFormatterOptions.defaultOptions()));
+
+    Declaration shallow = declarations.get("Outer.shallow");
+    Declaration deep = declarations.get("Outer.deep");
+    assertThat(deep.counts().docs()).isGreaterThan(shallow.counts().docs());
+    assertThat(deep.counts().maxDepth()).isGreaterThan(shallow.counts().maxDepth());
+    assertThat(deep.counts().brokenLevels()).isGreaterThan(0);
+    assertThat(deep.counts().oneLineLevels()).isGreaterThan(0);
+    assertThat(deep.counts().levelsLaidOut())
+        .isEqualTo(deep.counts().brokenLevels() + deep.counts().oneLineLevels());
+    // The anonymous class is part of the method it's in.
+    assertThat(declarations.get("Outer.Inner.f").counts().docs())
+        .isGreaterThan(declarations.get("Outer.Inner").counts().docs());
+  }
+
+  @Test
+  public void comments() throws Exception {
+    ImmutableMap<String, Declaration> declarations =
+        byName(FormatProfile.profile(INPUT, JavaFormatterOptions.defaultOptions()));
+
+    Declaration shallow = declarations.get("Outer.shallow");
+    assertThat(shallow.comments()).isEqualTo(1);
+    assertThat(shallow.javadocNanos()).isGreaterThan(0);
+    assertThat(shallow.javadocNanos()).isEqualTo(shallow.commentNanos());
+
+    Declaration deep = declarations.get("Outer.deep");
+    assertThat(deep.comments()).isEqualTo(1);
+    assertThat(deep.commentNanos()).isGreaterThan(0);
+    assertThat(deep.javadocNanos()).isEqualTo(0);
+
+    assertThat(declarations.get("Outer.x").comments()).isEqualTo(0);
+  }
+
+  @Test
+  public void json() throws Exception {
+    String json = FormatProfile.profile(INPUT, JavaFormatterOptions.defaultOptions()).toJson();
+
+    assertThat(json).contains("\"layout\": {\"wallNanos\": ");
+    assertThat(json)
+        .contains("{\"name\": \"<compilation unit>\", \"startLine\": 1, \"endLine\": 29, ");
+    assertThat(json).contains("{\"name\": \"Outer.deep\", \"startLine\": 17, \"endLine\": 20, ");
+  }
+
+  @Test
+  public void html() throws Exception {
+    String html =
+        FormatProfile.profile(INPUT, JavaFormatterOptions.defaultOptions()).toHtml("Outer.java");
+
+    assertThat(html).contains("<title>Outer.java</title>");
+    assertThat(html).contains("<a href=\"#L17\">Outer.deep</a></td><td>17-20</td>");
+    assertThat(html).contains("<a href=\"#L8\">Outer.&lt;clinit&gt;</a>");
+    assertThat(html).contains("<span id=\"L18\" ");
+  }
+
+  @Test
+  public void htmlCarriageReturns() throws Exception {
+    String html =
+        FormatProfile.profile(INPUT.replace("\n", "\r"), JavaFormatterOptions.defaultOptions())
+            .toHtml("Outer.java");
+
+    assertThat(html).contains("<a href=\"#L17\">Outer.deep</a></td><td>17-20</td>");
+    assertThat(html).contains("title=\"Outer.deep\">   17    int deep(int x) {</span>");
+    assertThat(html).contains("<span id=\"L29\" ");
+    assertThat(html).doesNotContain("<span id=\"L30\" ");
+  }
+
+  @Test
+  public void syntaxError() {
+    assertThrows(
+        FormatterException.class,
+        () -> FormatProfile.profile("class T {", JavaFormatterOptions.defaultOptions()));
+  }
+
+  private static ImmutableMap<String, Declaration> byName(FormatProfile profile) {
+    return profile.declarations().stream().collect(toImmutableMap(Declaration::name, d -> d));
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link FormatSession}Test */
+@RunWith(JUnit4.class)
+public class FormatSessionTest {
+
+  @Test
+  public void closeWaitsForRuns() throws Exception {
+    CountDownLatch reading = new CountDownLatch(1);
+    CountDownLatch input = new CountDownLatch(1);
+    InputStream in =
+        new ByteArrayInputStream("class T {\n}\n".getBytes(UTF_8)) {
+          @Override
+          public synchronized int read(byte[] b, int off, int len) {
+            reading.countDown();
+            Uninterruptibles.awaitUninterruptibly(input);
+            return super.read(b, off, len);
+          }
+        };
+    StringWriter out = new StringWriter();
+    StringWriter err = new StringWriter();
+    FormatSession session = new FormatSession();
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Integer> run =
+          executor.submit(
+              () -> session.run(in, new PrintWriter(out, true), new PrintWriter(err, true), "-"));
+      reading.await();
+      Future<?> close = executor.submit(session::close);
+
+      // The run is still reading its input, so the session stays open.
+      Thread.sleep(100);
+      assertThat(close.isDone()).isFalse();
+
+      input.countDown();
+      close.get(10, SECONDS);
+      assertThat(run.get()).isEqualTo(0);
+    } finally {
+      executor.shutdown();
+    }
+    assertThat(out.toString()).isEqualTo("class T {}\n");
+    assertThat(err.toString()).isEmpty();
+
+    assertThat(session.run(in, new PrintWriter(out), new PrintWriter(err, true), "-")).isEqualTo(1);
+    assertThat(err.toString()).contains("session is closed");
+  }
+}
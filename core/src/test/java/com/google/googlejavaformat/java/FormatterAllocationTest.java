@@ -0,0 +1,183 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assume.assumeTrue;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Resources;
+import com.sun.management.ThreadMXBean;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Guards against regressions in the memory allocated to format each input of {@link
+ * FormatterIntegrationTest}, which costs time in garbage collection in long-running formatters.
+ *
+ * <p>The bytes allocated per byte of each input are checked against the budget for that input in
+ * {@code allocation-budgets-<i>N</i>.txt}, for the feature version <i>N</i> of the JDK running the
+ * test. javac allocates differently in each release, so on a JDK without budgets of its own, those
+ * of the newest earlier JDK are checked with a wider tolerance. Inputs without a budget, such as
+ * those that only run on newer JDKs, are skipped. To update the budgets of the running JDK after
+ * changing what the formatter allocates, run:
+ *
+ * <pre>
+ * mvn test -Dtest=FormatterAllocationTest \
+ *     -Dallocationbudget.update=src/test/resources/com/google/googlejavaformat/java
+ * </pre>
+ */
+@RunWith(Parameterized.class)
+public class FormatterAllocationTest {
+
+  private static final int FEATURE = Runtime.version().feature();
+
+  /** How far over its budget an input may go, for differences between JVMs and JIT decisions. */
+  private static final double TOLERANCE =
+      Double.parseDouble(System.getProperty("allocationbudget.tolerance", "0.25"));
+
+  /** How far over its budget an input may go, if the budget was measured on another JDK. */
+  private static final double OTHER_JDK_TOLERANCE =
+      Double.parseDouble(System.getProperty("allocationbudget.otherjdktolerance", "1.0"));
+
+  /** The directory to write the measured budgets to, instead of checking them. */
+  private static final String UPDATE = System.getProperty("allocationbudget.update");
+
+  /** The feature version of the JDK that the budgets were measured on. */
+  private static final int BUDGETS_FEATURE = budgetsFeature();
+
+  private static final String BUDGETS = budgetsFile(BUDGETS_FEATURE);
+
+  /** The rounds of formatting each input; the first ones warm up the JIT. */
+  private static final int ROUNDS = 4;
+
+  private static final ImmutableMap<String, Double> budgets = readBudgets();
+
+  private static final Map<String, Double> measured = new TreeMap<>();
+
+  @Parameters(name = "{index}: {0}")
+  public static Iterable<Object[]> data() throws IOException {
+    return FormatterIntegrationTest.data();
+  }
+
+  private final String name;
+  private final String input;
+
+  public FormatterAllocationTest(String name, String input, String expected) {
+    this.name = name;
+    this.input = input;
+  }
+
+  @Test
+  public void bytesPerInputByte() throws FormatterException {
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    long best = Long.MAX_VALUE;
+    for (int round = 0; round < ROUNDS; round++) {
+      long before = threads.getCurrentThreadAllocatedBytes();
+      Formatter formatter = new Formatter();
+      StringWrapper.wrap(formatter.formatSource(input), formatter);
+      best = Math.min(best, threads.getCurrentThreadAllocatedBytes() - before);
+    }
+    double bytesPerByte = (double) best / input.getBytes(UTF_8).length;
+
+    if (UPDATE != null) {
+      synchronized (measured) {
+        measured.put(name, bytesPerByte);
+      }
+      return;
+    }
+    assumeTrue(budgets.containsKey(name));
+    double tolerance = BUDGETS_FEATURE == FEATURE ? TOLERANCE : OTHER_JDK_TOLERANCE;
+    assertWithMessage(
+            "bytes allocated per input byte of %s, with a budget of %s in %s and a tolerance of %s",
+            name, budgets.get(name), BUDGETS, tolerance)
+        .that(bytesPerByte)
+        .isAtMost(budgets.get(name) * (1 + tolerance));
+  }
+
+  @AfterClass
+  public static void writeBudgets() throws IOException {
+    if (UPDATE == null) {
+      return;
+    }
+    StringBuilder sb = new StringBuilder();
+    sb.append("# The bytes that formatting each input of FormatterIntegrationTest may allocate,\n");
+    sb.append("# per byte of input. Checked by FormatterAllocationTest, which can update it.\n");
+    sb.append(String.format(Locale.ROOT, "# Measured on JDK %s.\n", FEATURE));
+    // Keep the budgets of inputs that weren't measured, if they were measured on this JDK.
+    Map<String, Double> all = new TreeMap<>(BUDGETS_FEATURE == FEATURE ? budgets : Map.of());
+    all.putAll(measured);
+    for (Map.Entry<String, Double> entry : all.entrySet()) {
+      sb.append(String.format(Locale.ROOT, "%s %.1f\n", entry.getKey(), entry.getValue()));
+    }
+    Files.writeString(Paths.get(UPDATE, budgetsFile(FEATURE)), sb.toString());
+  }
+
+  private static String budgetsFile(int feature) {
+    return "allocation-budgets-" + feature + ".txt";
+  }
+
+  /**
+   * Returns the feature version of the running JDK if it has budgets, or else of the newest earlier
+   * JDK that does, or else the running one, which has no budgets.
+   */
+  private static int budgetsFeature() {
+    for (int feature = FEATURE; feature > 0; feature--) {
+      if (FormatterAllocationTest.class.getResource(budgetsFile(feature)) != null) {
+        return feature;
+      }
+    }
+    return FEATURE;
+  }
+
+  private static ImmutableMap<String, Double> readBudgets() {
+    ImmutableMap.Builder<String, Double> budgets = ImmutableMap.builder();
+    if (FormatterAllocationTest.class.getResource(BUDGETS) == null) {
+      return budgets.buildOrThrow();
+    }
+    String text;
+    try {
+      text =
+          Resources.toString(Resources.getResource(FormatterAllocationTest.class, BUDGETS), UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    for (String line : Splitter.on('\n').omitEmptyStrings().trimResults().split(text)) {
+      if (line.startsWith("#")) {
+        continue;
+      }
+      List<String> fields = Splitter.on(' ').splitToList(line);
+      budgets.put(fields.get(0), Double.parseDouble(fields.get(1)));
+    }
+    return budgets.buildOrThrow();
+  }
+}
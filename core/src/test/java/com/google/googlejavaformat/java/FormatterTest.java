@@ -23,6 +23,7 @@ import java.io.StringWriter;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 
 import static org.junit.Assert.fail;
 import org.junit.Rule;
@@ -32,7 +33,11 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableRangeSet;
+import com.google.common.collect.Range;
 import com.google.common.io.CharStreams;
+import com.google.googlejavaformat.Cancellation;
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth.assertWithMessage;
 import com.google.googlejavaformat.java.JavaFormatterOptions.Style;
@@ -439,6 +444,63 @@ public final class FormatterTest {
     }
   }
 
+  @Test
+  public void cancelled() throws Exception {
+    try {
+      new Formatter().formatSource("class T {}\n", Cancellation.of(() -> true));
+      fail();
+    } catch (FormatterException expected) {
+      assertThat(expected).hasMessageThat().contains("formatting was cancelled");
+    }
+  }
+
+  @Test
+  public void cancelledDuringLayout() throws Exception {
+    String input = "class T {\n  void f() {}\n}\n";
+    int[] checks = {0};
+    new Formatter().formatSource(input, Cancellation.of(() -> ++checks[0] < 0));
+
+    // The layout makes the last check, after the visitor and the ops builder are done.
+    int[] remaining = {checks[0] - 1};
+    try {
+      new Formatter().formatSource(input, Cancellation.of(() -> remaining[0]-- <= 0));
+      fail();
+    } catch (FormatterException expected) {
+      assertThat(expected).hasMessageThat().contains("formatting was cancelled");
+    }
+  }
+
+  @Test
+  public void timedOut() throws Exception {
+    try {
+      new Formatter().formatSource("class T {}\n", Cancellation.timeout(Duration.ZERO));
+      fail();
+    } catch (FormatterException expected) {
+      assertThat(expected).hasMessageThat().contains("formatting timed out after PT0S");
+    }
+  }
+
+  @Test
+  public void timedOutFixingImports() throws Exception {
+    // Fixing imports doesn't lay anything out, but the deadline is checked before each pass.
+    CommandLineOptions parameters =
+        CommandLineOptions.builder()
+            .lines(ImmutableRangeSet.of())
+            .fixImportsOnly(true)
+            .timeoutPerFile(Duration.ZERO)
+            .build();
+    FormatFileCallable.Result result =
+        new FormatFileCallable(
+                parameters,
+                /* path= */ null,
+                "import java.util.List;\nclass T {}\n",
+                JavaFormatterOptions.defaultOptions(),
+                /* commentCache= */ null)
+            .call();
+    assertThat(result.output()).isNull();
+    assertThat(result.exception()).hasMessageThat().contains("formatting timed out after PT0S");
+  }
+
   @Test
   public void blankLinesImportComment() throws FormatterException {
     String withBlank =
@@ -511,4 +573,27 @@ public final class FormatterTest {
                 + "  }\n"
                 + "}\n");
   }
+
+  @Test
+  public void formatReplacementsForUnboundedTokenRanges() throws Exception {
+    String input = "class T {\nint x;\n}\n";
+    JavaFormatterOptions options = JavaFormatterOptions.defaultOptions();
+    JavaInput javaInput = new JavaInput(input);
+    JavaOutput javaOutput =
+        new JavaOutput("\n", javaInput, new JavaCommentsHelper("\n", options));
+    Formatter.format(
+        javaInput,
+        javaOutput,
+        options,
+        Cancellation.NONE,
+        FormatPhases.start(FormatStats.NONE, input.length()));
+
+    String expected = new Formatter(options).formatSource(input);
+    for (Range<Integer> range : ImmutableList.of(Range.<Integer>all(), Range.atLeast(0))) {
+      assertThat(
+              JavaOutput.applyReplacements(
+                  input, javaOutput.getFormatReplacements(ImmutableRangeSet.of(range))))
+          .isEqualTo(expected);
+    }
+  }
 }
@@ -15,19 +15,26 @@
 package com.google.googlejavaformat.java;
 
 import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ServiceLoader;
 import java.util.spi.ToolProvider;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runners.JUnit4;
 
 /** Tests for {@link GoogleJavaFormatToolProvider}. */
 @RunWith(JUnit4.class)
 public class GoogleJavaFormatToolProviderTest {
 
+  @Rule public TemporaryFolder testFolder = new TemporaryFolder();
+
   @Test
   public void testUsageOutputAfterLoadingViaToolName() {
     String name = "google-java-format";
@@ -53,4 +60,37 @@ public class GoogleJavaFormatToolProviderTest {
     assertThat(usage).containsMatch("http.*/google-java-format");
     assertThat(usage).contains("Usage: google-java-format");
   }
+
+  @Test
+  public void session() throws Exception {
+    String javadoc = "/** A widget, which is shared by the classes of the test. */\n";
+    Path a = testFolder.newFile("A.java").toPath();
+    Path b = testFolder.newFile("B.java").toPath();
+    Files.writeString(a, javadoc + "class A {\n}\n", UTF_8);
+    Files.writeString(b, javadoc + "class B {\n}\n", UTF_8);
+    Path stats = testFolder.getRoot().toPath().resolve("stats.json");
+
+    StringWriter out = new StringWriter();
+    StringWriter err = new StringWriter();
+    PrintWriter outWriter = new PrintWriter(out, true);
+    PrintWriter errWriter = new PrintWriter(err, true);
+    GoogleJavaFormatToolProvider.Session session = GoogleJavaFormatToolProvider.newSession();
+    try (session) {
+      assertThat(session.run(outWriter, errWriter, "-i", a.toString())).isEqualTo(0);
+      assertThat(
+              session.run(
+                  outWriter, errWriter, "-i", "--stats-file", stats.toString(), b.toString()))
+          .isEqualTo(0);
+    }
+
+    assertThat(err.toString()).isEmpty();
+    assertThat(Files.readString(a)).isEqualTo(javadoc + "class A {}\n");
+    assertThat(Files.readString(b)).isEqualTo(javadoc + "class B {}\n");
+    // The second run found the Javadoc that the first one formatted.
+    assertThat(Files.readString(stats))
+        .contains("\"commentCache\": {\"hits\": 1, \"misses\": 0}");
+
+    assertThat(session.run(outWriter, errWriter, a.toString())).isEqualTo(1);
+    assertThat(err.toString()).contains("session is closed");
+  }
 }
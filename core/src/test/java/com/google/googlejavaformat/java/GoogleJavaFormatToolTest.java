@@ -61,4 +61,24 @@ public class GoogleJavaFormatToolTest {
     assertThat(usage).containsMatch("http.*/google-java-format");
     assertThat(usage).contains("Usage: google-java-format");
   }
+
+  @Test
+  public void session() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ByteArrayOutputStream err = new ByteArrayOutputStream();
+    GoogleJavaFormatTool.Session session = GoogleJavaFormatTool.newSession();
+    try (session) {
+      for (String name : new String[] {"A", "B"}) {
+        InputStream in = new ByteArrayInputStream(("class " + name + " {\n}\n").getBytes(UTF_8));
+        assertThat(session.run(in, out, err, "-")).isEqualTo(0);
+      }
+    }
+
+    assertThat(new String(out.toByteArray(), UTF_8)).isEqualTo("class A {}\nclass B {}\n");
+    assertThat(new String(err.toByteArray(), UTF_8)).isEmpty();
+
+    InputStream in = new ByteArrayInputStream("class C {}\n".getBytes(UTF_8));
+    assertThat(session.run(in, out, err, "-")).isEqualTo(1);
+    assertThat(new String(err.toByteArray(), UTF_8)).contains("session is closed");
+  }
 }
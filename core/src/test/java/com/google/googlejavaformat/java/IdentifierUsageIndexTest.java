@@ -0,0 +1,129 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.googlejavaformat.java.IdentifierUsageIndex.Usage.UNKNOWN;
+import static com.google.googlejavaformat.java.IdentifierUsageIndex.Usage.UNUSED;
+import static com.google.googlejavaformat.java.IdentifierUsageIndex.Usage.USED;
+import static org.junit.Assert.assertThrows;
+
+import com.google.googlejavaformat.java.IdentifierUsageIndex.Import;
+import com.google.googlejavaformat.java.IdentifierUsageIndex.Usage;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link IdentifierUsageIndex}Test */
+@RunWith(JUnit4.class)
+public class IdentifierUsageIndexTest {
+
+  @Test
+  public void header() {
+    String source =
+        "package a.b; import java.util.List; import static a.B.f;;\n"
+            + "import c.*; class T {}";
+    IdentifierUsageIndex index = IdentifierUsageIndex.create(source);
+    assertThat(index.packageName()).isEqualTo("a.b");
+    assertThat(index.imports())
+        .containsExactly(
+            new Import(13, 35, "java.util", "List"),
+            new Import(36, 56, "a.B", "f"),
+            new Import(58, 69, "c", "*"))
+        .inOrder();
+    // The head of the package name is an identifier tree.
+    assertThat(index.usage("a")).isEqualTo(USED);
+    assertThat(index.usage("b")).isEqualTo(UNUSED);
+  }
+
+  @Test
+  public void notIndexed() {
+    // Unicode escapes.
+    assertThat(IdentifierUsageIndex.create("import a.B; class T { \\u0042 b; }")).isNull();
+    // Lexical errors.
+    assertThat(IdentifierUsageIndex.create("import a.B; class T { char c = '; }")).isNull();
+    // Imports that don't follow the package declaration.
+    assertThat(IdentifierUsageIndex.create("@A package p; import a.B;")).isNull();
+    assertThat(IdentifierUsageIndex.create("import a.B; class T {} import a.C;")).isNull();
+    // Malformed imports.
+    assertThat(IdentifierUsageIndex.create("import B; class T {}")).isNull();
+  }
+
+  @Test
+  public void used() {
+    assertUsage("class T { N x; }", USED);
+    assertUsage("class T { N.Inner x; }", USED);
+    assertUsage("class T { java.util.List<N> x; N<String> y; }", USED);
+    assertUsage("class T { void f(N... xs) {} }", USED);
+    assertUsage("@N class T {}", USED);
+    assertUsage("class T extends N {}", USED);
+    assertUsage("class T { Object x = new N(); }", USED);
+    assertUsage("class T { Object x = N::of; }", USED);
+    assertUsage("class T { void f() throws N {} }", USED);
+    assertUsage("class T { int x = 1 + N; }", USED);
+    assertUsage("class T { void f() { N(1); } }", USED);
+    assertUsage("class T { boolean f(Object o) { return o instanceof N; } }", USED);
+    assertUsage("class T { void f(Object o) { switch (o) { case N n -> {} } } }", USED);
+  }
+
+  @Test
+  public void unused() {
+    assertUsage("class T {}", UNUSED);
+    assertUsage("class T { void f() { a.N(); } }", UNUSED);
+    // Javadoc prose that isn't a reference.
+    assertUsage("/** The N of {@code N}. */ class T {}", UNUSED);
+    assertUsage("/** @param x an N */ class T { void f(int x) {} }", UNUSED);
+  }
+
+  @Test
+  public void unknown() {
+    // Declarations.
+    assertUsage("class N {}", UNKNOWN);
+    assertUsage("class T { int N; }", UNKNOWN);
+    assertUsage("class T { void N() {} }", UNKNOWN);
+    assertUsage("class T { N() {} }", UNKNOWN);
+    assertUsage("enum T { N(1); T(int x) {} }", UNKNOWN);
+    assertUsage("class T { Object f = N -> 1; }", UNKNOWN);
+    // Labels.
+    assertUsage("class T { void f() { N: for (;;) { break N; } } }", UNKNOWN);
+    // Identifier trees that aren't recognized without a parse.
+    assertUsage("class T { N[] xs; }", UNKNOWN);
+    assertUsage("class T { Object x = (N) null; }", UNKNOWN);
+    // Javadoc references.
+    assertUsage("/** {@link N} */ class T {}", UNKNOWN);
+    assertUsage("/** @see a.b.C#f(N, int) */ class T {}", UNKNOWN);
+    assertUsage("/** @throws N sometimes */ class T {}", UNKNOWN);
+  }
+
+  @Test
+  public void contextualKeywords() {
+    IdentifierUsageIndex index = IdentifierUsageIndex.create("class T { void f() { var x = 1; } }");
+    assertThat(index.usage("var")).isEqualTo(UNKNOWN);
+    assertThat(index.usage("x")).isEqualTo(UNKNOWN);
+  }
+
+  @Test
+  public void syntaxErrorsAreStillReported() {
+    // The index decides that N is unused, but only a parse finds the missing initializer.
+    String source = "import a.N;\nclass T { int x = ; }\n";
+    assertThat(IdentifierUsageIndex.create(source).usage("N")).isEqualTo(UNUSED);
+    assertThrows(FormatterException.class, () -> RemoveUnusedImports.removeUnusedImports(source));
+  }
+
+  private static void assertUsage(String source, Usage expected) {
+    IdentifierUsageIndex index = IdentifierUsageIndex.create("import a.N;\n" + source);
+    assertThat(index.usage("N")).isEqualTo(expected);
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Range;
+import com.google.googlejavaformat.Input;
+import com.google.googlejavaformat.IntRangeSet;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for the position indexes in {@link JavaInput}. */
+@RunWith(JUnit4.class)
+public class JavaInputTest {
+
+  private static final String SOURCE =
+      String.join(
+          "\n", //
+          "class T {",
+          "  // c",
+          "  int x;",
+          "}",
+          "");
+
+  @Test
+  public void positionToken() throws Exception {
+    JavaInput input = new JavaInput(SOURCE);
+    assertThat(tokText(input, 0)).isEqualTo("class");
+    assertThat(tokText(input, 4)).isEqualTo("class");
+    assertThat(tokText(input, 23)).isEqualTo("x");
+    // The comment and the whitespace before it belong to the following token.
+    assertThat(tokText(input, 12)).isEqualTo("int");
+    assertThat(tokText(input, SOURCE.indexOf('}'))).isEqualTo("}");
+    assertThat(input.getPositionToken(-1)).isNull();
+    assertThat(input.getPositionToken(SOURCE.length() + 1)).isNull();
+  }
+
+  @Test
+  public void positionColumn() throws Exception {
+    JavaInput input = new JavaInput(SOURCE);
+    assertThat(input.getPositionColumn(0)).isEqualTo(0);
+    assertThat(input.getPositionColumn(SOURCE.indexOf("//"))).isEqualTo(2);
+    assertThat(input.getPositionColumn(SOURCE.indexOf("int"))).isEqualTo(2);
+    assertThat(input.getPositionColumn(SOURCE.indexOf("x"))).isEqualTo(6);
+    // Not the start of a tok.
+    assertThat(input.getPositionColumn(SOURCE.indexOf("int") + 1)).isEqualTo(-1);
+  }
+
+  @Test
+  public void characterRangesToTokenRanges() throws Exception {
+    JavaInput input = new JavaInput(SOURCE);
+    int intStart = SOURCE.indexOf("int");
+    int intIndex = input.getPositionToken(intStart).getTok().getIndex();
+    IntRangeSet statement =
+        input.characterRangesToTokenRanges(
+            ImmutableList.of(Range.closedOpen(intStart, SOURCE.indexOf(';') + 1)));
+    assertThat(statement.toString()).isEqualTo(String.format("[[%d..%d]]", intIndex, intIndex + 2));
+    // An empty range selects the token under the cursor.
+    IntRangeSet cursor =
+        input.characterRangesToTokenRanges(
+            ImmutableList.of(Range.closedOpen(intStart, intStart)));
+    assertThat(cursor.toString()).isEqualTo(String.format("[[%d..%d]]", intIndex, intIndex));
+  }
+
+  private static String tokText(Input input, int position) {
+    return input.getPositionToken(position).getTok().getText();
+  }
+}
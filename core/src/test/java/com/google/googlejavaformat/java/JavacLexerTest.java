@@ -0,0 +1,81 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.googlejavaformat.java.JavacTokens.RawTok;
+import com.sun.tools.javac.parser.Tokens.TokenKind;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link JavacLexer}Test */
+@RunWith(JUnit4.class)
+public class JavacLexerTest {
+
+  private static final ImmutableSet<TokenKind> STOP_TOKENS = ImmutableSet.of(TokenKind.EOF);
+
+  @Test
+  public void reusedLexer() {
+    String source = "class T {\n  /** j */\n  String s = \"\\u0041\"; // c\n}\n";
+    ImmutableList<String> first = describe(JavacLexer.lex(source, STOP_TOKENS));
+    assertThat(first)
+        .containsAtLeast("CLASS [0, 5)", "STRINGLITERAL [34, 42) \"A\"", "null [44, 48)")
+        .inOrder();
+    assertThat(describe(JavacLexer.lex("int x;", STOP_TOKENS)))
+        .containsExactly("INT [0, 3)", "null [3, 4)", "IDENTIFIER [4, 5)", "SEMI [5, 6)")
+        .inOrder();
+    assertThat(describe(JavacLexer.lex(source, STOP_TOKENS))).isEqualTo(first);
+  }
+
+  @Test
+  public void lexicalErrors() {
+    assertThat(JavacLexer.lex("class T { char c = '; }", STOP_TOKENS)).isNull();
+    // The errors are not reported again for later inputs.
+    assertThat(JavacLexer.lex("class T { char c = ';'; }", STOP_TOKENS)).isNotNull();
+    assertThat(JavacLexer.lex("class T { String s = \"; }", STOP_TOKENS)).isNull();
+    assertThat(JavacLexer.lex("class T {}", STOP_TOKENS)).isNotNull();
+  }
+
+  @Test
+  public void stopTokensPastFirstPrefix() {
+    ImmutableSet<TokenKind> stopTokens = ImmutableSet.of(TokenKind.CLASS, TokenKind.EOF);
+    // The identifier "classy" straddles the end of the first prefix that is lexed.
+    String comment = "// " + "x".repeat(8183) + "\n";
+    String source = comment + "classy class T {}";
+    assertThat(describe(JavacLexer.lex(source, stopTokens)))
+        .containsExactly(
+            "null [0, 8186)", "null [8186, 8187)", "IDENTIFIER [8187, 8193)", "null [8193, 8194)")
+        .inOrder();
+    // A lexical error past the first prefix.
+    assertThat(JavacLexer.lex(comment.repeat(2) + "'; class T {}", stopTokens)).isNull();
+    assertThat(JavacLexer.lex(comment.repeat(2) + "int x;", stopTokens)).hasSize(8);
+  }
+
+  private static ImmutableList<String> describe(List<RawTok> toks) {
+    return toks.stream().map(JavacLexerTest::describe).collect(toImmutableList());
+  }
+
+  private static String describe(RawTok tok) {
+    String kind = tok.kind() != null ? tok.kind().name() : null;
+    String description = String.format("%s [%d, %d)", kind, tok.pos(), tok.endPos());
+    return tok.stringVal() != null ? description + " " + tok.stringVal() : description;
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+import static org.junit.Assume.assumeTrue;
+
+import com.google.googlejavaformat.java.javadoc.JavadocFormatter;
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Guards against regressions in the memory allocated by {@link JavadocFormatter}, which formats
+ * every Javadoc comment of every file.
+ */
+@RunWith(JUnit4.class)
+public final class JavadocAllocationTest {
+
+  /**
+   * The most bytes that formatting may allocate per character of Javadoc. This is about 1.5 times
+   * what it currently allocates, to leave room for differences between JVMs.
+   */
+  private static final double MAX_BYTES_PER_CHAR = 100;
+
+  private static final int ITERATIONS = 200;
+
+  @Test
+  public void bytesPerChar() {
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    String javadoc = javadoc();
+    long best = Long.MAX_VALUE;
+    // The first rounds warm up the JIT, whose escape analysis removes some allocations.
+    for (int round = 0; round < 5; round++) {
+      long before = threads.getCurrentThreadAllocatedBytes();
+      for (int i = 0; i < ITERATIONS; i++) {
+        JavadocFormatter.formatJavadoc(javadoc, 2);
+      }
+      best = Math.min(best, (threads.getCurrentThreadAllocatedBytes() - before) / ITERATIONS);
+    }
+    assertWithMessage("bytes allocated per formatted comment of %s chars", javadoc.length())
+        .that((double) best / javadoc.length())
+        .isAtMost(MAX_BYTES_PER_CHAR);
+  }
+
+  private static String javadoc() {
+    StringBuilder sb = new StringBuilder("/**\n");
+    sb.append("   * Returns the {@code Widget} for the given {@link Key}, creating it if\n");
+    sb.append("   * needed.\n");
+    for (int i = 0; i < 10; i++) {
+      sb.append("   *\n");
+      sb.append("   * <p>Widgets are cached by key, so repeated calls with an equal\n");
+      sb.append("   * key return the <a href=\"#same\">same</a> instance.\n");
+      sb.append("   * <ul>\n");
+      sb.append("   *   <li>{@code null} keys are rejected with an exception.\n");
+      sb.append("   *   <li>Keys must implement {@link Object#hashCode()} consistently.\n");
+      sb.append("   * </ul>\n");
+      sb.append("   * <pre>{@code\n");
+      sb.append("   *   Widget w = widgets.get(Key.of(\"w\"));\n");
+      sb.append("   * }</pre>\n");
+    }
+    sb.append("   *\n");
+    sb.append("   * @param key the key of the widget, which must not be {@code null}\n");
+    sb.append("   * @return the widget\n");
+    return sb.append("   */").toString();
+  }
+}
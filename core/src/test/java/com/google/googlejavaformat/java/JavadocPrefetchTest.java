@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** {@link JavadocPrefetch}Test */
+@RunWith(JUnit4.class)
+public class JavadocPrefetchTest {
+
+  @Test
+  public void fewComments() throws FormatterException {
+    JavaInput input = new JavaInput("/** One. */ class T { /** Two. */ int x; }");
+    JavaCommentsHelper helper =
+        new JavaCommentsHelper("\n", JavaFormatterOptions.defaultOptions(), /* cache= */ null);
+    assertThat(JavadocPrefetch.start(input, helper)).isNull();
+  }
+
+  @Test
+  public void sameOutput() throws FormatterException {
+    JavaFormatterOptions options = JavaFormatterOptions.defaultOptions();
+    for (String source : new String[] {source(/* indent= */ "  "), source(/* indent= */ "")}) {
+      String expected = new Formatter(options).formatSource(source);
+      String actual = new Formatter(options, CommentRewriteCache.create()).formatSource(source);
+      assertThat(actual).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void prefetchNotCounted() throws FormatterException {
+    CommentRewriteCache cache = CommentRewriteCache.create();
+    new Formatter(JavaFormatterOptions.defaultOptions(), cache).formatSource(source("  "));
+    // Each comment counts once, as the layout looks it up, whether or not it was prefetched.
+    assertThat(cache.stats().requestCount()).isEqualTo(2 * JavadocPrefetch.MIN_JAVADOC_COMMENTS);
+  }
+
+  @Test
+  public void ownThreads() throws Exception {
+    assumeTrue(Runtime.getRuntime().availableProcessors() >= 2);
+    JavaInput input = new JavaInput(source(/* indent= */ "  "));
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    CountDownLatch rewritten = new CountDownLatch(2 * JavadocPrefetch.MIN_JAVADOC_COMMENTS);
+    try (JavadocPrefetch prefetch =
+        JavadocPrefetch.start(
+            input,
+            (tok, maxWidth, column0) -> {
+              threads.add(Thread.currentThread().getName());
+              rewritten.countDown();
+              return tok.getOriginalText();
+            })) {
+      assertThat(prefetch).isNotNull();
+      assertThat(rewritten.await(10, SECONDS)).isTrue();
+    }
+    assertThat(threads).isNotEmpty();
+    for (String thread : threads) {
+      assertThat(thread).startsWith("google-java-format-javadoc-");
+    }
+  }
+
+  /** A class whose Javadoc is at the formatted column iff {@code indent} is two spaces. */
+  private static String source(String indent) {
+    StringBuilder sb = new StringBuilder("class T {\n");
+    for (int i = 0; i < 2 * JavadocPrefetch.MIN_JAVADOC_COMMENTS; i++) {
+      sb.append(indent).append("/**\n");
+      sb.append(indent).append(" * Returns   the <em>").append(i).append("</em>th value.\n");
+      sb.append(indent).append(" * <p>Or {@code null}.\n");
+      sb.append(indent).append(" */\n");
+      sb.append(indent).append("Object f").append(i).append("() { return null; }\n");
+    }
+    return sb.append("}\n").toString();
+  }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.jspecify.annotations.Nullable;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link LanguageServer}. */
+@RunWith(JUnit4.class)
+public final class LanguageServerTest {
+
+  private static final String URI = "file:///T.java";
+
+  /** The messages of a session with the server, from initialization to exit. */
+  private final List<String> messages = new ArrayList<>();
+
+  private int nextId = 1;
+
+  @Test
+  public void formatting() throws Exception {
+    initialize();
+    didOpen("class T {\n    int x;\n  int y;\n}\n");
+    request("textDocument/formatting", ImmutableMap.of("textDocument", textDocument()));
+    shutdown();
+
+    assertThat(result(run(0), 2))
+        .isEqualTo(
+            ImmutableList.of(
+                ImmutableMap.of(
+                    "range",
+                    range(0, 0, 4, 0),
+                    "newText",
+                    "class T {\n    int x;\n    int y;\n}\n")));
+  }
+
+  @Test
+  public void rangeFormatting() throws Exception {
+    initialize();
+    didOpen("class T {\n  int x;\n  int y;\n}\n");
+    request(
+        "textDocument/rangeFormatting",
+        ImmutableMap.of("textDocument", textDocument(), "range", range(2, 0, 2, 10)));
+    shutdown();
+
+    assertThat(result(run(0), 2))
+        .isEqualTo(
+            ImmutableList.of(
+                ImmutableMap.of("range", range(1, 8, 2, 8), "newText", "\n    int y;")));
+  }
+
+  @Test
+  public void onTypeFormatting() throws Exception {
+    initialize();
+    didOpen("class T {\n    void f() {\n      int x = 1;\n");
+    // The document doesn't parse yet, which isn't an error while typing.
+    request(
+        "textDocument/onTypeFormatting",
+        ImmutableMap.of("textDocument", textDocument(), "position", position(2, 16), "ch", ";"));
+    didChange(ImmutableMap.of("range", range(3, 0, 3, 0), "text", "    }\n}\n"));
+    request(
+        "textDocument/onTypeFormatting",
+        ImmutableMap.of("textDocument", textDocument(), "position", position(2, 16), "ch", ";"));
+    shutdown();
+
+    List<Map<String, Object>> responses = run(0);
+    assertThat(result(responses, 2)).isEqualTo(ImmutableList.of());
+    assertThat(result(responses, 3))
+        .isEqualTo(
+            ImmutableList.of(
+                ImmutableMap.of("range", range(1, 14, 2, 16), "newText", "\n        int x = 1;")));
+  }
+
+  @Test
+  public void incrementalChanges() throws Exception {
+    initialize();
+    didOpen("class T {\n}\n");
+    didChange(ImmutableMap.of("range", range(0, 6, 0, 7), "text", "Renamed"));
+    didChange(ImmutableMap.of("range", range(1, 0, 1, 0), "text", "int x;\n"));
+    request("textDocument/formatting", ImmutableMap.of("textDocument", textDocument()));
+    didChange(ImmutableMap.of("text", "class U {}\n"));
+    request("textDocument/formatting", ImmutableMap.of("textDocument", textDocument()));
+    shutdown();
+
+    List<Map<String, Object>> responses = run(0);
+    assertThat(result(responses, 2))
+        .isEqualTo(
+            ImmutableList.of(
+                ImmutableMap.of(
+                    "range", range(0, 0, 3, 0), "newText", "class Renamed {\n    int x;\n}\n")));
+    assertThat(result(responses, 3)).isEqualTo(ImmutableList.of());
+  }
+
+  @Test
+  public void repeatedFormatting() throws Exception {
+    initialize();
+    didOpen("class T {\nint x;\n}\n");
+    request("textDocument/formatting", ImmutableMap.of("textDocument", textDocument()));
+    request("textDocument/formatting", ImmutableMap.of("textDocument", textDocument()));
+    // Apply the edits, as an editor would before saving.
+    didChange(ImmutableMap.of("range", range(1, 0, 1, 0), "text", "    "));
+    request("textDocument/formatting", ImmutableMap.of("textDocument", textDocument()));
+    shutdown();
+
+    List<Map<String, Object>> responses = run(0);
+    Object edits =
+        ImmutableList.of(
+            ImmutableMap.of("range", range(0, 0, 3, 0), "newText", "class T {\n    int x;\n}\n"));
+    assertThat(result(responses, 2)).isEqualTo(edits);
+    assertThat(result(responses, 3)).isEqualTo(edits);
+    assertThat(result(responses, 4)).isEqualTo(ImmutableList.of());
+  }
+
+  @Test
+  public void syntaxError() throws Exception {
+    initialize();
+    didOpen("class T {\n");
+    request("textDocument/formatting", ImmutableMap.of("textDocument", textDocument()));
+    shutdown();
+
+    Map<String, Object> response = response(run(0), 2);
+    assertThat(error(response).get("code")).isEqualTo((long) LanguageServer.REQUEST_FAILED);
+  }
+
+  @Test
+  public void errors() throws Exception {
+    request("textDocument/formatting", ImmutableMap.of("textDocument", textDocument()));
+    initialize();
+    request("textDocument/unknown", ImmutableMap.of());
+    request("textDocument/formatting", ImmutableMap.of("textDocument", textDocument()));
+    messages.add("{not json");
+    exit();
+
+    // The client didn't shut the server down before it exited.
+    List<Map<String, Object>> responses = run(1);
+    assertThat(error(response(responses, 1)).get("code"))
+        .isEqualTo((long) LanguageServer.SERVER_NOT_INITIALIZED);
+    assertThat(error(response(responses, 3)).get("code"))
+        .isEqualTo((long) LanguageServer.METHOD_NOT_FOUND);
+    assertThat(error(response(responses, 4)).get("code"))
+        .isEqualTo((long) LanguageServer.INVALID_PARAMS);
+    assertThat(error(response(responses, null)).get("code"))
+        .isEqualTo((long) LanguageServer.PARSE_ERROR);
+  }
+
+  @Test
+  public void reversedRange() throws Exception {
+    initialize();
+    didOpen("class T {\n  int x;\n  int y;\n}\n");
+    request(
+        "textDocument/rangeFormatting",
+        ImmutableMap.of("textDocument", textDocument(), "range", range(2, 5, 1, 0)));
+    request("textDocument/formatting", ImmutableMap.of("textDocument", textDocument()));
+    shutdown();
+
+    List<Map<String, Object>> responses = run(0);
+    assertThat(error(response(responses, 2)).get("code"))
+        .isEqualTo((long) LanguageServer.INVALID_PARAMS);
+    assertThat(result(responses, 3)).isNotEqualTo(ImmutableList.of());
+  }
+
+  @Test
+  public void internalError() throws Exception {
+    initialize();
+    didOpen("class T {}\n");
+    request("textDocument/formatting", ImmutableMap.of("textDocument", textDocument()));
+    request("textDocument/formatting", ImmutableMap.of("textDocument", textDocument()));
+    shutdown();
+
+    int[] calls = {0};
+    LanguageServer server =
+        new LanguageServer(
+            (input, ranges) -> {
+              if (calls[0]++ == 0) {
+                throw new IllegalStateException("bug");
+              }
+              return ImmutableList.of();
+            });
+    // The server reports the first failure, and goes on to the next request.
+    List<Map<String, Object>> responses = run(server, 0);
+    Map<String, Object> error = error(response(responses, 2));
+    assertThat(error.get("code")).isEqualTo((long) LanguageServer.INTERNAL_ERROR);
+    assertThat((String) error.get("message")).contains("bug");
+    assertThat(result(responses, 3)).isEqualTo(ImmutableList.of());
+  }
+
+  @Test
+  public void capabilities() throws Exception {
+    initialize();
+    shutdown();
+
+    @SuppressWarnings("unchecked")
+    Map<String, Object> capabilities =
+        (Map<String, Object>) ((Map<String, Object>) result(run(0), 1)).get("capabilities");
+    assertThat(capabilities).containsEntry("documentFormattingProvider", true);
+    assertThat(capabilities).containsEntry("documentRangeFormattingProvider", true);
+    assertThat(capabilities).containsKey("documentOnTypeFormattingProvider");
+    assertThat(capabilities)
+        .containsEntry("textDocumentSync", ImmutableMap.of("openClose", true, "change", 2L));
+  }
+
+  private void initialize() {
+    request("initialize", ImmutableMap.of("capabilities", ImmutableMap.of()));
+    notify("initialized", ImmutableMap.of());
+  }
+
+  private void shutdown() {
+    request("shutdown", null);
+    exit();
+  }
+
+  private void exit() {
+    notify("exit", null);
+  }
+
+  private void didOpen(String text) {
+    notify(
+        "textDocument/didOpen",
+        ImmutableMap.of(
+            "textDocument",
+            ImmutableMap.of("uri", URI, "languageId", "java", "version", 1, "text", text)));
+  }
+
+  private void didChange(Map<String, Object> change) {
+    notify(
+        "textDocument/didChange",
+        ImmutableMap.of(
+            "textDocument",
+            ImmutableMap.of("uri", URI, "version", 2),
+            "contentChanges",
+            ImmutableList.of(change)));
+  }
+
+  private void request(String method, @Nullable Object params) {
+    Map<String, @Nullable Object> message = new LinkedHashMap<>();
+    message.put("jsonrpc", "2.0");
+    message.put("id", nextId++);
+    message.put("method", method);
+    message.put("params", params);
+    messages.add(Json.write(message));
+  }
+
+  private void notify(String method, @Nullable Object params) {
+    Map<String, @Nullable Object> message = new LinkedHashMap<>();
+    message.put("jsonrpc", "2.0");
+    message.put("method", method);
+    message.put("params", params);
+    messages.add(Json.write(message));
+  }
+
+  /** Runs the server on the messages, and returns its responses. */
+  private List<Map<String, Object>> run(int expectedExitCode) throws Exception {
+    return run(
+        new LanguageServer(JavaFormatterOptions.defaultOptions(), CommentRewriteCache.create()),
+        expectedExitCode);
+  }
+
+  /** Runs {@code server} on the messages, and returns its responses. */
+  private List<Map<String, Object>> run(LanguageServer server, int expectedExitCode)
+      throws Exception {
+    ByteArrayOutputStream in = new ByteArrayOutputStream();
+    for (String message : messages) {
+      byte[] body = message.getBytes(UTF_8);
+      in.write(("Content-Length: " + body.length + "\r\n\r\n").getBytes(UTF_8));
+      in.write(body);
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Writer writer = new OutputStreamWriter(out, UTF_8);
+    int exitCode = server.run(new ByteArrayInputStream(in.toByteArray()), writer);
+    assertThat(exitCode).isEqualTo(expectedExitCode);
+
+    List<Map<String, Object>> responses = new ArrayList<>();
+    String output = new String(out.toByteArray(), UTF_8);
+    while (!output.isEmpty()) {
+      assertThat(output).startsWith("Content-Length: ");
+      int headerEnd = output.indexOf("\r\n\r\n");
+      int length = Integer.parseInt(output.substring("Content-Length: ".length(), headerEnd));
+      byte[] rest = output.substring(headerEnd + 4).getBytes(UTF_8);
+      String body = new String(rest, 0, length, UTF_8);
+      @SuppressWarnings("unchecked")
+      Map<String, Object> response = (Map<String, Object>) Json.parse(body);
+      responses.add(response);
+      output = new String(rest, length, rest.length - length, UTF_8);
+    }
+    return responses;
+  }
+
+  private static Map<String, Object> response(
+      List<Map<String, Object>> responses, @Nullable Long id) {
+    return responses.stream()
+        .filter(r -> Objects.equals(r.get("id"), id))
+        .findFirst()
+        .orElseThrow(() -> new AssertionError("no response " + id + " in " + responses));
+  }
+
+  private static Map<String, Object> response(List<Map<String, Object>> responses, long id) {
+    return response(responses, Long.valueOf(id));
+  }
+
+  private static Object result(List<Map<String, Object>> responses, int id) {
+    Map<String, Object> response = response(responses, id);
+    assertThat(response).doesNotContainKey("error");
+    return response.get("result");
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> error(Map<String, Object> response) {
+    return (Map<String, Object>) response.get("error");
+  }
+
+  private static Map<String, Object> textDocument() {
+    return ImmutableMap.of("uri", URI);
+  }
+
+  private static Map<String, Object> position(long line, long character) {
+    return ImmutableMap.of("line", line, "character", character);
+  }
+
+  private static Map<String, Object> range(
+      long startLine, long startCharacter, long endLine, long endCharacter) {
+    return ImmutableMap.of(
+        "start", position(startLine, startCharacter), "end", position(endLine, endCharacter));
+  }
+}
@@ -216,6 +216,22 @@ public class MainTest {
     assertThat(out.toString()).isEqualTo(joiner.join(expected));
   }
 
+  @Test
+  public void fixImportsOnlySyntaxError() throws Exception {
+    String[] input = {
+      "import java.util.List;", //
+      "class Test {",
+      "  int x = ;",
+      "}",
+    };
+    InputStream in = new ByteArrayInputStream(joiner.join(input).getBytes(UTF_8));
+    StringWriter out = new StringWriter();
+    StringWriter err = new StringWriter();
+    Main main = new Main(new PrintWriter(out, true), new PrintWriter(err, true), in);
+    assertThat(main.format("-", "--fix-imports-only")).isEqualTo(1);
+    assertThat(err.toString()).contains("<stdin>:3:");
+  }
+
   @Test
   public void optimizeImportsDoesNotLeaveEmptyLines() throws Exception {
     String[] input = {
@@ -690,4 +706,129 @@ public class MainTest {
     };
     assertThat(err.toString()).isEqualTo(joiner.join(expected));
   }
+
+  @Test
+  public void stats() throws Exception {
+    Path a = testFolder.newFile("A.java").toPath();
+    Path b = testFolder.newFile("B.java").toPath();
+    Files.writeString(a, "class A {\n}\n", UTF_8);
+    Files.writeString(b, "class B {}\n", UTF_8);
+
+    StringWriter out = new StringWriter();
+    StringWriter err = new StringWriter();
+    Main main = new Main(new PrintWriter(out, true), new PrintWriter(err, true), System.in);
+    int exitCode = main.format("--stats", a.toString(), b.toString());
+
+    assertThat(exitCode).isEqualTo(0);
+    assertThat(out.toString()).isEqualTo("class A {}\nclass B {}\n");
+    assertThat(err.toString()).startsWith("Files formatted: 2");
+    for (FormatStats.Phase phase : FormatStats.Phase.values()) {
+      assertThat(err.toString()).contains(phase.displayName());
+    }
+    assertThat(err.toString()).contains(a.toString());
+    assertThat(err.toString()).contains(b.toString());
+  }
+
+  @Test
+  public void statsFile() throws Exception {
+    Path stats = testFolder.getRoot().toPath().resolve("stats.json");
+
+    StringWriter out = new StringWriter();
+    StringWriter err = new StringWriter();
+    Main main =
+        new Main(
+            new PrintWriter(out, true),
+            new PrintWriter(err, true),
+            new ByteArrayInputStream("class Test {\n}\n".getBytes(UTF_8)));
+    int exitCode = main.format("--stats-file", stats.toString(), "-");
+
+    assertThat(exitCode).isEqualTo(0);
+    assertThat(out.toString()).isEqualTo("class Test {}\n");
+    assertThat(err.toString()).isEmpty();
+    String json = Files.readString(stats);
+    assertThat(json).contains("\"path\": \"<stdin>\", \"length\": 15");
+    assertThat(json).contains("\"layout\": {\"wallNanos\": ");
+    assertThat(json).contains("\"commentCache\": {\"hits\": ");
+  }
+
+  @Test
+  public void profileFile() throws Exception {
+    Path path = testFolder.newFile("A.java").toPath();
+    String input = "class A {\n  /** Javadoc. */\n  void f() {}\n}\n";
+    Files.writeString(path, input, UTF_8);
+
+    StringWriter out = new StringWriter();
+    StringWriter err = new StringWriter();
+    Main main = new Main(new PrintWriter(out, true), new PrintWriter(err, true), System.in);
+    int exitCode = main.format("--profile-file", path.toString());
+
+    assertThat(exitCode).isEqualTo(0);
+    assertThat(err.toString()).isEmpty();
+    assertThat(out.toString())
+        .contains("{\"name\": \"A.f\", \"startLine\": 2, \"endLine\": 3, \"docNodes\": ");
+    assertThat(Files.readString(path)).isEqualTo(input);
+
+    out = new StringWriter();
+    main = new Main(new PrintWriter(out, true), new PrintWriter(err, true), System.in);
+    exitCode = main.format("--profile-file", path.toString(), "--profile-html");
+
+    assertThat(exitCode).isEqualTo(0);
+    assertThat(out.toString()).startsWith("<!DOCTYPE html>");
+    assertThat(out.toString()).contains("<a href=\"#L2\">A.f</a>");
+  }
+
+  @Test
+  public void profileFileWithOtherFiles() throws Exception {
+    StringWriter out = new StringWriter();
+    StringWriter err = new StringWriter();
+    int exitCode =
+        Main.main(
+            System.in,
+            new PrintWriter(out, true),
+            new PrintWriter(err, true),
+            "--profile-file",
+            "A.java",
+            "B.java");
+
+    assertThat(exitCode).isEqualTo(2);
+    assertThat(err.toString())
+        .contains("--profile-file cannot be used with other files or standard input");
+  }
+
+  @Test
+  public void lsp() throws Exception {
+    StringBuilder in = new StringBuilder();
+    for (String message :
+        ImmutableList.of(
+            "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{}}",
+            "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"shutdown\"}",
+            "{\"jsonrpc\":\"2.0\",\"method\":\"exit\"}")) {
+      in.append("Content-Length: ").append(message.length()).append("\r\n\r\n").append(message);
+    }
+    StringWriter out = new StringWriter();
+    StringWriter err = new StringWriter();
+    int exitCode =
+        Main.main(
+            new ByteArrayInputStream(in.toString().getBytes(UTF_8)),
+            new PrintWriter(out, true),
+            new PrintWriter(err, true),
+            "--lsp");
+
+    assertThat(err.toString()).isEmpty();
+    assertThat(exitCode).isEqualTo(0);
+    assertThat(out.toString()).contains("\"documentFormattingProvider\":true");
+    assertThat(out.toString()).contains("{\"jsonrpc\":\"2.0\",\"id\":2,\"result\":null}");
+  }
+
+  @Test
+  public void lspWithFiles() throws Exception {
+    StringWriter out = new StringWriter();
+    StringWriter err = new StringWriter();
+    int exitCode =
+        Main.main(
+            System.in, new PrintWriter(out, true), new PrintWriter(err, true), "--lsp", "A.java");
+
+    assertThat(exitCode).isEqualTo(2);
+    assertThat(err.toString()).contains("--lsp cannot be used with files or standard input");
+  }
 }
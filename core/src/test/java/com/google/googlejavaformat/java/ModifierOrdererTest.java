@@ -16,10 +16,12 @@
 
 package com.google.googlejavaformat.java;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.TruthJUnit.assume;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Range;
 import java.util.Arrays;
 import org.junit.Test;
@@ -111,4 +113,38 @@ public class ModifierOrdererTest {
     assertThat(ModifierOrderer.reorderModifiers("non-sealed sealed public").getText())
         .isEqualTo("public sealed non-sealed");
   }
+
+  @Test
+  public void reorderedToks() throws FormatterException {
+    String[] inputs = {
+      "class T {\n  static public Map<K, List<V>> m;\n}\n",
+      "class T {\r\n  static\r\n    public   final int x;  // c\r\n  int y;\r\n}\r\n",
+      "class T { final /* a */ static\n\n  /** b */ private int x; }",
+      "static/*1*/abstract/*2*/public class T {}",
+      "final non-sealed public class T {}",
+      // The replacement spells non-sealed canonically.
+      "final non - sealed public class T {}",
+      // Newlines after parameter comments are dropped.
+      "class T { static /*x=*/\n public int x; }",
+    };
+    for (String input : inputs) {
+      JavaInput reordered = ModifierOrderer.reorderModifiers(input);
+      assertThat(reordered.getText()).isNotEqualTo(input);
+      assertThat(describe(reordered)).isEqualTo(describe(new JavaInput(reordered.getText())));
+    }
+  }
+
+  private static ImmutableList<String> describe(JavaInput input) {
+    return input.getToks().stream()
+        .map(
+            tok ->
+                String.format(
+                    "%d %s %d:%d %s",
+                    tok.getIndex(),
+                    tok.getText(),
+                    tok.getPosition(),
+                    tok.getColumn(),
+                    tok.kind()))
+        .collect(toImmutableList());
+  }
 }
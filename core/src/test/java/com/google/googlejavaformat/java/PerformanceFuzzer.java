@@ -0,0 +1,373 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.reflect.ClassPath;
+import com.google.common.reflect.ClassPath.ResourceInfo;
+import com.google.googlejavaformat.Cancellation;
+import com.sun.management.ThreadMXBean;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TreeScanner;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.jspecify.annotations.Nullable;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Searches for inputs that are unusually expensive to format, by mutating the integration test
+ * inputs and keeping the mutants that allocate the most per byte in {@link
+ * Formatter#formatSource(String)}, or that reach syntax no other input has.
+ *
+ * <p>The name doesn't end in {@code Test}, so that the usual test runs skip it. Run it with {@code
+ * mvn -Pperf-fuzz test} in {@code core}, which also sets:
+ *
+ * <ul>
+ *   <li>{@code perffuzz.iterations}: the number of mutants to try.
+ *   <li>{@code perffuzz.seed}: the seed of the mutations, so that a run can be repeated.
+ *   <li>{@code perffuzz.fixtures}: the number of the most expensive mutants to write out.
+ *   <li>{@code perffuzz.output}: the directory to write them to.
+ * </ul>
+ *
+ * <p>Before they are written out, mutants are minimized to the lines that make them expensive.
+ * Each is written as an {@code .input} and {@code .output} pair in the format of {@code
+ * testdata}, where {@link FormatterIntegrationTest} picks it up as a regression test. A mutant that
+ * timed out has no output to test against, so only its {@code .input} is written, to investigate.
+ */
+@RunWith(JUnit4.class)
+public final class PerformanceFuzzer {
+
+  private static final int ITERATIONS = Integer.getInteger("perffuzz.iterations", 1000);
+  private static final long SEED = Long.getLong("perffuzz.seed", 1);
+  private static final int FIXTURES = Integer.getInteger("perffuzz.fixtures", 3);
+  private static final Path OUTPUT =
+      Paths.get(System.getProperty("perffuzz.output", "target/perf-fuzz"));
+
+  /** The number of the most expensive mutants that are kept for further mutation. */
+  private static final int POPULATION = 50;
+
+  /** Inputs shorter than this are dominated by the fixed cost of formatting anything. */
+  private static final int MIN_LENGTH = 200;
+
+  /** How long to spend formatting one mutant. A mutant that takes longer is the worst kind. */
+  private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+  /** The most mutants to try while minimizing one. */
+  private static final int MINIMIZATION_BUDGET = 300;
+
+  /**
+   * Declarations of the kinds that have caused slow formatting. Each is valid as both a field and
+   * a local variable, so it can be inserted after any line that opens a class or a block.
+   */
+  private static final ImmutableList<String> FRAGMENTS =
+      ImmutableList.of(
+          "@A({1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20}) int a = 0;",
+          "Object l = a -> b -> c -> d -> e -> f -> g -> h -> a;",
+          "Object s = switch (x) { case 1 -> (R) () -> { switch (y) { case 2 -> f(() -> {}); }"
+              + " }; default -> (R) () -> g(h -> i -> h); };",
+          "Object c = \"a\" + b + \"c\" + d + \"e\" + f + \"g\" + h + \"i\" + j + \"k\" + l;",
+          "Object p = ((((((((a + b) * c) - d) / e) % f) << g) >> h) & i);",
+          "Object t = a ? b : c ? d : e ? f : g ? h : i ? j : k ? l : m;",
+          "Object m = a.b().c(d).e(f -> f.g()).h().i(j, k).l().m().n(o).p();",
+          "int[][][] n = {{{1, 2}, {3}}, {{4, 5, 6}}, {{7}, {8, 9}, {10}}};",
+          "Map<Map<List<String>, Set<Integer>>, Map<Object, List<? extends Number>>> g = null;",
+          "Object k = /* a */ f(/* b */ g /* c */, /* d= */ h) /* e */;",
+          "Object q = new Object() { int f() { return new Object() { int g() { return 1; } }"
+              + ".hashCode(); } };");
+
+  private static final Splitter LINES = Splitter.on('\n');
+  private static final Joiner NEWLINE = Joiner.on('\n');
+
+  private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+  private final Formatter formatter = new Formatter();
+  private final Random random = new Random(SEED);
+  private final Set<String> coverage = new HashSet<>();
+
+  /** The bytes allocated to format an empty class, which every input pays. */
+  private long baseBytes;
+
+  /** A mutant, and what it cost to format. The formatted source is {@code null} if it timed out. */
+  private record Candidate(
+      String source, @Nullable String formatted, double bytesPerByte, long nanos) {}
+
+  @Test
+  public void fuzz() throws Exception {
+    threads.setThreadAllocatedMemoryEnabled(true);
+    baseBytes = Long.MAX_VALUE;
+    for (int i = 0; i < 10; i++) {
+      long before = threads.getCurrentThreadAllocatedBytes();
+      formatter.formatSource("class T {}\n");
+      baseBytes = Math.min(baseBytes, threads.getCurrentThreadAllocatedBytes() - before);
+    }
+
+    // The inputs to mutate: the test inputs, and the mutants that reach new syntax.
+    List<Candidate> corpus = new ArrayList<>();
+    // The most expensive inputs found so far, most expensive first.
+    List<Candidate> population = new ArrayList<>();
+    for (String seed : testdata()) {
+      Candidate candidate = evaluate(seed);
+      if (candidate != null) {
+        addCoverage(seed);
+        corpus.add(candidate);
+        population.add(candidate);
+      }
+    }
+    prune(population);
+
+    int kept = 0;
+    for (int i = 0; i < ITERATIONS; i++) {
+      Candidate parent = random.nextInt(4) == 0 ? pick(corpus) : select(population);
+      Candidate candidate = evaluate(mutate(parent.source(), corpus));
+      if (candidate == null) {
+        continue;
+      }
+      boolean keep = false;
+      if (addCoverage(candidate.source())) {
+        corpus.add(candidate);
+        keep = true;
+      }
+      if (candidate.bytesPerByte() > population.get(population.size() - 1).bytesPerByte()) {
+        population.add(candidate);
+        prune(population);
+        keep = true;
+      }
+      if (keep) {
+        kept++;
+      }
+    }
+    System.err.printf(Locale.ROOT, "Tried %d mutants and kept %d%n", ITERATIONS, kept);
+
+    Files.createDirectories(OUTPUT);
+    for (int i = 0; i < Math.min(FIXTURES, population.size()); i++) {
+      Candidate worst = minimize(population.get(i));
+      String name = String.format(Locale.ROOT, "PerfFuzz%d_%d", SEED, i);
+      Files.writeString(OUTPUT.resolve(name + ".input"), worst.source());
+      Path output = OUTPUT.resolve(name + ".output");
+      if (worst.formatted() == null) {
+        Files.deleteIfExists(output);
+        System.err.printf(
+            Locale.ROOT,
+            "%s: %d chars, timed out after %d s; written without an .output%n",
+            name,
+            worst.source().length(),
+            TIMEOUT.toSeconds());
+        continue;
+      }
+      Files.writeString(output, worst.formatted());
+      System.err.printf(
+          Locale.ROOT,
+          "%s: %d chars, %.0f bytes allocated per char, %d ms%n",
+          name,
+          worst.source().length(),
+          worst.bytesPerByte(),
+          worst.nanos() / 1_000_000);
+    }
+  }
+
+  /**
+   * Formats {@code source} and measures its cost, or returns {@code null} if it can't be
+   * formatted. Sources that time out are returned as infinitely expensive.
+   */
+  private @Nullable Candidate evaluate(String source) {
+    if (source.length() < MIN_LENGTH) {
+      return null;
+    }
+    Cancellation timeout = Cancellation.timeout(TIMEOUT);
+    long before = threads.getCurrentThreadAllocatedBytes();
+    long start = System.nanoTime();
+    String formatted;
+    try {
+      formatted = formatter.formatSource(source, timeout);
+    } catch (FormatterException e) {
+      if (timeout.isCancelled()) {
+        return new Candidate(
+            source, /* formatted= */ null, Double.POSITIVE_INFINITY, System.nanoTime() - start);
+      }
+      return null;
+    } catch (RuntimeException | StackOverflowError e) {
+      // Crashes are for the correctness tests to find.
+      return null;
+    }
+    long nanos = System.nanoTime() - start;
+    long bytes = threads.getCurrentThreadAllocatedBytes() - before;
+    return new Candidate(
+        source, formatted, (double) Math.max(0, bytes - baseBytes) / source.length(), nanos);
+  }
+
+  /** Keeps the most expensive candidates, most expensive first. */
+  private static void prune(List<Candidate> population) {
+    population.sort(Comparator.comparingDouble(Candidate::bytesPerByte).reversed());
+    while (population.size() > POPULATION) {
+      population.remove(population.size() - 1);
+    }
+  }
+
+  private Candidate pick(List<Candidate> candidates) {
+    return candidates.get(random.nextInt(candidates.size()));
+  }
+
+  /** Picks the more expensive of two random candidates. */
+  private Candidate select(List<Candidate> population) {
+    int a = random.nextInt(population.size());
+    int b = random.nextInt(population.size());
+    return population.get(Math.min(a, b));
+  }
+
+  private String mutate(String source, List<Candidate> corpus) {
+    List<String> lines = new ArrayList<>(LINES.splitToList(source));
+    int at = random.nextInt(lines.size());
+    int count = 1 + random.nextInt(Math.min(5, lines.size() - at));
+    switch (random.nextInt(5)) {
+      case 0 -> {
+        // Duplicate some lines, which repeats statements and members.
+        lines.addAll(at + count, ImmutableList.copyOf(lines.subList(at, at + count)));
+      }
+      case 1 -> {
+        // Repeat one line many times, to amplify what is expensive about it.
+        String line = lines.get(at);
+        for (int i = random.nextInt(20); i >= 0; i--) {
+          lines.add(at, line);
+        }
+      }
+      case 2 -> lines.subList(at, at + count).clear();
+      case 3 -> {
+        // Splice in lines from another input.
+        List<String> other = LINES.splitToList(pick(corpus).source());
+        int from = random.nextInt(other.size());
+        int to = Math.min(other.size(), from + 1 + random.nextInt(10));
+        lines.addAll(at, other.subList(from, to));
+      }
+      default -> {
+        // Insert a fragment after a line that opens a class or a block.
+        for (int i = 0; i < lines.size(); i++) {
+          int line = (at + i) % lines.size();
+          if (lines.get(line).stripTrailing().endsWith("{")) {
+            lines.add(line + 1, FRAGMENTS.get(random.nextInt(FRAGMENTS.size())));
+            break;
+          }
+        }
+      }
+    }
+    return NEWLINE.join(lines);
+  }
+
+  /**
+   * Removes lines from {@code candidate} while it stays about as expensive per byte, with the
+   * delta-debugging algorithm.
+   */
+  private Candidate minimize(Candidate candidate) {
+    List<String> lines = LINES.splitToList(candidate.source());
+    int chunk = lines.size() / 2;
+    int budget = MINIMIZATION_BUDGET;
+    while (chunk > 0 && budget > 0) {
+      boolean removed = false;
+      for (int start = 0; start < lines.size() && budget > 0; start += chunk) {
+        List<String> smaller = new ArrayList<>(lines.subList(0, start));
+        smaller.addAll(lines.subList(Math.min(lines.size(), start + chunk), lines.size()));
+        budget--;
+        Candidate evaluated = evaluate(NEWLINE.join(smaller));
+        if (evaluated != null && evaluated.bytesPerByte() >= 0.9 * candidate.bytesPerByte()) {
+          lines = smaller;
+          candidate = evaluated;
+          removed = true;
+          start -= chunk;
+        }
+      }
+      if (!removed) {
+        chunk /= 2;
+      }
+    }
+    return candidate;
+  }
+
+  /**
+   * Records the pairs of parent and child tree kinds in {@code source}, and returns true if any of
+   * them is new.
+   */
+  private boolean addCoverage(String source) {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    JavaFileObject file =
+        new SimpleJavaFileObject(URI.create("Fuzz.java"), JavaFileObject.Kind.SOURCE) {
+          @Override
+          public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+          }
+        };
+    JavacTask task =
+        (JavacTask)
+            compiler.getTask(
+                null, null, diagnostic -> {}, ImmutableList.of(), null, ImmutableList.of(file));
+    boolean novel = false;
+    try {
+      for (CompilationUnitTree unit : task.parse()) {
+        List<String> edges = new ArrayList<>();
+        new TreeScanner<Void, Tree.Kind>() {
+          @Override
+          public Void scan(Tree tree, Tree.Kind parent) {
+            if (tree != null) {
+              edges.add(parent + ">" + tree.getKind());
+              super.scan(tree, tree.getKind());
+            }
+            return null;
+          }
+        }.scan(unit, null);
+        novel |= coverage.addAll(edges);
+      }
+    } catch (IOException | StackOverflowError e) {
+      return false;
+    }
+    return novel;
+  }
+
+  /** Returns the inputs of {@link FormatterIntegrationTest}, in a fixed order. */
+  private static ImmutableList<String> testdata() throws IOException {
+    String path = "com/google/googlejavaformat/java/testdata/";
+    ClassLoader classLoader = PerformanceFuzzer.class.getClassLoader();
+    Map<String, String> sources = new TreeMap<>();
+    for (ResourceInfo resource : ClassPath.from(classLoader).getResources()) {
+      String name = resource.getResourceName();
+      if (name.startsWith(path) && name.endsWith(".input")) {
+        sources.put(name, resource.asCharSource(UTF_8).read());
+      }
+    }
+    return ImmutableList.copyOf(sources.values());
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+import static org.junit.Assume.assumeTrue;
+
+import com.google.googlejavaformat.java.JavaFormatterOptions.Style;
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests that the cost of each formatting pass grows about linearly with the size of its input, by
+ * running it on {@link SourceGenerator} inputs of doubling sizes.
+ *
+ * <p>The allocation of each pass is checked by default. Wall-clock timing is too noisy on shared
+ * machines to run by default, so it is only checked with {@code -Dtimingtests=true}.
+ */
+@RunWith(JUnit4.class)
+public final class ScalingTest {
+
+  /**
+   * The most that doubling the input may multiply the best time by. A linear pass takes about
+   * twice as long, and a quadratic one four times as long; the rest is room for noise. Since timing
+   * is noisy, this is checked across all the doublings rather than for each one.
+   */
+  private static final double MAX_TIME_GROWTH = 3.0;
+
+  private static final boolean TIMING_TESTS = Boolean.getBoolean("timingtests");
+
+  /** The most that doubling the input may multiply the allocated bytes by. */
+  private static final double MAX_ALLOCATION_GROWTH = 2.5;
+
+  private static final int DOUBLINGS = 2;
+
+  /** Warming up only matters for timing: allocation barely changes once the code is compiled. */
+  private static final int WARMUP_ROUNDS = TIMING_TESTS ? 5 : 0;
+
+  private static final int ROUNDS = TIMING_TESTS ? 3 : 2;
+
+  private interface Inputs {
+    String generate(int members) throws FormatterException;
+  }
+
+  private interface Pass {
+    String run(String input) throws FormatterException;
+  }
+
+  @Test
+  public void formatter() throws Exception {
+    Formatter formatter = new Formatter();
+    assertScalesLinearly("Formatter", SourceGenerator.create(), 100, formatter::formatSource);
+  }
+
+  @Test
+  public void formatterWithDeepNestingAndLongChains() throws Exception {
+    Formatter formatter = new Formatter();
+    SourceGenerator generator =
+        SourceGenerator.create().withNesting(12).withChainLength(40).withArrayLength(100);
+    assertScalesLinearly("Formatter", generator, 50, formatter::formatSource);
+  }
+
+  @Test
+  public void importOrderer() throws Exception {
+    assertScalesLinearly(
+        "ImportOrderer",
+        SourceGenerator.create(),
+        1000,
+        input -> ImportOrderer.reorderImports(input, Style.CUSTOM_GOOGLE));
+  }
+
+  @Test
+  public void removeUnusedImports() throws Exception {
+    assertScalesLinearly(
+        "RemoveUnusedImports",
+        SourceGenerator.create(),
+        1000,
+        RemoveUnusedImports::removeUnusedImports);
+  }
+
+  @Test
+  public void stringWrapper() throws Exception {
+    Formatter formatter = new Formatter();
+    SourceGenerator generator = SourceGenerator.create().withStringLength(600);
+    // StringWrapper expects formatted input, so format it first.
+    assertScalesLinearly(
+        "StringWrapper",
+        members -> formatter.formatSource(generator.generate(members)),
+        100,
+        input -> StringWrapper.wrap(input, formatter));
+  }
+
+  private static void assertScalesLinearly(
+      String name, SourceGenerator generator, int members, Pass pass) throws Exception {
+    assertScalesLinearly(name, generator::generate, members, pass);
+  }
+
+  private static void assertScalesLinearly(String name, Inputs inputs, int members, Pass pass)
+      throws Exception {
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    boolean measureAllocation = threads.isThreadAllocatedMemorySupported();
+    assumeTrue(measureAllocation || TIMING_TESTS);
+    if (measureAllocation) {
+      threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    // Allocation grows as linearly for smaller inputs, which are quicker to format.
+    int first = TIMING_TESTS ? members : Math.max(1, members / 2);
+    // Warm up the JIT on the smallest input, so that it doesn't slow down the first measurement.
+    String smallest = inputs.generate(first);
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      pass.run(smallest);
+    }
+
+    long firstTime = 0;
+    long time = 0;
+    long previousBytes = 0;
+    for (int doubling = 0; doubling <= DOUBLINGS; doubling++) {
+      int size = first << doubling;
+      String input = inputs.generate(size);
+      time = Long.MAX_VALUE;
+      long bytes = Long.MAX_VALUE;
+      for (int i = 0; i < ROUNDS; i++) {
+        long bytesBefore = measureAllocation ? threads.getCurrentThreadAllocatedBytes() : 0;
+        long start = System.nanoTime();
+        pass.run(input);
+        time = Math.min(time, System.nanoTime() - start);
+        if (measureAllocation) {
+          bytes = Math.min(bytes, threads.getCurrentThreadAllocatedBytes() - bytesBefore);
+        }
+      }
+      if (doubling == 0) {
+        firstTime = time;
+      } else if (measureAllocation) {
+        assertWithMessage("%s bytes for %s and %s members", name, size / 2, size)
+            .that((double) bytes / previousBytes)
+            .isAtMost(MAX_ALLOCATION_GROWTH);
+      }
+      previousBytes = bytes;
+    }
+    if (TIMING_TESTS) {
+      assertWithMessage("%s nanos for %s and %s members", name, first, first << DOUBLINGS)
+          .that((double) time / firstTime)
+          .isAtMost(Math.pow(MAX_TIME_GROWTH, DOUBLINGS));
+    }
+  }
+}
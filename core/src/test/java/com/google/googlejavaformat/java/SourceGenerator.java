@@ -0,0 +1,168 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.googlejavaformat.java;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Random;
+
+/**
+ * Generates unformatted Java compilation units of a given size and shape, for testing how the
+ * formatter's cost grows with its input. The same parameters always generate the same source.
+ *
+ * <p>Each member of the generated class is one of: a field with an array initializer, a method
+ * with nested blocks and lambdas, a method with a call chain, or a method with a long string
+ * concatenation. Every member has an import, and every other import is unused.
+ */
+final class SourceGenerator {
+
+  private final int nesting;
+  private final int chainLength;
+  private final int arrayLength;
+  private final int commentEvery;
+  private final int stringLength;
+
+  private SourceGenerator(
+      int nesting, int chainLength, int arrayLength, int commentEvery, int stringLength) {
+    checkArgument(nesting >= 0 && chainLength >= 0 && arrayLength >= 0 && stringLength >= 0);
+    checkArgument(commentEvery > 0);
+    this.nesting = nesting;
+    this.chainLength = chainLength;
+    this.arrayLength = arrayLength;
+    this.commentEvery = commentEvery;
+    this.stringLength = stringLength;
+  }
+
+  /** A generator of members of moderate size, with a Javadoc comment on every other member. */
+  static SourceGenerator create() {
+    return new SourceGenerator(
+        /* nesting= */ 3,
+        /* chainLength= */ 5,
+        /* arrayLength= */ 20,
+        /* commentEvery= */ 2,
+        /* stringLength= */ 300);
+  }
+
+  /** The depth of the blocks and lambdas nested in a method. */
+  SourceGenerator withNesting(int nesting) {
+    return new SourceGenerator(nesting, chainLength, arrayLength, commentEvery, stringLength);
+  }
+
+  /** The number of calls in a call chain. */
+  SourceGenerator withChainLength(int chainLength) {
+    return new SourceGenerator(nesting, chainLength, arrayLength, commentEvery, stringLength);
+  }
+
+  /** The number of elements in an array initializer. */
+  SourceGenerator withArrayLength(int arrayLength) {
+    return new SourceGenerator(nesting, chainLength, arrayLength, commentEvery, stringLength);
+  }
+
+  /** Puts comments on one in every {@code commentEvery} members. */
+  SourceGenerator withCommentEvery(int commentEvery) {
+    return new SourceGenerator(nesting, chainLength, arrayLength, commentEvery, stringLength);
+  }
+
+  /** The approximate length of a string concatenation, which may exceed the column limit. */
+  SourceGenerator withStringLength(int stringLength) {
+    return new SourceGenerator(nesting, chainLength, arrayLength, commentEvery, stringLength);
+  }
+
+  /** Returns a compilation unit with {@code members} members. */
+  String generate(int members) {
+    Random random = new Random(members);
+    StringBuilder sb = new StringBuilder();
+    sb.append("package com.example.generated;\n\n");
+    // Imports in reverse order, so that ImportOrderer has work to do.
+    for (int i = members - 1; i >= 0; i--) {
+      sb.append("import com.example.p").append(i % 7).append(".Type").append(i).append(";\n");
+    }
+    sb.append("\npublic class Generated {\n");
+    for (int i = 0; i < members; i++) {
+      if (i % commentEvery == 0) {
+        comment(sb, i);
+      }
+      switch (i % 4) {
+        case 0 -> arrayField(sb, i, random);
+        case 1 -> nestedMethod(sb, i);
+        case 2 -> chainMethod(sb, i);
+        default -> stringMethod(sb, i, random);
+      }
+    }
+    sb.append("}\n");
+    return sb.toString();
+  }
+
+  private static void comment(StringBuilder sb, int i) {
+    sb.append("  /**\n");
+    sb.append("   * Member number ").append(i).append(", which has a comment long enough to be");
+    sb.append(" filled\n   * onto fewer lines by the Javadoc formatter. See {@link Generated}.\n");
+    sb.append("   * <ul><li>one<li>two</ul>\n");
+    sb.append("   */\n");
+    sb.append("  // a line comment\n");
+  }
+
+  private void arrayField(StringBuilder sb, int i, Random random) {
+    // Every other member uses its import.
+    String type = i % 2 == 0 ? "Type" + i : "Object";
+    sb.append("  static final ").append(type).append("[] FIELD_").append(i).append(" = {");
+    for (int j = 0; j < arrayLength; j++) {
+      sb.append(j > 0 ? ", " : "").append("new ").append(type).append("(");
+      sb.append(random.nextInt(1000)).append(")");
+    }
+    sb.append("};\n");
+  }
+
+  private void nestedMethod(StringBuilder sb, int i) {
+    sb.append("  void method").append(i).append("(int x) {\n");
+    for (int depth = 0; depth < nesting; depth++) {
+      if (depth % 2 == 0) {
+        sb.append("if (x > ").append(depth).append(") {\n");
+      } else {
+        sb.append("run(() -> {\n");
+      }
+    }
+    sb.append("x++;\n");
+    for (int depth = nesting - 1; depth >= 0; depth--) {
+      sb.append(depth % 2 == 0 ? "}\n" : "});\n");
+    }
+    if (i % 2 == 0) {
+      sb.append("Type").append(i).append(".use(x);\n");
+    }
+    sb.append("  }\n");
+  }
+
+  private void chainMethod(StringBuilder sb, int i) {
+    sb.append("  Object method").append(i).append("() {\n");
+    sb.append("    return ").append(i % 2 == 0 ? "Type" + i : "builder").append(".create()");
+    for (int j = 0; j < chainLength; j++) {
+      sb.append(".set").append(j).append("(").append(j).append(")");
+    }
+    sb.append(".build();\n  }\n");
+  }
+
+  private void stringMethod(StringBuilder sb, int i, Random random) {
+    sb.append("  String method").append(i).append("() {\n");
+    sb.append("    return \"");
+    for (int length = 0; length < stringLength; length += 6) {
+      sb.append(random.nextBoolean() ? "words " : "text. ");
+    }
+    sb.append("\"");
+    if (i % 2 == 0) {
+      sb.append(" + Type").append(i).append(".NAME");
+    }
+    sb.append(";\n  }\n");
+  }
+}